@@ -4,18 +4,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import ai.nervemind.app.service.ExecutionAdmission;
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.common.dto.ExecutionDTO;
+import ai.nervemind.common.exception.ExecutionRejectedException;
 
 /**
  * REST API controller for workflow executions.
@@ -58,6 +63,24 @@ public class ExecutionController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Retrieves a page of node executions of a workflow execution.
+     *
+     * @param id     the execution ID
+     * @param nodeId optional node ID to only return runs of that node
+     * @param page   zero-based page index
+     * @param size   page size (at most 1000)
+     * @return the node executions on the requested page
+     */
+    @GetMapping("/{id}/nodes")
+    public List<ExecutionDTO.NodeExecutionDTO> findNodeExecutions(
+            @PathVariable final Long id,
+            @RequestParam(required = false) final String nodeId,
+            @RequestParam(defaultValue = "0") final int page,
+            @RequestParam(defaultValue = "100") final int size) {
+        return executionService.findNodeExecutions(id, nodeId, Math.max(0, page), Math.clamp(size, 1, 1000));
+    }
+
     /**
      * Retrieves all executions for a specific workflow.
      * 
@@ -80,9 +103,22 @@ public class ExecutionController {
     }
 
     /**
-     * Triggers an asynchronous workflow execution.
+     * Retrieves the state of the execution admission queue.
+     * 
+     * @return running and queued runs, wait times and rejection counts
+     */
+    @GetMapping("/admission")
+    public ExecutionAdmission.Stats admissionStats() {
+        return executionService.getAdmissionStats();
+    }
+
+    /**
+     * Triggers an asynchronous workflow execution. The run waits in the
+     * admission queue until a concurrency slot is free; if the queue is full the
+     * request is rejected with 429.
      * 
      * @param workflowId the workflow to execute
+     * @param priority   admission priority, higher values start first
      * @param input      optional input data
      * @return future with the execution result
      */
@@ -90,8 +126,9 @@ public class ExecutionController {
     @ResponseStatus(HttpStatus.ACCEPTED)
     public CompletableFuture<ExecutionDTO> executeWorkflow(
             @PathVariable final Long workflowId,
+            @RequestParam(defaultValue = "0") final int priority,
             @RequestBody(required = false) final Map<String, Object> input) {
-        return executionService.executeAsync(workflowId, input != null ? input : Map.of());
+        return executionService.executeAsync(workflowId, input != null ? input : Map.of(), priority);
     }
 
     /**
@@ -122,4 +159,17 @@ public class ExecutionController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    /**
+     * Maps a full execution queue to 429 Too Many Requests.
+     * 
+     * @param e the rejection
+     * @return 429 with the rejection message
+     */
+    @ExceptionHandler(ExecutionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleRejected(final ExecutionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage(), "workflowId", e.getWorkflowId()));
+    }
 }
@@ -0,0 +1,70 @@
+package ai.nervemind.app.api.admin;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import ai.nervemind.app.service.HttpResponseCache;
+import ai.nervemind.app.service.SharedHttpClient;
+
+/**
+ * Admin API controller for the shared HTTP client and response cache.
+ *
+ * <h2>API Endpoints</h2>
+ *
+ * <pre>{@code
+ * GET    /api/admin/http/stats   - Requests, slot waits and connection reuse per host
+ * GET    /api/admin/http/cache   - Response cache hits, misses and size
+ * DELETE /api/admin/http/cache   - Remove all cached responses
+ * }</pre>
+ */
+@RestController
+@RequestMapping("/api/admin/http")
+public class HttpClientAdminController {
+
+    private final SharedHttpClient httpClient;
+    private final HttpResponseCache responseCache;
+
+    /**
+     * Constructs a new HttpClientAdminController.
+     *
+     * @param httpClient    the shared HTTP client
+     * @param responseCache the HTTP response cache
+     */
+    public HttpClientAdminController(SharedHttpClient httpClient, HttpResponseCache responseCache) {
+        this.httpClient = httpClient;
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Retrieves the usage of the shared HTTP client.
+     *
+     * @return totals and per-host counts
+     */
+    @GetMapping("/stats")
+    public SharedHttpClient.Stats stats() {
+        return httpClient.stats();
+    }
+
+    /**
+     * Retrieves the counters of the response cache.
+     *
+     * @return hits, misses, evictions and current size
+     */
+    @GetMapping("/cache")
+    public HttpResponseCache.Stats cacheStats() {
+        return responseCache.stats();
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    @DeleteMapping("/cache")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clearCache() {
+        responseCache.clear();
+    }
+}
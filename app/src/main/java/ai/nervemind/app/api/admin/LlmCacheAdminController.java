@@ -0,0 +1,55 @@
+package ai.nervemind.app.api.admin;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import ai.nervemind.app.service.LlmResponseCache;
+
+/**
+ * Admin API controller for the LLM response cache.
+ *
+ * <h2>API Endpoints</h2>
+ *
+ * <pre>{@code
+ * GET    /api/admin/llm/cache   - Cache hits, coalesced requests, misses and size
+ * DELETE /api/admin/llm/cache   - Remove all cached responses
+ * }</pre>
+ */
+@RestController
+@RequestMapping("/api/admin/llm")
+public class LlmCacheAdminController {
+
+    private final LlmResponseCache responseCache;
+
+    /**
+     * Constructs a new LlmCacheAdminController.
+     *
+     * @param responseCache the LLM response cache
+     */
+    public LlmCacheAdminController(LlmResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Retrieves the counters of the response cache.
+     *
+     * @return hits, coalesced requests, misses and current size
+     */
+    @GetMapping("/cache")
+    public LlmResponseCache.Stats cacheStats() {
+        return responseCache.stats();
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    @DeleteMapping("/cache")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clearCache() {
+        responseCache.clear();
+    }
+}
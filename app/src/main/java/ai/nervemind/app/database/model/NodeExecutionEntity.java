@@ -0,0 +1,280 @@
+package ai.nervemind.app.database.model;
+
+import java.time.Instant;
+
+import ai.nervemind.common.enums.ExecutionStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * JPA Entity for a single node run within a workflow execution.
+ */
+@Entity
+@Table(name = "node_executions", indexes = {
+        @Index(name = "idx_node_executions_execution", columnList = "execution_id")
+})
+public class NodeExecutionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "execution_id", nullable = false)
+    private Long executionId;
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "node_type", nullable = false, length = 100)
+    private String nodeType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExecutionStatus status;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "input_data_json", columnDefinition = "CLOB")
+    private String inputDataJson;
+
+    @Column(name = "output_data_json", columnDefinition = "CLOB")
+    private String outputDataJson;
+
+    @Column(name = "error_message", length = 4000)
+    private String errorMessage;
+
+    @Column(name = "run_sequence")
+    private Long runSequence;
+
+    /**
+     * Default constructor for JPA.
+     */
+    protected NodeExecutionEntity() {
+    }
+
+    /**
+     * Creates a new NodeExecutionEntity.
+     *
+     * @param executionId the owning execution ID
+     * @param nodeId      the node ID
+     * @param nodeType    the node type
+     * @param status      the node execution status
+     */
+    public NodeExecutionEntity(Long executionId, String nodeId, String nodeType, ExecutionStatus status) {
+        this.executionId = executionId;
+        this.nodeId = nodeId;
+        this.nodeType = nodeType;
+        this.status = status;
+    }
+
+    // Getters and Setters
+
+    /**
+     * Gets the node execution ID.
+     *
+     * @return the node execution ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the node execution ID.
+     *
+     * @param id the node execution ID to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the owning execution ID.
+     *
+     * @return the execution ID
+     */
+    public Long getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     * Sets the owning execution ID.
+     *
+     * @param executionId the execution ID to set
+     */
+    public void setExecutionId(Long executionId) {
+        this.executionId = executionId;
+    }
+
+    /**
+     * Gets the node ID.
+     *
+     * @return the node ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Sets the node ID.
+     *
+     * @param nodeId the node ID to set
+     */
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Gets the node type.
+     *
+     * @return the node type
+     */
+    public String getNodeType() {
+        return nodeType;
+    }
+
+    /**
+     * Sets the node type.
+     *
+     * @param nodeType the node type to set
+     */
+    public void setNodeType(String nodeType) {
+        this.nodeType = nodeType;
+    }
+
+    /**
+     * Gets the node execution status.
+     *
+     * @return the node execution status
+     */
+    public ExecutionStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the node execution status.
+     *
+     * @param status the node execution status to set
+     */
+    public void setStatus(ExecutionStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the start timestamp.
+     *
+     * @return the start timestamp
+     */
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Sets the start timestamp.
+     *
+     * @param startedAt the start timestamp to set
+     */
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Gets the finish timestamp.
+     *
+     * @return the finish timestamp
+     */
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Sets the finish timestamp.
+     *
+     * @param finishedAt the finish timestamp to set
+     */
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Gets the input data JSON.
+     *
+     * @return the input data JSON string
+     */
+    public String getInputDataJson() {
+        return inputDataJson;
+    }
+
+    /**
+     * Sets the input data JSON.
+     *
+     * @param inputDataJson the input data JSON string to set
+     */
+    public void setInputDataJson(String inputDataJson) {
+        this.inputDataJson = inputDataJson;
+    }
+
+    /**
+     * Gets the output data JSON.
+     *
+     * @return the output data JSON string
+     */
+    public String getOutputDataJson() {
+        return outputDataJson;
+    }
+
+    /**
+     * Sets the output data JSON.
+     *
+     * @param outputDataJson the output data JSON string to set
+     */
+    public void setOutputDataJson(String outputDataJson) {
+        this.outputDataJson = outputDataJson;
+    }
+
+    /**
+     * Gets the error message.
+     *
+     * @return the error message string
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Sets the error message.
+     *
+     * @param errorMessage the error message string to set
+     */
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Gets the position of the run in its execution.
+     *
+     * @return the run sequence, or null for runs recorded before it was kept
+     */
+    public Long getRunSequence() {
+        return runSequence;
+    }
+
+    /**
+     * Sets the position of the run in its execution.
+     *
+     * @param runSequence the run sequence to set
+     */
+    public void setRunSequence(Long runSequence) {
+        this.runSequence = runSequence;
+    }
+}
@@ -0,0 +1,46 @@
+package ai.nervemind.app.database.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ai.nervemind.app.database.model.NodeExecutionEntity;
+
+/**
+ * Repository for per-node execution records.
+ */
+@Repository
+public interface NodeExecutionRepository extends JpaRepository<NodeExecutionEntity, Long> {
+
+    /**
+     * Find all node executions of an execution.
+     *
+     * @param executionId the execution ID
+     * @return list of node execution entities in the order they were recorded
+     */
+    List<NodeExecutionEntity> findByExecutionIdOrderByIdAsc(Long executionId);
+
+    /**
+     * Find paginated node executions of an execution.
+     *
+     * @param executionId the execution ID
+     * @param pageable    pagination information
+     * @return page of node execution entities in the order they were recorded
+     */
+    Page<NodeExecutionEntity> findByExecutionIdOrderByIdAsc(Long executionId, Pageable pageable);
+
+    /**
+     * Find paginated runs of one node within an execution (e.g. loop
+     * iterations).
+     *
+     * @param executionId the execution ID
+     * @param nodeId      the node ID
+     * @param pageable    pagination information
+     * @return page of node execution entities in the order they were recorded
+     */
+    Page<NodeExecutionEntity> findByExecutionIdAndNodeIdOrderByIdAsc(Long executionId, String nodeId,
+            Pageable pageable);
+}
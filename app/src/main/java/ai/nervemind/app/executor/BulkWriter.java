@@ -0,0 +1,249 @@
+package ai.nervemind.app.executor;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import ai.nervemind.app.service.Table;
+
+/**
+ * Writes rows with JDBC statement batches.
+ *
+ * <p>
+ * Rows are bound to one prepared statement, sent {@code batchSize} at a time
+ * and committed every {@code transactionSize} rows, so loading many rows
+ * costs one round trip per batch instead of one per row. Rows given as a
+ * {@link Table} are read column by column without building row maps.
+ * </p>
+ *
+ * <p>
+ * A batch that fails is reported with its index, row offset and row count.
+ * When writing continues after errors, each batch is written under a
+ * savepoint and a failed batch is rolled back on its own; otherwise the
+ * failed transaction is rolled back and writing stops.
+ * </p>
+ */
+final class BulkWriter {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_]\\w*(\\.[A-Za-z_]\\w*)?");
+
+    /**
+     * A batch that could not be written.
+     *
+     * @param batchIndex the batch's index
+     * @param rowOffset  the index of the batch's first row
+     * @param rowCount   the number of rows in the batch
+     * @param message    the database's error message
+     */
+    record BatchError(int batchIndex, long rowOffset, int rowCount, String message) {
+
+        Map<String, Object> toMap() {
+            return Map.of("batchIndex", batchIndex, "rowOffset", rowOffset, "rowCount", rowCount,
+                    "message", message != null ? message : "");
+        }
+    }
+
+    /**
+     * The outcome of a write.
+     *
+     * @param rowsWritten  rows in batches that were committed
+     * @param rowsAffected rows the database reported as inserted or updated
+     * @param batches      the number of batches sent
+     * @param errors       the batches that failed
+     */
+    record Result(long rowsWritten, long rowsAffected, int batches, List<BatchError> errors) {
+    }
+
+    private final String sql;
+    private final List<String> columns;
+    private final int batchSize;
+    private final int transactionSize;
+    private final boolean continueOnError;
+    private final int timeout;
+
+    /**
+     * Creates a writer.
+     *
+     * @param sql             the statement, with one {@code ?} per column
+     * @param columns         the row fields bound to the placeholders, in order
+     * @param batchSize       rows per batch
+     * @param transactionSize rows per transaction; rounded up to whole batches
+     * @param continueOnError whether to write the remaining batches after one
+     *                        fails
+     * @param timeout         the timeout of each batch in seconds
+     */
+    BulkWriter(String sql, List<String> columns, int batchSize, int transactionSize, boolean continueOnError,
+            int timeout) {
+        this.sql = sql;
+        this.columns = columns;
+        this.batchSize = batchSize;
+        this.transactionSize = transactionSize;
+        this.continueOnError = continueOnError;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Builds an insert statement.
+     *
+     * @param table   the table
+     * @param columns the columns to insert
+     * @return the statement
+     */
+    static String insertSql(String table, List<String> columns) {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + placeholders(columns.size()) + ")";
+    }
+
+    /**
+     * Builds an H2 upsert statement, which updates the row with the same key
+     * values or inserts it when there is none.
+     *
+     * @param table      the table
+     * @param columns    the columns to write
+     * @param keyColumns the columns that identify a row; the primary key when
+     *                   empty
+     * @return the statement
+     */
+    static String upsertSql(String table, List<String> columns, List<String> keyColumns) {
+        String key = keyColumns.isEmpty() ? "" : " KEY (" + String.join(", ", keyColumns) + ")";
+        return "MERGE INTO " + table + " (" + String.join(", ", columns) + ")" + key + " VALUES ("
+                + placeholders(columns.size()) + ")";
+    }
+
+    /**
+     * Checks that a table or column name can be put into a statement.
+     *
+     * @param name the name, optionally qualified by a schema
+     * @return whether it is a plain identifier
+     */
+    static boolean isIdentifier(String name) {
+        return IDENTIFIER.matcher(name).matches();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Writes rows.
+     *
+     * @param conn the connection; its auto-commit mode is restored afterwards
+     * @param rows the rows, as maps or a {@link Table}
+     * @return the outcome
+     * @throws SQLException if a batch fails and writing does not continue
+     *                      after errors, or the connection fails; the
+     *                      uncommitted rows are rolled back
+     */
+    Result write(Connection conn, List<? extends Map<String, Object>> rows) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(timeout);
+            return write(conn, stmt, rows);
+        } catch (SQLException | RuntimeException e) {
+            // Restoring auto-commit would otherwise commit the partial transaction
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Result write(Connection conn, PreparedStatement stmt, List<? extends Map<String, Object>> rows)
+            throws SQLException {
+        Binder binder = binder(rows);
+        int batchesPerTransaction = Math.max(1, (transactionSize + batchSize - 1) / batchSize);
+        List<BatchError> errors = new ArrayList<>();
+        long committed = 0;
+        long pending = 0;
+        long affected = 0;
+        int batchIndex = 0;
+
+        for (int start = 0; start < rows.size(); start += batchSize, batchIndex++) {
+            int end = Math.min(start + batchSize, rows.size());
+            for (int row = start; row < end; row++) {
+                binder.bind(stmt, row);
+                stmt.addBatch();
+            }
+
+            Savepoint savepoint = continueOnError ? conn.setSavepoint() : null;
+            try {
+                affected += affectedRows(stmt.executeBatch());
+                pending += end - start;
+                if (savepoint != null) {
+                    conn.releaseSavepoint(savepoint);
+                }
+            } catch (SQLException e) {
+                stmt.clearBatch();
+                BatchError error = new BatchError(batchIndex, start, end - start, rowError(e).getMessage());
+                if (savepoint == null) {
+                    throw failure(error, committed, e);
+                }
+                errors.add(error);
+                conn.rollback(savepoint);
+            }
+
+            if ((batchIndex + 1) % batchesPerTransaction == 0) {
+                conn.commit();
+                committed += pending;
+                pending = 0;
+            }
+        }
+        conn.commit();
+        committed += pending;
+        return new Result(committed, affected, batchIndex, errors);
+    }
+
+    private static long affectedRows(int[] counts) {
+        long affected = 0;
+        for (int count : counts) {
+            // Drivers may not report counts of batched statements
+            affected += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return affected;
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement stmt, int row) throws SQLException;
+    }
+
+    private Binder binder(List<? extends Map<String, Object>> rows) {
+        if (rows instanceof Table table) {
+            Table.Column[] bound = new Table.Column[columns.size()];
+            for (int i = 0; i < bound.length; i++) {
+                bound[i] = table.column(columns.get(i));
+            }
+            return (stmt, row) -> {
+                for (int i = 0; i < bound.length; i++) {
+                    stmt.setObject(i + 1, bound[i] != null ? bound[i].get(row) : null);
+                }
+            };
+        }
+        return (stmt, row) -> {
+            Map<String, Object> values = rows.get(row);
+            for (int i = 0; i < columns.size(); i++) {
+                stmt.setObject(i + 1, values != null ? values.get(columns.get(i)) : null);
+            }
+        };
+    }
+
+    private static SQLException rowError(SQLException e) {
+        // H2 and PostgreSQL give the failed row's own error as the next exception
+        return e instanceof BatchUpdateException && e.getNextException() != null ? e.getNextException() : e;
+    }
+
+    private static SQLException failure(BatchError error, long committed, SQLException e) {
+        return new SQLException("Batch " + error.batchIndex() + " (rows " + error.rowOffset() + "-"
+                + (error.rowOffset() + error.rowCount() - 1) + ") failed after " + committed
+                + " rows were committed: " + error.message(), e.getSQLState(), e.getErrorCode(), rowError(e));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026 NerveMind
+ * Licensed under the MIT License
+ */
+package ai.nervemind.app.executor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ai.nervemind.app.service.StreamedItems;
+import ai.nervemind.app.service.Table;
+
+/**
+ * CSV rows read in fixed-size batches while a loop runs over them.
+ *
+ * <p>
+ * The source is opened on the first call to {@link #next()} and parsed
+ * one batch at a time, so only the current batch is held in memory however
+ * large the file is. Each item is a map with the batch's {@code rows} as a
+ * {@link Table}, its {@code batchIndex}, the {@code rowOffset} of its first
+ * row and its {@code rowCount}.
+ * </p>
+ */
+final class CsvBatches implements StreamedItems {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvBatches.class);
+
+    /**
+     * Opens the CSV text.
+     */
+    @FunctionalInterface
+    interface Source {
+        /**
+         * Opens the text from the start.
+         *
+         * @return a reader over the CSV text
+         * @throws IOException if the source cannot be opened
+         */
+        Reader open() throws IOException;
+    }
+
+    private final Source source;
+    private final char delimiter;
+    private final boolean hasHeader;
+    private final List<String> columns;
+    private final int batchSize;
+
+    private CsvParser parser;
+    private boolean finished;
+    private int batchIndex;
+    private long rowOffset;
+
+    CsvBatches(Source source, char delimiter, boolean hasHeader, List<String> columns, int batchSize) {
+        this.source = source;
+        this.delimiter = delimiter;
+        this.hasHeader = hasHeader;
+        this.columns = columns;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public synchronized Object next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (parser == null) {
+            parser = new CsvParser(source.open(), delimiter);
+            if (hasHeader) {
+                parser.next();
+            }
+        }
+
+        Table.Builder builder = Table.builder(columns);
+        String[] fields;
+        while (builder.size() < batchSize && (fields = parser.next()) != null) {
+            builder.add((Object[]) CsvParser.pad(fields, columns.size()));
+        }
+        if (builder.size() < batchSize) {
+            close();
+        }
+        if (builder.size() == 0) {
+            return null;
+        }
+        Table rows = builder.build();
+
+        Map<String, Object> batch = new HashMap<>();
+        batch.put("rows", rows);
+        batch.put("batchIndex", batchIndex++);
+        batch.put("rowOffset", rowOffset);
+        batch.put("rowCount", rows.size());
+        rowOffset += rows.size();
+        return batch;
+    }
+
+    @Override
+    public synchronized void close() {
+        finished = true;
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                log.debug("Failed to close CSV source: {}", e.getMessage());
+            }
+            parser = null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> describe() {
+        return Map.of("streaming", true, "columns", columns, "batchSize", batchSize);
+    }
+
+    @Override
+    public String toString() {
+        return "CSV batches of " + batchSize + " rows, columns " + columns;
+    }
+}
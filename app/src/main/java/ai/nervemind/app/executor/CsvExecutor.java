@@ -4,17 +4,19 @@
  */
 package ai.nervemind.app.executor;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +25,7 @@ import org.springframework.stereotype.Component;
 import ai.nervemind.app.service.ExecutionLogger;
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.Table;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.exception.NodeExecutionException;
 
@@ -86,13 +89,38 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * <td>No</td>
  * <td>Comma-separated column names for WRITE header</td>
  * </tr>
+ * <tr>
+ * <td>stream</td>
+ * <td>Boolean</td>
+ * <td>No</td>
+ * <td>Read rows in batches while a loop runs instead of all at once
+ * (READ, default: false)</td>
+ * </tr>
+ * <tr>
+ * <td>batchSize</td>
+ * <td>Integer</td>
+ * <td>No</td>
+ * <td>Rows per batch when streaming (default: 1000)</td>
+ * </tr>
  * </table>
  *
+ * <p>
+ * Without {@code stream}, READ returns at most 50,000 rows and sets
+ * {@code truncated} when the source has more. With {@code stream}, only the
+ * header is read up front; connect {@code batches} to a Loop node's
+ * {@code items} and each iteration receives the next batch as {@code item},
+ * so files of any size are processed with one batch in memory.
+ * </p>
+ *
  * <h2>Output Data</h2>
  * <ul>
- * <li><strong>rows</strong> - List of row maps (READ) keyed by column name</li>
+ * <li><strong>rows</strong> - List of row maps (READ) keyed by column name, as
+ * a {@link Table}</li>
  * <li><strong>columns</strong> - List of column names</li>
  * <li><strong>rowCount</strong> - Number of rows</li>
+ * <li><strong>truncated</strong> - Whether rows were left unread (READ)</li>
+ * <li><strong>batches</strong> - Row batches for a Loop node (READ with
+ * stream)</li>
  * <li><strong>success</strong> - Boolean</li>
  * <li><strong>filePath</strong> - Written file path (WRITE only)</li>
  * </ul>
@@ -104,6 +132,7 @@ import ai.nervemind.common.exception.NodeExecutionException;
 public class CsvExecutor implements NodeExecutor {
 
     private static final int MAX_ROWS = 50_000;
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
 
     /**
      * Default constructor.
@@ -140,44 +169,23 @@ public class CsvExecutor implements NodeExecutor {
         return "csv";
     }
 
-    @SuppressWarnings("unchecked")
     private Map<String, Object> executeRead(Map<String, Object> params,
             Map<String, Object> input, String delimiter, boolean hasHeader,
             ExecutionService.ExecutionContext context) {
-        String content = (String) params.getOrDefault("content", "");
-        String filePath = (String) params.getOrDefault("filePath", "");
+        CsvBatches.Source source = csvSource(params, input);
+        char delim = delimiter.isEmpty() ? ',' : delimiter.charAt(0);
+        boolean stream = extractBoolean(params.get("stream"), false);
 
-        BufferedReader reader;
+        Reader reader;
         try {
-            if (!content.isBlank()) {
-                reader = new BufferedReader(new StringReader(content));
-            } else if (!filePath.isBlank()) {
-                Path path = Path.of(filePath).toAbsolutePath().normalize();
-                reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
-            } else {
-                // Try to read from input data
-                Object inputContent = input.get("body");
-                if (inputContent == null) {
-                    inputContent = input.get("content");
-                }
-                if (inputContent == null) {
-                    throw new NodeExecutionException(
-                            "No CSV source specified. Provide 'filePath', 'content', or pass data via input.");
-                }
-                reader = new BufferedReader(new StringReader(inputContent.toString()));
-            }
+            reader = source.open();
         } catch (IOException e) {
             throw new NodeExecutionException("Failed to open CSV source: " + e.getMessage(), e);
         }
 
-        try (reader) {
-            List<String[]> rawRows = new ArrayList<>();
-            String line;
-            while ((line = reader.readLine()) != null && rawRows.size() < MAX_ROWS) {
-                rawRows.add(parseCsvLine(line, delimiter));
-            }
-
-            if (rawRows.isEmpty()) {
+        try (CsvParser parser = new CsvParser(reader, delim)) {
+            String[] first = parser.next();
+            if (first == null) {
                 Map<String, Object> output = new HashMap<>();
                 output.put("rows", List.of());
                 output.put("columns", List.of());
@@ -187,39 +195,61 @@ public class CsvExecutor implements NodeExecutor {
             }
 
             List<String> columns;
-            int dataStart;
             if (hasHeader) {
-                columns = List.of(rawRows.getFirst());
-                dataStart = 1;
+                columns = List.of(first);
             } else {
                 // Generate column names: col0, col1, col2...
-                int colCount = rawRows.getFirst().length;
-                columns = new ArrayList<>(colCount);
-                for (int i = 0; i < colCount; i++) {
+                columns = new ArrayList<>(first.length);
+                for (int i = 0; i < first.length; i++) {
                     columns.add("col" + i);
                 }
-                dataStart = 0;
+            }
+            if (stream) {
+                int batchSize = params.get("batchSize") instanceof Number n
+                        ? Math.max(1, n.intValue())
+                        : DEFAULT_BATCH_SIZE;
+                // Only the first record was read to learn the columns; the
+                // batches read the source again while the loop runs
+                Map<String, Object> output = new HashMap<>();
+                output.put("batches", new CsvBatches(source, delim, hasHeader, columns, batchSize));
+                output.put("columns", columns);
+                output.put("batchSize", batchSize);
+                output.put("streaming", true);
+                output.put("success", true);
+                return output;
             }
 
-            List<Map<String, Object>> rows = new ArrayList<>(rawRows.size());
-            for (int i = dataStart; i < rawRows.size(); i++) {
-                String[] values = rawRows.get(i);
-                Map<String, Object> row = new LinkedHashMap<>(columns.size());
-                for (int j = 0; j < columns.size(); j++) {
-                    row.put(columns.get(j), j < values.length ? values[j] : "");
+            Table.Builder builder = Table.builder(columns);
+            if (!hasHeader) {
+                builder.add((Object[]) first);
+            }
+            boolean truncated = false;
+            String[] fields;
+            while ((fields = parser.next()) != null) {
+                if (builder.size() == MAX_ROWS) {
+                    truncated = true;
+                    break;
                 }
-                rows.add(row);
+                builder.add((Object[]) CsvParser.pad(fields, columns.size()));
             }
+            Table rows = builder.build();
 
             context.getExecutionLogger().custom(context.getExecutionId().toString(),
                     ExecutionLogger.LogLevel.DEBUG,
                     "CSV READ: " + rows.size() + " rows, " + columns.size() + " columns",
                     Map.of());
+            if (truncated) {
+                context.getExecutionLogger().custom(context.getExecutionId().toString(),
+                        ExecutionLogger.LogLevel.WARN,
+                        "CSV READ stopped after " + MAX_ROWS + " rows; use stream=true to process all rows",
+                        Map.of());
+            }
 
             Map<String, Object> output = new HashMap<>();
             output.put("rows", rows);
             output.put("columns", columns);
             output.put("rowCount", rows.size());
+            output.put("truncated", truncated);
             output.put("success", true);
             return output;
 
@@ -228,6 +258,35 @@ public class CsvExecutor implements NodeExecutor {
         }
     }
 
+    /**
+     * Finds the CSV text: inline content, a file, or the input's body or
+     * content.
+     */
+    private CsvBatches.Source csvSource(Map<String, Object> params, Map<String, Object> input) {
+        String content = (String) params.getOrDefault("content", "");
+        String filePath = (String) params.getOrDefault("filePath", "");
+
+        if (!content.isBlank()) {
+            return () -> new StringReader(content);
+        }
+        if (!filePath.isBlank()) {
+            Path path = Path.of(filePath).toAbsolutePath().normalize();
+            return () -> Channels.newReader(FileChannel.open(path, StandardOpenOption.READ),
+                    StandardCharsets.UTF_8.newDecoder(), -1);
+        }
+        // Try to read from input data
+        Object inputContent = input.get("body");
+        if (inputContent == null) {
+            inputContent = input.get("content");
+        }
+        if (inputContent == null) {
+            throw new NodeExecutionException(
+                    "No CSV source specified. Provide 'filePath', 'content', or pass data via input.");
+        }
+        String text = inputContent.toString();
+        return () -> new StringReader(text);
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, Object> executeWrite(Map<String, Object> params,
             Map<String, Object> input, String delimiter, boolean hasHeader,
@@ -242,7 +301,9 @@ public class CsvExecutor implements NodeExecutor {
         }
 
         List<Map<String, Object>> rows;
-        if (dataSource instanceof List<?> list) {
+        if (dataSource instanceof Table table) {
+            rows = table;
+        } else if (dataSource instanceof List<?> list) {
             rows = new ArrayList<>();
             for (Object item : list) {
                 if (item instanceof Map<?, ?> map) {
@@ -313,45 +374,6 @@ public class CsvExecutor implements NodeExecutor {
         }
     }
 
-    /**
-     * Parses a single CSV line respecting quoted fields.
-     */
-    private String[] parseCsvLine(String line, String delimiter) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-        char delim = delimiter.isEmpty() ? ',' : delimiter.charAt(0);
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (inQuotes) {
-                if (c == '"') {
-                    // Check for escaped quote
-                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                        current.append('"');
-                        i++;
-                    } else {
-                        inQuotes = false;
-                    }
-                } else {
-                    current.append(c);
-                }
-            } else {
-                if (c == '"') {
-                    inQuotes = true;
-                } else if (c == delim) {
-                    fields.add(current.toString());
-                    current.setLength(0);
-                } else {
-                    current.append(c);
-                }
-            }
-        }
-        fields.add(current.toString());
-
-        return fields.toArray(String[]::new);
-    }
-
     /**
      * Converts values to a CSV line with proper quoting.
      */
@@ -362,7 +384,7 @@ public class CsvExecutor implements NodeExecutor {
                 sb.append(delimiter);
             }
             String val = values[i];
-            if (val.contains(delimiter) || val.contains("\"") || val.contains("\n")) {
+            if (val.contains(delimiter) || val.contains("\"") || val.contains("\n") || val.contains("\r")) {
                 sb.append('"').append(val.replace("\"", "\"\"")).append('"');
             } else {
                 sb.append(val);
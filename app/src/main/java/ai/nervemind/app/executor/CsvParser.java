@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 NerveMind
+ * Licensed under the MIT License
+ */
+package ai.nervemind.app.executor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads records from CSV text as described by RFC 4180.
+ *
+ * <p>
+ * Fields may be quoted; quoted fields can contain delimiters, line breaks
+ * and quotes written as {@code ""}. Records end with CRLF, LF or CR. Beyond
+ * the RFC, a leading byte order mark is skipped, empty lines are skipped,
+ * and a quote inside an unquoted field is kept as a literal character.
+ * </p>
+ *
+ * <p>
+ * Input is read through a private char buffer, so no line strings are
+ * built; only one string per field is allocated.
+ * </p>
+ */
+final class CsvParser implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END = -1;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private int fieldsPerRecord = 8;
+    private boolean started;
+
+    /**
+     * Creates a parser.
+     *
+     * @param reader    the CSV text; closed with the parser
+     * @param delimiter the field delimiter
+     */
+    CsvParser(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws IOException if the input cannot be read or ends inside a
+     *                     quoted field
+     */
+    String[] next() throws IOException {
+        if (!started) {
+            started = true;
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+        }
+        int c;
+        // Skip empty lines
+        while ((c = read()) == '\r' || c == '\n') {
+            if (c == '\r' && peek() == '\n') {
+                position++;
+            }
+            line++;
+        }
+        if (c == END) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>(fieldsPerRecord);
+        field.setLength(0);
+        long recordLine = line;
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == END) {
+                    throw new IOException("Unterminated quoted field in record starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        position++;
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == '\r' || c == END) {
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                if (c != END) {
+                    line++;
+                }
+                fields.add(field.toString());
+                fieldsPerRecord = fields.size();
+                return fields.toArray(String[]::new);
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Pads a record with empty fields up to the number of columns.
+     *
+     * @param fields the fields of a record
+     * @param width  the number of columns
+     * @return the fields, or a padded copy if there are fewer than
+     *         {@code width}
+     */
+    static String[] pad(String[] fields, int width) {
+        if (fields.length >= width) {
+            return fields;
+        }
+        String[] padded = Arrays.copyOf(fields, width);
+        Arrays.fill(padded, fields.length, width, "");
+        return padded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
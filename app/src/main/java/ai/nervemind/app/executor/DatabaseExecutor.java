@@ -5,22 +5,21 @@
 package ai.nervemind.app.executor;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.stereotype.Component;
 
+import ai.nervemind.app.service.DatabaseConnectionPools;
 import ai.nervemind.app.service.ExecutionLogger;
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.Table;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.exception.NodeExecutionException;
 
@@ -58,20 +57,23 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * <td>password</td>
  * <td>String</td>
  * <td>No</td>
- * <td>Database password (default: empty)</td>
+ * <td>Database password (default: empty). Ignored when a credential is
+ * assigned to the node; the credential's value is used instead.</td>
  * </tr>
  * <tr>
  * <td>operation</td>
  * <td>String</td>
  * <td>No</td>
- * <td>Operation type: SELECT, INSERT, UPDATE, DELETE, DDL (default:
+ * <td>Operation type: SELECT, INSERT, UPDATE, DELETE, DDL, BULK (default:
  * SELECT)</td>
  * </tr>
  * <tr>
  * <td>query</td>
  * <td>String</td>
  * <td>Yes</td>
- * <td>SQL query with optional ? placeholders</td>
+ * <td>SQL query with optional ? placeholders. For BULK, an optional statement
+ * with one ? per column, used instead of the insert or upsert built from
+ * {@code table}</td>
  * </tr>
  * <tr>
  * <td>parameters</td>
@@ -83,7 +85,76 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * <td>maxRows</td>
  * <td>Integer</td>
  * <td>No</td>
- * <td>Max rows to return for SELECT (default: 1000)</td>
+ * <td>Max rows to return for SELECT (default: 1000, at most 10000). Not
+ * applied when streaming.</td>
+ * </tr>
+ * <tr>
+ * <td>stream</td>
+ * <td>Boolean</td>
+ * <td>No</td>
+ * <td>Stream SELECT results in batches to a following Loop node instead of
+ * returning them (default: false)</td>
+ * </tr>
+ * <tr>
+ * <td>fetchSize</td>
+ * <td>Integer</td>
+ * <td>No</td>
+ * <td>Rows fetched from the database at a time when streaming (default:
+ * 500)</td>
+ * </tr>
+ * <tr>
+ * <td>batchSize</td>
+ * <td>Integer</td>
+ * <td>No</td>
+ * <td>Rows per batch when streaming or bulk writing (default: 1000)</td>
+ * </tr>
+ * <tr>
+ * <td>rowsField</td>
+ * <td>String</td>
+ * <td>No</td>
+ * <td>BULK: input field holding the rows to write, as a list of objects or a
+ * {@link Table} (default: rows)</td>
+ * </tr>
+ * <tr>
+ * <td>table</td>
+ * <td>String</td>
+ * <td>No</td>
+ * <td>BULK: table to write to; required without a query</td>
+ * </tr>
+ * <tr>
+ * <td>columns</td>
+ * <td>String</td>
+ * <td>No</td>
+ * <td>BULK: comma-separated row fields to write (default: the fields of the
+ * first row)</td>
+ * </tr>
+ * <tr>
+ * <td>upsert</td>
+ * <td>Boolean</td>
+ * <td>No</td>
+ * <td>BULK: update rows that already exist instead of failing
+ * (default: false)</td>
+ * </tr>
+ * <tr>
+ * <td>keyColumns</td>
+ * <td>String</td>
+ * <td>No</td>
+ * <td>BULK: comma-separated columns that identify an existing row for an
+ * upsert (default: the primary key)</td>
+ * </tr>
+ * <tr>
+ * <td>transactionSize</td>
+ * <td>Integer</td>
+ * <td>No</td>
+ * <td>BULK: rows committed per transaction, in whole batches (default:
+ * 10000)</td>
+ * </tr>
+ * <tr>
+ * <td>continueOnError</td>
+ * <td>Boolean</td>
+ * <td>No</td>
+ * <td>BULK: skip batches that fail and report them in {@code errors}
+ * instead of failing the node (default: false)</td>
  * </tr>
  * <tr>
  * <td>timeout</td>
@@ -95,14 +166,50 @@ import ai.nervemind.common.exception.NodeExecutionException;
  *
  * <h2>Output Data</h2>
  * <ul>
- * <li><strong>rows</strong> - List of row maps (SELECT only)</li>
+ * <li><strong>rows</strong> - List of row maps as a {@link Table} (SELECT
+ * only)</li>
  * <li><strong>columns</strong> - List of column names (SELECT only)</li>
  * <li><strong>rowCount</strong> - Number of rows returned or affected</li>
- * <li><strong>success</strong> - Boolean indicating success</li>
+ * <li><strong>rowsWritten</strong> - Rows committed (BULK only)</li>
+ * <li><strong>batches</strong> - Number of batches sent (BULK only)</li>
+ * <li><strong>errors</strong> - Failed batches with their
+ * {@code batchIndex}, {@code rowOffset}, {@code rowCount} and
+ * {@code message} (BULK only)</li>
+ * <li><strong>success</strong> - Boolean indicating success; false when a
+ * bulk write skipped failed batches</li>
  * <li><strong>executionTime</strong> - Query execution time in
  * milliseconds</li>
  * </ul>
  *
+ * <h2>Streaming</h2>
+ * <p>
+ * With {@code stream} set, the query does not run until a Loop node reads
+ * the output's {@code batches}. Each loop iteration then receives one batch
+ * with its {@code rows} as a {@link Table}, its {@code batchIndex}, the
+ * {@code rowOffset} of its first row and its {@code rowCount}. There is no
+ * row limit; only the current batch is held in memory.
+ * </p>
+ *
+ * <h2>Bulk Writes</h2>
+ * <p>
+ * BULK writes many rows with one prepared statement, sending
+ * {@code batchSize} rows per round trip and committing every
+ * {@code transactionSize} rows. Without a {@code query} it inserts into
+ * {@code table}, or with {@code upsert} runs an H2 {@code MERGE INTO ... KEY}
+ * statement. Connected after a streaming node in a loop, each batch's
+ * {@code rows} are written as they arrive. When a batch fails without
+ * {@code continueOnError}, its transaction is rolled back and the error
+ * names the batch and how many rows were already committed.
+ * </p>
+ *
+ * <h2>Connections</h2>
+ * <p>
+ * Connections are borrowed from {@link DatabaseConnectionPools}, one pool
+ * per URL and credentials, so repeated runs reuse open connections and the
+ * prepared statements cached on them. An in-memory database therefore stays
+ * alive between runs until its pool is closed for being idle.
+ * </p>
+ *
  * <h2>Security</h2>
  * <p>
  * Uses {@link PreparedStatement} with parameter bindings to prevent SQL
@@ -120,11 +227,20 @@ public class DatabaseExecutor implements NodeExecutor {
     private static final int DEFAULT_TIMEOUT = 30;
     private static final int MAX_ALLOWED_ROWS = 10_000;
 
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_TRANSACTION_SIZE = 10_000;
+    private static final String BULK = "BULK";
+
+    private final DatabaseConnectionPools pools;
+
     /**
-     * Default constructor.
+     * Creates a new DatabaseExecutor.
+     *
+     * @param pools the pools connections are borrowed from
      */
-    public DatabaseExecutor() {
-        // Default constructor
+    public DatabaseExecutor(DatabaseConnectionPools pools) {
+        this.pools = pools;
     }
 
     @Override
@@ -134,9 +250,13 @@ public class DatabaseExecutor implements NodeExecutor {
 
         String jdbcUrl = getRequiredString(params, "jdbcUrl");
         String username = (String) params.getOrDefault("username", "sa");
-        String password = (String) params.getOrDefault("password", "");
+        String password = node.credentialId() != null
+                ? context.getDecryptedCredential(node.credentialId())
+                : (String) params.getOrDefault("password", "");
         String operation = ((String) params.getOrDefault("operation", "SELECT")).toUpperCase();
-        String query = getRequiredString(params, "query");
+        String query = BULK.equals(operation)
+                ? (String) params.get("query")
+                : getRequiredString(params, "query");
         String paramString = (String) params.getOrDefault("parameters", "");
         int maxRows = Math.min(
                 ((Number) params.getOrDefault("maxRows", DEFAULT_MAX_ROWS)).intValue(),
@@ -146,26 +266,49 @@ public class DatabaseExecutor implements NodeExecutor {
         validateJdbcUrl(jdbcUrl);
 
         List<String> queryParams = parseParameters(paramString);
+        boolean stream = Boolean.TRUE.equals(params.get("stream"));
 
         context.getExecutionLogger().custom(context.getExecutionId().toString(),
                 ExecutionLogger.LogLevel.DEBUG,
-                "Database: operation=" + operation + ", url=" + sanitizeUrl(jdbcUrl),
+                "Database: operation=" + operation + ", url=" + sanitizeUrl(jdbcUrl)
+                        + (stream ? ", streaming" : ""),
                 Map.of());
 
+        if (stream) {
+            if (!"SELECT".equals(operation)) {
+                throw new NodeExecutionException("Streaming is only supported for SELECT queries");
+            }
+            int fetchSize = Math.max(1,
+                    ((Number) params.getOrDefault("fetchSize", DEFAULT_FETCH_SIZE)).intValue());
+            int batchSize = Math.max(1,
+                    ((Number) params.getOrDefault("batchSize", DEFAULT_BATCH_SIZE)).intValue());
+
+            Map<String, Object> output = new HashMap<>();
+            output.put("batches", new ResultSetBatches(
+                    () -> pools.getConnection(jdbcUrl, username, password), query,
+                    stmt -> bindParameters(stmt, queryParams), fetchSize, batchSize, timeout));
+            output.put("streaming", true);
+            output.put("batchSize", batchSize);
+            output.put("success", true);
+            return output;
+        }
+
         long startTime = System.currentTimeMillis();
 
-        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
+        try (Connection conn = pools.getConnection(jdbcUrl, username, password)) {
             Map<String, Object> output;
 
             if ("SELECT".equals(operation)) {
                 output = executeQuery(conn, query, queryParams, maxRows, timeout, context);
+            } else if (BULK.equals(operation)) {
+                output = executeBulk(conn, query, params, input, timeout);
             } else {
                 output = executeUpdate(conn, query, queryParams, timeout, context);
             }
 
             long elapsed = System.currentTimeMillis() - startTime;
             output.put("executionTime", elapsed);
-            output.put("success", true);
+            output.putIfAbsent("success", true);
 
             context.getExecutionLogger().custom(context.getExecutionId().toString(),
                     ExecutionLogger.LogLevel.DEBUG,
@@ -193,22 +336,8 @@ public class DatabaseExecutor implements NodeExecutor {
             bindParameters(stmt, params);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                ResultSetMetaData meta = rs.getMetaData();
-                int columnCount = meta.getColumnCount();
-
-                List<String> columns = new ArrayList<>(columnCount);
-                for (int i = 1; i <= columnCount; i++) {
-                    columns.add(meta.getColumnLabel(i));
-                }
-
-                List<Map<String, Object>> rows = new ArrayList<>();
-                while (rs.next()) {
-                    Map<String, Object> row = new LinkedHashMap<>(columnCount);
-                    for (int i = 1; i <= columnCount; i++) {
-                        row.put(columns.get(i - 1), rs.getObject(i));
-                    }
-                    rows.add(row);
-                }
+                List<String> columns = ResultSetBatches.columnLabels(rs);
+                Table rows = ResultSetBatches.readTable(rs, columns, maxRows);
 
                 Map<String, Object> output = new HashMap<>();
                 output.put("rows", rows);
@@ -234,6 +363,85 @@ public class DatabaseExecutor implements NodeExecutor {
         }
     }
 
+    private Map<String, Object> executeBulk(Connection conn, String sql, Map<String, Object> params,
+            Map<String, Object> input, int timeout) throws SQLException {
+        String rowsField = (String) params.getOrDefault("rowsField", "rows");
+        List<? extends Map<String, Object>> rows = getBulkRows(input, rowsField);
+
+        Map<String, Object> output = new HashMap<>();
+        if (rows.isEmpty()) {
+            output.put("rowCount", 0L);
+            output.put("rowsWritten", 0L);
+            output.put("batches", 0);
+            output.put("errors", List.of());
+            return output;
+        }
+
+        List<String> columns = parseParameters((String) params.getOrDefault("columns", ""));
+        if (columns.isEmpty()) {
+            columns = rows instanceof Table table ? table.columns()
+                    : rows.getFirst() == null ? List.of() : List.copyOf(rows.getFirst().keySet());
+        }
+        if (sql == null || sql.isBlank()) {
+            sql = bulkSql(params, columns);
+        }
+
+        int batchSize = Math.max(1, ((Number) params.getOrDefault("batchSize", DEFAULT_BATCH_SIZE)).intValue());
+        int transactionSize = Math.max(1,
+                ((Number) params.getOrDefault("transactionSize", DEFAULT_TRANSACTION_SIZE)).intValue());
+        boolean continueOnError = Boolean.TRUE.equals(params.get("continueOnError"));
+
+        BulkWriter.Result result = new BulkWriter(sql, columns, batchSize, transactionSize, continueOnError,
+                timeout).write(conn, rows);
+
+        output.put("rowCount", result.rowsAffected());
+        output.put("rowsWritten", result.rowsWritten());
+        output.put("batches", result.batches());
+        output.put("errors", result.errors().stream().map(BulkWriter.BatchError::toMap).toList());
+        output.put("success", result.errors().isEmpty());
+        return output;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends Map<String, Object>> getBulkRows(Map<String, Object> input, String rowsField) {
+        Object value = input;
+        for (String part : rowsField.split("\\.")) {
+            value = value instanceof Map<?, ?> map ? map.get(part) : null;
+        }
+        if (value instanceof Table table) {
+            return table;
+        }
+        if (!(value instanceof List<?> list)) {
+            throw new NodeExecutionException("Bulk write needs a list of rows in input field '" + rowsField + "'");
+        }
+        for (Object row : list) {
+            if (row != null && !(row instanceof Map)) {
+                throw new NodeExecutionException("Bulk write rows must be objects, got: "
+                        + row.getClass().getSimpleName());
+            }
+        }
+        return (List<? extends Map<String, Object>>) list;
+    }
+
+    private String bulkSql(Map<String, Object> params, List<String> columns) {
+        String table = getRequiredString(params, "table");
+        List<String> keyColumns = parseParameters((String) params.getOrDefault("keyColumns", ""));
+        if (columns.isEmpty()) {
+            throw new NodeExecutionException("Bulk write needs at least one column");
+        }
+        List<String> names = new ArrayList<>(columns);
+        names.add(table);
+        names.addAll(keyColumns);
+        for (String name : names) {
+            if (!BulkWriter.isIdentifier(name)) {
+                throw new NodeExecutionException("Invalid table or column name for bulk write: " + name);
+            }
+        }
+        return Boolean.TRUE.equals(params.get("upsert"))
+                ? BulkWriter.upsertSql(table, columns, keyColumns)
+                : BulkWriter.insertSql(table, columns);
+    }
+
     private void bindParameters(PreparedStatement stmt, List<String> params) throws SQLException {
         for (int i = 0; i < params.size(); i++) {
             stmt.setString(i + 1, params.get(i));
@@ -1,16 +1,20 @@
 package ai.nervemind.app.executor;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,8 +22,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import ai.nervemind.app.service.EmbeddingCache;
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.SharedHttpClient;
+import ai.nervemind.app.service.VectorIndex;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -122,7 +129,12 @@ import ai.nervemind.common.domain.Node;
  * <tr>
  * <td>usage</td>
  * <td>Map</td>
- * <td>Token usage information</td>
+ * <td>Token usage information (absent if every text was cached)</td>
+ * </tr>
+ * <tr>
+ * <td>cachedCount</td>
+ * <td>Integer</td>
+ * <td>Number of texts served from the embedding cache</td>
  * </tr>
  * </table>
  *
@@ -130,6 +142,15 @@ import ai.nervemind.common.domain.Node;
  * <p>
  * When {@code input} is a list of strings, embeddings are generated for each
  * item in a single API call (if supported by provider), improving efficiency.
+ * Ollama texts are sent in batches to {@code /api/embed}, or concurrently one
+ * by one on servers that predate it.
+ * </p>
+ *
+ * <h2>Caching</h2>
+ * <p>
+ * Embeddings are looked up in the {@link EmbeddingCache} by provider, model,
+ * dimensions and text content first; only texts that were never embedded
+ * before are sent to the provider.
  * </p>
  *
  * @see RagExecutor For using embeddings in retrieval-augmented generation
@@ -142,15 +163,19 @@ public class EmbeddingExecutor implements NodeExecutor {
     private static final Pattern INTERPOLATION_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
 
     private final HttpClient httpClient;
+    private final EmbeddingCache embeddingCache;
+    private final OllamaEmbeddings ollamaEmbeddings;
 
     /**
-     * Default constructor for EmbeddingExecutor.
-     * Initializes the HttpClient with a 30-second connection timeout.
+     * Creates the executor.
+     *
+     * @param embeddingCache cache of previously computed embeddings
+     * @param httpClient     the shared HTTP client
      */
-    public EmbeddingExecutor() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+    public EmbeddingExecutor(EmbeddingCache embeddingCache, SharedHttpClient httpClient) {
+        this.embeddingCache = embeddingCache;
+        this.httpClient = httpClient;
+        this.ollamaEmbeddings = new OllamaEmbeddings(httpClient);
     }
 
     @Override
@@ -195,14 +220,36 @@ public class EmbeddingExecutor implements NodeExecutor {
         }
 
         try {
-            Map<String, Object> result = switch (provider.toLowerCase()) {
-                case "ollama" -> callOllama(baseUrl, model, texts, timeout);
-                case "cohere" -> callCohere(baseUrl, apiKey, model, texts, timeout);
-                default -> callOpenAI(baseUrl, apiKey, model, texts, dimensions, timeout);
-            };
+            AtomicReference<Object> usage = new AtomicReference<>();
+            AtomicInteger embeddedCount = new AtomicInteger();
+            List<float[]> embeddings = embeddingCache.embedAll(
+                    EmbeddingCache.namespace(provider, model, dimensions), texts, missing -> {
+                        JsonCodec.Embeddings result = switch (provider.toLowerCase()) {
+                            case "ollama" -> new JsonCodec.Embeddings(
+                                    ollamaEmbeddings.embed(baseUrl, model, missing, timeout), null);
+                            case "cohere" -> callCohere(baseUrl, apiKey, model, missing, timeout);
+                            default -> callOpenAI(baseUrl, apiKey, model, missing, dimensions, timeout);
+                        };
+                        usage.set(usageOf(result.usage()));
+                        embeddedCount.set(missing.size());
+                        return result.vectors();
+                    });
 
             Map<String, Object> output = new HashMap<>(input);
-            output.putAll(result);
+            if (embeddings.size() == 1) {
+                output.put("embedding", VectorIndex.asList(embeddings.get(0)));
+            } else {
+                List<List<Double>> vectors = new ArrayList<>(embeddings.size());
+                for (float[] embedding : embeddings) {
+                    vectors.add(VectorIndex.asList(embedding));
+                }
+                output.put("embeddings", vectors);
+            }
+            output.put("dimensions", embeddings.get(0).length);
+            if (usage.get() != null) {
+                output.put("usage", usage.get());
+            }
+            output.put("cachedCount", texts.size() - embeddedCount.get());
             output.put("provider", provider);
             output.put("model", model);
             output.put("success", true);
@@ -226,6 +273,16 @@ public class EmbeddingExecutor implements NodeExecutor {
         }
     }
 
+    private static Map<String, Object> usageOf(Map<String, Object> usage) {
+        if (usage == null) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("promptTokens", usage.get("prompt_tokens"));
+        result.put("totalTokens", usage.get("total_tokens"));
+        return result;
+    }
+
     private String getDefaultModel(String provider) {
         return switch (provider.toLowerCase()) {
             case "ollama" -> "nomic-embed-text";
@@ -242,7 +299,7 @@ public class EmbeddingExecutor implements NodeExecutor {
         };
     }
 
-    private Map<String, Object> callOpenAI(String baseUrl, String apiKey, String model,
+    private JsonCodec.Embeddings callOpenAI(String baseUrl, String apiKey, String model,
             List<String> texts, Integer dimensions,
             int timeout) throws IOException, InterruptedException {
         String url = baseUrl + "/embeddings";
@@ -255,72 +312,18 @@ public class EmbeddingExecutor implements NodeExecutor {
             requestBody.put("dimensions", dimensions);
         }
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new IOException("OpenAI API error: " + response.statusCode() + " - " + response.body());
-        }
-
-        return parseOpenAIResponse(response.body());
+        return send(request, "OpenAI");
     }
 
-    private Map<String, Object> callOllama(String baseUrl, String model,
-            List<String> texts, int timeout) throws IOException, InterruptedException {
-        // Ollama embeddings endpoint
-        String url = baseUrl + "/embeddings";
-
-        List<List<Double>> allEmbeddings = new ArrayList<>();
-
-        // Ollama typically processes one at a time
-        for (String text : texts) {
-            Map<String, Object> requestBody = new LinkedHashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("prompt", text);
-
-            String jsonBody = toJson(requestBody);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(timeout))
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200) {
-                throw new IOException("Ollama API error: " + response.statusCode() + " - " + response.body());
-            }
-
-            Map<String, Object> parsed = fromJson(response.body());
-            @SuppressWarnings("unchecked")
-            List<Double> embedding = (List<Double>) parsed.get("embedding");
-            allEmbeddings.add(embedding);
-        }
-
-        Map<String, Object> result = new HashMap<>();
-        if (allEmbeddings.size() == 1) {
-            result.put("embedding", allEmbeddings.get(0));
-            result.put("dimensions", allEmbeddings.get(0).size());
-        } else {
-            result.put("embeddings", allEmbeddings);
-            result.put("dimensions", allEmbeddings.get(0).size());
-        }
-
-        return result;
-    }
-
-    private Map<String, Object> callCohere(String baseUrl, String apiKey, String model,
+    private JsonCodec.Embeddings callCohere(String baseUrl, String apiKey, String model,
             List<String> texts, int timeout) throws IOException, InterruptedException {
         String url = baseUrl + "/embed";
 
@@ -329,72 +332,30 @@ public class EmbeddingExecutor implements NodeExecutor {
         requestBody.put("texts", texts);
         requestBody.put("input_type", "search_document"); // or "search_query" for queries
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new IOException("Cohere API error: " + response.statusCode() + " - " + response.body());
-        }
-
-        return parseCohereResponse(response.body());
+        // Cohere reports billed units rather than token usage
+        return new JsonCodec.Embeddings(send(request, "Cohere").vectors(), null);
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> parseOpenAIResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
-        Map<String, Object> result = new HashMap<>();
-
-        List<Map<String, Object>> data = (List<Map<String, Object>>) parsed.get("data");
-        if (data != null && !data.isEmpty()) {
-            if (data.size() == 1) {
-                List<Double> embedding = (List<Double>) data.get(0).get("embedding");
-                result.put("embedding", embedding);
-                result.put("dimensions", embedding.size());
-            } else {
-                List<List<Double>> embeddings = new ArrayList<>();
-                for (Map<String, Object> item : data) {
-                    embeddings.add((List<Double>) item.get("embedding"));
-                }
-                result.put("embeddings", embeddings);
-                result.put("dimensions", embeddings.get(0).size());
-            }
-        }
+    private JsonCodec.Embeddings send(HttpRequest request, String providerName)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
 
-        Map<String, Object> usage = (Map<String, Object>) parsed.get("usage");
-        if (usage != null) {
-            result.put("usage", Map.of(
-                    "promptTokens", usage.get("prompt_tokens"),
-                    "totalTokens", usage.get("total_tokens")));
-        }
-
-        return result;
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> parseCohereResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
-        Map<String, Object> result = new HashMap<>();
-
-        List<List<Double>> embeddings = (List<List<Double>>) parsed.get("embeddings");
-        if (embeddings != null && !embeddings.isEmpty()) {
-            if (embeddings.size() == 1) {
-                result.put("embedding", embeddings.get(0));
-            } else {
-                result.put("embeddings", embeddings);
+        if (response.statusCode() != 200) {
+            try (InputStream body = response.body()) {
+                throw new IOException(providerName + " API error: " + response.statusCode() + " - "
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8));
             }
-            result.put("dimensions", embeddings.get(0).size());
         }
 
-        return result;
+        return JsonCodec.readEmbeddings(response.body());
     }
 
     private String interpolate(String text, Map<String, Object> data) {
@@ -436,67 +397,6 @@ public class EmbeddingExecutor implements NodeExecutor {
         return current;
     }
 
-    private String toJson(Map<String, Object> map) {
-        StringBuilder sb = new StringBuilder("{");
-        boolean first = true;
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first)
-                sb.append(",");
-            first = false;
-            sb.append("\"").append(entry.getKey()).append("\":");
-            sb.append(valueToJson(entry.getValue()));
-        }
-
-        sb.append("}");
-        return sb.toString();
-    }
-
-    private String valueToJson(Object value) {
-        if (value == null)
-            return "null";
-        if (value instanceof String s)
-            return "\"" + escapeJson(s) + "\"";
-        if (value instanceof Number || value instanceof Boolean)
-            return value.toString();
-        if (value instanceof List<?> list) {
-            StringBuilder sb = new StringBuilder("[");
-            boolean first = true;
-            for (Object item : list) {
-                if (!first)
-                    sb.append(",");
-                first = false;
-                sb.append(valueToJson(item));
-            }
-            sb.append("]");
-            return sb.toString();
-        }
-        if (value instanceof Map<?, ?> map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> typedMap = (Map<String, Object>) map;
-            return toJson(typedMap);
-        }
-        return "\"" + escapeJson(value.toString()) + "\"";
-    }
-
-    private String escapeJson(String s) {
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> fromJson(String json) {
-        try {
-            var objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return objectMapper.readValue(json, Map.class);
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Failed to parse JSON: " + e.getMessage(), e);
-        }
-    }
-
     /**
      * @return the node type identifier ("embedding")
      */
@@ -1,6 +1,7 @@
 package ai.nervemind.app.executor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.Table;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -41,6 +43,12 @@ import ai.nervemind.common.domain.Node;
  * <p>Same as {@link SwitchExecutor} - each condition has field, operator, and
  * value.</p>
  *
+ * <h2>Tables</h2>
+ * <p>When the input is a {@link Table} and every condition names one of its
+ * columns, the table is filtered column by column and the result is a
+ * {@link Table} sharing the input's data. Other inputs are filtered item by
+ * item.</p>
+ *
  * <h2>Example Configuration</h2>
  * <pre>{@code
  * {
@@ -109,7 +117,9 @@ public class FilterExecutor implements NodeExecutor {
         }
 
         List<?> items = (List<?>) inputData;
-        List<Object> filtered = filterItems(items, conditions, combineWith, keepMatching);
+        List<?> filtered = inputData instanceof Table table && hasColumns(table, conditions)
+                ? filterTable(table, conditions, combineWith, keepMatching)
+                : filterItems(items, conditions, combineWith, keepMatching);
 
         output.put(outputField, filtered);
         output.put(FILTERED_COUNT, filtered.size());
@@ -157,6 +167,133 @@ public class FilterExecutor implements NodeExecutor {
         return filtered;
     }
 
+    private boolean hasColumns(Table table, List<Map<String, Object>> conditions) {
+        for (Map<String, Object> condition : conditions) {
+            if (!(condition.get("field") instanceof String field) || field.contains(".")
+                    || table.column(field) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filters a table column by column. Each condition yields the set of
+     * matching rows; the sets are then combined. String conditions are
+     * evaluated once per distinct value, and numeric comparisons on numeric
+     * columns read the primitive values.
+     */
+    private Table filterTable(Table table, List<Map<String, Object>> conditions,
+            String combineWith, boolean keepMatching) {
+        int size = table.size();
+        boolean isAnd = "and".equalsIgnoreCase(combineWith);
+
+        BitSet matching = new BitSet(size);
+        if (conditions.isEmpty() || isAnd) {
+            matching.set(0, size);
+        }
+        for (Map<String, Object> condition : conditions) {
+            BitSet result = matchColumn(table.column((String) condition.get("field")),
+                    (String) condition.getOrDefault("operator", "equals"), condition.get("value"));
+            if (isAnd) {
+                matching.and(result);
+            } else {
+                matching.or(result);
+            }
+        }
+        if (!keepMatching) {
+            matching.flip(0, size);
+        }
+        return table.select(matching.stream().toArray());
+    }
+
+    private BitSet matchColumn(Table.Column column, String operator, Object expectedValue) {
+        int size = column.size();
+        BitSet result = new BitSet(size);
+        // Only evaluated for null values if there are any, like row by row
+        boolean nullMatches = hasNulls(column) && matches(operator, null, expectedValue);
+
+        if (column.type() == Table.Type.STRING) {
+            List<String> dictionary = column.dictionary();
+            boolean[] codeMatches = new boolean[dictionary.size()];
+            for (int code = 0; code < codeMatches.length; code++) {
+                codeMatches[code] = matches(operator, dictionary.get(code), expectedValue);
+            }
+            for (int i = 0; i < size; i++) {
+                if (column.isNull(i) ? nullMatches : codeMatches[column.code(i)]) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+
+        Double expectedNumber = numericOperand(column, operator, expectedValue);
+        if (expectedNumber != null) {
+            String op = operator.toLowerCase();
+            double expected = expectedNumber;
+            for (int i = 0; i < size; i++) {
+                boolean match;
+                if (column.isNull(i)) {
+                    match = nullMatches;
+                } else {
+                    int comparison = Double.compare(column.getDouble(i), expected);
+                    match = switch (op) {
+                        case "gt", ">" -> comparison > 0;
+                        case "gte", ">=" -> comparison >= 0;
+                        case "lt", "<" -> comparison < 0;
+                        default -> comparison <= 0;
+                    };
+                }
+                if (match) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (matches(operator, column.get(i), expectedValue)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    private boolean hasNulls(Table.Column column) {
+        for (int i = 0; i < column.size(); i++) {
+            if (column.isNull(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the operand of a numeric comparison on a numeric column, or
+     * null if the condition needs the boxed values.
+     */
+    private Double numericOperand(Table.Column column, String operator, Object expectedValue) {
+        boolean numericColumn = switch (column.type()) {
+            case INT, LONG, DOUBLE -> true;
+            default -> false;
+        };
+        boolean comparison = switch (operator.toLowerCase()) {
+            case "gt", ">", "gte", ">=", "lt", "<", "lte", "<=" -> true;
+            default -> false;
+        };
+        if (!numericColumn || !comparison || expectedValue == null) {
+            return null;
+        }
+        if (expectedValue instanceof Number n) {
+            return n.doubleValue();
+        }
+        try {
+            return Double.parseDouble(expectedValue.toString());
+        } catch (NumberFormatException _) {
+            return null;
+        }
+    }
+
     private boolean shouldIncludeItem(Object item, List<Map<String, Object>> conditions,
             String combineWith, boolean keepMatching) {
         if (item instanceof Map<?, ?> mapItem) {
@@ -202,6 +339,10 @@ public class FilterExecutor implements NodeExecutor {
 
         Object actualValue = getNestedValue(item, field);
 
+        return matches(operator, actualValue, expectedValue);
+    }
+
+    private boolean matches(String operator, Object actualValue, Object expectedValue) {
         return switch (operator.toLowerCase()) {
             case "equals", "eq", "==" -> Objects.equals(actualValue, expectedValue);
             case "notequals", "neq", "!=" -> !Objects.equals(actualValue, expectedValue);
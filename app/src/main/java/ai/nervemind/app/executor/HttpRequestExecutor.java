@@ -1,19 +1,35 @@
 package ai.nervemind.app.executor;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import ai.nervemind.app.service.ExecutionLogger;
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.HttpResponseCache;
 import ai.nervemind.app.service.NodeExecutor;
 import ai.nervemind.app.service.SettingsDefaults;
+import ai.nervemind.app.service.SharedHttpClient;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.exception.NodeExecutionException;
 import ai.nervemind.common.service.SettingsServiceInterface;
@@ -66,6 +82,40 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <td>No</td>
  * <td>Timeout in seconds (default from settings)</td>
  * </tr>
+ * <tr>
+ * <td>responseMode</td>
+ * <td>String</td>
+ * <td>No</td>
+ * <td>How the response body is returned: text, bytes, file or json (default:
+ * text)</td>
+ * </tr>
+ * <tr>
+ * <td>filePath</td>
+ * <td>String</td>
+ * <td>No</td>
+ * <td>Where file mode saves the body (default: a temporary file, deleted when
+ * the execution ends)</td>
+ * </tr>
+ * <tr>
+ * <td>maxResponseSize</td>
+ * <td>Long</td>
+ * <td>No</td>
+ * <td>Largest body in bytes, 0 for no limit (default from settings; no limit
+ * in file mode)</td>
+ * </tr>
+ * <tr>
+ * <td>cache</td>
+ * <td>Boolean</td>
+ * <td>No</td>
+ * <td>Serve GET responses from the response cache (default: false)</td>
+ * </tr>
+ * <tr>
+ * <td>cacheTtl</td>
+ * <td>Integer</td>
+ * <td>No</td>
+ * <td>Seconds a cached response stays fresh, overriding the response's
+ * caching headers</td>
+ * </tr>
  * </table>
  * 
  * <h2>Output Data</h2>
@@ -79,6 +129,39 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <li><strong>success</strong> - Boolean, true if status is 2xx</li>
  * <li><strong>json</strong> - Response body (if detected as JSON)</li>
  * </ul>
+ *
+ * <h2>Response Modes</h2>
+ * <p>
+ * The body is read as a stream in every mode, so it is only held in memory
+ * when the mode asks for it:
+ * </p>
+ * <ul>
+ * <li><strong>text</strong> - {@code body} and {@code json} as described
+ * above</li>
+ * <li><strong>bytes</strong> - {@code body} as a byte array</li>
+ * <li><strong>file</strong> - the body is written to disk; {@code filePath}
+ * holds its absolute path and there is no {@code body}. Use this for large
+ * downloads and hand the path to the next node. Without a {@code filePath}
+ * the body goes to a temporary file that is deleted when the execution
+ * ends.</li>
+ * <li><strong>json</strong> - the body is parsed while it is received;
+ * {@code json} holds the parsed maps and lists and there is no {@code body}.
+ * Error responses (non-2xx) are returned as text.</li>
+ * </ul>
+ * <p>
+ * Every mode also sets {@code size}, the body length in bytes. A body larger
+ * than {@code maxResponseSize} fails the node instead of exhausting
+ * memory.
+ * </p>
+ * 
+ * <h2>Caching</h2>
+ * <p>
+ * With {@code cache} turned on, GET requests go through the
+ * {@link HttpResponseCache}: a fresh response is returned without a request
+ * and a stale one is revalidated with its ETag or Last-Modified date. The
+ * output then has a {@code cache} key of {@code hit}, {@code revalidated} or
+ * {@code miss}. File mode always downloads.
+ * </p>
  * 
  * <h2>Template Interpolation</h2>
  * <p>
@@ -101,7 +184,8 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * 
  * <h2>Performance</h2>
  * <p>
- * Uses virtual threads (Project Loom) for efficient non-blocking I/O.
+ * Requests go through the {@link SharedHttpClient}, which runs on virtual
+ * threads and keeps connections to each host warm across nodes and runs.
  * </p>
  * 
  * @author NerveMind Team
@@ -111,23 +195,87 @@ import ai.nervemind.common.service.SettingsServiceInterface;
 @Component
 public class HttpRequestExecutor implements NodeExecutor {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int PREVIEW_LENGTH = 200;
+
+    /**
+     * How the response body is returned.
+     */
+    private enum ResponseMode {
+        TEXT, BYTES, FILE, JSON;
+
+        static ResponseMode parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException _) {
+                throw new NodeExecutionException(
+                        "Unknown responseMode '" + value + "'. Use text, bytes, file or json.");
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read and fails once more than the limit arrive.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            count += n;
+            if (limit > 0 && count > limit) {
+                throw new IOException("Response body exceeds maxResponseSize of " + limit
+                        + " bytes; use responseMode 'file' for large downloads");
+            }
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
     private final HttpClient httpClient;
+    private final HttpResponseCache responseCache;
     private final int defaultTimeout;
+    private final long defaultMaxResponseSize;
 
     /**
      * Creates a new HTTP request executor with configured timeouts.
      *
      * @param settingsService the settings service for timeout configuration
+     * @param httpClient      the shared HTTP client
+     * @param responseCache   the cache for nodes with caching turned on
      */
-    public HttpRequestExecutor(SettingsServiceInterface settingsService) {
-        int connectTimeout = settingsService.getInt(SettingsDefaults.HTTP_CONNECT_TIMEOUT, 30);
+    public HttpRequestExecutor(SettingsServiceInterface settingsService, SharedHttpClient httpClient,
+            HttpResponseCache responseCache) {
         this.defaultTimeout = settingsService.getInt(SettingsDefaults.HTTP_READ_TIMEOUT, 30);
-
-        // Configure HttpClient to use virtual threads for async operations
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(connectTimeout))
-                .executor(java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor())
-                .build();
+        this.defaultMaxResponseSize = settingsService.getLong(SettingsDefaults.HTTP_MAX_RESPONSE_SIZE,
+                100L * 1024 * 1024);
+        this.httpClient = httpClient;
+        this.responseCache = responseCache;
     }
 
     @Override
@@ -149,6 +297,12 @@ public class HttpRequestExecutor implements NodeExecutor {
         Map<String, String> headers = (Map<String, String>) params.getOrDefault("headers", Map.of());
         String body = interpolate((String) params.getOrDefault("body", ""), templateData, context);
         int timeout = (int) params.getOrDefault("timeout", defaultTimeout);
+        ResponseMode mode = ResponseMode.parse((String) params.getOrDefault("responseMode", "text"));
+        long maxResponseSize = ((Number) params.getOrDefault("maxResponseSize",
+                mode == ResponseMode.FILE ? 0L : defaultMaxResponseSize)).longValue();
+        boolean cache = Boolean.TRUE.equals(params.get("cache")) && mode != ResponseMode.FILE
+                && "GET".equalsIgnoreCase(method) && body.isBlank() && responseCache.isEnabled();
+        Object cacheTtl = params.get("cacheTtl");
 
         try {
             // Build request
@@ -176,29 +330,24 @@ public class HttpRequestExecutor implements NodeExecutor {
 
             // Execute request
             HttpRequest request = requestBuilder.build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            context.getExecutionLogger().custom(context.getExecutionId().toString(),
-                    ExecutionLogger.LogLevel.DEBUG, "HTTP Response: status=" + response.statusCode() +
-                            ", body_length=" + (response.body() != null ? response.body().length() : 0),
-                    Map.of());
-
-            if (response.body() != null && !response.body().isEmpty()) {
-                String preview = response.body().length() > 200 ? response.body().substring(0, 200) + "..."
-                        : response.body();
-                context.getExecutionLogger().custom(context.getExecutionId().toString(),
-                        ExecutionLogger.LogLevel.TRACE, "HTTP Response Body: " + preview, Map.of());
+            Map<String, Object> output;
+            if (cache) {
+                Duration ttl = cacheTtl instanceof Number seconds ? Duration.ofSeconds(seconds.longValue()) : null;
+                HttpResponseCache.Response response = responseCache.send(httpClient, request, ttl, maxResponseSize);
+                output = readResponse(response.statusCode(), response.headers(),
+                        new ByteArrayInputStream(response.body()), mode, maxResponseSize, null, context);
+                output.put("cache", response.outcome().name().toLowerCase(Locale.ROOT));
+            } else {
+                HttpResponse<InputStream> response = httpClient.send(request,
+                        HttpResponse.BodyHandlers.ofInputStream());
+                String filePath = mode == ResponseMode.FILE
+                        ? interpolate((String) params.getOrDefault("filePath", ""), templateData, context)
+                        : null;
+                output = readResponse(response.statusCode(), response.headers(), response.body(), mode,
+                        maxResponseSize, filePath, context);
             }
 
-            // Build output
-            Map<String, Object> output = new HashMap<>();
-            output.put("statusCode", response.statusCode());
-            output.put("body", response.body());
-            output.put("headers", response.headers().map());
-            output.put("success", response.statusCode() >= 200 && response.statusCode() < 300);
-
-            // Add JSON response if detected
-            addJsonResponseIfValid(output, response.body());
+            logResponse(context, (int) output.get("statusCode"), output);
 
             return output;
 
@@ -210,6 +359,118 @@ public class HttpRequestExecutor implements NodeExecutor {
         }
     }
 
+    /**
+     * Builds the node output from a response body in the requested mode.
+     */
+    private Map<String, Object> readResponse(int statusCode, HttpHeaders headers, InputStream body,
+            ResponseMode mode, long maxResponseSize, String filePath, ExecutionService.ExecutionContext context)
+            throws IOException {
+        Map<String, Object> output = new HashMap<>();
+        output.put("statusCode", statusCode);
+        output.put("headers", headers.map());
+        output.put("success", statusCode >= 200 && statusCode < 300);
+
+        try (LimitedInputStream bodyStream = new LimitedInputStream(body, maxResponseSize)) {
+            long contentLength = headers.firstValueAsLong("Content-Length").orElse(-1);
+            if (maxResponseSize > 0 && contentLength > maxResponseSize) {
+                throw new IOException("Response body of " + contentLength
+                        + " bytes exceeds maxResponseSize of " + maxResponseSize
+                        + " bytes; use responseMode 'file' for large downloads");
+            }
+
+            switch (mode) {
+                case FILE -> output.put("filePath", saveToFile(bodyStream, filePath, context).toString());
+                case BYTES -> output.put("body", bodyStream.readAllBytes());
+                case JSON -> {
+                    if (Boolean.TRUE.equals(output.get("success"))) {
+                        output.put("json", statusCode == 204 ? null : readJson(bodyStream));
+                    } else {
+                        // Error pages are rarely JSON; keep them readable
+                        output.put("body", readText(bodyStream, headers));
+                    }
+                }
+                case TEXT -> {
+                    String responseBody = readText(bodyStream, headers);
+                    output.put("body", responseBody);
+                    addJsonResponseIfValid(output, responseBody);
+                }
+            }
+            output.put("size", bodyStream.count());
+        }
+        return output;
+    }
+
+    /**
+     * Writes the body to the given path, or to a new temporary file of the
+     * execution when no path is given. A partly written temporary file is
+     * removed.
+     */
+    private Path saveToFile(InputStream body, String filePath, ExecutionService.ExecutionContext context)
+            throws IOException {
+        boolean temporary = filePath.isBlank();
+        Path path = temporary
+                ? context.createTempFile("nervemind-http-", ".download")
+                : Path.of(filePath).toAbsolutePath().normalize();
+        try {
+            if (!temporary && path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.copy(body, path, StandardCopyOption.REPLACE_EXISTING);
+            return path;
+        } catch (IOException e) {
+            if (temporary) {
+                Files.deleteIfExists(path);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a JSON body while it is received; an empty body, such as that of
+     * a 204 response or one with {@code Content-Length: 0}, gives null.
+     */
+    private static Object readJson(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 1);
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        in.unread(first);
+        return MAPPER.readValue(in, Object.class);
+    }
+
+    /**
+     * Decodes the body with the charset of its Content-Type, UTF-8 if none.
+     */
+    private String readText(InputStream body, HttpHeaders headers) throws IOException {
+        Charset charset = StandardCharsets.UTF_8;
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        for (String part : contentType.split(";")) {
+            String parameter = part.trim();
+            if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                try {
+                    charset = Charset.forName(parameter.substring(8).replace("\"", "").trim());
+                } catch (IllegalArgumentException _) {
+                    // Unknown charset; keep UTF-8
+                }
+            }
+        }
+        return new String(body.readAllBytes(), charset);
+    }
+
+    private void logResponse(ExecutionService.ExecutionContext context, int statusCode, Map<String, Object> output) {
+        context.getExecutionLogger().custom(context.getExecutionId().toString(),
+                ExecutionLogger.LogLevel.DEBUG, "HTTP Response: status=" + statusCode +
+                        ", body_length=" + output.get("size"),
+                Map.of());
+
+        if (output.get("body") instanceof String body && !body.isEmpty()) {
+            String preview = body.length() > PREVIEW_LENGTH ? body.substring(0, PREVIEW_LENGTH) + "..." : body;
+            context.getExecutionLogger().custom(context.getExecutionId().toString(),
+                    ExecutionLogger.LogLevel.TRACE, "HTTP Response Body: " + preview, Map.of());
+        }
+    }
+
     /**
      * Simple template interpolation for {{ variable }} syntax.
      * Supports workflow settings and credentials by name.
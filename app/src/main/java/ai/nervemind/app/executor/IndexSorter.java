@@ -0,0 +1,208 @@
+package ai.nervemind.app.executor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts row indices by a comparator over indices.
+ *
+ * <p>
+ * Sorting indices instead of the items lets callers compare keys that were
+ * extracted once into primitive arrays, without boxing an index per
+ * comparison. The sort is a stable merge sort; inputs of at least
+ * {@value #PARALLEL_THRESHOLD} indices are sorted on the common fork-join
+ * pool.
+ * </p>
+ */
+final class IndexSorter {
+
+    /**
+     * Compares two indices.
+     */
+    @FunctionalInterface
+    interface IndexComparator {
+        /**
+         * Compares the items at two indices.
+         *
+         * @param a the first index
+         * @param b the second index
+         * @return negative, zero or positive as the first item sorts before,
+         *         with or after the second
+         */
+        int compare(int a, int b);
+    }
+
+    /** Sizes from which sorting runs in parallel. */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int INSERTION_THRESHOLD = 32;
+    private static final int TASK_THRESHOLD = 1 << 13;
+
+    private IndexSorter() {
+    }
+
+    /**
+     * Returns the indices {@code 0..size-1} in sorted order.
+     *
+     * @param size       the number of items
+     * @param comparator compares items by index
+     * @return the sorted indices
+     */
+    static int[] sort(int size, IndexComparator comparator) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sort(order, comparator);
+        return order;
+    }
+
+    /**
+     * Sorts indices in place.
+     *
+     * @param order      the indices
+     * @param comparator compares items by index
+     */
+    static void sort(int[] order, IndexComparator comparator) {
+        int[] buffer = order.clone();
+        if (order.length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new SortTask(buffer, order, 0, order.length, comparator));
+        } else {
+            mergeSort(buffer, order, 0, order.length, comparator);
+        }
+    }
+
+    /**
+     * Returns the indices of the first {@code limit} items in sorted order,
+     * keeping no more than {@code limit} indices while scanning.
+     *
+     * @param size       the number of items
+     * @param limit      the number of indices to return
+     * @param comparator compares items by index; must not treat distinct
+     *                   indices as equal, or ties are kept arbitrarily
+     * @return the sorted indices of the first items
+     */
+    static int[] top(int size, int limit, IndexComparator comparator) {
+        if (limit >= size) {
+            return sort(size, comparator);
+        }
+        // Max-heap of the smallest items seen so far
+        int[] heap = new int[limit];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (count < limit) {
+                heap[count] = i;
+                siftUp(heap, count++, comparator);
+            } else if (limit > 0 && comparator.compare(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, limit, comparator);
+            }
+        }
+        sort(heap, comparator);
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int index, IndexComparator comparator) {
+        int item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.compare(heap[parent], item) >= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = item;
+    }
+
+    private static void siftDown(int[] heap, int size, IndexComparator comparator) {
+        int item = heap[0];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(item, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = item;
+    }
+
+    /**
+     * Sorts {@code dst[lo..hi)}, using {@code src} as scratch space; both must
+     * hold the same indices in that range.
+     */
+    private static void mergeSort(int[] src, int[] dst, int lo, int hi, IndexComparator comparator) {
+        if (hi - lo <= INSERTION_THRESHOLD) {
+            insertionSort(dst, lo, hi, comparator);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid, comparator);
+        mergeSort(dst, src, mid, hi, comparator);
+        merge(src, dst, lo, mid, hi, comparator);
+    }
+
+    private static void insertionSort(int[] order, int lo, int hi, IndexComparator comparator) {
+        for (int i = lo + 1; i < hi; i++) {
+            int item = order[i];
+            int j = i - 1;
+            while (j >= lo && comparator.compare(order[j], item) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = item;
+        }
+    }
+
+    private static void merge(int[] src, int[] dst, int lo, int mid, int hi, IndexComparator comparator) {
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int left = lo;
+        int right = mid;
+        for (int i = lo; i < hi; i++) {
+            if (right >= hi || left < mid && comparator.compare(src[left], src[right]) <= 0) {
+                dst[i] = src[left++];
+            } else {
+                dst[i] = src[right++];
+            }
+        }
+    }
+
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int lo;
+        private final int hi;
+        private final transient IndexComparator comparator;
+
+        SortTask(int[] src, int[] dst, int lo, int hi, IndexComparator comparator) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= TASK_THRESHOLD) {
+                mergeSort(src, dst, lo, hi, comparator);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(dst, src, lo, mid, comparator), new SortTask(dst, src, mid, hi, comparator));
+            merge(src, dst, lo, mid, hi, comparator);
+        }
+    }
+}
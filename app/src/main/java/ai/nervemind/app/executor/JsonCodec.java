@@ -0,0 +1,229 @@
+package ai.nervemind.app.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON encoding shared by the AI executors.
+ *
+ * <p>
+ * Request bodies are written with the Jackson streaming generator straight
+ * into a byte array, without building an intermediate string. Maps,
+ * iterables, strings, numbers, booleans and {@code float[]} are written as
+ * JSON; anything else as its {@code toString()}.
+ * </p>
+ *
+ * <p>
+ * Embedding responses are read token by token: vectors go directly into
+ * {@code float[]} without a tree of boxed doubles, which is most of the
+ * cost of a response with a few hundred 1536-dimensional embeddings. The
+ * reader understands the shapes used by OpenAI ({@code data[].embedding}),
+ * Cohere and Ollama ({@code embeddings}) and the legacy Ollama endpoint
+ * ({@code embedding}). Other responses are read into maps by one shared
+ * {@link ObjectMapper}.
+ * </p>
+ */
+final class JsonCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private static final int INITIAL_VECTOR_CAPACITY = 256;
+
+    /**
+     * The vectors of an embedding response.
+     *
+     * @param vectors one vector per input, in response order
+     * @param usage   the token usage object, or null if there is none
+     */
+    record Embeddings(List<float[]> vectors, Map<String, Object> usage) {
+    }
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Encodes a request body.
+     *
+     * @param value the body, usually a map
+     * @return a publisher of the encoded bytes
+     */
+    static HttpRequest.BodyPublisher body(Object value) {
+        return HttpRequest.BodyPublishers.ofByteArray(write(value));
+    }
+
+    /**
+     * Encodes a value as UTF-8 JSON.
+     *
+     * @param value the value
+     * @return the JSON bytes
+     */
+    static byte[] write(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            writeValue(generator, value);
+        } catch (IOException e) {
+            // Only the in-memory stream is written to
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a value as JSON text, e.g. to embed it in a prompt.
+     *
+     * @param value the value
+     * @return the JSON text
+     */
+    static String writeString(Object value) {
+        return new String(write(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a JSON object.
+     *
+     * @param json the JSON text
+     * @return the object as a map
+     * @throws IllegalArgumentException if the text is not a JSON object
+     */
+    static Map<String, Object> readMap(String json) {
+        try {
+            return MAPPER.readValue(json, MAP_TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses an embedding response.
+     *
+     * @param in the response body; closed when done
+     * @return the vectors and token usage
+     * @throws IOException if the body is not a valid embedding response
+     */
+    static Embeddings readEmbeddings(InputStream in) throws IOException {
+        List<float[]> vectors = new ArrayList<>();
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object in embedding response");
+            }
+            Map<String, Object> usage = readEmbeddingFields(parser, vectors);
+            return new Embeddings(vectors, usage);
+        }
+    }
+
+    /**
+     * Reads the fields of the object the parser is in, collecting vectors.
+     *
+     * @return the usage object, if the object has one
+     */
+    private static Map<String, Object> readEmbeddingFields(JsonParser parser, List<float[]> vectors)
+            throws IOException {
+        Map<String, Object> usage = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("embedding".equals(name) && value == JsonToken.START_ARRAY) {
+                vectors.add(readVector(parser, expectedLength(vectors)));
+            } else if ("embeddings".equals(name) && value == JsonToken.START_ARRAY) {
+                for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                    if (item == JsonToken.START_ARRAY) {
+                        vectors.add(readVector(parser, expectedLength(vectors)));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("data".equals(name) && value == JsonToken.START_ARRAY) {
+                for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                    if (item == JsonToken.START_OBJECT) {
+                        readEmbeddingFields(parser, vectors);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("usage".equals(name) && value == JsonToken.START_OBJECT) {
+                usage = MAPPER.readValue(parser, MAP_TYPE);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return usage;
+    }
+
+    private static int expectedLength(List<float[]> vectors) {
+        // Vectors of one response share a length, so only the first one grows
+        return vectors.isEmpty() ? INITIAL_VECTOR_CAPACITY : vectors.getLast().length;
+    }
+
+    private static float[] readVector(JsonParser parser, int expectedLength) throws IOException {
+        float[] vector = new float[Math.max(expectedLength, 1)];
+        int size = 0;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                throw new IOException("Embedding contains a non-numeric value: " + token);
+            }
+            if (size == vector.length) {
+                vector = Arrays.copyOf(vector, size * 2);
+            }
+            vector[size++] = parser.getFloatValue();
+        }
+        return size == vector.length ? vector : Arrays.copyOf(vector, size);
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        switch (value) {
+            case null -> generator.writeNull();
+            case String s -> generator.writeString(s);
+            case Boolean b -> generator.writeBoolean(b);
+            case Integer i -> generator.writeNumber(i);
+            case Long l -> generator.writeNumber(l);
+            case Double d -> generator.writeNumber(d);
+            case Float f -> generator.writeNumber(f);
+            case BigDecimal d -> generator.writeNumber(d);
+            case BigInteger i -> generator.writeNumber(i);
+            case Number n -> generator.writeNumber(n.toString());
+            case float[] vector -> {
+                generator.writeStartArray(vector, vector.length);
+                for (float f : vector) {
+                    generator.writeNumber(f);
+                }
+                generator.writeEndArray();
+            }
+            case Map<?, ?> map -> {
+                generator.writeStartObject(map, map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    generator.writeFieldName(String.valueOf(entry.getKey()));
+                    writeValue(generator, entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            case Iterable<?> items -> {
+                generator.writeStartArray();
+                for (Object item : items) {
+                    writeValue(generator, item);
+                }
+                generator.writeEndArray();
+            }
+            default -> generator.writeString(value.toString());
+        }
+    }
+}
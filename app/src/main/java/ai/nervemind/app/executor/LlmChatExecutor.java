@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -18,8 +19,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.LlmResponseCache;
 import ai.nervemind.app.service.NodeExecutor;
 import ai.nervemind.app.service.SettingsDefaults;
+import ai.nervemind.app.service.SharedHttpClient;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.service.SettingsServiceInterface;
 
@@ -108,6 +111,24 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <td>"text"</td>
  * <td>"text" or "json"</td>
  * </tr>
+ * <tr>
+ * <td>stream</td>
+ * <td>Boolean</td>
+ * <td>from settings (true)</td>
+ * <td>Receive the response incrementally and report progress</td>
+ * </tr>
+ * <tr>
+ * <td>cache</td>
+ * <td>Boolean</td>
+ * <td>true at temperature 0</td>
+ * <td>Reuse the response to an identical earlier request</td>
+ * </tr>
+ * <tr>
+ * <td>cacheTtl</td>
+ * <td>Integer</td>
+ * <td>from settings (86400)</td>
+ * <td>Seconds a cached response is reused</td>
+ * </tr>
  * </table>
  *
  * <h2>Supported Providers</h2>
@@ -159,8 +180,36 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <td>String</td>
  * <td>Why response ended (stop, length, etc.)</td>
  * </tr>
+ * <tr>
+ * <td>streaming</td>
+ * <td>Map</td>
+ * <td>Streamed responses only: timeToFirstTokenMs, tokensPerSecond,
+ * durationMs, chunks</td>
+ * </tr>
+ * <tr>
+ * <td>cache</td>
+ * <td>String</td>
+ * <td>Cached requests only: hit, coalesced or miss</td>
+ * </tr>
  * </table>
  *
+ * <h2>Streaming</h2>
+ * <p>
+ * With {@code stream} enabled, responses are read as they are generated
+ * (server-sent events, or newline-delimited JSON for Ollama) and the partial
+ * text is published as {@code NODE_PROGRESS} log entries, so the console
+ * shows long generations while they run. See {@link LlmStream}.
+ * </p>
+ *
+ * <h2>Caching</h2>
+ * <p>
+ * Deterministic requests - temperature 0, or any request with {@code cache}
+ * turned on - go through the {@link LlmResponseCache}. An identical request
+ * (same provider, endpoint, model, messages, temperature, token limit and
+ * response format) is answered from the cache without spending tokens, and
+ * identical requests running at the same time share one provider call.
+ * </p>
+ *
  * <h2>API Key Resolution</h2>
  * <p>
  * API keys are resolved in this order:
@@ -190,18 +239,20 @@ public class LlmChatExecutor implements NodeExecutor {
 
     private final HttpClient httpClient;
     private final SettingsServiceInterface settingsService;
+    private final LlmResponseCache responseCache;
 
     /**
-     * Creates a new LLM chat executor with configured HTTP client.
+     * Creates a new LLM chat executor.
      *
      * @param settingsService the settings service for configuration access
+     * @param httpClient      the shared HTTP client
+     * @param responseCache   the cache for deterministic requests
      */
-    public LlmChatExecutor(SettingsServiceInterface settingsService) {
+    public LlmChatExecutor(SettingsServiceInterface settingsService, SharedHttpClient httpClient,
+            LlmResponseCache responseCache) {
         this.settingsService = settingsService;
-        int connectTimeout = settingsService.getInt(SettingsDefaults.HTTP_CONNECT_TIMEOUT, 30);
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(connectTimeout))
-                .build();
+        this.httpClient = httpClient;
+        this.responseCache = responseCache;
     }
 
     @Override
@@ -225,6 +276,10 @@ public class LlmChatExecutor implements NodeExecutor {
         int maxTokens = ((Number) params.getOrDefault("maxTokens", 1024)).intValue();
         int timeout = ((Number) params.getOrDefault("timeout", 120)).intValue();
         String responseFormat = (String) params.getOrDefault("responseFormat", "text");
+        boolean streaming = (Boolean) params.getOrDefault("stream",
+                settingsService.getBoolean(SettingsDefaults.AI_STREAMING, true));
+        LlmStream stream = streaming ? new LlmStream(context, node.id()) : null;
+        boolean cache = params.get("cache") instanceof Boolean enabled ? enabled : temperature == 0;
 
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> messages = (List<Map<String, Object>>) params.get("messages");
@@ -233,23 +288,37 @@ public class LlmChatExecutor implements NodeExecutor {
             // Build messages list
             List<Map<String, String>> chatMessages = buildMessages(systemPrompt, prompt, messages, input, context);
 
-            // Call the appropriate provider
-            Map<String, Object> result = switch (provider.toLowerCase()) {
-                case "openai" -> callOpenAI(new LlmRequest(
-                        baseUrl, apiKey, model, chatMessages, temperature, maxTokens, timeout, responseFormat));
-                case "anthropic" ->
-                    callAnthropic(baseUrl, apiKey, model, chatMessages, temperature, maxTokens, timeout);
-                case "ollama" -> callOllama(baseUrl, model, chatMessages, temperature, maxTokens, timeout);
-                case "azure" -> callAzure(new LlmRequest(
-                        baseUrl, apiKey, model, chatMessages, temperature, maxTokens, timeout, responseFormat));
-                case "google", "gemini" ->
-                    callGemini(baseUrl, apiKey, model, chatMessages, temperature, maxTokens, timeout);
-                default -> callOpenAI(new LlmRequest(
-                        baseUrl, apiKey, model, chatMessages, temperature, maxTokens, timeout, responseFormat));
-            };
+            LlmRequest request = new LlmRequest(
+                    baseUrl, apiKey, model, chatMessages, temperature, maxTokens, timeout, responseFormat);
+
+            // Call the appropriate provider, through the cache for deterministic requests
+            Map<String, Object> result;
+            String cacheOutcome = null;
+            if (cache && responseCache.isEnabled()) {
+                Map<String, Object> cacheKey = new LinkedHashMap<>();
+                cacheKey.put("provider", provider.toLowerCase());
+                cacheKey.put("baseUrl", baseUrl);
+                cacheKey.put("model", model);
+                cacheKey.put("messages", chatMessages);
+                cacheKey.put("temperature", temperature);
+                cacheKey.put("maxTokens", maxTokens);
+                cacheKey.put("responseFormat", responseFormat);
+                Duration ttl = params.get("cacheTtl") instanceof Number seconds
+                        ? Duration.ofSeconds(seconds.longValue())
+                        : null;
+                LlmResponseCache.Result cached = responseCache.getOrLoad(cacheKey, ttl,
+                        () -> callProvider(provider, request, stream));
+                result = cached.response();
+                cacheOutcome = cached.outcome().name().toLowerCase(Locale.ROOT);
+            } else {
+                result = callProvider(provider, request, stream);
+            }
 
             Map<String, Object> output = new HashMap<>(input);
             output.putAll(result);
+            if (cacheOutcome != null) {
+                output.put("cache", cacheOutcome);
+            }
             output.put("provider", provider);
             output.put("model", model);
             output.put("success", true);
@@ -371,13 +440,28 @@ public class LlmChatExecutor implements NodeExecutor {
             String responseFormat) {
     }
 
+    private Map<String, Object> callProvider(String provider, LlmRequest request, LlmStream stream)
+            throws java.io.IOException, InterruptedException {
+        return switch (provider.toLowerCase()) {
+            case "anthropic" -> callAnthropic(request.baseUrl(), request.apiKey(), request.model(),
+                    request.messages(), request.temperature(), request.maxTokens(), request.timeout(), stream);
+            case "ollama" -> callOllama(request.baseUrl(), request.model(), request.messages(),
+                    request.temperature(), request.maxTokens(), request.timeout(), stream);
+            case "azure" -> callAzure(request, stream);
+            case "google", "gemini" -> callGemini(request.baseUrl(), request.apiKey(), request.model(),
+                    request.messages(), request.temperature(), request.maxTokens(), request.timeout(), stream);
+            default -> callOpenAI(request, stream);
+        };
+    }
+
     private static class LlmProviderException extends RuntimeException {
         public LlmProviderException(String message) {
             super(message);
         }
     }
 
-    private Map<String, Object> callOpenAI(LlmRequest request) throws java.io.IOException, InterruptedException {
+    private Map<String, Object> callOpenAI(LlmRequest request, LlmStream stream)
+            throws java.io.IOException, InterruptedException {
         String url = request.baseUrl() + "/chat/completions";
 
         Map<String, Object> requestBody = new LinkedHashMap<>();
@@ -389,17 +473,25 @@ public class LlmChatExecutor implements NodeExecutor {
         if ("json".equals(request.responseFormat())) {
             requestBody.put("response_format", Map.of("type", "json_object"));
         }
-
-        String jsonBody = toJson(requestBody);
+        if (stream != null) {
+            requestBody.put("stream", true);
+            // Usage is only sent in a final chunk when asked for
+            requestBody.put("stream_options", Map.of("include_usage", true));
+        }
 
         HttpRequest httpRequest = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + request.apiKey())
                 .timeout(Duration.ofSeconds(request.timeout()))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
+        if (stream != null) {
+            return stream.receive(httpClient, httpRequest, "OpenAI", LlmStream.Format.SSE,
+                    this::parseOpenAIResponse, this::onOpenAIEvent);
+        }
+
         HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() != 200) {
@@ -412,7 +504,7 @@ public class LlmChatExecutor implements NodeExecutor {
 
     private Map<String, Object> callAnthropic(String baseUrl, String apiKey, String model,
             List<Map<String, String>> messages, double temperature,
-            int maxTokens, int timeout) throws java.io.IOException, InterruptedException {
+            int maxTokens, int timeout, LlmStream stream) throws java.io.IOException, InterruptedException {
         String url = baseUrl + "/messages";
 
         // Anthropic requires system message separately
@@ -436,8 +528,9 @@ public class LlmChatExecutor implements NodeExecutor {
         if (systemMessage != null) {
             requestBody.put("system", systemMessage);
         }
-
-        String jsonBody = toJson(requestBody);
+        if (stream != null) {
+            requestBody.put("stream", true);
+        }
 
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
@@ -445,9 +538,14 @@ public class LlmChatExecutor implements NodeExecutor {
                 .header("x-api-key", apiKey)
                 .header("anthropic-version", "2023-06-01")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
+        if (stream != null) {
+            return stream.receive(httpClient, request, "Anthropic", LlmStream.Format.SSE,
+                    this::parseAnthropicResponse, this::onAnthropicEvent);
+        }
+
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() != 200) {
@@ -460,26 +558,29 @@ public class LlmChatExecutor implements NodeExecutor {
 
     private Map<String, Object> callOllama(String baseUrl, String model,
             List<Map<String, String>> messages, double temperature,
-            int maxTokens, int timeout) throws java.io.IOException, InterruptedException {
+            int maxTokens, int timeout, LlmStream stream) throws java.io.IOException, InterruptedException {
         String url = baseUrl + "/chat";
 
         Map<String, Object> requestBody = new LinkedHashMap<>();
         requestBody.put("model", model);
         requestBody.put("messages", messages);
-        requestBody.put("stream", false);
+        requestBody.put("stream", stream != null);
         requestBody.put("options", Map.of(
                 "temperature", temperature,
                 "num_predict", maxTokens));
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
+        if (stream != null) {
+            return stream.receive(httpClient, request, "Ollama", LlmStream.Format.NDJSON,
+                    this::parseOllamaResponse, this::onOllamaEvent);
+        }
+
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() != 200) {
@@ -489,7 +590,8 @@ public class LlmChatExecutor implements NodeExecutor {
         return parseOllamaResponse(response.body());
     }
 
-    private Map<String, Object> callAzure(LlmRequest request) throws java.io.IOException, InterruptedException {
+    private Map<String, Object> callAzure(LlmRequest request, LlmStream stream)
+            throws java.io.IOException, InterruptedException {
         // Azure OpenAI uses a different URL pattern
         String url = request.baseUrl() + "/openai/deployments/" + request.model()
                 + "/chat/completions?api-version=2024-02-15-preview";
@@ -503,16 +605,23 @@ public class LlmChatExecutor implements NodeExecutor {
             requestBody.put("response_format", Map.of("type", "json_object"));
         }
 
-        String jsonBody = toJson(requestBody);
+        if (stream != null) {
+            requestBody.put("stream", true);
+        }
 
         HttpRequest httpRequest = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("api-key", request.apiKey())
                 .timeout(Duration.ofSeconds(request.timeout()))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
+        if (stream != null) {
+            return stream.receive(httpClient, httpRequest, "Azure OpenAI", LlmStream.Format.SSE,
+                    this::parseOpenAIResponse, this::onOpenAIEvent);
+        }
+
         HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() != 200) {
@@ -532,9 +641,11 @@ public class LlmChatExecutor implements NodeExecutor {
      */
     private Map<String, Object> callGemini(String baseUrl, String apiKey, String model,
             List<Map<String, String>> messages, double temperature,
-            int maxTokens, int timeout) throws java.io.IOException, InterruptedException {
+            int maxTokens, int timeout, LlmStream stream) throws java.io.IOException, InterruptedException {
 
-        String url = baseUrl + "/models/" + model + ":generateContent?key=" + apiKey;
+        String url = stream != null
+                ? baseUrl + "/models/" + model + ":streamGenerateContent?alt=sse&key=" + apiKey
+                : baseUrl + "/models/" + model + ":generateContent?key=" + apiKey;
 
         // Convert messages to Gemini format
         // Gemini uses: {"contents": [{"role": "user", "parts": [{"text": "..."}]}]}
@@ -573,15 +684,18 @@ public class LlmChatExecutor implements NodeExecutor {
         generationConfig.put("maxOutputTokens", maxTokens);
         requestBody.put("generationConfig", generationConfig);
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
+        if (stream != null) {
+            return stream.receive(httpClient, request, "Google Gemini", LlmStream.Format.SSE,
+                    this::parseGeminiResponse, this::onGeminiEvent);
+        }
+
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() != 200) {
@@ -717,6 +831,100 @@ public class LlmChatExecutor implements NodeExecutor {
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private void onOpenAIEvent(Map<String, Object> event, LlmStream stream) {
+        List<Map<String, Object>> choices = (List<Map<String, Object>>) event.get("choices");
+        if (choices != null && !choices.isEmpty()) {
+            Map<String, Object> choice = choices.get(0);
+            Map<String, Object> delta = (Map<String, Object>) choice.get("delta");
+            if (delta != null) {
+                stream.text((String) delta.get("content"));
+            }
+            stream.finishReason((String) choice.get("finish_reason"));
+        }
+
+        // Sent in a final chunk without choices
+        Map<String, Object> usage = (Map<String, Object>) event.get("usage");
+        if (usage != null) {
+            stream.usage((Number) usage.get("prompt_tokens"), (Number) usage.get("completion_tokens"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onAnthropicEvent(Map<String, Object> event, LlmStream stream) {
+        switch (String.valueOf(event.get("type"))) {
+            case "message_start" -> {
+                Map<String, Object> message = (Map<String, Object>) event.get("message");
+                Map<String, Object> usage = message != null ? (Map<String, Object>) message.get("usage") : null;
+                if (usage != null) {
+                    stream.usage((Number) usage.get("input_tokens"), null);
+                }
+            }
+            case "content_block_delta" -> {
+                Map<String, Object> delta = (Map<String, Object>) event.get("delta");
+                if (delta != null && "text_delta".equals(delta.get("type"))) {
+                    stream.text((String) delta.get("text"));
+                }
+            }
+            case "message_delta" -> {
+                Map<String, Object> delta = (Map<String, Object>) event.get("delta");
+                if (delta != null) {
+                    stream.finishReason((String) delta.get("stop_reason"));
+                }
+                Map<String, Object> usage = (Map<String, Object>) event.get("usage");
+                if (usage != null) {
+                    stream.usage(null, (Number) usage.get("output_tokens"));
+                }
+            }
+            default -> {
+                // ping, content_block_start/stop and message_stop carry no text
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onOllamaEvent(Map<String, Object> event, LlmStream stream) {
+        Map<String, Object> message = (Map<String, Object>) event.get("message");
+        if (message != null) {
+            stream.text((String) message.get("content"));
+        }
+
+        // The final line carries the metrics
+        if (Boolean.TRUE.equals(event.get("done"))) {
+            Object doneReason = event.get("done_reason");
+            stream.finishReason(doneReason != null ? doneReason.toString() : "stop");
+            stream.usage((Number) event.get("prompt_eval_count"), (Number) event.get("eval_count"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onGeminiEvent(Map<String, Object> event, LlmStream stream) {
+        // Each event is a partial generateContent response
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) event.get("candidates");
+        if (candidates != null && !candidates.isEmpty()) {
+            Map<String, Object> candidate = candidates.get(0);
+            Map<String, Object> content = (Map<String, Object>) candidate.get("content");
+            List<Map<String, Object>> parts = content != null
+                    ? (List<Map<String, Object>>) content.get("parts")
+                    : null;
+            if (parts != null) {
+                for (Map<String, Object> part : parts) {
+                    stream.text((String) part.get("text"));
+                }
+            }
+            String finishReason = (String) candidate.get("finishReason");
+            if (finishReason != null) {
+                stream.finishReason(finishReason.toLowerCase());
+            }
+        }
+
+        Map<String, Object> usageMetadata = (Map<String, Object>) event.get("usageMetadata");
+        if (usageMetadata != null) {
+            stream.usage((Number) usageMetadata.get("promptTokenCount"),
+                    (Number) usageMetadata.get("candidatesTokenCount"));
+        }
+    }
+
     private String interpolate(String text, Map<String, Object> data, ExecutionService.ExecutionContext context) {
         if (text == null) {
             return null;
@@ -771,67 +979,11 @@ public class LlmChatExecutor implements NodeExecutor {
         return current;
     }
 
-    // Simple JSON serialization (production should use Jackson)
-    private String toJson(Map<String, Object> map) {
-        StringBuilder sb = new StringBuilder("{");
-        boolean first = true;
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first)
-                sb.append(",");
-            first = false;
-
-            sb.append("\"").append(entry.getKey()).append("\":");
-            sb.append(valueToJson(entry.getValue()));
-        }
-
-        sb.append("}");
-        return sb.toString();
-    }
-
-    private String valueToJson(Object value) {
-        if (value == null) {
-            return "null";
-        } else if (value instanceof String s) {
-            return "\"" + escapeJson(s) + "\"";
-        } else if (value instanceof Number || value instanceof Boolean) {
-            return value.toString();
-        } else if (value instanceof List<?> list) {
-            StringBuilder sb = new StringBuilder("[");
-            boolean first = true;
-            for (Object item : list) {
-                if (!first)
-                    sb.append(",");
-                first = false;
-                sb.append(valueToJson(item));
-            }
-            sb.append("]");
-            return sb.toString();
-        } else if (value instanceof Map<?, ?> map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> typedMap = (Map<String, Object>) map;
-            return toJson(typedMap);
-        }
-        return "\"" + escapeJson(value.toString()) + "\"";
-    }
-
-    private String escapeJson(String s) {
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-    }
-
-    // Simple JSON parsing (production should use Jackson)
-    @SuppressWarnings("unchecked")
     private Map<String, Object> fromJson(String json) {
-        // Use a simple approach - delegate to the Jackson ObjectMapper if available
         try {
-            var objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return objectMapper.readValue(json, Map.class);
-        } catch (Exception e) {
-            throw new LlmProviderException("Failed to parse JSON: " + e.getMessage());
+            return JsonCodec.readMap(json);
+        } catch (IllegalArgumentException e) {
+            throw new LlmProviderException(e.getMessage());
         }
     }
 
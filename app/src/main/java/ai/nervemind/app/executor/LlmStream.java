@@ -0,0 +1,296 @@
+package ai.nervemind.app.executor;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.nervemind.app.service.ExecutionLogger;
+import ai.nervemind.app.service.ExecutionService;
+
+/**
+ * Incremental reader for streamed LLM responses.
+ *
+ * <p>
+ * Reads a response while it is generated, either as server-sent events
+ * (OpenAI, Azure, Anthropic, Gemini) or as newline-delimited JSON (Ollama),
+ * and hands every event to a provider-specific {@link EventHandler} that
+ * feeds text, finish reason and token usage back into the stream. Partial
+ * text is published as {@code NODE_PROGRESS} log entries - the first token
+ * right away, then at most every {@value #PROGRESS_INTERVAL_MS} ms - so log
+ * handlers and the console show long generations as they happen.
+ * </p>
+ *
+ * <p>
+ * The time to first token and the generation rate are measured along the
+ * way and returned under {@code streaming} next to the usual response
+ * keys. Reading stops early when the execution is cancelled. A server that
+ * ignores the stream flag and answers with plain JSON is handled by the
+ * non-streaming parser.
+ * </p>
+ */
+final class LlmStream {
+
+    /**
+     * Wire format of a streamed response.
+     */
+    enum Format {
+        /** Server-sent events with JSON {@code data:} payloads. */
+        SSE,
+        /** One JSON object per line. */
+        NDJSON
+    }
+
+    /**
+     * Handles one decoded event of a provider's stream.
+     */
+    @FunctionalInterface
+    interface EventHandler {
+        /**
+         * Handles an event.
+         *
+         * @param event  the decoded JSON event
+         * @param stream the stream to report text, finish reason and usage to
+         */
+        void handle(Map<String, Object> event, LlmStream stream);
+    }
+
+    static final long PROGRESS_INTERVAL_MS = 250;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    private static final String DONE = "[DONE]";
+
+    private final ExecutionService.ExecutionContext context;
+    private final ExecutionLogger logger;
+    private final String executionId;
+    private final String nodeId;
+
+    private final StringBuilder text = new StringBuilder();
+    private long startNanos;
+    private long firstTokenNanos = -1;
+    private long lastProgressNanos;
+    private int publishedLength;
+    private int chunks;
+    private String finishReason;
+    private Number promptTokens;
+    private Number completionTokens;
+
+    /**
+     * Creates a stream for one node run.
+     *
+     * @param context the execution context, or null outside an execution
+     * @param nodeId  the node the progress entries belong to
+     */
+    LlmStream(ExecutionService.ExecutionContext context, String nodeId) {
+        this.context = context;
+        this.logger = context != null ? context.getExecutionLogger() : null;
+        this.executionId = context != null && context.getExecutionId() != null
+                ? context.getExecutionId().toString()
+                : null;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Sends a request and reads its streamed response.
+     *
+     * @param httpClient the client to send with
+     * @param request    the request, with streaming enabled in its body
+     * @param provider   provider name used in error messages
+     * @param format     the wire format of the response
+     * @param fallback   parser for a response that was not streamed
+     * @param handler    handler for the provider's events
+     * @return the response, finish reason, usage and streaming metrics
+     * @throws IOException          if the request fails or the provider
+     *                              reports an error
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Map<String, Object> receive(HttpClient httpClient, HttpRequest request, String provider, Format format,
+            Function<String, Map<String, Object>> fallback, EventHandler handler)
+            throws IOException, InterruptedException {
+        startNanos = System.nanoTime();
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException(provider + " API error: " + response.statusCode() + " - "
+                        + lines.collect(Collectors.joining("\n")));
+            }
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (!contentType.contains("event-stream") && !contentType.contains("ndjson")) {
+                return fallback.apply(lines.collect(Collectors.joining("\n")));
+            }
+            read(lines.iterator(), provider, format, handler);
+        }
+        return finish();
+    }
+
+    private void read(Iterator<String> lines, String provider, Format format, EventHandler handler)
+            throws IOException {
+        StringBuilder data = new StringBuilder();
+        while (lines.hasNext()) {
+            if (context != null && context.isCancelled()) {
+                finishReason = "cancelled";
+                return;
+            }
+            String line = lines.next();
+            if (format == Format.NDJSON) {
+                if (!line.isBlank()) {
+                    dispatch(line, provider, handler);
+                }
+            } else if (line.isEmpty()) {
+                // A blank line ends an event
+                if (!data.isEmpty()) {
+                    dispatch(data.toString(), provider, handler);
+                    data.setLength(0);
+                }
+            } else if (line.startsWith("data:")) {
+                if (!data.isEmpty()) {
+                    data.append('\n');
+                }
+                data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
+            }
+            // event:, id: and comment lines carry nothing the handlers need
+        }
+        if (!data.isEmpty()) {
+            dispatch(data.toString(), provider, handler);
+        }
+    }
+
+    private void dispatch(String payload, String provider, EventHandler handler) throws IOException {
+        if (DONE.equals(payload)) {
+            return;
+        }
+        Map<String, Object> event = MAPPER.readValue(payload, MAP_TYPE);
+        Object error = event.get("error");
+        if (error != null) {
+            Object message = error instanceof Map<?, ?> map && map.get("message") != null ? map.get("message") : error;
+            throw new IOException(provider + " API error: " + message);
+        }
+        handler.handle(event, this);
+    }
+
+    /**
+     * Adds generated text.
+     *
+     * @param delta the next piece of text; null or empty is ignored
+     */
+    void text(String delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        boolean first = firstTokenNanos < 0;
+        if (first) {
+            firstTokenNanos = now;
+        }
+        text.append(delta);
+        chunks++;
+        if (first || now - lastProgressNanos >= PROGRESS_INTERVAL_MS * 1_000_000) {
+            publish(now, false);
+        }
+    }
+
+    /**
+     * Records why generation ended.
+     *
+     * @param reason the provider's finish reason; null is ignored
+     */
+    void finishReason(String reason) {
+        if (reason != null) {
+            finishReason = reason;
+        }
+    }
+
+    /**
+     * Records token usage. Providers report the counts in different events,
+     * so null values keep what was reported before.
+     *
+     * @param prompt     prompt tokens, or null
+     * @param completion completion tokens, or null
+     */
+    void usage(Number prompt, Number completion) {
+        if (prompt != null) {
+            promptTokens = prompt;
+        }
+        if (completion != null) {
+            completionTokens = completion;
+        }
+    }
+
+    private Map<String, Object> finish() {
+        long now = System.nanoTime();
+        Map<String, Object> metrics = metrics(now);
+        publish(now, true);
+        if (logger != null && executionId != null && firstTokenNanos >= 0) {
+            logger.performance(executionId, "llm.timeToFirstToken",
+                    ((Number) metrics.get("timeToFirstTokenMs")).longValue(), "ms");
+            logger.performance(executionId, "llm.tokensPerSecond",
+                    Math.round(((Number) metrics.get("tokensPerSecond")).doubleValue()), "tokens/s");
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("response", text.toString());
+        result.put("finishReason", finishReason != null ? finishReason : "unknown");
+        if (promptTokens != null || completionTokens != null) {
+            int prompt = promptTokens != null ? promptTokens.intValue() : 0;
+            int completion = completionTokens != null ? completionTokens.intValue() : 0;
+            result.put("usage", Map.of(
+                    "promptTokens", prompt,
+                    "completionTokens", completion,
+                    "totalTokens", prompt + completion));
+        }
+        result.put("streaming", metrics);
+        return result;
+    }
+
+    /**
+     * Computes the timing of the stream. The rate is taken over the time
+     * after the first token, so it reflects generation speed rather than
+     * queueing and prompt processing; without reported usage each received
+     * chunk counts as a token.
+     */
+    private Map<String, Object> metrics(long now) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("durationMs", (now - startNanos) / 1_000_000);
+        metrics.put("chunks", chunks);
+        if (firstTokenNanos >= 0) {
+            metrics.put("timeToFirstTokenMs", (firstTokenNanos - startNanos) / 1_000_000);
+            int tokens = completionTokens != null ? completionTokens.intValue() : chunks;
+            long generationNanos = Math.max(now - firstTokenNanos, 1);
+            double rate = tokens * 1_000_000_000.0 / generationNanos;
+            metrics.put("tokensPerSecond", Math.round(rate * 10) / 10.0);
+        }
+        return metrics;
+    }
+
+    private void publish(long now, boolean done) {
+        lastProgressNanos = now;
+        if (logger == null || executionId == null || (!done && publishedLength == text.length())) {
+            return;
+        }
+        Map<String, Object> details = new HashMap<>();
+        details.put("text", text.substring(publishedLength));
+        details.put("length", text.length());
+        details.put("elapsedMs", (now - startNanos) / 1_000_000);
+        details.put("done", done);
+        if (done) {
+            details.putAll(metrics(now));
+        } else if (publishedLength == 0) {
+            details.put("timeToFirstTokenMs", (firstTokenNanos - startNanos) / 1_000_000);
+        }
+        publishedLength = text.length();
+        logger.nodeProgress(executionId, nodeId, done ? "LLM response complete" : "Receiving LLM response",
+                details);
+    }
+}
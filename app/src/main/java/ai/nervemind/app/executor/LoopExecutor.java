@@ -4,23 +4,22 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.springframework.stereotype.Component;
 
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.StreamedItems;
 import ai.nervemind.common.domain.Node;
-import ai.nervemind.common.exception.NodeExecutionException;
 
 /**
  * Executor for the "loop" node type - iterates over arrays or collections.
  *
  * <p>Enables processing of multiple items by iterating through a collection
- * and executing child operations for each item. Supports both sequential
- * and parallel execution modes using Java virtual threads.</p>
+ * and executing child operations for each item. This executor builds the
+ * per-item contexts; the execution engine then runs the nodes connected to
+ * the {@code loop} output once per item, either sequentially or in
+ * parallel.</p>
  *
  * <h2>Node Parameters</h2>
  * <table border="1">
@@ -28,10 +27,10 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * <tr><th>Parameter</th><th>Type</th><th>Default</th><th>Description</th></tr>
  * <tr><td>items</td><td>String</td><td>"items"</td><td>Field name containing
  * the array to iterate</td></tr>
- * <tr><td>parallel</td><td>Boolean</td><td>false</td><td>Enable virtual thread
- * parallelism</td></tr>
- * <tr><td>batchSize</td><td>Integer</td><td>10</td><td>Items processed
- * concurrently when parallel=true</td></tr>
+ * <tr><td>parallel</td><td>Boolean</td><td>false</td><td>Run loop body
+ * iterations concurrently</td></tr>
+ * <tr><td>batchSize</td><td>Integer</td><td>10</td><td>Maximum number of
+ * iterations in flight when parallel=true</td></tr>
  * </table>
  *
  * <h2>Output Data</h2>
@@ -41,6 +40,8 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * <tr><td>results</td><td>List</td><td>List of result objects, each with "item"
  * and "index"</td></tr>
  * <tr><td>count</td><td>Integer</td><td>Number of items processed</td></tr>
+ * <tr><td>itemResults</td><td>List</td><td>Last output of the loop body for
+ * each item, in item order (added by the engine once the body has run)</td></tr>
  * </table>
  *
  * <h2>Result Item Structure</h2>
@@ -52,9 +53,9 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * </ul>
  *
  * <h2>Parallel Execution</h2>
- * <p>When {@code parallel=true}, items are processed using virtual threads
- * (requires Java 21+). The batch size controls how many virtual threads
- * are spawned concurrently:</p>
+ * <p>When {@code parallel=true}, the engine runs the loop body for several
+ * items at once on virtual threads. The batch size caps how many iterations
+ * are in flight; a new item starts as soon as a previous one finishes:</p>
  * <pre>{@code
  * // Configuration for parallel processing with batches of 5
  * {
@@ -64,8 +65,16 @@ import ai.nervemind.common.exception.NodeExecutionException;
  * }
  * }</pre>
  *
+ * <h2>Streamed Items</h2>
+ * <p>When the items field holds {@link StreamedItems}, such as the
+ * {@code batches} of a streaming CSV read, the items are not read here. The
+ * engine reads one item per iteration, so only the items in flight are held
+ * in memory. Iterations receive {@code item} and {@code index} but not the
+ * {@code _loopTotal}/{@code _isLast} fields, {@code itemResults} is not
+ * collected, and {@code count} is set once all items have been read.</p>
+ *
  * @see ParallelExecutor For branch-based parallel execution
- * @see java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()
+ * @see ExecutionService
  */
 @Component
 public class LoopExecutor implements NodeExecutor {
@@ -83,14 +92,19 @@ public class LoopExecutor implements NodeExecutor {
         Map<String, Object> params = node.parameters();
 
         String itemsField = (String) params.getOrDefault("items", "items");
-        boolean parallel = (boolean) params.getOrDefault("parallel", false);
-        int batchSize = (int) params.getOrDefault("batchSize", 10);
 
         Object itemsObj = input.get(itemsField);
         if (itemsObj == null) {
             return Map.of("results", List.of(), "count", 0);
         }
 
+        if (itemsObj instanceof StreamedItems stream) {
+            // Read by the engine one item per iteration
+            Map<String, Object> output = new HashMap<>(input);
+            output.put("results", stream);
+            return output;
+        }
+
         List<?> items;
         if (itemsObj instanceof List<?> list) {
             items = list;
@@ -100,15 +114,9 @@ public class LoopExecutor implements NodeExecutor {
             items = List.of(itemsObj);
         }
 
-        List<Map<String, Object>> results;
-
-        if (parallel && items.size() > 1) {
-            // Use virtual threads for parallel processing
-            results = executeParallel(items, input, batchSize);
-        } else {
-            // Sequential execution
-            results = executeSequential(items, input);
-        }
+        // Only the per-item contexts are built here; the execution engine runs
+        // the loop body for each of them (in parallel when configured)
+        List<Map<String, Object>> results = buildItemContexts(items, input);
 
         Map<String, Object> output = new HashMap<>(input);
         output.put("results", results);
@@ -116,8 +124,8 @@ public class LoopExecutor implements NodeExecutor {
         return output;
     }
 
-    private List<Map<String, Object>> executeSequential(List<?> items, Map<String, Object> input) {
-        List<Map<String, Object>> results = new ArrayList<>();
+    private List<Map<String, Object>> buildItemContexts(List<?> items, Map<String, Object> input) {
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
         int index = 0;
         for (Object item : items) {
             // Start with parent input context so child nodes can access parent data
@@ -135,57 +143,6 @@ public class LoopExecutor implements NodeExecutor {
         return results;
     }
 
-    private List<Map<String, Object>> executeParallel(List<?> items, Map<String, Object> input, int batchSize) {
-        List<Map<String, Object>> results = new ArrayList<>();
-
-        // Process in batches using virtual threads
-        for (int i = 0; i < items.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, items.size());
-            List<?> batch = items.subList(i, end);
-
-            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-                int startIndex = i;
-                List<Future<Map<String, Object>>> futures = new ArrayList<>();
-
-                for (int j = 0; j < batch.size(); j++) {
-                    Object item = batch.get(j);
-                    int index = startIndex + j;
-
-                    final int totalItems = items.size();
-                    // Each item processed in its own virtual thread
-                    futures.add(executor.submit(() -> {
-                        // Start with parent input context so child nodes can access parent data
-                        Map<String, Object> itemResult = new HashMap<>(input);
-                        // Override with current loop item data
-                        itemResult.put("item", item);
-                        itemResult.put("index", index);
-                        itemResult.put("_loopIndex", index);
-                        itemResult.put("_loopTotal", totalItems);
-                        itemResult.put("_isFirst", index == 0);
-                        itemResult.put("_isLast", index == totalItems - 1);
-                        return itemResult;
-                    }));
-                }
-
-                // Collect results
-                for (var future : futures) {
-                    results.add(future.get());
-                }
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new NodeExecutionException(
-                        "Parallel loop execution interrupted", null, "loop", e);
-            } catch (java.util.concurrent.ExecutionException e) {
-                throw new NodeExecutionException(
-                        "Parallel loop execution failed: " + e.getCause().getMessage(),
-                        null, "loop", e.getCause());
-            }
-        }
-
-        return results;
-    }
-
     @Override
     public String getNodeType() {
         return "loop";
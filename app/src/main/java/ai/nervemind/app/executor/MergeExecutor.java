@@ -14,7 +14,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import ai.nervemind.app.service.ExecutionLogger;
+import ai.nervemind.app.service.ExecutionPlan;
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.JoinedInput;
 import ai.nervemind.app.service.NodeExecutor;
 import ai.nervemind.common.domain.Node;
 
@@ -109,10 +111,19 @@ import ai.nervemind.common.domain.Node;
  * </tr>
  * </table>
  *
+ * <h2>Scheduler Joins</h2>
+ * <p>
+ * When run by the workflow engine, a merge node with several incoming
+ * connections is dispatched once, after its predecessors have finished, and
+ * receives a {@link JoinedInput} holding each branch's output. Branches that
+ * were not taken (e.g. the other side of an IF) simply do not contribute, so
+ * no waiting is involved.
+ * </p>
+ *
  * <h2>Thread Safety</h2>
  * <p>
- * Uses {@link ConcurrentHashMap} and {@link CountDownLatch} to handle
- * concurrent input from multiple threads in parallel execution scenarios.
+ * When called directly with separate inputs from several threads, uses
+ * {@link ConcurrentHashMap} and {@link CountDownLatch} to collect them.
  * </p>
  *
  * @see ParallelExecutor For spawning parallel branches
@@ -159,6 +170,11 @@ public class MergeExecutor implements NodeExecutor {
         // Calculate expected input count from workflow connections
         int inputCount = calculateExpectedInputCount(node, context);
 
+        // Inputs already collected by the execution scheduler: combine directly
+        if (input instanceof JoinedInput joined) {
+            return handleJoined(node, joined.branches(), mode, outputKey, waitForAll, inputCount, context);
+        }
+
         // Create unique key for this merge point in this execution
         String mergeKey = context.getExecutionId() + ":" + node.id();
 
@@ -180,6 +196,45 @@ public class MergeExecutor implements NodeExecutor {
         };
     }
 
+    private Map<String, Object> handleJoined(Node node, List<Map<String, Object>> branches, String mode,
+            String outputKey, boolean waitForAll, int expectedCount, ExecutionService.ExecutionContext context) {
+
+        logJoinCompleted(context, node, branches.size(), expectedCount);
+
+        return switch (mode.toLowerCase()) {
+            case "waitany" -> handleWaitAny(branches.get(0), outputKey);
+            case MODE_APPEND -> buildJoinedOutput(outputKey, new ArrayList<>(branches), MODE_APPEND,
+                    branches.size());
+            case MODE_MERGE -> buildJoinedOutput(outputKey, mergeAll(branches), MODE_MERGE, branches.size());
+            case "passthrough" -> {
+                Map<String, Object> output = mergeAll(branches);
+                output.put(KEY_MERGE_MODE, MODE_PASSTHROUGH);
+                output.put(KEY_INPUTS_RECEIVED, branches.size());
+                if (!waitForAll) {
+                    output.put("_exclusive", true);
+                }
+                yield output;
+            }
+            default -> buildJoinedOutput(outputKey, new ArrayList<>(branches), MODE_WAIT_ALL, branches.size());
+        };
+    }
+
+    private Map<String, Object> buildJoinedOutput(String outputKey, Object merged, String mode, int received) {
+        Map<String, Object> output = new HashMap<>();
+        output.put(outputKey, merged);
+        output.put(KEY_MERGE_MODE, mode);
+        output.put(KEY_INPUTS_RECEIVED, received);
+        return output;
+    }
+
+    private Map<String, Object> mergeAll(List<Map<String, Object>> inputs) {
+        Map<String, Object> merged = new HashMap<>();
+        for (Map<String, Object> inputMap : inputs) {
+            merged.putAll(inputMap);
+        }
+        return merged;
+    }
+
     private Map<String, Object> handleWaitAny(Map<String, Object> input, String outputKey) {
         // Just pass through the first input that arrives
         Map<String, Object> output = new HashMap<>();
@@ -421,15 +476,14 @@ public class MergeExecutor implements NodeExecutor {
             return ((Number) params.get("inputCount")).intValue();
         }
 
-        // Count incoming connections from the workflow
-        var workflow = context.getWorkflow();
-        if (workflow != null && workflow.connections() != null) {
-            long connectionCount = workflow.connections().stream()
-                    .filter(conn -> conn.targetNodeId().equals(node.id()))
-                    .count();
+        // Count incoming connections from the compiled workflow plan
+        ExecutionPlan plan = context.getExecutionPlan();
+        if (plan != null) {
+            int ordinal = plan.ordinalOf(node.id());
+            int connectionCount = ordinal != ExecutionPlan.UNRESOLVED ? plan.incomingCount(ordinal) : 0;
             if (connectionCount > 0) {
                 log.debug("Merge node '{}': Found {} incoming connections", node.name(), connectionCount);
-                return (int) connectionCount;
+                return connectionCount;
             }
         }
 
@@ -462,6 +516,29 @@ public class MergeExecutor implements NodeExecutor {
         log.info(message);
     }
 
+    /**
+     * Log when the scheduler hands over the collected inputs.
+     */
+    private void logJoinCompleted(ExecutionService.ExecutionContext context, Node node,
+            int received, int expectedCount) {
+        String message = String.format("✓ Merge '%s': %d of %d branches delivered data",
+                node.name(), received, expectedCount);
+
+        ExecutionLogger logger = context.getExecutionLogger();
+        if (logger != null) {
+            logger.custom(String.valueOf(context.getExecutionId()),
+                    ExecutionLogger.LogLevel.INFO,
+                    message,
+                    Map.of(
+                            "nodeId", node.id(),
+                            KEY_NODE_NAME, node.name(),
+                            KEY_INPUTS_RECEIVED_LOG, received,
+                            KEY_INPUTS_EXPECTED_LOG, expectedCount));
+        }
+
+        log.info(message);
+    }
+
     @Override
     public String getNodeType() {
         return MODE_MERGE;
@@ -0,0 +1,248 @@
+package ai.nervemind.app.executor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client for Ollama embeddings, shared by the embedding and RAG executors.
+ *
+ * <p>
+ * Texts are sent in batches of {@value #BATCH_SIZE} to the batch
+ * {@code /api/embed} endpoint. Ollama versions without it answer with a
+ * plain 404; the base URL is then remembered and texts are sent one by one
+ * to the legacy {@code /api/embeddings} endpoint instead. Either way, up to
+ * {@value #MAX_CONCURRENCY} requests run at once on virtual threads, each
+ * request is retried on timeouts, 429 and 5xx responses, and results are
+ * returned in input order.
+ * </p>
+ */
+final class OllamaEmbeddings {
+    private static final Logger log = LoggerFactory.getLogger(OllamaEmbeddings.class);
+
+    static final int BATCH_SIZE = 64;
+    static final int MAX_CONCURRENCY = 4;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 250;
+
+    // Base URLs whose Ollama has no batch endpoint
+    private static final Set<String> LEGACY_ENDPOINTS = ConcurrentHashMap.newKeySet();
+
+    private final HttpClient httpClient;
+
+    /**
+     * A response that is not worth retrying.
+     */
+    private static final class RequestRejectedException extends IOException {
+        RequestRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    OllamaEmbeddings(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Embeds texts.
+     *
+     * @param baseUrl the Ollama API base URL, e.g. http://localhost:11434/api
+     * @param model   the embedding model
+     * @param texts   the texts to embed
+     * @param timeout request timeout in seconds
+     * @return one embedding per text, in input order
+     * @throws IOException          if a request fails after its retries
+     * @throws InterruptedException if interrupted while waiting
+     */
+    List<float[]> embed(String baseUrl, String model, List<String> texts, int timeout)
+            throws IOException, InterruptedException {
+        List<float[]> result = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        if (texts.isEmpty()) {
+            return result;
+        }
+
+        // The first batch also tells whether the batch endpoint exists
+        int start = 0;
+        if (!LEGACY_ENDPOINTS.contains(baseUrl)) {
+            List<String> first = texts.subList(0, Math.min(BATCH_SIZE, texts.size()));
+            List<float[]> embedded = withRetry(() -> embedBatch(baseUrl, model, first, timeout));
+            if (embedded != null) {
+                place(result, 0, embedded);
+                start = first.size();
+            } else {
+                log.info("Ollama at {} has no /embed endpoint, embedding texts one by one", baseUrl);
+                LEGACY_ENDPOINTS.add(baseUrl);
+            }
+        }
+        if (start == texts.size()) {
+            return result;
+        }
+
+        boolean batched = !LEGACY_ENDPOINTS.contains(baseUrl);
+        int unit = batched ? BATCH_SIZE : 1;
+        Semaphore permits = new Semaphore(MAX_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int from = start; from < texts.size(); from += unit) {
+                int offset = from;
+                List<String> chunk = texts.subList(from, Math.min(from + unit, texts.size()));
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        List<float[]> embedded = withRetry(() -> batched
+                                ? embedBatch(baseUrl, model, chunk, timeout)
+                                : List.of(embedSingle(baseUrl, model, chunk.get(0), timeout)));
+                        if (embedded == null) {
+                            throw new IOException("Ollama batch embedding endpoint became unavailable");
+                        }
+                        // Distinct slots per task; Future.get() publishes them
+                        place(result, offset, embedded);
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    throw unwrap(e);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void place(List<float[]> result, int offset, List<float[]> embedded) {
+        for (int i = 0; i < embedded.size(); i++) {
+            result.set(offset + i, embedded.get(i));
+        }
+    }
+
+    /**
+     * Calls the batch endpoint.
+     *
+     * @return the embeddings, or null if the endpoint does not exist
+     */
+    private List<float[]> embedBatch(String baseUrl, String model, List<String> texts, int timeout)
+            throws IOException, InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("input", texts);
+        HttpResponse<InputStream> response = post(baseUrl + "/embed", body, timeout);
+        if (response.statusCode() == 404) {
+            String error = readError(response);
+            if (error.contains("page not found")) {
+                return null;
+            }
+            throw new RequestRejectedException("Ollama API error: 404 - " + error);
+        }
+        checkStatus(response);
+        List<float[]> embeddings = JsonCodec.readEmbeddings(response.body()).vectors();
+        if (embeddings.size() != texts.size()) {
+            throw new IOException("Ollama returned " + embeddings.size() + " embeddings for "
+                    + texts.size() + " texts");
+        }
+        return embeddings;
+    }
+
+    private float[] embedSingle(String baseUrl, String model, String text, int timeout)
+            throws IOException, InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("prompt", text);
+        HttpResponse<InputStream> response = post(baseUrl + "/embeddings", body, timeout);
+        checkStatus(response);
+        List<float[]> embeddings = JsonCodec.readEmbeddings(response.body()).vectors();
+        if (embeddings.isEmpty()) {
+            throw new IOException("Ollama returned no embedding");
+        }
+        return embeddings.getFirst();
+    }
+
+    private HttpResponse<InputStream> post(String url, Map<String, Object> body, int timeout)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(timeout))
+                .POST(JsonCodec.body(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static String readError(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void checkStatus(HttpResponse<InputStream> response) throws IOException {
+        int status = response.statusCode();
+        if (status == 200) {
+            return;
+        }
+        String message = "Ollama API error: " + status + " - " + readError(response);
+        if (status == 429 || status >= 500) {
+            throw new IOException(message);
+        }
+        throw new RequestRejectedException(message);
+    }
+
+    private static <T> T withRetry(Call<T> call) throws IOException, InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return call.run();
+            } catch (RequestRejectedException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Ollama embedding request failed (attempt {}), retrying: {}", attempt, e.getMessage());
+                Thread.sleep(RETRY_DELAY_MS << (attempt - 1));
+            }
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) throws InterruptedException {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof InterruptedException interrupted) {
+            throw interrupted;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+}
@@ -1,15 +1,18 @@
 package ai.nervemind.app.executor;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -17,8 +20,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import ai.nervemind.app.service.EmbeddingCache;
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.SharedHttpClient;
+import ai.nervemind.app.service.VectorIndex;
+import ai.nervemind.app.service.VectorIndexService;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -86,6 +93,25 @@ import ai.nervemind.common.domain.Node;
  * <td>Documents to search (content + metadata)</td>
  * </tr>
  * <tr>
+ * <td>collection</td>
+ * <td>String</td>
+ * <td>-</td>
+ * <td>Persistent vector collection; {@code documents} are upserted into it
+ * (by {@code id}, or by content) and the whole collection is searched</td>
+ * </tr>
+ * <tr>
+ * <td>deleteIds</td>
+ * <td>List</td>
+ * <td>[]</td>
+ * <td>Document IDs to remove from the collection before searching</td>
+ * </tr>
+ * <tr>
+ * <td>searchMode</td>
+ * <td>String</td>
+ * <td>"exact"</td>
+ * <td>"exact" scan or "approximate" (HNSW) search</td>
+ * </tr>
+ * <tr>
  * <td>topK</td>
  * <td>Integer</td>
  * <td>3</td>
@@ -106,7 +132,7 @@ import ai.nervemind.common.domain.Node;
  * <li><strong>Indexing:</strong> Generates embeddings for
  * <code>documents</code> (if missing)</li>
  * <li><strong>Retrieval:</strong> Finds top K documents using cosine
- * similarity</li>
+ * similarity in a {@link VectorIndex}</li>
  * <li><strong>Generation:</strong> Sends query + retrieved context to LLM</li>
  * </ol>
  *
@@ -162,14 +188,23 @@ public class RagExecutor implements NodeExecutor {
             """;
 
     private final HttpClient httpClient;
+    private final EmbeddingCache embeddingCache;
+    private final VectorIndexService vectorIndexService;
+    private final OllamaEmbeddings ollamaEmbeddings;
 
     /**
-     * Creates a new RAG executor with default HTTP client configuration.
+     * Creates a new RAG executor.
+     *
+     * @param embeddingCache     cache of previously computed embeddings
+     * @param vectorIndexService persistent vector collections
+     * @param httpClient         the shared HTTP client
      */
-    public RagExecutor() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+    public RagExecutor(EmbeddingCache embeddingCache, VectorIndexService vectorIndexService,
+            SharedHttpClient httpClient) {
+        this.embeddingCache = embeddingCache;
+        this.vectorIndexService = vectorIndexService;
+        this.httpClient = httpClient;
+        this.ollamaEmbeddings = new OllamaEmbeddings(httpClient);
     }
 
     @Override
@@ -194,7 +229,8 @@ public class RagExecutor implements NodeExecutor {
             String provider, String chatModel, String embeddingModel, String apiKey,
             String baseUrl, String query, String systemPrompt, int topK,
             double temperature, int maxTokens, int timeout, boolean includeContext,
-            List<Map<String, Object>> documents) {
+            List<Map<String, Object>> documents, String collection, List<String> deleteIds,
+            VectorIndex.SearchMode searchMode) {
     }
 
     private RagParameters extractParameters(Map<String, Object> params, Map<String, Object> input) {
@@ -212,9 +248,21 @@ public class RagExecutor implements NodeExecutor {
         int timeout = ((Number) params.getOrDefault("timeout", 120)).intValue();
         boolean includeContext = (Boolean) params.getOrDefault("includeContext", true);
         List<Map<String, Object>> documents = resolveDocuments(params, input);
+        String collection = interpolate((String) params.get("collection"), input);
+        List<String> deleteIds = new ArrayList<>();
+        if (params.get("deleteIds") instanceof List<?> ids) {
+            for (Object id : ids) {
+                deleteIds.add(String.valueOf(id));
+            }
+        }
+        VectorIndex.SearchMode searchMode = "approximate".equalsIgnoreCase(
+                (String) params.getOrDefault("searchMode", "exact"))
+                        ? VectorIndex.SearchMode.APPROXIMATE
+                        : VectorIndex.SearchMode.EXACT;
 
         return new RagParameters(provider, chatModel, embeddingModel, apiKey, baseUrl, query,
-                systemPrompt, topK, temperature, maxTokens, timeout, includeContext, documents);
+                systemPrompt, topK, temperature, maxTokens, timeout, includeContext, documents,
+                collection != null && !collection.isBlank() ? collection : null, deleteIds, searchMode);
     }
 
     private String resolveQuery(Map<String, Object> params, Map<String, Object> input) {
@@ -239,8 +287,8 @@ public class RagExecutor implements NodeExecutor {
         if (params.query() == null || params.query().isBlank()) {
             return "Query is required";
         }
-        if (params.documents().isEmpty()) {
-            return "Documents are required for RAG";
+        if (params.documents().isEmpty() && params.collection() == null) {
+            return "Documents or a collection are required for RAG";
         }
         return null;
     }
@@ -253,14 +301,16 @@ public class RagExecutor implements NodeExecutor {
     }
 
     private Map<String, Object> executeRagPipeline(RagParameters params, Map<String, Object> input) throws Exception {
-        List<Double> queryEmbedding = generateEmbedding(params.provider(), params.baseUrl(), params.apiKey(),
-                params.embeddingModel(), params.query(), params.timeout());
+        float[] queryEmbedding = embedTexts(params.provider(), params.baseUrl(), params.apiKey(),
+                params.embeddingModel(), List.of(params.query()), params.timeout()).get(0);
 
         List<Map<String, Object>> documentsWithEmbeddings = ensureEmbeddings(
                 params.documents(), params.provider(), params.baseUrl(), params.apiKey(),
                 params.embeddingModel(), params.timeout());
 
-        List<Map<String, Object>> retrievedDocs = retrieveTopK(queryEmbedding, documentsWithEmbeddings, params.topK());
+        List<Map<String, Object>> retrievedDocs = params.collection() != null
+                ? retrieveFromCollection(params, queryEmbedding, documentsWithEmbeddings)
+                : retrieveTopK(queryEmbedding, documentsWithEmbeddings, params.topK(), params.searchMode());
 
         String contextText = buildContextText(retrievedDocs);
         String enhancedSystemPrompt = params.systemPrompt().replace("{context}", contextText);
@@ -281,6 +331,9 @@ public class RagExecutor implements NodeExecutor {
         output.put("embeddingModel", params.embeddingModel());
         output.put("success", true);
         output.put("documentsRetrieved", retrievedDocs.size());
+        if (params.collection() != null) {
+            output.put("collection", params.collection());
+        }
 
         if (params.includeContext()) {
             addContextToOutput(output, retrievedDocs);
@@ -332,16 +385,7 @@ public class RagExecutor implements NodeExecutor {
         };
     }
 
-    private List<Double> generateEmbedding(String provider, String baseUrl, String apiKey,
-            String model, String text, int timeout) throws Exception {
-        if ("ollama".equalsIgnoreCase(provider)) {
-            return generateOllamaEmbedding(baseUrl, model, text, timeout);
-        } else {
-            return generateOpenAIEmbedding(baseUrl, apiKey, model, text, timeout);
-        }
-    }
-
-    private List<Double> generateOpenAIEmbedding(String baseUrl, String apiKey, String model,
+    private float[] generateOpenAIEmbedding(String baseUrl, String apiKey, String model,
             String text, int timeout) throws Exception {
         String url = baseUrl + "/embeddings";
 
@@ -349,63 +393,45 @@ public class RagExecutor implements NodeExecutor {
         requestBody.put("model", model);
         requestBody.put("input", text);
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("OpenAI embedding error: " + response.statusCode());
-        }
-
-        Map<String, Object> parsed = fromJson(response.body());
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> data = (List<Map<String, Object>>) parsed.get("data");
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
 
-        if (data != null && !data.isEmpty()) {
-            @SuppressWarnings("unchecked")
-            List<Double> embedding = (List<Double>) data.get(0).get("embedding");
-            return embedding;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("OpenAI embedding error: " + response.statusCode());
+            }
+            List<float[]> embeddings = JsonCodec.readEmbeddings(body).vectors();
+            if (!embeddings.isEmpty()) {
+                return embeddings.getFirst();
+            }
         }
 
         throw new RuntimeException("No embedding returned");
     }
 
-    private List<Double> generateOllamaEmbedding(String baseUrl, String model,
-            String text, int timeout) throws Exception {
-        String url = baseUrl + "/embeddings";
-
-        Map<String, Object> requestBody = new LinkedHashMap<>();
-        requestBody.put("model", model);
-        requestBody.put("prompt", text);
-
-        String jsonBody = toJson(requestBody);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("Ollama embedding error: " + response.statusCode());
-        }
-
-        Map<String, Object> parsed = fromJson(response.body());
-        @SuppressWarnings("unchecked")
-        List<Double> embedding = (List<Double>) parsed.get("embedding");
-
-        return embedding;
+    /**
+     * Embeds texts through the embedding cache; only texts that were never
+     * embedded with this model before reach the provider.
+     */
+    private List<float[]> embedTexts(String provider, String baseUrl, String apiKey,
+            String model, List<String> texts, int timeout) throws Exception {
+        return embeddingCache.embedAll(EmbeddingCache.namespace(provider, model, null), texts, missing -> {
+            if ("ollama".equalsIgnoreCase(provider)) {
+                return ollamaEmbeddings.embed(baseUrl, model, missing, timeout);
+            }
+            List<float[]> embeddings = new ArrayList<>(missing.size());
+            for (String text : missing) {
+                embeddings.add(generateOpenAIEmbedding(baseUrl, apiKey, model, text, timeout));
+            }
+            return embeddings;
+        });
     }
 
     private List<Map<String, Object>> ensureEmbeddings(List<Map<String, Object>> documents,
@@ -413,6 +439,8 @@ public class RagExecutor implements NodeExecutor {
             String apiKey, String model,
             int timeout) throws Exception {
         List<Map<String, Object>> result = new ArrayList<>();
+        List<Map<String, Object>> pending = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
 
         for (Map<String, Object> doc : documents) {
             Map<String, Object> docCopy = new HashMap<>(doc);
@@ -420,69 +448,95 @@ public class RagExecutor implements NodeExecutor {
             if (!doc.containsKey("embedding") || doc.get("embedding") == null) {
                 String content = (String) doc.get("content");
                 if (content != null && !content.isBlank()) {
-                    List<Double> embedding = generateEmbedding(provider, baseUrl, apiKey,
-                            model, content, timeout);
-                    docCopy.put("embedding", embedding);
+                    pending.add(docCopy);
+                    contents.add(content);
                 }
             }
 
             result.add(docCopy);
         }
 
+        if (!contents.isEmpty()) {
+            List<float[]> embeddings = embedTexts(provider, baseUrl, apiKey, model, contents, timeout);
+            for (int i = 0; i < pending.size(); i++) {
+                pending.get(i).put("embedding", embeddings.get(i));
+            }
+        }
+
         return result;
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Map<String, Object>> retrieveTopK(List<Double> queryEmbedding,
+    private List<Map<String, Object>> retrieveTopK(float[] queryEmbedding,
             List<Map<String, Object>> documents,
-            int topK) {
-        // Calculate similarity scores
-        List<Map.Entry<Map<String, Object>, Double>> scored = new ArrayList<>();
+            int topK, VectorIndex.SearchMode searchMode) {
+        // Index the documents of this run; the row number is the ID
+        VectorIndex index = new VectorIndex(queryEmbedding.length);
+        for (int i = 0; i < documents.size(); i++) {
+            Map<String, Object> doc = documents.get(i);
+            float[] embedding = vectorOf(doc.get("embedding"));
+            if (embedding != null && embedding.length == index.dimensions()) {
+                index.upsert(Integer.toString(i), embedding, doc);
+            }
+        }
+        return toRetrievedDocs(index.search(queryEmbedding, topK, searchMode));
+    }
 
+    private List<Map<String, Object>> retrieveFromCollection(RagParameters params, float[] queryEmbedding,
+            List<Map<String, Object>> documents) {
+        VectorIndex index = vectorIndexService.collection(params.collection(), queryEmbedding.length);
+        boolean changed = false;
+        for (String id : params.deleteIds()) {
+            changed |= index.delete(id);
+        }
         for (Map<String, Object> doc : documents) {
-            List<Double> docEmbedding = (List<Double>) doc.get("embedding");
-            if (docEmbedding != null) {
-                double similarity = cosineSimilarity(queryEmbedding, docEmbedding);
-                scored.add(Map.entry(doc, similarity));
+            float[] embedding = vectorOf(doc.get("embedding"));
+            if (embedding != null) {
+                Map<String, Object> payload = new HashMap<>(doc);
+                payload.remove("embedding");
+                changed |= index.upsert(documentId(doc), embedding, payload);
             }
         }
-
-        // Sort by similarity (descending)
-        scored.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
-
-        // Return top K
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (int i = 0; i < Math.min(topK, scored.size()); i++) {
-            Map<String, Object> doc = new HashMap<>(scored.get(i).getKey());
-            doc.put("similarity", scored.get(i).getValue());
-            // Remove embedding from output to save space
-            doc.remove("embedding");
-            result.add(doc);
+        if (changed) {
+            vectorIndexService.save(params.collection());
         }
-
-        return result;
+        return toRetrievedDocs(index.search(queryEmbedding, params.topK(), params.searchMode()));
     }
 
-    private double cosineSimilarity(List<Double> a, List<Double> b) {
-        if (a.size() != b.size()) {
-            return 0.0;
+    /**
+     * Gets a document embedding: computed in this run, or given in the
+     * node data as a list of numbers.
+     */
+    @SuppressWarnings("unchecked")
+    private static float[] vectorOf(Object embedding) {
+        if (embedding instanceof float[] vector) {
+            return vector;
         }
-
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-
-        for (int i = 0; i < a.size(); i++) {
-            dotProduct += a.get(i) * b.get(i);
-            normA += a.get(i) * a.get(i);
-            normB += b.get(i) * b.get(i);
+        if (embedding instanceof List<?> list) {
+            return VectorIndex.toFloats((List<Number>) list);
         }
+        return null;
+    }
 
-        if (normA == 0.0 || normB == 0.0) {
-            return 0.0;
+    private static String documentId(Map<String, Object> doc) {
+        Object id = doc.get("id");
+        if (id != null) {
+            return id.toString();
         }
+        // Same content, same ID: re-running over unchanged documents is a no-op
+        String content = String.valueOf(doc.get("content"));
+        return UUID.nameUUIDFromBytes(content.getBytes(StandardCharsets.UTF_8)).toString();
+    }
 
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+    private static List<Map<String, Object>> toRetrievedDocs(List<VectorIndex.Hit> hits) {
+        List<Map<String, Object>> result = new ArrayList<>(hits.size());
+        for (VectorIndex.Hit hit : hits) {
+            Map<String, Object> doc = new HashMap<>(hit.payload());
+            doc.put("similarity", hit.score());
+            // Remove embedding from output to save space
+            doc.remove("embedding");
+            result.add(doc);
+        }
+        return result;
     }
 
     private String buildContextText(List<Map<String, Object>> documents) {
@@ -522,14 +576,12 @@ public class RagExecutor implements NodeExecutor {
         requestBody.put("temperature", temperature);
         requestBody.put("max_tokens", maxTokens);
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -567,15 +619,13 @@ public class RagExecutor implements NodeExecutor {
             requestBody.put("system", systemMessage);
         }
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("x-api-key", apiKey)
                 .header("anthropic-version", "2023-06-01")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -600,13 +650,11 @@ public class RagExecutor implements NodeExecutor {
                 "temperature", temperature,
                 "num_predict", maxTokens));
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -620,7 +668,7 @@ public class RagExecutor implements NodeExecutor {
 
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseOpenAIResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
+        Map<String, Object> parsed = JsonCodec.readMap(json);
         Map<String, Object> result = new HashMap<>();
 
         List<Map<String, Object>> choices = (List<Map<String, Object>>) parsed.get("choices");
@@ -639,7 +687,7 @@ public class RagExecutor implements NodeExecutor {
 
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseAnthropicResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
+        Map<String, Object> parsed = JsonCodec.readMap(json);
         Map<String, Object> result = new HashMap<>();
 
         List<Map<String, Object>> content = (List<Map<String, Object>>) parsed.get("content");
@@ -657,7 +705,7 @@ public class RagExecutor implements NodeExecutor {
 
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseOllamaResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
+        Map<String, Object> parsed = JsonCodec.readMap(json);
         Map<String, Object> result = new HashMap<>();
 
         Map<String, Object> message = (Map<String, Object>) parsed.get("message");
@@ -707,67 +755,6 @@ public class RagExecutor implements NodeExecutor {
         return current;
     }
 
-    private String toJson(Map<String, Object> map) {
-        StringBuilder sb = new StringBuilder("{");
-        boolean first = true;
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first)
-                sb.append(",");
-            first = false;
-            sb.append("\"").append(entry.getKey()).append("\":");
-            sb.append(valueToJson(entry.getValue()));
-        }
-
-        sb.append("}");
-        return sb.toString();
-    }
-
-    private String valueToJson(Object value) {
-        if (value == null)
-            return "null";
-        if (value instanceof String s)
-            return "\"" + escapeJson(s) + "\"";
-        if (value instanceof Number || value instanceof Boolean)
-            return value.toString();
-        if (value instanceof List<?> list) {
-            StringBuilder sb = new StringBuilder("[");
-            boolean first = true;
-            for (Object item : list) {
-                if (!first)
-                    sb.append(",");
-                first = false;
-                sb.append(valueToJson(item));
-            }
-            sb.append("]");
-            return sb.toString();
-        }
-        if (value instanceof Map<?, ?> map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> typedMap = (Map<String, Object>) map;
-            return toJson(typedMap);
-        }
-        return "\"" + escapeJson(value.toString()) + "\"";
-    }
-
-    private String escapeJson(String s) {
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> fromJson(String json) {
-        try {
-            var objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return objectMapper.readValue(json, Map.class);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse JSON: " + e.getMessage(), e);
-        }
-    }
-
     @Override
     public String getNodeType() {
         return "rag";
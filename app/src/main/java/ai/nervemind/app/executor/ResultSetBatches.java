@@ -0,0 +1,214 @@
+package ai.nervemind.app.executor;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ai.nervemind.app.service.StreamedItems;
+import ai.nervemind.app.service.Table;
+
+/**
+ * Query results read in fixed-size batches while a loop runs over them.
+ *
+ * <p>
+ * The query runs on the first call to {@link #next()}, on a connection that
+ * is held until the last row has been read or the loop ends. Rows are
+ * fetched from the database {@code fetchSize} at a time and handed out as
+ * batches of {@code batchSize} rows, so only the current batch is held in
+ * memory. Each item is a map with the batch's {@code rows} as a
+ * {@link Table}, its {@code batchIndex}, the {@code rowOffset} of its first
+ * row and its {@code rowCount}.
+ * </p>
+ *
+ * <p>
+ * H2 materializes a query's whole result before returning the first row
+ * unless lazy query execution is enabled, so it is enabled for the held
+ * connection and turned off again before the connection is returned.
+ * </p>
+ */
+final class ResultSetBatches implements StreamedItems {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultSetBatches.class);
+
+    /**
+     * Opens the connection the query runs on.
+     */
+    @FunctionalInterface
+    interface ConnectionSource {
+        /**
+         * Opens a connection.
+         *
+         * @return the connection; closed when the batches are done
+         * @throws SQLException if no connection is available
+         */
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Binds parameters to the query.
+     */
+    @FunctionalInterface
+    interface Binder {
+        /**
+         * Binds the parameters.
+         *
+         * @param statement the prepared query
+         * @throws SQLException if a parameter cannot be bound
+         */
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private final ConnectionSource source;
+    private final String sql;
+    private final Binder binder;
+    private final int fetchSize;
+    private final int batchSize;
+    private final int timeout;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private List<String> columns;
+    private boolean finished;
+    private int batchIndex;
+    private long rowOffset;
+
+    ResultSetBatches(ConnectionSource source, String sql, Binder binder, int fetchSize, int batchSize,
+            int timeout) {
+        this.source = source;
+        this.sql = sql;
+        this.binder = binder;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public synchronized Object next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        try {
+            if (resultSet == null) {
+                open();
+            }
+            Table rows = readTable(resultSet, columns, batchSize);
+            if (rows.size() < batchSize) {
+                close();
+            }
+            if (rows.isEmpty()) {
+                return null;
+            }
+
+            Map<String, Object> batch = new HashMap<>();
+            batch.put("rows", rows);
+            batch.put("batchIndex", batchIndex++);
+            batch.put("rowOffset", rowOffset);
+            batch.put("rowCount", rows.size());
+            rowOffset += rows.size();
+            return batch;
+        } catch (SQLException e) {
+            close();
+            throw new IOException("Database query failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void open() throws SQLException {
+        connection = source.open();
+        try (var lazy = connection.createStatement()) {
+            lazy.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        }
+        statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setQueryTimeout(timeout);
+        statement.setFetchSize(fetchSize);
+        binder.bind(statement);
+        resultSet = statement.executeQuery();
+        columns = columnLabels(resultSet);
+    }
+
+    @Override
+    public synchronized void close() {
+        finished = true;
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (statement != null) {
+                // Closes the result set too
+                statement.close();
+            }
+            try (var lazy = connection.createStatement()) {
+                lazy.execute("SET LAZY_QUERY_EXECUTION FALSE");
+            }
+        } catch (SQLException e) {
+            log.debug("Failed to close query: {}", e.getMessage());
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Failed to return connection: {}", e.getMessage());
+            }
+            connection = null;
+            statement = null;
+            resultSet = null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> describe() {
+        return Map.of("streaming", true, "batchSize", batchSize, "fetchSize", fetchSize);
+    }
+
+    @Override
+    public String toString() {
+        return "Query results in batches of " + batchSize + " rows";
+    }
+
+    /**
+     * Returns the column labels of a result.
+     *
+     * @param resultSet the result
+     * @return the labels, in column order
+     * @throws SQLException if the metadata cannot be read
+     */
+    static List<String> columnLabels(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData meta = resultSet.getMetaData();
+        int columnCount = meta.getColumnCount();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            columns.add(meta.getColumnLabel(i));
+        }
+        return columns;
+    }
+
+    /**
+     * Reads rows from the current position of a result.
+     *
+     * @param resultSet the result
+     * @param columns   its column labels
+     * @param limit     the most rows to read
+     * @return the rows read; fewer than {@code limit} at the end of the result
+     * @throws SQLException if the rows cannot be read
+     */
+    static Table readTable(ResultSet resultSet, List<String> columns, int limit) throws SQLException {
+        Table.Builder builder = Table.builder(columns);
+        Object[] values = new Object[columns.size()];
+        while (builder.size() < limit && resultSet.next()) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = resultSet.getObject(i + 1);
+            }
+            builder.add(values);
+        }
+        return builder.build();
+    }
+}
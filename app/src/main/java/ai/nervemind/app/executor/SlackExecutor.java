@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import ai.nervemind.app.service.ExecutionLogger;
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.SharedHttpClient;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.exception.NodeExecutionException;
 
@@ -97,13 +98,12 @@ public class SlackExecutor implements NodeExecutor {
     private final ObjectMapper objectMapper;
 
     /**
-     * Default constructor.
+     * Creates a new Slack executor.
+     *
+     * @param httpClient the shared HTTP client
      */
-    public SlackExecutor() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .executor(java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor())
-                .build();
+    public SlackExecutor(SharedHttpClient httpClient) {
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -1,15 +1,19 @@
 package ai.nervemind.app.executor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.springframework.stereotype.Component;
 
 import ai.nervemind.app.service.ExecutionService;
 import ai.nervemind.app.service.NodeExecutor;
+import ai.nervemind.app.service.Table;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -66,6 +70,20 @@ import ai.nervemind.common.domain.Node;
  * <td>false</td>
  * <td>true to put null values first</td>
  * </tr>
+ * <tr>
+ * <td>sortKeys</td>
+ * <td>List</td>
+ * <td>null</td>
+ * <td>Several fields to sort by, each a map with {@code field},
+ * {@code direction} and {@code sortType}; later fields order items that are
+ * equal on earlier ones. Replaces sortBy, direction and sortType.</td>
+ * </tr>
+ * <tr>
+ * <td>limit</td>
+ * <td>Integer</td>
+ * <td>0</td>
+ * <td>Keep only the first items of the sorted result (0 = all)</td>
+ * </tr>
  * </table>
  *
  * <h2>Sort Types</h2>
@@ -74,9 +92,26 @@ import ai.nervemind.common.domain.Node;
  * double)</li>
  * <li><strong>string</strong> - Case-insensitive alphabetical comparison</li>
  * <li><strong>date</strong> - ISO date format comparison (YYYY-MM-DD)</li>
- * <li><strong>auto</strong> - Detects type based on actual values</li>
+ * <li><strong>auto</strong> - Detects the type shared by all values of the
+ * field; mixed values sort as strings</li>
  * </ul>
  *
+ * <h2>Performance</h2>
+ * <p>
+ * Each item's sort keys are extracted once and encoded into primitive
+ * arrays before sorting, so comparisons never look up fields or parse
+ * values. Items equal on every key keep their input order. Large inputs are
+ * sorted in parallel, and with a {@code limit} only that many items are kept
+ * while scanning the input.
+ * </p>
+ *
+ * <h2>Tables</h2>
+ * <p>
+ * When the input is a {@link Table}, sort keys are read from its columns
+ * without building rows, string columns are ranked once per distinct value,
+ * and the result is a {@link Table} sharing the input's data.
+ * </p>
+ *
  * <h2>Output Data</h2>
  * <table border="1">
  * <caption>Output keys added by this executor</caption>
@@ -98,7 +133,7 @@ import ai.nervemind.common.domain.Node;
  * <tr>
  * <td>_sortedBy</td>
  * <td>String</td>
- * <td>Field used for sorting</td>
+ * <td>Fields used for sorting, comma-separated</td>
  * </tr>
  * <tr>
  * <td>_sortDirection</td>
@@ -128,6 +163,42 @@ public class SortExecutor implements NodeExecutor {
     private static final String TYPE_DATE = "date";
     private static final String TYPE_STRING = "string";
 
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}.*");
+
+    /**
+     * One field to sort by.
+     *
+     * @param field     the field path, or null to sort by the items themselves
+     * @param ascending whether smaller values come first
+     * @param type      the sort type, or null to detect it from the values
+     */
+    private record SortKey(String field, boolean ascending, String type) {
+    }
+
+    /**
+     * The sort keys of all items for one {@link SortKey}, encoded so that
+     * comparing two longs orders the items like comparing their values.
+     */
+    private record Keys(long[] values, BitSet nulls, boolean ascending, boolean nullsFirst) {
+
+        Keys {
+            nulls = nulls.isEmpty() ? null : nulls;
+        }
+
+        int compare(int a, int b) {
+            int result;
+            boolean nullA = nulls != null && nulls.get(a);
+            boolean nullB = nulls != null && nulls.get(b);
+            if (nullA || nullB) {
+                result = nullA == nullB ? 0 : nullA == nullsFirst ? -1 : 1;
+            } else {
+                result = Long.compare(values[a], values[b]);
+            }
+            // Descending reverses the null placement as well
+            return ascending ? result : -result;
+        }
+    }
+
     @Override
     public Map<String, Object> execute(Node node, Map<String, Object> input,
             ExecutionService.ExecutionContext context) {
@@ -139,6 +210,7 @@ public class SortExecutor implements NodeExecutor {
         String direction = (String) params.getOrDefault("direction", "asc");
         String sortType = (String) params.get("sortType"); // null means auto-detect
         boolean nullsFirst = (Boolean) params.getOrDefault("nullsFirst", false);
+        int limit = ((Number) params.getOrDefault("limit", 0)).intValue();
 
         // Get the input array
         Object inputData = getNestedValue(input, inputField);
@@ -153,82 +225,212 @@ public class SortExecutor implements NodeExecutor {
         }
 
         List<?> items = (List<?>) inputData;
-        List<Object> sorted = new ArrayList<>(items);
+        List<SortKey> sortKeys = parseSortKeys(params.get("sortKeys"), sortBy, direction, sortType);
 
-        boolean ascending = "asc".equalsIgnoreCase(direction);
+        // Decorate: extract and encode every key of every item once
+        Keys[] keys = new Keys[sortKeys.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = extractKeys(items, sortKeys.get(i), nullsFirst);
+        }
+        IndexSorter.IndexComparator comparator = (a, b) -> {
+            for (Keys key : keys) {
+                int result = key.compare(a, b);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            // Equal items keep their input order
+            return Integer.compare(a, b);
+        };
 
-        Comparator<Object> comparator = createComparator(sortBy, sortType, ascending, nullsFirst);
-        sorted.sort(comparator);
+        // Sort the indices, then undecorate
+        int[] order = limit > 0 && limit < items.size()
+                ? IndexSorter.top(items.size(), limit, comparator)
+                : IndexSorter.sort(items.size(), comparator);
+        List<?> sorted;
+        if (items instanceof Table table) {
+            sorted = table.select(order);
+        } else {
+            List<Object> list = new ArrayList<>(order.length);
+            for (int index : order) {
+                list.add(items.get(index));
+            }
+            sorted = list;
+        }
 
         output.put(outputField, sorted);
         output.put("_sortedCount", sorted.size());
-        output.put("_sortedBy", sortBy != null ? sortBy : "value");
+        output.put("_sortedBy", sortedBy(sortKeys));
         output.put("_sortDirection", direction);
 
         return output;
     }
 
-    private Comparator<Object> createComparator(String sortBy, String sortType, boolean ascending, boolean nullsFirst) {
-        Comparator<Object> comparator = (a, b) -> {
-            Object valueA = extractValue(a, sortBy);
-            Object valueB = extractValue(b, sortBy);
+    private List<SortKey> parseSortKeys(Object spec, String sortBy, String direction, String sortType) {
+        if (!(spec instanceof List<?> list) || list.isEmpty()) {
+            return List.of(new SortKey(sortBy, "asc".equalsIgnoreCase(direction), sortType));
+        }
+        List<SortKey> sortKeys = new ArrayList<>(list.size());
+        for (Object entry : list) {
+            if (entry instanceof Map<?, ?> map) {
+                Object keyDirection = map.get("direction");
+                Object keyType = map.get("sortType");
+                sortKeys.add(new SortKey((String) map.get("field"),
+                        keyDirection == null || "asc".equalsIgnoreCase(keyDirection.toString()),
+                        keyType != null ? keyType.toString() : null));
+            } else if (entry != null) {
+                sortKeys.add(new SortKey(entry.toString(), true, null));
+            }
+        }
+        return sortKeys;
+    }
+
+    private String sortedBy(List<SortKey> sortKeys) {
+        List<String> fields = new ArrayList<>(sortKeys.size());
+        for (SortKey sortKey : sortKeys) {
+            fields.add(sortKey.field() != null ? sortKey.field() : "value");
+        }
+        return String.join(", ", fields);
+    }
 
-            int nullComparison = compareNulls(valueA, valueB, nullsFirst);
-            if (nullComparison != Integer.MIN_VALUE) {
-                return nullComparison;
+    /**
+     * Encodes one sort key of every item. Numbers become longs that order
+     * like the numbers; strings and dates become the rank of their value
+     * among the distinct values. Table columns are read without building
+     * rows, and string columns are ranked once per distinct value.
+     */
+    private Keys extractKeys(List<?> items, SortKey sortKey, boolean nullsFirst) {
+        int size = items.size();
+        long[] keys = new long[size];
+        BitSet nulls = new BitSet(size);
+
+        Table.Column column = items instanceof Table table && sortKey.field() != null
+                ? table.column(sortKey.field())
+                : null;
+        if (column != null) {
+            for (int i = 0; i < size; i++) {
+                if (column.isNull(i)) {
+                    nulls.set(i);
+                }
             }
+        }
 
-            String effectiveType = sortType != null ? sortType : detectType(valueA, valueB);
-            return compareByType(valueA, valueB, effectiveType);
+        boolean numeric = column != null && switch (column.type()) {
+            case INT, LONG, DOUBLE -> true;
+            default -> false;
         };
-
-        return ascending ? comparator : comparator.reversed();
+        if (numeric && (sortKey.type() == null || TYPE_NUMBER.equalsIgnoreCase(sortKey.type()))) {
+            for (int i = 0; i < size; i++) {
+                keys[i] = nulls.get(i) ? 0 : sortable(column.getDouble(i));
+            }
+        } else if (column != null && column.type() == Table.Type.STRING) {
+            long[] ranks = encode(column.dictionary().toArray(), sortKey.type());
+            for (int i = 0; i < size; i++) {
+                keys[i] = nulls.get(i) ? 0 : ranks[column.code(i)];
+            }
+        } else {
+            Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = column != null ? column.get(i) : extractValue(items.get(i), sortKey.field());
+                if (values[i] == null) {
+                    nulls.set(i);
+                }
+            }
+            keys = encode(values, sortKey.type());
+        }
+        return new Keys(keys, nulls, sortKey.ascending(), nullsFirst);
     }
 
-    private Object extractValue(Object item, String sortBy) {
-        return sortBy != null ? getNestedValue(item, sortBy) : item;
+    /**
+     * Encodes values by the given sort type, or the type all non-null values
+     * share. Null values get the key 0.
+     */
+    private long[] encode(Object[] values, String sortType) {
+        String type = sortType != null ? sortType.toLowerCase() : detectType(values);
+        if (TYPE_NUMBER.equals(type)) {
+            long[] keys = new long[values.length];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    Object value = values[i];
+                    if (value != null) {
+                        keys[i] = sortable(value instanceof Number n ? n.doubleValue()
+                                : Double.parseDouble(value.toString()));
+                    }
+                }
+                return keys;
+            } catch (NumberFormatException _) {
+                // Not all numbers; sort as strings
+                return rank(values, String.CASE_INSENSITIVE_ORDER);
+            }
+        }
+        // ISO dates order like their text
+        return rank(values, TYPE_DATE.equals(type) ? Comparator.naturalOrder() : String.CASE_INSENSITIVE_ORDER);
     }
 
-    private int compareNulls(Object a, Object b, boolean nullsFirst) {
-        if (a == null && b == null) {
-            return 0;
+    /**
+     * Ranks values by their text; values that compare as equal share a rank.
+     */
+    private long[] rank(Object[] values, Comparator<String> comparator) {
+        Map<String, Long> ranks = new HashMap<>();
+        for (Object value : values) {
+            if (value != null) {
+                ranks.put(value.toString(), 0L);
+            }
         }
-        if (a == null) {
-            return nullsFirst ? -1 : 1;
+        String[] distinct = ranks.keySet().toArray(String[]::new);
+        Arrays.sort(distinct, comparator);
+        long rank = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i > 0 && comparator.compare(distinct[i - 1], distinct[i]) != 0) {
+                rank = i;
+            }
+            ranks.put(distinct[i], rank);
         }
-        if (b == null) {
-            return nullsFirst ? 1 : -1;
+
+        long[] keys = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                keys[i] = ranks.get(values[i].toString());
+            }
         }
-        return Integer.MIN_VALUE; // Sentinel value indicating no nulls
+        return keys;
     }
 
-    private int compareByType(Object a, Object b, String type) {
-        return switch (type.toLowerCase()) {
-            case TYPE_NUMBER -> compareAsNumbers(a, b);
-            case TYPE_DATE -> compareAsDates(a, b);
-            default -> compareAsStrings(a, b);
-        };
+    /**
+     * Maps a double to a long that orders like {@link Double#compare}.
+     */
+    private static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
     }
 
-    private String detectType(Object a, Object b) {
-        if (a instanceof Number || b instanceof Number) {
-            return TYPE_NUMBER;
-        }
-
-        String strA = a.toString();
-        String strB = b.toString();
-
-        // Check if both look like numbers
-        if (looksLikeNumber(strA) && looksLikeNumber(strB)) {
-            return TYPE_NUMBER;
-        }
+    private Object extractValue(Object item, String sortBy) {
+        return sortBy != null ? getNestedValue(item, sortBy) : item;
+    }
 
-        // Check if both look like dates (ISO format)
-        if (looksLikeDate(strA) && looksLikeDate(strB)) {
-            return TYPE_DATE;
+    /**
+     * Detects the type shared by all non-null values: numbers if all are
+     * numbers or numeric text, dates if all are ISO dates, strings otherwise.
+     */
+    private String detectType(Object[] values) {
+        boolean numbers = true;
+        boolean dates = true;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Number) {
+                dates = false;
+            } else {
+                String text = value.toString();
+                numbers = numbers && looksLikeNumber(text);
+                dates = dates && looksLikeDate(text);
+            }
+            if (!numbers && !dates) {
+                return TYPE_STRING;
+            }
         }
-
-        return TYPE_STRING;
+        return numbers ? TYPE_NUMBER : dates ? TYPE_DATE : TYPE_STRING;
     }
 
     private boolean looksLikeNumber(String s) {
@@ -242,26 +444,7 @@ public class SortExecutor implements NodeExecutor {
 
     private boolean looksLikeDate(String s) {
         // Check for ISO date format: YYYY-MM-DD or YYYY-MM-DDTHH:MM:SS
-        return s.matches("\\d{4}-\\d{2}-\\d{2}.*");
-    }
-
-    private int compareAsNumbers(Object a, Object b) {
-        try {
-            double numA = a instanceof Number n ? n.doubleValue() : Double.parseDouble(a.toString());
-            double numB = b instanceof Number n ? n.doubleValue() : Double.parseDouble(b.toString());
-            return Double.compare(numA, numB);
-        } catch (NumberFormatException _) {
-            return compareAsStrings(a, b);
-        }
-    }
-
-    private int compareAsDates(Object a, Object b) {
-        // For dates in ISO format, string comparison works
-        return a.toString().compareTo(b.toString());
-    }
-
-    private int compareAsStrings(Object a, Object b) {
-        return a.toString().compareToIgnoreCase(b.toString());
+        return DATE.matcher(s).matches();
     }
 
     @SuppressWarnings("unchecked")
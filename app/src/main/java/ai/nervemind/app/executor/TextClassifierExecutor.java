@@ -6,10 +6,20 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,8 +28,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.LlmResponseCache;
 import ai.nervemind.app.service.NodeExecutor;
 import ai.nervemind.app.service.SettingsDefaults;
+import ai.nervemind.app.service.SharedHttpClient;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.service.SettingsServiceInterface;
 
@@ -63,6 +75,25 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <td>Text to classify (supports interpolation)</td>
  * </tr>
  * <tr>
+ * <td>texts</td>
+ * <td>List&lt;String&gt; or String</td>
+ * <td>-</td>
+ * <td>Texts to classify in batch mode: a list, or a ${path} to a list in the
+ * input</td>
+ * </tr>
+ * <tr>
+ * <td>batchSize</td>
+ * <td>Integer</td>
+ * <td>20</td>
+ * <td>Texts sent in one request in batch mode</td>
+ * </tr>
+ * <tr>
+ * <td>concurrency</td>
+ * <td>Integer</td>
+ * <td>from settings (4)</td>
+ * <td>Batch requests sent at once</td>
+ * </tr>
+ * <tr>
  * <td>categories</td>
  * <td>List&lt;String&gt;</td>
  * <td>[]</td>
@@ -86,6 +117,19 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <td>60</td>
  * <td>Request timeout in seconds</td>
  * </tr>
+ * <tr>
+ * <td>cache</td>
+ * <td>Boolean</td>
+ * <td>false</td>
+ * <td>Reuse the classification of identical text with the same categories
+ * (see {@link LlmResponseCache})</td>
+ * </tr>
+ * <tr>
+ * <td>cacheTtl</td>
+ * <td>Integer</td>
+ * <td>from settings (86400)</td>
+ * <td>Seconds a cached classification is reused</td>
+ * </tr>
  * </table>
  *
  * <h2>Output Data (Single Label)</h2>
@@ -133,6 +177,27 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * </tr>
  * </table>
  *
+ * <h2>Batch Mode</h2>
+ * <p>
+ * With {@code texts} set, the node classifies a whole list at once: every
+ * request carries {@code batchSize} texts tagged with their index and asks
+ * for one indexed JSON result per text, and up to {@code concurrency}
+ * requests run in parallel. A text the answer leaves out or gets wrong, and
+ * every text of a failed request, is classified again on its own, so each
+ * text gets the same result fields as a single classification. The output
+ * holds:
+ * </p>
+ * <ul>
+ * <li><strong>results</strong> - one map per text, in input order, with
+ * {@code index}, {@code success} and either the classification keys above
+ * or {@code error}</li>
+ * <li><strong>count</strong>, <strong>failedCount</strong> - texts
+ * classified and texts that failed</li>
+ * <li><strong>batches</strong>, <strong>retried</strong> - requests sent,
+ * and texts classified again on their own</li>
+ * <li><strong>usage</strong> - token usage added up over all requests</li>
+ * </ul>
+ *
  * <h2>Prompt Engineering</h2>
  * <p>
  * This executor automatically constructs a specialized system prompt that
@@ -149,19 +214,31 @@ public class TextClassifierExecutor implements NodeExecutor {
 
     private static final Pattern INTERPOLATION_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
 
+    /** Texts sent in one batch request unless the node says otherwise. */
+    static final int DEFAULT_BATCH_SIZE = 20;
+
+    /** Batch requests running at once unless settings or the node say otherwise. */
+    static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final int DEFAULT_MAX_TOKENS = 1024;
+    private static final int BATCH_TOKENS_PER_TEXT = 128;
+
     private final HttpClient httpClient;
     private final SettingsServiceInterface settingsService;
+    private final LlmResponseCache responseCache;
 
     /**
-     * Creates a new text classifier executor with configured HTTP client.
+     * Creates a new text classifier executor.
      *
      * @param settingsService the settings service for configuration access
+     * @param httpClient      the shared HTTP client
+     * @param responseCache   the cache for nodes with caching turned on
      */
-    public TextClassifierExecutor(SettingsServiceInterface settingsService) {
+    public TextClassifierExecutor(SettingsServiceInterface settingsService, SharedHttpClient httpClient,
+            LlmResponseCache responseCache) {
         this.settingsService = settingsService;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+        this.httpClient = httpClient;
+        this.responseCache = responseCache;
     }
 
     @Override
@@ -171,48 +248,49 @@ public class TextClassifierExecutor implements NodeExecutor {
 
         String provider = interpolate((String) params.getOrDefault("provider", "openai"), input, context);
         String model = interpolate((String) params.getOrDefault("model", getDefaultModel(provider)), input, context);
-        String apiKey = interpolate((String) params.get("apiKey"), input, context);
+        String configuredApiKey = interpolate((String) params.get("apiKey"), input, context);
         String baseUrl = interpolate((String) params.getOrDefault("baseUrl", getDefaultBaseUrl(provider)), input,
                 context);
-        String text = interpolate((String) params.get("text"), input, context);
         boolean multiLabel = (Boolean) params.getOrDefault("multiLabel", false);
         boolean includeConfidence = (Boolean) params.getOrDefault("includeConfidence", true);
         int timeout = ((Number) params.getOrDefault("timeout", 60)).intValue();
+        boolean cache = Boolean.TRUE.equals(params.get("cache"));
+        Duration cacheTtl = params.get("cacheTtl") instanceof Number seconds
+                ? Duration.ofSeconds(seconds.longValue())
+                : null;
 
         // Fall back to settings for API key if not specified in node params
-        if (apiKey == null || apiKey.isBlank()) {
-            apiKey = getApiKeyFromSettings(provider);
-        }
+        String apiKey = configuredApiKey == null || configuredApiKey.isBlank()
+                ? getApiKeyFromSettings(provider)
+                : configuredApiKey;
 
         @SuppressWarnings("unchecked")
         List<String> categories = (List<String>) params.getOrDefault("categories", List.of());
 
-        if (text == null || text.isBlank()) {
+        if (categories.isEmpty()) {
             Map<String, Object> output = new HashMap<>(input);
             output.put("success", false);
-            output.put("error", "Text is required for classification");
+            output.put("error", "Categories list is required");
             return output;
         }
 
-        if (categories.isEmpty()) {
+        Classification config = new Classification(provider, baseUrl, apiKey, model, categories, multiLabel,
+                includeConfidence, timeout, cache, cacheTtl);
+
+        if (params.get("texts") != null) {
+            return executeBatch(config, resolveTexts(params.get("texts"), input, context), params, input);
+        }
+
+        String text = interpolate((String) params.get("text"), input, context);
+        if (text == null || text.isBlank()) {
             Map<String, Object> output = new HashMap<>(input);
             output.put("success", false);
-            output.put("error", "Categories list is required");
+            output.put("error", "Text is required for classification");
             return output;
         }
 
         try {
-            // Build the classification prompt
-            String systemPrompt = buildClassificationPrompt(categories, multiLabel, includeConfidence);
-            String userPrompt = "Classify the following text:\n\n" + text;
-
-            // Call LLM
-            Map<String, Object> llmResult = callLlm(provider, baseUrl, apiKey, model,
-                    systemPrompt, userPrompt, timeout);
-
-            // Parse the classification result
-            Map<String, Object> classification = parseClassificationResult(
-                    (String) llmResult.get("response"), multiLabel);
+            Map<String, Object> classification = classify(config, text);
 
             Map<String, Object> output = new HashMap<>(input);
             output.putAll(classification);
@@ -221,10 +299,6 @@ public class TextClassifierExecutor implements NodeExecutor {
             output.put("model", model);
             output.put("success", true);
 
-            if (llmResult.containsKey("usage")) {
-                output.put("usage", llmResult.get("usage"));
-            }
-
             return output;
 
         } catch (Exception e) {
@@ -236,6 +310,247 @@ public class TextClassifierExecutor implements NodeExecutor {
         }
     }
 
+    /**
+     * What to classify into and which model to ask.
+     */
+    private record Classification(
+            String provider,
+            String baseUrl,
+            String apiKey,
+            String model,
+            List<String> categories,
+            boolean multiLabel,
+            boolean includeConfidence,
+            int timeout,
+            boolean cache,
+            Duration cacheTtl) {
+    }
+
+    /**
+     * Classifies one text with its own request.
+     *
+     * @return the parsed classification, plus usage and cache outcome when
+     *         known
+     */
+    private Map<String, Object> classify(Classification config, String text) throws Exception {
+        String systemPrompt = buildClassificationPrompt(config.categories(), config.multiLabel(),
+                config.includeConfidence());
+        String userPrompt = "Classify the following text:\n\n" + text;
+
+        Map<String, Object> llmResult = complete(config, systemPrompt, userPrompt, DEFAULT_MAX_TOKENS);
+        Map<String, Object> classification = parseClassificationResult(
+                (String) llmResult.get("response"), config.multiLabel());
+
+        if (llmResult.containsKey("usage")) {
+            classification.put("usage", llmResult.get("usage"));
+        }
+        if (llmResult.containsKey("cache")) {
+            classification.put("cache", llmResult.get("cache"));
+        }
+        return classification;
+    }
+
+    /**
+     * Sends a prompt, through the response cache if the node asks for it.
+     */
+    private Map<String, Object> complete(Classification config, String systemPrompt, String userPrompt,
+            int maxTokens) throws Exception {
+        if (!config.cache() || !responseCache.isEnabled()) {
+            return callLlm(config.provider(), config.baseUrl(), config.apiKey(), config.model(),
+                    systemPrompt, userPrompt, config.timeout(), maxTokens);
+        }
+        Map<String, Object> cacheKey = new LinkedHashMap<>();
+        cacheKey.put("node", "textClassifier");
+        cacheKey.put("provider", config.provider().toLowerCase());
+        cacheKey.put("baseUrl", config.baseUrl());
+        cacheKey.put("model", config.model());
+        cacheKey.put("system", systemPrompt);
+        cacheKey.put("user", userPrompt);
+        cacheKey.put("maxTokens", maxTokens);
+        LlmResponseCache.Result cached = responseCache.getOrLoad(cacheKey, config.cacheTtl(),
+                () -> callLlm(config.provider(), config.baseUrl(), config.apiKey(), config.model(),
+                        systemPrompt, userPrompt, config.timeout(), maxTokens));
+        Map<String, Object> result = new HashMap<>(cached.response());
+        result.put("cache", cached.outcome().name().toLowerCase(Locale.ROOT));
+        return result;
+    }
+
+    /**
+     * Classifies many texts, {@code batchSize} per request with up to
+     * {@code concurrency} requests at once. Texts a batch answer leaves out
+     * or garbles are classified again one by one.
+     */
+    private Map<String, Object> executeBatch(Classification config, List<String> texts,
+            Map<String, Object> params, Map<String, Object> input) {
+        int batchSize = Math.max(1, ((Number) params.getOrDefault("batchSize", DEFAULT_BATCH_SIZE)).intValue());
+        int concurrency = Math.max(1, ((Number) params.getOrDefault("concurrency",
+                settingsService.getInt(SettingsDefaults.AI_CLASSIFIER_CONCURRENCY, DEFAULT_CONCURRENCY)))
+                .intValue());
+
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        BatchTotals totals = new BatchTotals();
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int from = 0; from < texts.size(); from += batchSize) {
+                int start = from;
+                int end = Math.min(from + batchSize, texts.size());
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        // Distinct slots per task; Future.get() publishes them
+                        classifyBatch(config, texts, start, end, results, totals);
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Map<String, Object> output = new HashMap<>(input);
+            output.put("success", false);
+            output.put("error", "Batch classification interrupted");
+            return output;
+        } catch (ExecutionException e) {
+            log.error("Batch classification failed: {}", e.getCause().getMessage(), e.getCause());
+            Map<String, Object> output = new HashMap<>(input);
+            output.put("success", false);
+            output.put("error", e.getCause().getMessage());
+            return output;
+        }
+
+        long failed = results.stream().filter(result -> !Boolean.TRUE.equals(result.get("success"))).count();
+        Map<String, Object> output = new HashMap<>(input);
+        output.put("results", results);
+        output.put("count", results.size());
+        output.put("failedCount", failed);
+        output.put("batches", totals.batches.get());
+        output.put("retried", totals.retried.get());
+        if (!totals.usage.isEmpty()) {
+            output.put("usage", totals.usage);
+        }
+        output.put("provider", config.provider());
+        output.put("model", config.model());
+        output.put("success", failed == 0);
+        return output;
+    }
+
+    /**
+     * Counters shared by the batches of one node run.
+     */
+    private static final class BatchTotals {
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger retried = new AtomicInteger();
+        final Map<String, Object> usage = new LinkedHashMap<>();
+
+        /**
+         * Adds up numeric usage fields; providers name them differently.
+         */
+        synchronized void addUsage(Object value) {
+            if (value instanceof Map<?, ?> map) {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (entry.getValue() instanceof Number number) {
+                        usage.merge(String.valueOf(entry.getKey()), number.longValue(),
+                                (a, b) -> ((Number) a).longValue() + ((Number) b).longValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private void classifyBatch(Classification config, List<String> texts, int start, int end,
+            List<Map<String, Object>> results, BatchTotals totals) throws InterruptedException {
+        Set<Integer> pending = new TreeSet<>();
+        for (int i = start; i < end; i++) {
+            if (texts.get(i) == null || texts.get(i).isBlank()) {
+                results.set(i, failure(i, "Text is required for classification"));
+            } else {
+                pending.add(i);
+            }
+        }
+
+        if (pending.size() > 1) {
+            try {
+                List<Map<String, Object>> items = new ArrayList<>();
+                for (int i : pending) {
+                    items.add(Map.of("index", i - start, "text", texts.get(i)));
+                }
+                String userPrompt = "Classify each of the following texts:\n\n" + JsonCodec.writeString(items);
+                totals.batches.incrementAndGet();
+                Map<String, Object> llmResult = complete(config, buildBatchClassificationPrompt(config.categories(),
+                        config.multiLabel(), config.includeConfidence()), userPrompt,
+                        Math.max(DEFAULT_MAX_TOKENS, BATCH_TOKENS_PER_TEXT * pending.size()));
+                totals.addUsage(llmResult.get("usage"));
+                for (Map.Entry<Integer, Map<String, Object>> answer : parseBatchResult(
+                        (String) llmResult.get("response"), config.multiLabel()).entrySet()) {
+                    int index = start + answer.getKey();
+                    if (pending.remove(index)) {
+                        Map<String, Object> result = answer.getValue();
+                        result.put("index", index);
+                        result.put("success", true);
+                        results.set(index, result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                log.warn("Classification batch {}-{} failed, classifying its texts one by one: {}",
+                        start, end - 1, e.getMessage());
+            }
+            totals.retried.addAndGet(pending.size());
+        }
+
+        for (int index : pending) {
+            try {
+                totals.batches.incrementAndGet();
+                Map<String, Object> result = classify(config, texts.get(index));
+                totals.addUsage(result.remove("usage"));
+                result.put("index", index);
+                result.put("success", true);
+                results.set(index, result);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                log.warn("Classification of text {} failed: {}", index, e.getMessage());
+                results.set(index, failure(index, e.getMessage()));
+            }
+        }
+    }
+
+    private static Map<String, Object> failure(int index, String error) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        result.put("success", false);
+        result.put("error", error);
+        return result;
+    }
+
+    /**
+     * Gets the texts of a batch: a list, whose string items may use
+     * interpolation, or a single {@code ${path}} pointing at a list in the
+     * input.
+     */
+    private List<String> resolveTexts(Object value, Map<String, Object> input,
+            ExecutionService.ExecutionContext context) {
+        Object source = value;
+        if (value instanceof String s) {
+            Matcher matcher = INTERPOLATION_PATTERN.matcher(s.trim());
+            source = matcher.matches() ? getNestedValue(input, matcher.group(1)) : List.of(s);
+        }
+        List<String> texts = new ArrayList<>();
+        if (source instanceof List<?> list) {
+            for (Object item : list) {
+                texts.add(item instanceof String s ? interpolate(s, input, context)
+                        : item != null ? String.valueOf(item) : null);
+            }
+        }
+        return texts;
+    }
+
     private String getDefaultModel(String provider) {
         String settingsModel = switch (provider.toLowerCase()) {
             case "anthropic" -> settingsService.getValue(SettingsDefaults.AI_ANTHROPIC_DEFAULT_MODEL, null);
@@ -294,58 +609,82 @@ public class TextClassifierExecutor implements NodeExecutor {
         sb.append("Categories: ").append(String.join(", ", categories)).append("\n\n");
 
         sb.append("Respond in JSON format:\n");
+        sb.append("{").append(resultFields(multiLabel, includeConfidence)).append("}");
+
+        sb.append("\n\nOnly use the provided categories. Confidence should be a number between 0 and 1.");
+
+        return sb.toString();
+    }
+
+    private String buildBatchClassificationPrompt(List<String> categories, boolean multiLabel,
+            boolean includeConfidence) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("You are a text classification assistant. ");
+
         if (multiLabel) {
-            if (includeConfidence) {
-                sb.append("{\"categories\": [{\"name\": \"category_name\", \"confidence\": 0.95}]}");
-            } else {
-                sb.append("{\"categories\": [\"category1\", \"category2\"]}");
-            }
+            sb.append("Classify each of the given texts into one or more of the following categories. ");
         } else {
-            if (includeConfidence) {
-                sb.append("{\"category\": \"category_name\", \"confidence\": 0.95, " +
-                        "\"allScores\": {\"cat1\": 0.95, \"cat2\": 0.05}}");
-            } else {
-                sb.append("{\"category\": \"category_name\"}");
-            }
+            sb.append("Classify each of the given texts into exactly one of the following categories. ");
         }
 
+        sb.append("Categories: ").append(String.join(", ", categories)).append("\n\n");
+
+        sb.append("The texts are a JSON array of objects with an index and a text. ");
+        sb.append("Classify every text on its own and respond in JSON format with one result per text:\n");
+        sb.append("{\"results\": [{\"index\": 0, ").append(resultFields(multiLabel, includeConfidence))
+                .append("}]}");
+
         sb.append("\n\nOnly use the provided categories. Confidence should be a number between 0 and 1.");
 
         return sb.toString();
     }
 
+    /**
+     * The JSON fields the model is asked to return for one text.
+     */
+    private String resultFields(boolean multiLabel, boolean includeConfidence) {
+        if (multiLabel) {
+            return includeConfidence
+                    ? "\"categories\": [{\"name\": \"category_name\", \"confidence\": 0.95}]"
+                    : "\"categories\": [\"category1\", \"category2\"]";
+        }
+        return includeConfidence
+                ? "\"category\": \"category_name\", \"confidence\": 0.95, "
+                        + "\"allScores\": {\"cat1\": 0.95, \"cat2\": 0.05}"
+                : "\"category\": \"category_name\"";
+    }
+
     private Map<String, Object> callLlm(String provider, String baseUrl, String apiKey,
             String model, String systemPrompt, String userPrompt,
-            int timeout) throws Exception {
+            int timeout, int maxTokens) throws Exception {
         List<Map<String, String>> messages = List.of(
                 Map.of("role", "system", "content", systemPrompt),
                 Map.of("role", "user", "content", userPrompt));
 
         return switch (provider.toLowerCase()) {
-            case "anthropic" -> callAnthropic(baseUrl, apiKey, model, messages, timeout);
-            case "ollama" -> callOllama(baseUrl, model, messages, timeout);
-            default -> callOpenAI(baseUrl, apiKey, model, messages, timeout);
+            case "anthropic" -> callAnthropic(baseUrl, apiKey, model, messages, timeout, maxTokens);
+            case "ollama" -> callOllama(baseUrl, model, messages, timeout, maxTokens);
+            default -> callOpenAI(baseUrl, apiKey, model, messages, timeout, maxTokens);
         };
     }
 
     private Map<String, Object> callOpenAI(String baseUrl, String apiKey, String model,
-            List<Map<String, String>> messages, int timeout) throws Exception {
+            List<Map<String, String>> messages, int timeout, int maxTokens) throws Exception {
         String url = baseUrl + "/chat/completions";
 
         Map<String, Object> requestBody = new LinkedHashMap<>();
         requestBody.put("model", model);
         requestBody.put("messages", messages);
+        requestBody.put("max_tokens", maxTokens);
         requestBody.put("temperature", 0.1); // Low temperature for classification
         requestBody.put("response_format", Map.of("type", "json_object"));
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -358,7 +697,7 @@ public class TextClassifierExecutor implements NodeExecutor {
     }
 
     private Map<String, Object> callAnthropic(String baseUrl, String apiKey, String model,
-            List<Map<String, String>> messages, int timeout) throws Exception {
+            List<Map<String, String>> messages, int timeout, int maxTokens) throws Exception {
         String url = baseUrl + "/messages";
 
         String systemMessage = null;
@@ -375,22 +714,20 @@ public class TextClassifierExecutor implements NodeExecutor {
         Map<String, Object> requestBody = new LinkedHashMap<>();
         requestBody.put("model", model);
         requestBody.put("messages", userMessages);
-        requestBody.put("max_tokens", 1024);
+        requestBody.put("max_tokens", maxTokens);
         requestBody.put("temperature", 0.1);
 
         if (systemMessage != null) {
             requestBody.put("system", systemMessage);
         }
 
-        String jsonBody = toJson(requestBody);
-
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("x-api-key", apiKey)
                 .header("anthropic-version", "2023-06-01")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -403,7 +740,7 @@ public class TextClassifierExecutor implements NodeExecutor {
     }
 
     private Map<String, Object> callOllama(String baseUrl, String model,
-            List<Map<String, String>> messages, int timeout) throws Exception {
+            List<Map<String, String>> messages, int timeout, int maxTokens) throws Exception {
         String url = baseUrl + "/chat";
 
         Map<String, Object> requestBody = new LinkedHashMap<>();
@@ -411,15 +748,13 @@ public class TextClassifierExecutor implements NodeExecutor {
         requestBody.put("messages", messages);
         requestBody.put("stream", false);
         requestBody.put("format", "json");
-        requestBody.put("options", Map.of("temperature", 0.1));
-
-        String jsonBody = toJson(requestBody);
+        requestBody.put("options", Map.of("temperature", 0.1, "num_predict", maxTokens));
 
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .timeout(Duration.ofSeconds(timeout))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(JsonCodec.body(requestBody))
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -433,7 +768,7 @@ public class TextClassifierExecutor implements NodeExecutor {
 
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseOpenAIResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
+        Map<String, Object> parsed = JsonCodec.readMap(json);
         Map<String, Object> result = new HashMap<>();
 
         List<Map<String, Object>> choices = (List<Map<String, Object>>) parsed.get("choices");
@@ -452,7 +787,7 @@ public class TextClassifierExecutor implements NodeExecutor {
 
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseAnthropicResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
+        Map<String, Object> parsed = JsonCodec.readMap(json);
         Map<String, Object> result = new HashMap<>();
 
         List<Map<String, Object>> content = (List<Map<String, Object>>) parsed.get("content");
@@ -470,7 +805,7 @@ public class TextClassifierExecutor implements NodeExecutor {
 
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseOllamaResponse(String json) {
-        Map<String, Object> parsed = fromJson(json);
+        Map<String, Object> parsed = JsonCodec.readMap(json);
         Map<String, Object> result = new HashMap<>();
 
         Map<String, Object> message = (Map<String, Object>) parsed.get("message");
@@ -486,7 +821,7 @@ public class TextClassifierExecutor implements NodeExecutor {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            Map<String, Object> parsed = fromJson(llmResponse);
+            Map<String, Object> parsed = JsonCodec.readMap(llmResponse);
 
             if (multiLabel) {
                 parseMultiLabelResult(parsed, result);
@@ -502,6 +837,33 @@ public class TextClassifierExecutor implements NodeExecutor {
         return result;
     }
 
+    /**
+     * Parses a batch answer into the classifications it holds, by index
+     * within the batch. Items without a usable category are left out.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Map<String, Object>> parseBatchResult(String llmResponse, boolean multiLabel) {
+        Map<Integer, Map<String, Object>> answers = new HashMap<>();
+        Object items = JsonCodec.readMap(llmResponse).get("results");
+        if (!(items instanceof List<?> list)) {
+            throw new IllegalStateException("Batch response has no results list");
+        }
+        for (Object item : list) {
+            if (item instanceof Map<?, ?> map && map.get("index") instanceof Number index) {
+                Map<String, Object> result = new HashMap<>();
+                if (multiLabel) {
+                    parseMultiLabelResult((Map<String, Object>) map, result);
+                } else {
+                    parseSingleLabelResult((Map<String, Object>) map, result);
+                }
+                if (result.get("category") instanceof String || result.get("categories") instanceof List) {
+                    answers.put(index.intValue(), result);
+                }
+            }
+        }
+        return answers;
+    }
+
     @SuppressWarnings("unchecked")
     private void parseMultiLabelResult(Map<String, Object> parsed, Map<String, Object> result) {
         List<Object> categories = (List<Object>) parsed.get("categories");
@@ -601,67 +963,6 @@ public class TextClassifierExecutor implements NodeExecutor {
         return current;
     }
 
-    private String toJson(Map<String, Object> map) {
-        StringBuilder sb = new StringBuilder("{");
-        boolean first = true;
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first)
-                sb.append(",");
-            first = false;
-            sb.append("\"").append(entry.getKey()).append("\":");
-            sb.append(valueToJson(entry.getValue()));
-        }
-
-        sb.append("}");
-        return sb.toString();
-    }
-
-    private String valueToJson(Object value) {
-        if (value == null)
-            return "null";
-        if (value instanceof String s)
-            return "\"" + escapeJson(s) + "\"";
-        if (value instanceof Number || value instanceof Boolean)
-            return value.toString();
-        if (value instanceof List<?> list) {
-            StringBuilder sb = new StringBuilder("[");
-            boolean first = true;
-            for (Object item : list) {
-                if (!first)
-                    sb.append(",");
-                first = false;
-                sb.append(valueToJson(item));
-            }
-            sb.append("]");
-            return sb.toString();
-        }
-        if (value instanceof Map<?, ?> map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> typedMap = (Map<String, Object>) map;
-            return toJson(typedMap);
-        }
-        return "\"" + escapeJson(value.toString()) + "\"";
-    }
-
-    private String escapeJson(String s) {
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> fromJson(String json) {
-        try {
-            var objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return objectMapper.readValue(json, Map.class);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse JSON: " + e.getMessage(), e);
-        }
-    }
-
     @Override
     public String getNodeType() {
         return "textClassifier";
@@ -0,0 +1,157 @@
+package ai.nervemind.app.service;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log stored in fixed-size chunks.
+ *
+ * <p>
+ * Appending is O(1): entries go into the current chunk, and a new chunk is
+ * started when it is full. Nothing is ever copied on append. A full chunk is
+ * never modified again, so {@link #snapshot()} only copies chunk references
+ * and readers iterate the entries without holding the lock.
+ * </p>
+ *
+ * <p>
+ * The number of retained entries is capped. When the cap is exceeded, the
+ * oldest chunk is evicted and handed to the eviction callback (e.g. to spill
+ * it to disk), so memory use stays bounded however long the log grows.
+ * </p>
+ *
+ * <p>
+ * All methods synchronize on the log itself, and the eviction callback runs
+ * with that monitor held. Callers may hold it to combine several calls into
+ * one atomic read.
+ * </p>
+ *
+ * @param <T> the entry type
+ */
+final class ChunkedLog<T> {
+
+    /** Number of entries per chunk. */
+    static final int CHUNK_SIZE = 256;
+
+    private final int maxChunks;
+    private final Consumer<List<T>> onEvict;
+
+    private final ArrayDeque<Object[]> fullChunks = new ArrayDeque<>();
+    private Object[] tail = new Object[CHUNK_SIZE];
+    private int tailSize;
+    private long evicted;
+
+    /**
+     * Creates a log.
+     *
+     * @param maxEntries maximum number of entries kept in memory (rounded up to
+     *                   whole chunks)
+     * @param onEvict    receives evicted chunks, oldest first; may be null
+     */
+    ChunkedLog(int maxEntries, Consumer<List<T>> onEvict) {
+        this.maxChunks = Math.max(1, (maxEntries + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.onEvict = onEvict;
+    }
+
+    /**
+     * Appends an entry.
+     *
+     * @param entry the entry
+     */
+    synchronized void add(T entry) {
+        tail[tailSize++] = entry;
+        if (tailSize == CHUNK_SIZE) {
+            fullChunks.addLast(tail);
+            tail = new Object[CHUNK_SIZE];
+            tailSize = 0;
+            // The tail counts as a chunk, so keep maxChunks - 1 full ones
+            if (fullChunks.size() >= maxChunks) {
+                Object[] oldest = fullChunks.removeFirst();
+                evicted += CHUNK_SIZE;
+                if (onEvict != null) {
+                    onEvict.accept(new ChunkView<>(new Object[][] { oldest }, CHUNK_SIZE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries kept in memory.
+     *
+     * @return the retained entry count
+     */
+    synchronized int size() {
+        return fullChunks.size() * CHUNK_SIZE + tailSize;
+    }
+
+    /**
+     * Gets the number of entries evicted from memory so far.
+     *
+     * @return the evicted entry count
+     */
+    synchronized long evictedCount() {
+        return evicted;
+    }
+
+    /**
+     * Takes a read-only snapshot of the retained entries, oldest first. Costs
+     * one reference per chunk, not per entry.
+     *
+     * @return the snapshot
+     */
+    synchronized List<T> snapshot() {
+        Object[][] chunks = new Object[fullChunks.size() + 1][];
+        int i = 0;
+        for (Object[] chunk : fullChunks) {
+            chunks[i++] = chunk;
+        }
+        // Slots below tailSize are never written again, even if the tail
+        // keeps filling up after the snapshot is taken
+        chunks[i] = tail;
+        return new ChunkView<>(chunks, (chunks.length - 1) * CHUNK_SIZE + tailSize);
+    }
+
+    /**
+     * Read-only list over a run of chunks.
+     */
+    private static final class ChunkView<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+
+        ChunkView(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (T) chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] result = new Object[size];
+            int copied = 0;
+            for (Object[] chunk : chunks) {
+                int n = Math.min(CHUNK_SIZE, size - copied);
+                if (n <= 0) {
+                    break;
+                }
+                System.arraycopy(chunk, 0, result, copied, n);
+                copied += n;
+            }
+            return result;
+        }
+    }
+}
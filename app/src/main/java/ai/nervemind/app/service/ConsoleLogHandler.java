@@ -100,6 +100,7 @@ public class ConsoleLogHandler implements ExecutionLogHandler {
             case NODE_SKIP -> "⏭️";
             case NODE_INPUT -> "📥";
             case NODE_OUTPUT -> "📤";
+            case NODE_PROGRESS -> "⏳";
             case DATA_FLOW -> "📦";
             case VARIABLE -> "📝";
             case EXPRESSION_EVAL -> "𝑓";
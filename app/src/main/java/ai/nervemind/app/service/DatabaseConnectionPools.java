@@ -0,0 +1,215 @@
+package ai.nervemind.app.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Connection pools for the databases that Database nodes connect to.
+ *
+ * <p>
+ * Each combination of JDBC URL, user name and password gets its own pool,
+ * so a workflow that runs every minute reuses open, authenticated
+ * connections instead of connecting again on every run. Pools are sized by
+ * {@code storage.jdbc.poolSize} and keep no connections open while unused:
+ * idle connections are closed after {@code storage.jdbc.idleTimeout}
+ * seconds, and a pool that has not been used for that long is closed as a
+ * whole.
+ * </p>
+ *
+ * <p>
+ * Prepared statements are cached by the H2 driver, which keeps the
+ * compiled form of the last {@code storage.jdbc.statementCacheSize} queries
+ * of each connection. Since connections now outlive a node execution, a
+ * query that runs again on a pooled connection is not parsed and planned
+ * again.
+ * </p>
+ */
+@Service
+public class DatabaseConnectionPools {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseConnectionPools.class);
+
+    private static final long MIN_IDLE_TIMEOUT_SECONDS = 10;
+    private static final long CONNECTION_TIMEOUT_MS = 30_000;
+    private static final String QUERY_CACHE_SIZE = "QUERY_CACHE_SIZE";
+
+    /**
+     * Usage of one pool.
+     *
+     * @param url         the JDBC URL, without settings after the first
+     *                    {@code ;}
+     * @param username    the user name
+     * @param active      connections in use
+     * @param idle        open connections waiting to be used
+     * @param waiting     threads waiting for a connection
+     * @param maximumSize the largest number of connections
+     */
+    public record PoolStats(String url, String username, int active, int idle, int waiting, int maximumSize) {
+    }
+
+    private record Pool(String url, String username, HikariDataSource dataSource) {
+    }
+
+    private final SettingsServiceInterface settingsService;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+    private final AtomicInteger poolNumber = new AtomicInteger();
+
+    /**
+     * Creates the pools.
+     *
+     * @param settingsService settings for pool size, idle timeout and
+     *                        statement cache size
+     */
+    public DatabaseConnectionPools(SettingsServiceInterface settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    /**
+     * Borrows a connection. Closing the connection returns it to its pool.
+     *
+     * @param jdbcUrl  the JDBC URL
+     * @param username the user name
+     * @param password the password
+     * @return an open connection
+     * @throws SQLException if no connection can be opened within 30 seconds
+     */
+    public Connection getConnection(String jdbcUrl, String username, String password) throws SQLException {
+        String key = key(jdbcUrl, username, password);
+        while (true) {
+            lastUsed.put(key, System.nanoTime());
+            Pool pool = pools.computeIfAbsent(key, _ -> createPool(jdbcUrl, username, password));
+            try {
+                return pool.dataSource().getConnection();
+            } catch (SQLException e) {
+                if (!pool.dataSource().isClosed()) {
+                    throw e;
+                }
+                // Evicted in the meantime; open a new pool
+                pools.remove(key, pool);
+            }
+        }
+    }
+
+    /**
+     * Returns the usage of every open pool.
+     *
+     * @return one entry per pool
+     */
+    public List<PoolStats> stats() {
+        List<PoolStats> stats = new ArrayList<>();
+        for (Pool pool : pools.values()) {
+            var bean = pool.dataSource().getHikariPoolMXBean();
+            if (bean != null) {
+                stats.add(new PoolStats(pool.url(), pool.username(), bean.getActiveConnections(),
+                        bean.getIdleConnections(), bean.getThreadsAwaitingConnection(),
+                        pool.dataSource().getMaximumPoolSize()));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Closes pools that have not been used within the idle timeout and have
+     * no connection in use.
+     */
+    @Scheduled(initialDelay = 1, fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleTimeoutSeconds());
+        for (String key : List.copyOf(pools.keySet())) {
+            Long used = lastUsed.get(key);
+            if (used != null && used - cutoff > 0) {
+                continue;
+            }
+            pools.computeIfPresent(key, (_, pool) -> {
+                var bean = pool.dataSource().getHikariPoolMXBean();
+                if (bean != null && bean.getActiveConnections() > 0) {
+                    return pool;
+                }
+                log.debug("Closing idle connection pool for {}", pool.url());
+                pool.dataSource().close();
+                lastUsed.remove(key);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Closes all pools.
+     */
+    @PreDestroy
+    public void close() {
+        for (Pool pool : pools.values()) {
+            pool.dataSource().close();
+        }
+        pools.clear();
+        lastUsed.clear();
+    }
+
+    private Pool createPool(String jdbcUrl, String username, String password) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("database-node-" + poolNumber.incrementAndGet());
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(Math.max(1, settingsService.getInt(SettingsDefaults.STORAGE_JDBC_POOL_SIZE, 4)));
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(TimeUnit.SECONDS.toMillis(idleTimeoutSeconds()));
+        config.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
+        // Connection errors are reported by getConnection, not here
+        config.setInitializationFailTimeout(-1);
+        // H2 rejects settings given both in the URL and as a property
+        if (!jdbcUrl.toUpperCase(Locale.ROOT).contains(QUERY_CACHE_SIZE)) {
+            int cacheSize = settingsService.getInt(SettingsDefaults.STORAGE_JDBC_STATEMENT_CACHE_SIZE, 64);
+            config.addDataSourceProperty(QUERY_CACHE_SIZE, String.valueOf(Math.max(0, cacheSize)));
+        }
+        return new Pool(baseUrl(jdbcUrl), username, new HikariDataSource(config));
+    }
+
+    private long idleTimeoutSeconds() {
+        return Math.max(MIN_IDLE_TIMEOUT_SECONDS,
+                settingsService.getInt(SettingsDefaults.STORAGE_JDBC_IDLE_TIMEOUT, 300));
+    }
+
+    private static String baseUrl(String jdbcUrl) {
+        int settings = jdbcUrl.indexOf(';');
+        return settings > 0 ? jdbcUrl.substring(0, settings) : jdbcUrl;
+    }
+
+    /**
+     * Identifies a pool. The password is hashed so that it is not kept as a
+     * map key.
+     */
+    private static String key(String jdbcUrl, String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((password != null ? password : "").getBytes(StandardCharsets.UTF_8));
+            return jdbcUrl + '\0' + username + '\0' + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package ai.nervemind.app.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A directory with one file per cache entry, trimmed to a byte budget in
+ * least recently used order.
+ *
+ * <p>
+ * Keys become file names, so callers use hashes. Files are written to a
+ * temporary name and moved into place, so a crash never leaves a partly
+ * written entry behind. The recency order is rebuilt from file modification
+ * times when the store is opened. Entries that cannot be read are deleted.
+ * </p>
+ */
+final class DiskLruStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskLruStore.class);
+
+    private static final String FILE_SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LongAdder evictions;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Opens the store, creating the directory if needed.
+     *
+     * @param directory the directory holding the entries
+     * @param maxBytes  the byte budget
+     * @param evictions counter of entries dropped to stay within the budget
+     * @throws IOException if the directory cannot be created or listed
+     */
+    DiskLruStore(Path directory, long maxBytes, LongAdder evictions) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.evictions = evictions;
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX)).forEach(files::add);
+        }
+        // Oldest first, so the least recently written entries are evicted first
+        files.sort(Comparator.comparingLong(DiskLruStore::modified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            index.put(name.substring(0, name.length() - FILE_SUFFIX.length()), size);
+            bytes += size;
+        }
+        trim();
+    }
+
+    synchronized int entries() {
+        return index.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Reads an entry and marks it as recently used.
+     *
+     * @param key the key
+     * @return the stored bytes, or null if there is no readable entry
+     */
+    synchronized byte[] read(String key) {
+        if (index.get(key) == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file(key));
+        } catch (IOException e) {
+            log.debug("Dropping unreadable cache entry {}: {}", key, e.getMessage());
+            delete(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores an entry, replacing any previous one, and evicts the least
+     * recently used entries beyond the budget. An entry larger than the
+     * whole budget is not stored.
+     *
+     * @param key  the key
+     * @param data the bytes to store
+     */
+    synchronized void write(String key, byte[] data) {
+        if (data.length > maxBytes) {
+            delete(key);
+            return;
+        }
+        Path target = file(key);
+        try {
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temp, data);
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException _) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Long previous = index.put(key, (long) data.length);
+            bytes += data.length - (previous != null ? previous : 0);
+            trim();
+        } catch (IOException e) {
+            log.warn("Failed to write cache entry: {}", e.getMessage());
+        }
+    }
+
+    synchronized void delete(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            bytes -= size;
+        }
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            log.debug("Failed to delete cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    synchronized void clear() {
+        for (String key : new ArrayList<>(index.keySet())) {
+            delete(key);
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            bytes -= entry.getValue();
+            evictions.increment();
+            try {
+                Files.deleteIfExists(file(entry.getKey()));
+            } catch (IOException e) {
+                log.debug("Failed to delete cache entry {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + FILE_SUFFIX);
+    }
+
+    private static long modified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException _) {
+            return 0;
+        }
+    }
+}
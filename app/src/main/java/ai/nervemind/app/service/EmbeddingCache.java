@@ -0,0 +1,406 @@
+package ai.nervemind.app.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Content-addressed cache of text embeddings.
+ *
+ * <p>
+ * Embeddings are keyed by provider, model, requested dimensions and the
+ * SHA-256 of the text, so unchanged text is never sent to an embedding API
+ * twice - not within a run and not across runs or restarts.
+ * </p>
+ *
+ * <h2>Storage</h2>
+ * <p>
+ * Every provider/model/dimensions combination has its own append-only file
+ * in {@code <storage.databasePath>/embeddings}. A record is the 32-byte
+ * content hash, the vector length and the vector as little-endian float32,
+ * so a 1536-dimensional embedding takes about 6 KB on disk. The file is
+ * scanned once when first used to build an offset index; a record cut short
+ * by a crash is dropped. Recently used vectors are kept in an in-memory LRU
+ * of {@code ai.embeddingCache.memoryEntries} entries in front of the files.
+ * </p>
+ *
+ * <p>
+ * If the cache directory cannot be used, the cache falls back to memory only.
+ * Hit and miss counts are available from {@link #stats()}.
+ * </p>
+ */
+@Service
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    /** Default number of vectors kept in memory. */
+    public static final int DEFAULT_MEMORY_ENTRIES = 10_000;
+
+    private static final int HASH_LENGTH = 32;
+    private static final int RECORD_HEADER = HASH_LENGTH + Integer.BYTES;
+    private static final String FILE_SUFFIX = ".f32";
+
+    /**
+     * Computes the embeddings of texts that are not cached.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Embeds texts.
+         *
+         * @param texts the texts, each one distinct
+         * @return one embedding per text, in the same order
+         * @throws Exception if the provider call fails
+         */
+        List<float[]> embed(List<String> texts) throws Exception;
+    }
+
+    /**
+     * Cache counters.
+     *
+     * @param memoryHits lookups answered from memory
+     * @param diskHits   lookups answered from disk
+     * @param misses     texts that had to be embedded
+     * @param memorySize vectors currently held in memory
+     */
+    public record Stats(long memoryHits, long diskHits, long misses, int memorySize) {
+    }
+
+    private record Digest(long a, long b, long c, long d) {
+        static Digest of(byte[] hash) {
+            ByteBuffer buffer = ByteBuffer.wrap(hash);
+            return new Digest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putLong(a).putLong(b).putLong(c).putLong(d);
+        }
+    }
+
+    private record Key(String namespace, Digest digest) {
+    }
+
+    private final Path directory;
+    private final boolean enabled;
+    private final Map<Key, float[]> memory;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+    private volatile boolean diskAvailable = true;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates the cache from settings.
+     *
+     * @param settingsService settings for location, size and enablement
+     */
+    public EmbeddingCache(SettingsServiceInterface settingsService) {
+        this(Path.of(settingsService.getValue(SettingsDefaults.STORAGE_DATABASE_PATH, "./data"), "embeddings"),
+                settingsService.getInt(SettingsDefaults.AI_EMBEDDING_CACHE_MEMORY_ENTRIES, DEFAULT_MEMORY_ENTRIES),
+                settingsService.getBoolean(SettingsDefaults.AI_EMBEDDING_CACHE_ENABLED, true));
+    }
+
+    EmbeddingCache(Path directory, int memoryEntries, boolean enabled) {
+        this.directory = directory;
+        this.enabled = enabled;
+        int capacity = memoryEntries > 0 ? memoryEntries : DEFAULT_MEMORY_ENTRIES;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Builds the cache namespace of an embedding model.
+     *
+     * @param provider   the provider, e.g. "openai"
+     * @param model      the model name
+     * @param dimensions requested output dimensions, or null for the model
+     *                   default
+     * @return the namespace
+     */
+    public static String namespace(String provider, String model, Integer dimensions) {
+        return provider.toLowerCase(Locale.ROOT) + "|" + model + "|" + (dimensions != null ? dimensions : "");
+    }
+
+    /**
+     * Gets the embeddings of texts, embedding only those not cached yet.
+     * Duplicate texts are embedded once.
+     *
+     * @param namespace the model namespace from
+     *                  {@link #namespace(String, String, Integer)}
+     * @param texts     the texts to embed
+     * @param loader    embeds the texts that are missing
+     * @return one embedding per text, in the same order; the arrays are
+     *         shared with the cache and must not be modified
+     * @throws Exception if the loader fails
+     */
+    public List<float[]> embedAll(String namespace, List<String> texts, Loader loader) throws Exception {
+        if (!enabled) {
+            misses.add(texts.size());
+            return loader.embed(texts);
+        }
+
+        List<float[]> result = new ArrayList<>(texts.size());
+        // Distinct missing texts and the positions waiting for each of them
+        Map<Digest, List<Integer>> waiting = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            Digest digest = digest(texts.get(i));
+            float[] cached = lookup(namespace, digest);
+            if (cached != null) {
+                result.add(cached);
+                continue;
+            }
+            result.add(null);
+            List<Integer> positions = waiting.computeIfAbsent(digest, _ -> new ArrayList<>());
+            if (positions.isEmpty()) {
+                missing.add(texts.get(i));
+            }
+            positions.add(i);
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.add(missing.size());
+        List<float[]> embedded = loader.embed(missing);
+        if (embedded == null || embedded.size() != missing.size()) {
+            throw new IllegalStateException("Expected " + missing.size() + " embeddings but got "
+                    + (embedded == null ? 0 : embedded.size()));
+        }
+        int next = 0;
+        for (Map.Entry<Digest, List<Integer>> entry : waiting.entrySet()) {
+            float[] embedding = embedded.get(next++);
+            store(namespace, entry.getKey(), embedding);
+            for (int position : entry.getValue()) {
+                result.set(position, embedding);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the cache counters.
+     *
+     * @return the current counters
+     */
+    public Stats stats() {
+        int size;
+        synchronized (memory) {
+            size = memory.size();
+        }
+        return new Stats(memoryHits.sum(), diskHits.sum(), misses.sum(), size);
+    }
+
+    /**
+     * Closes the cache files.
+     */
+    @PreDestroy
+    public void close() {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private float[] lookup(String namespace, Digest digest) {
+        Key key = new Key(namespace, digest);
+        float[] vector;
+        synchronized (memory) {
+            vector = memory.get(key);
+        }
+        if (vector != null) {
+            memoryHits.increment();
+            return vector;
+        }
+        Segment segment = segment(namespace);
+        vector = segment != null ? segment.read(digest) : null;
+        if (vector != null) {
+            diskHits.increment();
+            synchronized (memory) {
+                memory.put(key, vector);
+            }
+        }
+        return vector;
+    }
+
+    private void store(String namespace, Digest digest, float[] vector) {
+        if (vector == null) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(new Key(namespace, digest), vector);
+        }
+        Segment segment = segment(namespace);
+        if (segment != null) {
+            segment.append(digest, vector);
+        }
+    }
+
+    private Segment segment(String namespace) {
+        if (!diskAvailable) {
+            return null;
+        }
+        try {
+            return segments.computeIfAbsent(namespace, this::openSegment);
+        } catch (IllegalStateException e) {
+            diskAvailable = false;
+            log.warn("Embedding cache directory {} is not usable, caching in memory only: {}",
+                    directory, e.getMessage());
+            return null;
+        }
+    }
+
+    private Segment openSegment(String namespace) {
+        try {
+            Files.createDirectories(directory);
+            String fileName = HexFormat.of().formatHex(sha256(namespace), 0, 16) + FILE_SUFFIX;
+            return new Segment(FileChannel.open(directory.resolve(fileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static Digest digest(String text) {
+        return Digest.of(sha256(text));
+    }
+
+    private static byte[] sha256(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * One append-only vector file and its offset index.
+     */
+    private final class Segment {
+        private final FileChannel channel;
+        private final Map<Digest, Long> offsets = new HashMap<>();
+        private long end;
+
+        Segment(FileChannel channel) throws IOException {
+            this.channel = channel;
+            index();
+        }
+
+        private void index() throws IOException {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            long position = 0;
+            while (position + RECORD_HEADER <= size) {
+                header.clear();
+                readFully(header, position);
+                header.flip();
+                byte[] hash = new byte[HASH_LENGTH];
+                header.get(hash);
+                int dimensions = header.getInt();
+                long next = position + RECORD_HEADER + (long) dimensions * Float.BYTES;
+                if (dimensions < 0 || next > size) {
+                    break;
+                }
+                offsets.put(Digest.of(hash), position);
+                position = next;
+            }
+            if (position < size) {
+                log.debug("Dropping {} bytes of incomplete embedding cache record", size - position);
+                channel.truncate(position);
+            }
+            end = position;
+        }
+
+        synchronized float[] read(Digest digest) {
+            Long offset = offsets.get(digest);
+            if (offset == null) {
+                return null;
+            }
+            try {
+                ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(length, offset + HASH_LENGTH);
+                int dimensions = length.flip().getInt();
+                ByteBuffer data = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(data, offset + RECORD_HEADER);
+                float[] vector = new float[dimensions];
+                data.flip().asFloatBuffer().get(vector);
+                return vector;
+            } catch (IOException e) {
+                log.warn("Failed to read cached embedding: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        synchronized void append(Digest digest, float[] vector) {
+            if (offsets.containsKey(digest)) {
+                return;
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + vector.length * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            // The hash is written big-endian, as it was read into the digest
+            ByteBuffer hash = ByteBuffer.allocate(HASH_LENGTH);
+            digest.writeTo(hash);
+            record.put(hash.array()).putInt(vector.length);
+            record.asFloatBuffer().put(vector);
+            record.position(record.capacity()).flip();
+            try {
+                long position = end;
+                while (record.hasRemaining()) {
+                    position += channel.write(record, position);
+                }
+                offsets.put(digest, end);
+                end = position;
+            } catch (IOException e) {
+                log.warn("Failed to write embedding cache record: {}", e.getMessage());
+            }
+        }
+
+        synchronized void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close embedding cache file: {}", e.getMessage());
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            long at = position;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, at);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of embedding cache file");
+                }
+                at += read;
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ai.nervemind.app.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import ai.nervemind.common.exception.ExecutionRejectedException;
+
+/**
+ * Admission control for asynchronous workflow executions.
+ *
+ * <p>
+ * Limits how many workflow runs execute at the same time, both in total and
+ * per workflow. Runs that cannot start yet wait in a bounded queue ordered by
+ * priority (higher first) and then by arrival. Whenever a run finishes, the
+ * first queued run whose workflow is below its limit is started, so a busy
+ * workflow does not hold up runs of other workflows. When the queue is full,
+ * new runs are rejected with an {@link ExecutionRejectedException}.
+ * </p>
+ *
+ * <p>
+ * Queue depth, wait times and rejection counts are available through
+ * {@link #stats()}.
+ * </p>
+ */
+public final class ExecutionAdmission {
+
+    /** Priority used when the caller does not specify one. */
+    public static final int DEFAULT_PRIORITY = 0;
+
+    /**
+     * Snapshot of the admission queue.
+     *
+     * @param running           runs currently executing
+     * @param queued            runs waiting to start
+     * @param maxConcurrentRuns global concurrency limit
+     * @param maxPerWorkflow    per-workflow concurrency limit
+     * @param queueCapacity     maximum number of waiting runs
+     * @param admitted          runs started since startup
+     * @param rejected          runs rejected since startup
+     * @param averageWaitMs     average queue wait of started runs
+     * @param maxWaitMs         longest queue wait of a started run
+     */
+    public record Stats(
+            int running,
+            int queued,
+            int maxConcurrentRuns,
+            int maxPerWorkflow,
+            int queueCapacity,
+            long admitted,
+            long rejected,
+            long averageWaitMs,
+            long maxWaitMs) {
+    }
+
+    private record Pending(Long workflowId, int priority, long sequence, long enqueuedAt, Runnable task) {
+    }
+
+    private static final Comparator<Pending> ORDER = Comparator
+            .comparingInt((Pending p) -> -p.priority())
+            .thenComparingLong(Pending::sequence);
+
+    private final Executor executor;
+    private final int maxConcurrentRuns;
+    private final int maxPerWorkflow;
+    private final int queueCapacity;
+
+    private final Object lock = new Object();
+    private final TreeSet<Pending> queue = new TreeSet<>(ORDER);
+    private final Map<Long, Integer> runningPerWorkflow = new HashMap<>();
+    private int running;
+    private long sequence;
+    private long admitted;
+    private long rejected;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Creates an admission queue.
+     *
+     * @param executor          executor that runs admitted executions
+     * @param maxConcurrentRuns maximum number of runs executing at once
+     * @param maxPerWorkflow    maximum number of runs of one workflow at once
+     * @param queueCapacity     maximum number of runs waiting to start
+     */
+    public ExecutionAdmission(Executor executor, int maxConcurrentRuns, int maxPerWorkflow, int queueCapacity) {
+        this.executor = executor;
+        this.maxConcurrentRuns = Math.max(1, maxConcurrentRuns);
+        this.maxPerWorkflow = Math.max(1, maxPerWorkflow);
+        this.queueCapacity = Math.max(0, queueCapacity);
+    }
+
+    /**
+     * Submits a run. It starts immediately if the limits allow it, otherwise it
+     * is queued.
+     *
+     * @param <T>        the result type
+     * @param workflowId the workflow being executed
+     * @param priority   queue priority, higher values start first
+     * @param task       the run to execute
+     * @return a future completed with the run's result, or failed with
+     *         {@link ExecutionRejectedException} if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Long workflowId, int priority, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable run = () -> {
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = task.get();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            // Free the slot before completing so callers never observe a
+            // finished run that still counts against the limits
+            release(workflowId);
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        };
+
+        List<Runnable> toStart;
+        synchronized (lock) {
+            Pending pending = new Pending(workflowId, priority, sequence++, System.nanoTime(), run);
+            queue.add(pending);
+            toStart = drain();
+            if (queue.size() > queueCapacity && queue.remove(pending)) {
+                rejected++;
+                return CompletableFuture.failedFuture(new ExecutionRejectedException(
+                        "Execution queue is full (" + queueCapacity + " waiting)", workflowId));
+            }
+        }
+        toStart.forEach(executor::execute);
+        return future;
+    }
+
+    /**
+     * Gets a snapshot of the admission queue.
+     *
+     * @return the current statistics
+     */
+    public Stats stats() {
+        synchronized (lock) {
+            return new Stats(running, queue.size(), maxConcurrentRuns, maxPerWorkflow, queueCapacity,
+                    admitted, rejected,
+                    admitted == 0 ? 0 : totalWaitNanos / admitted / 1_000_000,
+                    maxWaitNanos / 1_000_000);
+        }
+    }
+
+    private void release(Long workflowId) {
+        List<Runnable> toStart;
+        synchronized (lock) {
+            running--;
+            runningPerWorkflow.computeIfPresent(workflowId, (_, count) -> count > 1 ? count - 1 : null);
+            toStart = drain();
+        }
+        toStart.forEach(executor::execute);
+    }
+
+    /**
+     * Removes every queued run that may start now. Must hold {@link #lock}.
+     */
+    private List<Runnable> drain() {
+        List<Runnable> toStart = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Pending> it = queue.iterator();
+        while (running < maxConcurrentRuns && it.hasNext()) {
+            Pending pending = it.next();
+            if (runningPerWorkflow.getOrDefault(pending.workflowId(), 0) >= maxPerWorkflow) {
+                continue;
+            }
+            it.remove();
+            running++;
+            runningPerWorkflow.merge(pending.workflowId(), 1, Integer::sum);
+            admitted++;
+            long waited = now - pending.enqueuedAt();
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+            toStart.add(pending.task());
+        }
+        return toStart;
+    }
+}
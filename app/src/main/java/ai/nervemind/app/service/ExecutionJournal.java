@@ -0,0 +1,448 @@
+package ai.nervemind.app.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.nervemind.app.database.model.ExecutionEntity;
+import ai.nervemind.common.service.SettingsServiceInterface;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind journal for execution record updates.
+ *
+ * <p>
+ * Execution rows are inserted synchronously when a run starts (the generated
+ * id is needed right away), but every later update goes through this journal.
+ * Updates are coalesced per execution, so a run that finishes before the next
+ * flush costs a single row update no matter how many status transitions it
+ * went through. Pending updates are written with one batched JDBC statement
+ * per flush, inside a single transaction.
+ * </p>
+ *
+ * <p>
+ * Per-node results are appended to the {@code node_executions} table the same
+ * way: each node run is queued as it finishes and inserted with batched JDBC
+ * inserts, so a long run's history is written incrementally instead of as one
+ * large document at the end. Each node run keeps a shallow copy of its output,
+ * which is only serialized when its batch is written.
+ * </p>
+ *
+ * <h2>Durability</h2>
+ * <ul>
+ * <li><strong>batch</strong> (default) - updates are flushed every
+ * {@code execution.persistence.flushInterval} ms, or as soon as
+ * {@code execution.persistence.batchSize} executions are pending. Each batch
+ * is one committed transaction.</li>
+ * <li><strong>immediate</strong> - every update is written and committed
+ * before {@link #record(ExecutionEntity)} returns. A failed write is thrown
+ * to the caller, and the update stays pending for the flusher to retry.</li>
+ * </ul>
+ *
+ * <p>
+ * The backlog is bounded: once pending executions or node runs reach ten
+ * batches, callers flush synchronously until it is written. If the database
+ * cannot be written, the oldest node runs are dropped from the history with
+ * a warning instead; in batch mode, recording never fails the run it belongs
+ * to. Until written, readers should overlay {@link #pending(Long)} and
+ * {@link #pendingNodes(Long)} on what they load from the database.
+ * </p>
+ *
+ * <p>
+ * A node run the database rejects, for example because its execution was
+ * deleted while it ran, would fail every batch it is part of. When a batch
+ * of node runs violates a constraint, its rows are written one at a time and
+ * those that still fail are dropped with a warning.
+ * </p>
+ */
+@Service
+public class ExecutionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionJournal.class);
+
+    private static final String UPDATE_SQL = """
+            UPDATE executions
+               SET status = ?, finished_at = ?, output_data_json = ?, error_message = ?, execution_log = ?
+             WHERE id = ?""";
+
+    private static final String INSERT_NODE_SQL = """
+            INSERT INTO node_executions
+                   (execution_id, node_id, node_type, status, started_at, finished_at,
+                    input_data_json, output_data_json, error_message, run_sequence)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final int MAX_ERROR_LENGTH = 4000;
+    private static final int MAX_NODE_ID_LENGTH = 100;
+
+    private static final int MAX_PENDING_BATCHES = 10;
+
+    /**
+     * When journaled updates become durable.
+     */
+    public enum Durability {
+        /** Updates are committed in batches by a background flusher. */
+        BATCH,
+        /** Every update is committed before the caller continues. */
+        IMMEDIATE
+    }
+
+    private record PendingNode(Long executionId, NodeExecutionRecord run) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Durability durability;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+
+    private final Map<Long, ExecutionEntity> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingNode> pendingNodes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingNodeCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Creates the journal.
+     *
+     * @param jdbcTemplate       JDBC access used for batched updates
+     * @param transactionManager transaction manager for per-batch commits
+     * @param objectMapper       mapper used to serialize node outputs
+     * @param settingsService    settings for batch size, interval and
+     *                           durability
+     */
+    public ExecutionJournal(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, SettingsServiceInterface settingsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.durability = parseDurability(
+                settingsService.getValue(SettingsDefaults.EXECUTION_PERSISTENCE_DURABILITY, "batch"));
+        this.batchSize = Math.max(1, settingsService.getInt(SettingsDefaults.EXECUTION_PERSISTENCE_BATCH_SIZE, 50));
+        long flushInterval = Math.max(10L,
+                settingsService.getLong(SettingsDefaults.EXECUTION_PERSISTENCE_FLUSH_INTERVAL, 500L));
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("execution-journal").factory());
+        // Also retries immediate writes that failed
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the current state of an execution. The entity is copied, so the
+     * caller may keep modifying it.
+     *
+     * @param execution the execution to persist; must already have an id
+     */
+    public void record(ExecutionEntity execution) {
+        if (execution.getId() == null) {
+            throw new IllegalArgumentException("Execution must be inserted before it can be journaled");
+        }
+        pending.put(execution.getId(), snapshot(execution));
+        afterRecord(pending.size());
+    }
+
+    /**
+     * Records a finished node run.
+     *
+     * @param executionId   the owning execution; must already be inserted
+     * @param nodeExecution the node run to insert
+     */
+    public void recordNode(Long executionId, NodeExecutionRecord nodeExecution) {
+        if (executionId == null) {
+            throw new IllegalArgumentException("Node execution must belong to an inserted execution");
+        }
+        pendingNodes.add(new PendingNode(executionId, nodeExecution));
+        afterRecord(pendingNodeCount.incrementAndGet());
+    }
+
+    private void afterRecord(int backlog) {
+        if (durability == Durability.IMMEDIATE) {
+            // Write-through; a failure is the caller's
+            try {
+                flush();
+            } finally {
+                shedNodes();
+            }
+        } else if (backlog >= batchSize * MAX_PENDING_BATCHES) {
+            // Backpressure: the flusher is falling behind
+            flushQuietly();
+            shedNodes();
+        } else if (backlog >= batchSize) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Drops the oldest node runs while the backlog is over its limit, which
+     * only happens when the database cannot be written.
+     */
+    private void shedNodes() {
+        int limit = batchSize * MAX_PENDING_BATCHES;
+        if (pendingNodeCount.get() < limit) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            int dropped = 0;
+            while (pendingNodeCount.get() > limit - batchSize && pendingNodes.poll() != null) {
+                pendingNodeCount.decrementAndGet();
+                dropped++;
+            }
+            if (dropped > 0) {
+                log.warn("Execution history cannot be written; dropped the {} oldest node runs", dropped);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the latest unflushed state of an execution.
+     *
+     * @param executionId the execution ID
+     * @return the pending state, or empty if everything is written
+     */
+    public Optional<ExecutionEntity> pending(Long executionId) {
+        return Optional.ofNullable(pending.get(executionId));
+    }
+
+    /**
+     * Gets the number of executions with unflushed updates.
+     *
+     * @return the pending count
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the node runs of an execution that are not written yet, in the
+     * order they were recorded.
+     *
+     * @param executionId the execution ID
+     * @return the pending node runs, empty if everything is written
+     */
+    public List<NodeExecutionRecord> pendingNodes(Long executionId) {
+        List<NodeExecutionRecord> result = new ArrayList<>();
+        for (PendingNode node : pendingNodes) {
+            if (node.executionId().equals(executionId)) {
+                result.add(node.run());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of node runs waiting to be inserted.
+     *
+     * @return the pending node count
+     */
+    public int pendingNodeCount() {
+        return pendingNodeCount.get();
+    }
+
+    /**
+     * Writes all pending updates, one batch at a time.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            // Bounded by the backlog at entry, so a steady stream of new
+            // updates cannot keep the caller here forever. Node rows go
+            // first; they only reference the already inserted execution row.
+            int nodeBatches = (pendingNodeCount.get() + batchSize - 1) / batchSize;
+            for (int i = 0; i < nodeBatches && !pendingNodes.isEmpty(); i++) {
+                writeNodeBatch(takeNodeBatch());
+            }
+            int batches = (pending.size() + batchSize - 1) / batchSize;
+            for (int i = 0; i < batches && !pending.isEmpty(); i++) {
+                writeBatch(takeBatch());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes remaining updates and stops the background flusher.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    private List<ExecutionEntity> takeBatch() {
+        List<ExecutionEntity> batch = new ArrayList<>(batchSize);
+        Iterator<ExecutionEntity> entries = pending.values().iterator();
+        while (batch.size() < batchSize && entries.hasNext()) {
+            batch.add(entries.next());
+        }
+        return batch;
+    }
+
+    private void writeBatch(List<ExecutionEntity> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (ExecutionEntity e : batch) {
+            rows.add(new Object[] {
+                    e.getStatus().name(),
+                    e.getFinishedAt() != null ? Timestamp.from(e.getFinishedAt()) : null,
+                    e.getOutputDataJson(),
+                    truncate(e.getErrorMessage()),
+                    e.getExecutionLog(),
+                    e.getId() });
+        }
+        transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.batchUpdate(UPDATE_SQL, rows));
+
+        // Entries stay visible to readers until written; keep any that were
+        // replaced by a newer update in the meantime
+        for (ExecutionEntity e : batch) {
+            pending.remove(e.getId(), e);
+        }
+    }
+
+    private List<PendingNode> takeNodeBatch() {
+        List<PendingNode> batch = new ArrayList<>(batchSize);
+        Iterator<PendingNode> entries = pendingNodes.iterator();
+        while (batch.size() < batchSize && entries.hasNext()) {
+            batch.add(entries.next());
+        }
+        return batch;
+    }
+
+    private void writeNodeBatch(List<PendingNode> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Serialize before opening the transaction
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingNode node : batch) {
+            NodeExecutionRecord n = node.run();
+            rows.add(new Object[] {
+                    node.executionId(),
+                    truncate(n.nodeId(), MAX_NODE_ID_LENGTH),
+                    truncate(n.nodeType(), MAX_NODE_ID_LENGTH),
+                    n.status().name(),
+                    Timestamp.from(n.startedAt()),
+                    Timestamp.from(n.finishedAt()),
+                    null,
+                    serializeOutput(n),
+                    truncate(n.error()),
+                    n.sequence() });
+        }
+
+        // Only flush() and shedNodes() remove from the queue and they hold
+        // the lock, so the head of the queue is still exactly this batch
+        try {
+            transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.batchUpdate(INSERT_NODE_SQL, rows));
+        } catch (DataIntegrityViolationException e) {
+            // Find the rows at fault; other errors leave the batch queued
+            for (int i = 0; i < rows.size(); i++) {
+                writeNodeRow(batch.get(i), rows.get(i));
+                pendingNodes.poll();
+                pendingNodeCount.decrementAndGet();
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            pendingNodes.poll();
+        }
+        pendingNodeCount.addAndGet(-batch.size());
+    }
+
+    private void writeNodeRow(PendingNode node, Object[] row) {
+        try {
+            transactionTemplate.executeWithoutResult(
+                    _ -> jdbcTemplate.batchUpdate(INSERT_NODE_SQL, Collections.singletonList(row)));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Dropping run of node {} in execution {} from the history: {}",
+                    node.run().nodeId(), node.executionId(), e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} execution updates and {} node runs, will retry: {}",
+                    pending.size(), pendingNodeCount.get(), e.getMessage());
+        }
+    }
+
+    private static ExecutionEntity snapshot(ExecutionEntity source) {
+        ExecutionEntity copy = new ExecutionEntity(source.getWorkflowId(), source.getTriggerType());
+        copy.setId(source.getId());
+        copy.setStatus(source.getStatus());
+        copy.setStartedAt(source.getStartedAt());
+        copy.setFinishedAt(source.getFinishedAt());
+        copy.setInputDataJson(source.getInputDataJson());
+        copy.setOutputDataJson(source.getOutputDataJson());
+        copy.setErrorMessage(source.getErrorMessage());
+        copy.setExecutionLog(source.getExecutionLog());
+        return copy;
+    }
+
+    private String serializeOutput(NodeExecutionRecord nodeExecution) {
+        if (nodeExecution.output() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(nodeExecution.output());
+        } catch (JsonProcessingException e) {
+            // Keep the run record; one unserializable output must not block
+            // the rest of the batch
+            log.debug("Skipping output of node {}: {}", nodeExecution.nodeId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String truncate(String message) {
+        return truncate(message, MAX_ERROR_LENGTH);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static Durability parseDurability(String value) {
+        if (value == null) {
+            return Durability.BATCH;
+        }
+        try {
+            return Durability.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException _) {
+            return Durability.BATCH;
+        }
+    }
+}
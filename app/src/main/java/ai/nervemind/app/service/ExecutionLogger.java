@@ -1,44 +1,99 @@
 package ai.nervemind.app.service;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import ai.nervemind.common.service.ExecutionLogHandler;
+import jakarta.annotation.PreDestroy;
 
 /**
  * Structured logging service for workflow execution.
  * Provides JSON-formatted log entries with context and timing.
+ *
+ * <p>
+ * Entries of each execution are kept in a {@link ChunkedLog}, so logging
+ * costs O(1) per entry however long the run is, and reads take a snapshot
+ * without copying the entries. At most
+ * {@link #configureStorage(int, boolean) maxEntriesPerExecution} entries are
+ * kept in memory per execution; older entries are spilled to a temporary
+ * JSON-lines file (or dropped if spilling is disabled) and still included in
+ * {@link #exportToJson(String)}.
+ * </p>
+ *
+ * <p>
+ * Node input and output data are captured according to a {@link CaptureMode}.
+ * Only a shallow copy of the captured map is kept, and previews are rendered
+ * when first read. Payloads larger than the capture size limit are
+ * never retained: only an eagerly rendered, truncated preview is kept, so a
+ * large body flowing through a loop does not pin memory once per node.
+ * </p>
  */
 @Service
 public class ExecutionLogger {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionLogger.class);
+
     private static final String SUCCESS_KEY = "success";
     private static final String NODE_ID_KEY = "nodeId";
     private static final String NODE_NAME_KEY = "nodeName";
 
+    /** Default number of log entries kept in memory per execution. */
+    public static final int DEFAULT_MAX_ENTRIES_PER_EXECUTION = 10_000;
+
+    /** Default size limit of captured node data (approximate characters). */
+    public static final int DEFAULT_CAPTURE_MAX_SIZE = 256 * 1024;
+
+    /** Default sampling rate for {@link CaptureMode#SAMPLED}. */
+    public static final int DEFAULT_CAPTURE_SAMPLE_RATE = 10;
+
+    private static final int PREVIEW_LENGTH = 100;
+    private static final int MAX_SIZE_DEPTH = 32;
+
     private final ObjectMapper objectMapper;
+    private final ObjectWriter lineWriter;
     private final ConcurrentHashMap<String, ExecutionLog> executionLogs = new ConcurrentHashMap<>();
     private final List<ExecutionLogHandler> logHandlers = new CopyOnWriteArrayList<>();
 
+    private volatile int maxEntriesPerExecution = DEFAULT_MAX_ENTRIES_PER_EXECUTION;
+    private volatile boolean spillToDisk = true;
+    private volatile CaptureMode captureMode = CaptureMode.FULL;
+    private volatile int captureMaxSize = DEFAULT_CAPTURE_MAX_SIZE;
+    private volatile int captureSampleRate = DEFAULT_CAPTURE_SAMPLE_RATE;
+
     /**
      * Constructs a new ExecutionLogger and initializes the JSON mapper.
      */
@@ -47,6 +102,67 @@ public class ExecutionLogger {
         this.objectMapper.registerModule(new JavaTimeModule());
         this.objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
         this.objectMapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Configures how many entries are kept in memory per execution. Applies to
+     * executions started afterwards.
+     *
+     * @param maxEntriesPerExecution entries kept in memory per execution
+     * @param spillToDisk            write older entries to a temporary file
+     *                               instead of dropping them
+     */
+    public void configureStorage(int maxEntriesPerExecution, boolean spillToDisk) {
+        this.maxEntriesPerExecution = Math.max(ChunkedLog.CHUNK_SIZE, maxEntriesPerExecution);
+        this.spillToDisk = spillToDisk;
+    }
+
+    /**
+     * Configures how node input and output data are captured.
+     *
+     * @param mode       the capture mode
+     * @param maxSize    payloads larger than this (approximate characters) are
+     *                   only kept as a truncated preview; the default is used
+     *                   if not positive
+     * @param sampleRate for {@link CaptureMode#SAMPLED}, capture full data of
+     *                   one in this many node runs
+     */
+    public void configureCapture(CaptureMode mode, int maxSize, int sampleRate) {
+        this.captureMode = mode != null ? mode : CaptureMode.FULL;
+        this.captureMaxSize = maxSize > 0 ? maxSize : DEFAULT_CAPTURE_MAX_SIZE;
+        this.captureSampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Parses a capture mode setting value.
+     *
+     * @param value the setting value, e.g. {@code "preview"}
+     * @return the capture mode, {@link CaptureMode#FULL} if unknown
+     */
+    public static CaptureMode parseCaptureMode(String value) {
+        if (value == null) {
+            return CaptureMode.FULL;
+        }
+        try {
+            return CaptureMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException _) {
+            return CaptureMode.FULL;
+        }
+    }
+
+    /**
+     * How node input and output data are captured in the log.
+     */
+    public enum CaptureMode {
+        /** Only keys and sizes are logged */
+        NONE,
+        /** Keys, sizes and a truncated preview of each value */
+        PREVIEW,
+        /** Preview plus the full data, up to the capture size limit */
+        FULL,
+        /** Like FULL for a sample of node runs, PREVIEW for the rest */
+        SAMPLED
     }
 
     /**
@@ -85,6 +201,8 @@ public class ExecutionLogger {
         NODE_INPUT, // New: logs node input data
         /** Node output data logged */
         NODE_OUTPUT, // New: logs node output data
+        /** Incremental progress of a running node */
+        NODE_PROGRESS,
         /** Data flow between nodes */
         DATA_FLOW,
         /** Variable value changes */
@@ -111,8 +229,12 @@ public class ExecutionLogger {
      * @param workflowName the workflow name
      */
     public void startExecution(String executionId, String workflowId, String workflowName) {
-        ExecutionLog log = new ExecutionLog(executionId, workflowId, workflowName);
-        executionLogs.put(executionId, log);
+        ExecutionLog log = new ExecutionLog(executionId, workflowId, workflowName,
+                maxEntriesPerExecution, spillToDisk ? lineWriter : null);
+        ExecutionLog previous = executionLogs.put(executionId, log);
+        if (previous != null) {
+            previous.deleteSpillFile();
+        }
 
         logEntry(executionId, LogLevel.INFO, LogCategory.EXECUTION_START,
                 "Workflow execution started",
@@ -138,7 +260,7 @@ public class ExecutionLogger {
                 success ? "Workflow execution completed" : "Workflow execution failed",
                 Map.of(SUCCESS_KEY, success,
                         "duration_ms", log != null ? log.getDurationMs() : 0,
-                        "nodeCount", log != null ? log.getEntries().size() : 0));
+                        "nodeCount", log != null ? log.getNodeCount() : 0));
     }
 
     /**
@@ -185,6 +307,20 @@ public class ExecutionLogger {
                 Map.of(NODE_ID_KEY, nodeId, "reason", reason));
     }
 
+    /**
+     * Log incremental progress of a running node.
+     *
+     * @param executionId the execution ID
+     * @param nodeId      the node ID
+     * @param message     what the node is doing
+     * @param details     progress details, such as streamed text
+     */
+    public void nodeProgress(String executionId, String nodeId, String message, Map<String, Object> details) {
+        Map<String, Object> context = new HashMap<>(details);
+        context.put(NODE_ID_KEY, nodeId);
+        logEntry(executionId, LogLevel.INFO, LogCategory.NODE_PROGRESS, message, context);
+    }
+
     /**
      * Log data flow between nodes.
      * 
@@ -233,19 +369,7 @@ public class ExecutionLogger {
         Map<String, Object> context = new HashMap<>();
         context.put(NODE_ID_KEY, nodeId);
         context.put(NODE_NAME_KEY, nodeName);
-        context.put("inputKeys", input != null ? input.keySet() : List.of());
-        context.put("inputSize", input != null ? input.size() : 0);
-
-        // Add truncated preview of each input value (for display)
-        if (input != null) {
-            Map<String, String> inputPreview = new HashMap<>();
-            for (Map.Entry<String, Object> entry : input.entrySet()) {
-                inputPreview.put(entry.getKey(), formatValuePreview(entry.getValue()));
-            }
-            context.put("inputPreview", inputPreview);
-            // Also add full raw data for debug view (deep copy to avoid mutations)
-            context.put("inputDataFull", new HashMap<>(input));
-        }
+        captureData(context, "input", executionId, input);
 
         logEntry(executionId, LogLevel.DEBUG, LogCategory.NODE_INPUT,
                 "Node '" + nodeName + "' input data",
@@ -264,25 +388,157 @@ public class ExecutionLogger {
         Map<String, Object> context = new HashMap<>();
         context.put(NODE_ID_KEY, nodeId);
         context.put(NODE_NAME_KEY, nodeName);
-        context.put("outputKeys", output != null ? output.keySet() : List.of());
-        context.put("outputSize", output != null ? output.size() : 0);
-
-        // Add truncated preview of each output value (for display)
-        if (output != null) {
-            Map<String, String> outputPreview = new HashMap<>();
-            for (Map.Entry<String, Object> entry : output.entrySet()) {
-                outputPreview.put(entry.getKey(), formatValuePreview(entry.getValue()));
-            }
-            context.put("outputPreview", outputPreview);
-            // Also add full raw data for debug view (deep copy to avoid mutations)
-            context.put("outputDataFull", new HashMap<>(output));
-        }
+        captureData(context, "output", executionId, output);
 
         logEntry(executionId, LogLevel.DEBUG, LogCategory.NODE_OUTPUT,
                 "Node '" + nodeName + "' output data",
                 context);
     }
 
+    /**
+     * Adds keys, size and - depending on the capture mode - a preview and the
+     * full data of a node's input or output to a log context.
+     */
+    private void captureData(Map<String, Object> context, String prefix, String executionId,
+            Map<String, Object> data) {
+        context.put(prefix + "Keys", data != null ? List.copyOf(data.keySet()) : List.of());
+        context.put(prefix + "Size", data != null ? data.size() : 0);
+
+        CaptureMode mode = captureMode;
+        if (data == null || mode == CaptureMode.NONE) {
+            return;
+        }
+
+        // Bounded walk: stops as soon as the limit is exceeded
+        long limit = captureMaxSize;
+        if (estimateSize(data, limit, 0) > limit) {
+            // Too large to keep around: render a small preview now and let the
+            // payload go
+            context.put(prefix + "Preview", renderPreview(data));
+            context.put(prefix + "DataOmitted", true);
+            return;
+        }
+
+        // Small enough to keep; copy the top level, as the engine adds keys to
+        // node outputs after they are logged, and render the preview on first
+        // read
+        Map<String, Object> snapshot = Collections.unmodifiableMap(new LinkedHashMap<>(data));
+        context.put(prefix + "Preview", new PreviewMap(snapshot));
+        if (mode == CaptureMode.FULL || mode == CaptureMode.SAMPLED && isSampled(executionId)) {
+            context.put(prefix + "DataFull", snapshot);
+        }
+    }
+
+    private boolean isSampled(String executionId) {
+        ExecutionLog log = executionLogs.get(executionId);
+        // Input and output of a run are logged after its NODE_START entry, so
+        // both sides of a sampled run are captured
+        return log != null && (log.getNodeStartCount() - 1) % captureSampleRate == 0;
+    }
+
+    private Map<String, String> renderPreview(Map<String, Object> data) {
+        Map<String, String> preview = HashMap.newHashMap(data.size());
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            preview.put(entry.getKey(), formatValuePreview(entry.getValue()));
+        }
+        return preview;
+    }
+
+    /**
+     * Approximates the size of a value in characters. Returns as soon as the
+     * running total exceeds {@code limit}, so the cost is bounded by the limit
+     * rather than by the payload.
+     */
+    static long estimateSize(Object value, long limit, int depth) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return 8;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (depth > MAX_SIZE_DEPTH) {
+            return limit + 1;
+        }
+        long total = 0;
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                total += estimateSize(entry.getKey(), limit, depth + 1)
+                        + estimateSize(entry.getValue(), limit, depth + 1);
+                if (total > limit) {
+                    return total;
+                }
+            }
+            return total;
+        }
+        if (value instanceof Collection<?> collection) {
+            for (Object item : collection) {
+                total += estimateSize(item, limit, depth + 1);
+                if (total > limit) {
+                    return total;
+                }
+            }
+            return total;
+        }
+        return 16;
+    }
+
+    /**
+     * Read-only preview of a map whose values are rendered with
+     * {@link #formatValuePreview(Object)} when read.
+     */
+    private final class PreviewMap extends AbstractMap<String, String> {
+        private final Map<String, Object> source;
+
+        PreviewMap(Map<String, Object> source) {
+            this.source = source;
+        }
+
+        @Override
+        public String get(Object key) {
+            return source.containsKey(key) ? formatValuePreview(source.get(key)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return source.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    Iterator<Map.Entry<String, Object>> it = source.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            Map.Entry<String, Object> entry = it.next();
+                            return Map.entry(entry.getKey(), formatValuePreview(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return source.size();
+                }
+            };
+        }
+    }
+
     /**
      * Log expression evaluation for debugging templating and interpolation.
      * 
@@ -410,15 +666,17 @@ public class ExecutionLogger {
         String preview;
 
         if (value instanceof String s) {
-            preview = truncate(s, 100);
+            preview = truncate(s, PREVIEW_LENGTH);
         } else if (value instanceof Map<?, ?> map) {
             preview = "Map(" + map.size() + " entries)";
         } else if (value instanceof List<?> list) {
             preview = "List(" + list.size() + " items)";
+        } else if (value instanceof byte[] bytes) {
+            preview = bytes.length + " bytes";
         } else if (value instanceof Number || value instanceof Boolean) {
             preview = value.toString();
         } else {
-            preview = truncate(value.toString(), 100);
+            preview = truncate(value.toString(), PREVIEW_LENGTH);
         }
 
         return "[" + typeName + "] " + preview;
@@ -533,6 +791,18 @@ public class ExecutionLogger {
         return log != null ? log.getEntries() : List.of();
     }
 
+    /**
+     * Get the number of log entries of an execution that are no longer kept in
+     * memory (spilled to disk or dropped).
+     * 
+     * @param executionId the execution ID
+     * @return number of evicted entries
+     */
+    public long getEvictedEntryCount(String executionId) {
+        ExecutionLog log = executionLogs.get(executionId);
+        return log != null ? log.getEvictedCount() : 0;
+    }
+
     /**
      * Get filtered log entries.
      * 
@@ -563,18 +833,8 @@ public class ExecutionLogger {
         if (log == null)
             return null;
 
-        int errorCount = (int) log.getEntries().stream()
-                .filter(e -> e.level() == LogLevel.ERROR || e.level() == LogLevel.FATAL)
-                .count();
-
-        int warnCount = (int) log.getEntries().stream()
-                .filter(e -> e.level() == LogLevel.WARN)
-                .count();
-
-        int nodeCount = (int) log.getEntries().stream()
-                .filter(e -> e.category() == LogCategory.NODE_END)
-                .count();
-
+        // Counted as entries are added, so this includes evicted entries and
+        // does not walk the log
         return new ExecutionSummary(
                 log.getExecutionId(),
                 log.getWorkflowId(),
@@ -583,10 +843,10 @@ public class ExecutionLogger {
                 log.getEndTime(),
                 log.getDurationMs(),
                 log.isSuccess(),
-                nodeCount,
-                errorCount,
-                warnCount,
-                log.getEntries().size());
+                log.getNodeCount(),
+                log.getErrorCount(),
+                log.getWarnCount(),
+                log.getTotalCount());
     }
 
     /**
@@ -603,7 +863,7 @@ public class ExecutionLogger {
 
         Map<String, Object> export = new HashMap<>();
         export.put("summary", getSummary(executionId));
-        export.put("entries", log.getEntries());
+        export.put("entries", log.getAllEntries(objectMapper));
 
         return objectMapper.writeValueAsString(export);
     }
@@ -644,14 +904,18 @@ public class ExecutionLogger {
      * @param executionId the execution ID to clear
      */
     public void clearExecution(String executionId) {
-        executionLogs.remove(executionId);
+        ExecutionLog log = executionLogs.remove(executionId);
+        if (log != null) {
+            log.deleteSpillFile();
+        }
     }
 
     /**
-     * Clear all logs.
+     * Clear all logs and delete their spill files.
      */
+    @PreDestroy
     public void clearAll() {
-        executionLogs.clear();
+        executionLogs.keySet().forEach(this::clearExecution);
     }
 
     private String truncate(String s, int maxLength) {
@@ -726,23 +990,136 @@ public class ExecutionLogger {
         private final String workflowId;
         private final String workflowName;
         private final Instant startTime;
-        private Instant endTime;
-        private boolean success;
-        private final List<LogEntry> entries = new CopyOnWriteArrayList<>();
-
-        ExecutionLog(String executionId, String workflowId, String workflowName) {
+        private volatile Instant endTime;
+        private volatile boolean success;
+        private final ChunkedLog<LogEntry> entries;
+        private final ObjectWriter spillWriter;
+        private Path spillFile;
+        private boolean spillFailed;
+
+        private final AtomicInteger totalCount = new AtomicInteger();
+        private final AtomicInteger nodeCount = new AtomicInteger();
+        private final AtomicInteger nodeStartCount = new AtomicInteger();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private final AtomicInteger warnCount = new AtomicInteger();
+
+        ExecutionLog(String executionId, String workflowId, String workflowName,
+                int maxEntries, ObjectWriter spillWriter) {
             this.executionId = executionId;
             this.workflowId = workflowId;
             this.workflowName = workflowName;
             this.startTime = Instant.now();
+            this.spillWriter = spillWriter;
+            this.entries = new ChunkedLog<>(maxEntries, spillWriter != null ? this::spill : null);
         }
 
         void addEntry(LogEntry entry) {
             entries.add(entry);
+            totalCount.incrementAndGet();
+            switch (entry.level()) {
+                case ERROR, FATAL -> errorCount.incrementAndGet();
+                case WARN -> warnCount.incrementAndGet();
+                default -> {
+                    // not counted
+                }
+            }
+            if (entry.category() == LogCategory.NODE_END) {
+                nodeCount.incrementAndGet();
+            } else if (entry.category() == LogCategory.NODE_START) {
+                nodeStartCount.incrementAndGet();
+            }
         }
 
         List<LogEntry> getEntries() {
-            return new ArrayList<>(entries);
+            return entries.snapshot();
+        }
+
+        long getEvictedCount() {
+            return entries.evictedCount();
+        }
+
+        int getTotalCount() {
+            return totalCount.get();
+        }
+
+        int getNodeCount() {
+            return nodeCount.get();
+        }
+
+        int getNodeStartCount() {
+            return nodeStartCount.get();
+        }
+
+        int getErrorCount() {
+            return errorCount.get();
+        }
+
+        int getWarnCount() {
+            return warnCount.get();
+        }
+
+        /**
+         * Appends evicted entries to the spill file. Called by the chunked log
+         * with its lock held, so chunks arrive one at a time and in order, and
+         * the spill file is only touched under that lock.
+         */
+        private void spill(List<LogEntry> chunk) {
+            if (spillFailed) {
+                return;
+            }
+            try {
+                if (spillFile == null) {
+                    spillFile = Files.createTempFile("nervemind-execution-" + executionId + "-", ".jsonl");
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.APPEND)) {
+                    for (LogEntry entry : chunk) {
+                        writer.write(spillWriter.writeValueAsString(entry));
+                        writer.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                // Keep logging in memory; older entries of this run are lost
+                spillFailed = true;
+                logger.warn("Failed to spill execution log {} to disk: {}", executionId, e.getMessage());
+            }
+        }
+
+        /**
+         * Gets spilled entries followed by the ones still in memory. Holds the
+         * log's lock so no chunk moves to disk in between.
+         */
+        List<Object> getAllEntries(ObjectMapper mapper) {
+            synchronized (entries) {
+                List<Object> all = new ArrayList<>();
+                if (spillFile != null) {
+                    try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            all.add(mapper.readTree(line));
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Failed to read spilled execution log {}: {}", executionId, e.getMessage());
+                    }
+                }
+                all.addAll(entries.snapshot());
+                return all;
+            }
+        }
+
+        void deleteSpillFile() {
+            synchronized (entries) {
+                if (spillFile == null) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(spillFile);
+                } catch (IOException e) {
+                    logger.debug("Failed to delete spilled execution log {}: {}", spillFile, e.getMessage());
+                }
+                spillFile = null;
+                spillFailed = true;
+            }
         }
 
         String getExecutionId() {
@@ -0,0 +1,566 @@
+package ai.nervemind.app.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import ai.nervemind.common.domain.Connection;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.dto.WorkflowDTO;
+
+/**
+ * Precompiled, immutable view of a workflow graph used by the execution
+ * engine.
+ *
+ * <p>
+ * {@link WorkflowDTO} stores nodes and connections as flat lists, so looking up
+ * a node or its outgoing edges means scanning the whole graph. An
+ * {@code ExecutionPlan} does that work once per workflow version and exposes
+ * the result as ordinal-indexed arrays, so every hop the engine makes during a
+ * run is a constant-time lookup.
+ * </p>
+ *
+ * <h2>Contents</h2>
+ * <ul>
+ * <li><strong>Node index:</strong> node id to ordinal, ordinal to
+ * {@link Node}.</li>
+ * <li><strong>Edges:</strong> every connection gets an edge index with its
+ * resolved source and target ordinals. Edges leaving a {@code loop} output are
+ * flagged as loop edges; edges that close a cycle (found by depth-first search
+ * from the triggers) are flagged as back edges.</li>
+ * <li><strong>Adjacency:</strong> outgoing edges and successor ordinals per
+ * node, plus predecessor ordinals and in-degree.</li>
+ * <li><strong>Triggers:</strong> nodes without incoming connections, in
+ * declaration order.</li>
+ * <li><strong>Topological order:</strong> computed with Kahn's algorithm over
+ * all edges except back edges.</li>
+ * <li><strong>Regions:</strong> the set of nodes a scheduler run reaches from a
+ * given set of entry nodes, with per-node dependency counts (see
+ * {@link #region(int[])}).</li>
+ * </ul>
+ *
+ * <p>
+ * Plans are cached by {@link ExecutionService} per workflow id and version, and
+ * shared between concurrent runs. The graph data is never mutated after
+ * {@link #compile(WorkflowDTO)} returns; regions are memoized on first use.
+ * </p>
+ */
+public final class ExecutionPlan {
+
+    /** Ordinal used for connection endpoints that do not resolve to a node. */
+    public static final int UNRESOLVED = -1;
+
+    private static final String LOOP_OUTPUT = "loop";
+    private static final String MERGE_NODE_TYPE = "merge";
+
+    private final Long workflowId;
+    private final int workflowVersion;
+    private final Node[] nodes;
+    private final Map<String, Integer> ordinals;
+    private final Connection[] edges;
+    private final int[] edgeTarget;
+    private final boolean[] loopEdge;
+    private final boolean[] backEdge;
+    private final int[][] outgoingEdges;
+    private final int[][] successors;
+    private final int[][] predecessors;
+    private final int[] incomingCount;
+    private final boolean[] waitsForAny;
+    private final int[] triggers;
+    private final int[] topologicalOrder;
+    private final boolean acyclic;
+    private final Map<List<Integer>, Region> regions = new ConcurrentHashMap<>();
+
+    private ExecutionPlan(WorkflowDTO workflow, Node[] nodes, Map<String, Integer> ordinals,
+            Connection[] edges, int[] edgeTarget, boolean[] loopEdge, boolean[] backEdge,
+            int[][] outgoingEdges, int[][] successors, int[][] predecessors, int[] incomingCount,
+            boolean[] waitsForAny, int[] triggers, int[] topologicalOrder) {
+        this.workflowId = workflow.id();
+        this.workflowVersion = workflow.version();
+        this.nodes = nodes;
+        this.ordinals = ordinals;
+        this.edges = edges;
+        this.edgeTarget = edgeTarget;
+        this.loopEdge = loopEdge;
+        this.backEdge = backEdge;
+        this.outgoingEdges = outgoingEdges;
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.incomingCount = incomingCount;
+        this.waitsForAny = waitsForAny;
+        this.triggers = triggers;
+        this.topologicalOrder = topologicalOrder;
+        this.acyclic = !contains(backEdge, true);
+    }
+
+    /**
+     * Compiles a workflow into an execution plan.
+     *
+     * @param workflow the workflow to compile
+     * @return the compiled plan
+     */
+    public static ExecutionPlan compile(WorkflowDTO workflow) {
+        List<Node> nodeList = workflow.nodes();
+        int n = nodeList.size();
+
+        Node[] nodes = nodeList.toArray(new Node[0]);
+        Map<String, Integer> ordinals = HashMap.newHashMap(n);
+        boolean[] waitsForAny = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            ordinals.putIfAbsent(nodes[i].id(), i);
+            waitsForAny[i] = isWaitAnyJoin(nodes[i]);
+        }
+
+        // Resolve edges. Connections whose source is unknown are dropped; those
+        // whose target is unknown are kept so the engine can report them when
+        // they are followed.
+        List<Connection> connectionList = workflow.connections();
+        List<Connection> edgeList = new ArrayList<>(connectionList.size());
+        List<List<Integer>> outgoingLists = newLists(n);
+        List<List<Integer>> successorLists = newLists(n);
+        List<List<Integer>> predecessorLists = newLists(n);
+        int[] incomingCount = new int[n];
+        int[] targetsByEdge = new int[connectionList.size()];
+        int[] sourcesByEdge = new int[connectionList.size()];
+
+        for (Connection connection : connectionList) {
+            int source = ordinals.getOrDefault(connection.sourceNodeId(), UNRESOLVED);
+            int target = ordinals.getOrDefault(connection.targetNodeId(), UNRESOLVED);
+            if (target != UNRESOLVED) {
+                // Any incoming edge disqualifies a node as a trigger, matching
+                // WorkflowDTO.getTriggerNodes()
+                incomingCount[target]++;
+            }
+            if (source == UNRESOLVED) {
+                continue;
+            }
+            int edge = edgeList.size();
+            edgeList.add(connection);
+            sourcesByEdge[edge] = source;
+            targetsByEdge[edge] = target;
+            outgoingLists.get(source).add(edge);
+            if (target != UNRESOLVED) {
+                successorLists.get(source).add(target);
+                predecessorLists.get(target).add(source);
+            }
+        }
+
+        int edgeCount = edgeList.size();
+        Connection[] edges = edgeList.toArray(new Connection[0]);
+        int[] edgeTarget = Arrays.copyOf(targetsByEdge, edgeCount);
+        int[] edgeSource = Arrays.copyOf(sourcesByEdge, edgeCount);
+        boolean[] loopEdge = new boolean[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            loopEdge[e] = LOOP_OUTPUT.equals(edges[e].sourceOutput());
+        }
+
+        int[][] outgoingEdges = toArrays(outgoingLists);
+        int[] triggers = IntStream.range(0, n)
+                .filter(i -> incomingCount[i] == 0)
+                .toArray();
+        boolean[] backEdge = findBackEdges(n, triggers, outgoingEdges, edgeTarget);
+
+        return new ExecutionPlan(workflow, nodes, Map.copyOf(ordinals), edges, edgeTarget, loopEdge,
+                backEdge, outgoingEdges, toArrays(successorLists), toArrays(predecessorLists), incomingCount,
+                waitsForAny, triggers, topologicalSort(n, edgeSource, edgeTarget, backEdge));
+    }
+
+    /**
+     * Merge nodes configured to proceed with the first input (mode
+     * {@code waitAny}, or {@code waitForAll=false}) are dispatched as soon as
+     * any predecessor delivers data.
+     */
+    private static boolean isWaitAnyJoin(Node node) {
+        if (!MERGE_NODE_TYPE.equals(node.type())) {
+            return false;
+        }
+        Map<String, Object> params = node.parameters();
+        return "waitAny".equalsIgnoreCase(String.valueOf(params.get("mode")))
+                || Boolean.FALSE.equals(params.get("waitForAll"));
+    }
+
+    private static List<List<Integer>> newLists(int n) {
+        List<List<Integer>> lists = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] result = new int[lists.size()][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    private static boolean contains(boolean[] values, boolean value) {
+        for (boolean v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterative depth-first search from the triggers (then any unvisited node)
+     * marking every edge whose target is still on the DFS stack.
+     */
+    private static boolean[] findBackEdges(int n, int[] triggers, int[][] outgoingEdges, int[] edgeTarget) {
+        boolean[] backEdge = new boolean[edgeTarget.length];
+        byte[] state = new byte[n]; // 0 = unvisited, 1 = on stack, 2 = finished
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+
+        int[] roots = IntStream.concat(Arrays.stream(triggers), IntStream.range(0, n)).toArray();
+        for (int root : roots) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[depth++] = root;
+            state[root] = 1;
+            while (depth > 0) {
+                int current = stack[depth - 1];
+                if (cursor[current] < outgoingEdges[current].length) {
+                    int edge = outgoingEdges[current][cursor[current]++];
+                    int target = edgeTarget[edge];
+                    if (target == UNRESOLVED) {
+                        continue;
+                    }
+                    if (state[target] == 1) {
+                        backEdge[edge] = true;
+                    } else if (state[target] == 0) {
+                        state[target] = 1;
+                        stack[depth++] = target;
+                    }
+                } else {
+                    state[current] = 2;
+                    depth--;
+                }
+            }
+        }
+        return backEdge;
+    }
+
+    private static int[] topologicalSort(int n, int[] edgeSource, int[] edgeTarget, boolean[] backEdge) {
+        int[] remaining = new int[n];
+        List<List<Integer>> forward = newLists(n);
+        for (int e = 0; e < edgeTarget.length; e++) {
+            if (edgeTarget[e] != UNRESOLVED && !backEdge[e]) {
+                remaining[edgeTarget[e]]++;
+                forward.get(edgeSource[e]).add(edgeTarget[e]);
+            }
+        }
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (remaining[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            for (int next : forward.get(current)) {
+                if (--remaining[next] == 0) {
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * Gets the id of the workflow this plan was compiled from.
+     *
+     * @return the workflow id, or null for unsaved workflows
+     */
+    public Long workflowId() {
+        return workflowId;
+    }
+
+    /**
+     * Gets the version of the workflow this plan was compiled from.
+     *
+     * @return the workflow version
+     */
+    public int workflowVersion() {
+        return workflowVersion;
+    }
+
+    /**
+     * Gets the number of nodes in the plan.
+     *
+     * @return the node count
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Gets the node at the given ordinal.
+     *
+     * @param ordinal the node ordinal
+     * @return the node
+     */
+    public Node node(int ordinal) {
+        return nodes[ordinal];
+    }
+
+    /**
+     * Resolves a node id to its ordinal.
+     *
+     * @param nodeId the node id
+     * @return the ordinal, or {@link #UNRESOLVED} if the node is not part of the
+     *         workflow
+     */
+    public int ordinalOf(String nodeId) {
+        Integer ordinal = ordinals.get(nodeId);
+        return ordinal != null ? ordinal : UNRESOLVED;
+    }
+
+    /**
+     * Finds a node by id.
+     *
+     * @param nodeId the node id
+     * @return the node or null if not found
+     */
+    public Node findNode(String nodeId) {
+        int ordinal = ordinalOf(nodeId);
+        return ordinal != UNRESOLVED ? nodes[ordinal] : null;
+    }
+
+    /**
+     * Gets the outgoing edges of a node, in declaration order.
+     *
+     * @param ordinal the source node ordinal
+     * @return edge indices; callers must not modify the array
+     */
+    public int[] outgoingEdges(int ordinal) {
+        return outgoingEdges[ordinal];
+    }
+
+    /**
+     * Gets the connection behind an edge.
+     *
+     * @param edge the edge index
+     * @return the connection
+     */
+    public Connection connection(int edge) {
+        return edges[edge];
+    }
+
+    /**
+     * Gets the target ordinal of an edge.
+     *
+     * @param edge the edge index
+     * @return the target ordinal, or {@link #UNRESOLVED} if the target node does
+     *         not exist
+     */
+    public int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    /**
+     * Checks whether an edge leaves a loop node's {@code loop} output.
+     *
+     * @param edge the edge index
+     * @return true for loop edges
+     */
+    public boolean isLoopEdge(int edge) {
+        return loopEdge[edge];
+    }
+
+    /**
+     * Checks whether an edge closes a cycle (for example a retry path that jumps
+     * back to an earlier node).
+     *
+     * @param edge the edge index
+     * @return true for back edges
+     */
+    public boolean isBackEdge(int edge) {
+        return backEdge[edge];
+    }
+
+    /**
+     * Gets the ordinals of the nodes a node connects to. Connections to unknown
+     * nodes are omitted.
+     *
+     * @param ordinal the source node ordinal
+     * @return successor ordinals; callers must not modify the array
+     */
+    public int[] successors(int ordinal) {
+        return successors[ordinal];
+    }
+
+    /**
+     * Gets the ordinals of the nodes that connect to a node.
+     *
+     * @param ordinal the target node ordinal
+     * @return predecessor ordinals; callers must not modify the array
+     */
+    public int[] predecessors(int ordinal) {
+        return predecessors[ordinal];
+    }
+
+    /**
+     * Gets the number of connections that target a node.
+     *
+     * @param ordinal the target node ordinal
+     * @return the incoming connection count
+     */
+    public int incomingCount(int ordinal) {
+        return incomingCount[ordinal];
+    }
+
+    /**
+     * Checks whether a node is dispatched on the first delivered input instead of
+     * waiting for all of its predecessors.
+     *
+     * @param ordinal the node ordinal
+     * @return true for wait-any joins
+     */
+    public boolean waitsForAny(int ordinal) {
+        return waitsForAny[ordinal];
+    }
+
+    /**
+     * Gets the trigger nodes (nodes with no incoming connections).
+     *
+     * @return trigger ordinals in declaration order; callers must not modify the
+     *         array
+     */
+    public int[] triggers() {
+        return triggers;
+    }
+
+    /**
+     * Gets the nodes in topological order, ignoring back edges.
+     *
+     * @return node ordinals; callers must not modify the array
+     */
+    public int[] topologicalOrder() {
+        return topologicalOrder;
+    }
+
+    /**
+     * Checks whether the workflow graph is free of cycles.
+     *
+     * @return true if no edge is a back edge
+     */
+    public boolean isAcyclic() {
+        return acyclic;
+    }
+
+    /**
+     * Checks whether this plan was compiled from the given workflow revision.
+     *
+     * @param workflow the workflow to compare against
+     * @return true if id and version match
+     */
+    public boolean isCompiledFrom(WorkflowDTO workflow) {
+        return workflowId != null
+                && workflowId.equals(workflow.id())
+                && workflowVersion == workflow.version();
+    }
+
+    /**
+     * Gets the scheduling region reached from a set of entry nodes.
+     *
+     * <p>
+     * A region contains every node reachable from the entries over edges that
+     * are neither loop edges nor back edges. Loop bodies and retry paths are
+     * scheduled as separate regions when those edges are followed at runtime.
+     * </p>
+     *
+     * @param entries the entry node ordinals
+     * @return the memoized region
+     */
+    public Region region(int[] entries) {
+        List<Integer> key = Arrays.stream(entries).boxed().toList();
+        return regions.computeIfAbsent(key, k -> buildRegion(entries));
+    }
+
+    private Region buildRegion(int[] entries) {
+        int n = nodes.length;
+        boolean[] members = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int entry : entries) {
+            if (!members[entry]) {
+                members[entry] = true;
+                queue[tail++] = entry;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int edge : outgoingEdges[queue[head]]) {
+                int target = edgeTarget[edge];
+                if (isSchedulingEdge(edge) && !members[target]) {
+                    members[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        int[] dependencies = new int[n];
+        for (int i = 0; i < tail; i++) {
+            for (int edge : outgoingEdges[queue[i]]) {
+                if (isSchedulingEdge(edge)) {
+                    dependencies[edgeTarget[edge]]++;
+                }
+            }
+        }
+        return new Region(members, dependencies);
+    }
+
+    /**
+     * Checks whether an edge takes part in dependency counting: it resolves to a
+     * node and is neither a loop edge nor a back edge.
+     *
+     * @param edge the edge index
+     * @return true if the scheduler releases the target through this edge
+     */
+    public boolean isSchedulingEdge(int edge) {
+        return edgeTarget[edge] != UNRESOLVED && !loopEdge[edge] && !backEdge[edge];
+    }
+
+    /**
+     * Nodes reachable from a set of entries, with the number of in-region
+     * scheduling edges that target each node.
+     */
+    public static final class Region {
+        private final boolean[] members;
+        private final int[] dependencies;
+
+        private Region(boolean[] members, int[] dependencies) {
+            this.members = members;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Checks whether a node belongs to the region.
+         *
+         * @param ordinal the node ordinal
+         * @return true if the node is reachable from the region entries
+         */
+        public boolean contains(int ordinal) {
+            return members[ordinal];
+        }
+
+        /**
+         * Creates a fresh copy of the per-node dependency counters for one run.
+         *
+         * @return mutable dependency counters indexed by node ordinal
+         */
+        public int[] newDependencyCounters() {
+            return dependencies.clone();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package ai.nervemind.app.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Background retention and compaction of execution history.
+ *
+ * <p>
+ * Runs periodically and applies these policies to finished executions:
+ * </p>
+ * <ul>
+ * <li><strong>Age</strong> - successful and cancelled runs are deleted after
+ * {@code execution.historyRetention} days, failed runs after
+ * {@code execution.historyFailureRetention} days, so failures stay around
+ * longer for troubleshooting.</li>
+ * <li><strong>Count</strong> - only the newest {@code execution.historyLimit}
+ * successful and cancelled runs are kept per workflow. Failed runs are only
+ * subject to their age limit.</li>
+ * <li><strong>Compaction</strong> - input and output JSON of executions and
+ * node runs, and the node log of executions, finished more than
+ * {@code execution.historyCompressAfter} days ago is gzipped in place (see
+ * {@link StoredJson}).</li>
+ * </ul>
+ *
+ * <p>
+ * Deletes and updates are done in batches of
+ * {@code execution.historyCleanupBatchSize} rows, one short transaction per
+ * batch, so the job never holds locks long enough to stall running
+ * workflows. Node rows go with their execution through the
+ * {@code ON DELETE CASCADE} foreign key. Running executions are never
+ * touched.
+ * </p>
+ */
+@Service
+public class ExecutionRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionRetentionService.class);
+
+    private static final String SELECT_EXPIRED_SQL = """
+            SELECT id FROM executions
+             WHERE status = ? AND finished_at < ?
+             ORDER BY id
+             LIMIT ?""";
+
+    private static final String SELECT_WORKFLOWS_SQL = "SELECT DISTINCT workflow_id FROM executions";
+
+    // Deleting shifts the window, so the offset stays at the limit
+    private static final String SELECT_OVER_LIMIT_SQL = """
+            SELECT id FROM executions
+             WHERE workflow_id = ? AND status IN ('SUCCESS', 'CANCELLED')
+             ORDER BY started_at DESC, id DESC
+             LIMIT ? OFFSET ?""";
+
+    private static final String DELETE_SQL = "DELETE FROM executions WHERE id = ?";
+
+    private static final List<CompactedTable> COMPACTED_TABLES = List.of(
+            new CompactedTable("executions", List.of("input_data_json", "output_data_json", "execution_log")),
+            new CompactedTable("node_executions", List.of("input_data_json", "output_data_json")));
+
+    // Smaller documents do not gain enough from gzip and Base64
+    private static final int MIN_COMPRESS_LENGTH = 1024;
+
+    /**
+     * Outcome of a retention run.
+     *
+     * @param deleted   executions deleted
+     * @param compacted execution and node rows compressed
+     */
+    public record Result(int deleted, int compacted) {
+    }
+
+    /**
+     * A table whose JSON text columns are compacted.
+     */
+    private record CompactedTable(String name, List<String> columns) {
+
+        String selectSql() {
+            List<String> uncompressed = columns.stream()
+                    .map(column -> "(" + column + " NOT LIKE 'gz:%' AND LENGTH(" + column + ") > ?)")
+                    .toList();
+            return "SELECT id, " + String.join(", ", columns) + " FROM " + name
+                    + " WHERE finished_at < ? AND id > ? AND (" + String.join(" OR ", uncompressed) + ")"
+                    + " ORDER BY id LIMIT ?";
+        }
+
+        String updateSql() {
+            return "UPDATE " + name + " SET " + String.join(" = ?, ", columns) + " = ? WHERE id = ?";
+        }
+    }
+
+    private record CompactableRow(long id, String[] values) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutionJournal executionJournal;
+    private final SettingsServiceInterface settingsService;
+
+    private Boolean h2;
+
+    /**
+     * Creates the retention service.
+     *
+     * @param jdbcTemplate       JDBC access used for batched deletes and
+     *                           updates
+     * @param transactionManager transaction manager for per-batch commits
+     * @param executionJournal   journal flushed before history is touched
+     * @param settingsService    settings for the retention policies
+     */
+    public ExecutionRetentionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ExecutionJournal executionJournal, SettingsServiceInterface settingsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executionJournal = executionJournal;
+        this.settingsService = settingsService;
+    }
+
+    /**
+     * Scheduled entry point; applies the retention policies once an hour.
+     */
+    @Scheduled(initialDelay = 5, fixedDelay = 60, timeUnit = TimeUnit.MINUTES)
+    public void scheduledRun() {
+        try {
+            Result result = run();
+            if (result.deleted() > 0 || result.compacted() > 0) {
+                log.info("Execution history cleanup deleted {} executions and compacted {} rows",
+                        result.deleted(), result.compacted());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Execution history cleanup failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Applies the retention policies now. Settings are read on every run.
+     *
+     * @return what was deleted and compacted
+     */
+    public synchronized Result run() {
+        // Pending updates and node rows must not reference deleted executions
+        executionJournal.flush();
+
+        int batchSize = Math.max(1, settingsService.getInt(SettingsDefaults.EXECUTION_HISTORY_CLEANUP_BATCH_SIZE, 500));
+        Instant now = Instant.now();
+
+        int deleted = deleteExpired("SUCCESS", daysBefore(now, SettingsDefaults.EXECUTION_HISTORY_RETENTION, 30),
+                batchSize);
+        deleted += deleteExpired("CANCELLED", daysBefore(now, SettingsDefaults.EXECUTION_HISTORY_RETENTION, 30),
+                batchSize);
+        deleted += deleteExpired("FAILED", daysBefore(now, SettingsDefaults.EXECUTION_HISTORY_FAILURE_RETENTION, 90),
+                batchSize);
+        deleted += deleteOverLimit(settingsService.getInt(SettingsDefaults.EXECUTION_HISTORY_LIMIT, 100), batchSize);
+
+        int compacted = 0;
+        int compressAfterDays = settingsService.getInt(SettingsDefaults.EXECUTION_HISTORY_COMPRESS_AFTER, 7);
+        if (compressAfterDays > 0) {
+            Instant cutoff = now.minus(Duration.ofDays(compressAfterDays));
+            for (CompactedTable table : COMPACTED_TABLES) {
+                compacted += compact(table, cutoff, batchSize);
+            }
+        }
+
+        if (deleted > 0 || compacted > 0) {
+            checkpoint();
+        }
+        return new Result(deleted, compacted);
+    }
+
+    private Instant daysBefore(Instant now, String key, int defaultDays) {
+        return now.minus(Duration.ofDays(Math.max(1, settingsService.getInt(key, defaultDays))));
+    }
+
+    private int deleteExpired(String status, Instant cutoff, int batchSize) {
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.queryForList(SELECT_EXPIRED_SQL, Long.class, status, Timestamp.from(cutoff),
+                    batchSize);
+            deleted += delete(ids);
+        } while (ids.size() == batchSize);
+        return deleted;
+    }
+
+    private int deleteOverLimit(int limit, int batchSize) {
+        if (limit <= 0) {
+            return 0;
+        }
+        int deleted = 0;
+        for (Long workflowId : jdbcTemplate.queryForList(SELECT_WORKFLOWS_SQL, Long.class)) {
+            List<Long> ids;
+            do {
+                ids = jdbcTemplate.queryForList(SELECT_OVER_LIMIT_SQL, Long.class, workflowId, batchSize, limit);
+                deleted += delete(ids);
+            } while (ids.size() == batchSize);
+        }
+        return deleted;
+    }
+
+    private int delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            rows.add(new Object[] { id });
+        }
+        transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.batchUpdate(DELETE_SQL, rows));
+        return ids.size();
+    }
+
+    private int compact(CompactedTable table, Instant cutoff, int batchSize) {
+        String selectSql = table.selectSql();
+        String updateSql = table.updateSql();
+        int columns = table.columns().size();
+        Object[] args = new Object[columns + 3];
+        args[0] = Timestamp.from(cutoff);
+        Arrays.fill(args, 2, columns + 2, MIN_COMPRESS_LENGTH);
+        args[columns + 2] = batchSize;
+        int compacted = 0;
+        long lastId = 0;
+        List<CompactableRow> batch;
+        do {
+            args[1] = lastId;
+            batch = jdbcTemplate.query(selectSql, (rs, _) -> {
+                String[] values = new String[columns];
+                for (int i = 0; i < columns; i++) {
+                    values[i] = rs.getString(i + 2);
+                }
+                return new CompactableRow(rs.getLong(1), values);
+            }, args);
+
+            // Compress outside the transaction; rows that do not shrink are
+            // left alone and skipped by the id cursor
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            for (CompactableRow row : batch) {
+                Object[] update = new Object[columns + 1];
+                boolean shrunk = false;
+                for (int i = 0; i < columns; i++) {
+                    String value = compressed(row.values()[i]);
+                    shrunk |= value != null;
+                    update[i] = value != null ? value : row.values()[i];
+                }
+                update[columns] = row.id();
+                if (shrunk) {
+                    updates.add(update);
+                }
+                lastId = row.id();
+            }
+            if (!updates.isEmpty()) {
+                transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.batchUpdate(updateSql, updates));
+                compacted += updates.size();
+            }
+        } while (batch.size() == batchSize);
+        return compacted;
+    }
+
+    private static String compressed(String json) {
+        return json != null && json.length() > MIN_COMPRESS_LENGTH ? StoredJson.compress(json) : null;
+    }
+
+    /**
+     * Lets H2 reclaim the space freed by this run. H2 has no online
+     * defragmentation; a checkpoint writes out the current state so the
+     * store's background compaction can rewrite the emptied pages.
+     */
+    private void checkpoint() {
+        if (!isH2()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CHECKPOINT");
+        } catch (DataAccessException e) {
+            log.debug("Checkpoint after history cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isH2() {
+        if (h2 == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            h2 = product != null && product.toLowerCase(Locale.ROOT).contains("h2");
+        }
+        return h2;
+    }
+}
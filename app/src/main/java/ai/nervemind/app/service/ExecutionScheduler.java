@@ -0,0 +1,323 @@
+package ai.nervemind.app.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import ai.nervemind.common.domain.Connection;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.exception.NodeExecutionException;
+
+/**
+ * Dependency-counting scheduler for one region of an {@link ExecutionPlan}.
+ *
+ * <p>
+ * Each node in the region starts with a counter holding the number of
+ * scheduling edges that target it. When a node finishes, every outgoing edge
+ * either delivers the node's output (the edge matches the selected branch) or
+ * is marked dead (the branch was not taken, the node was skipped, or it asked
+ * to stop). Either way the target's counter is decremented; when it reaches
+ * zero the target is dispatched exactly once with the delivered outputs, or
+ * skipped if nothing was delivered. Wait-any joins are dispatched on their
+ * first delivery instead.
+ * </p>
+ *
+ * <h2>Threading</h2>
+ * <p>
+ * The thread that calls {@link #run(int[], Map)} acts as the coordinator and
+ * owns all bookkeeping, so no locks are needed. Ready nodes go onto a work
+ * queue that is drained onto the shared executor with at most
+ * {@code maxParallel} nodes in flight; workers only run the node and post the
+ * result back. When exactly one node is ready and nothing else is running, the
+ * coordinator runs it inline, so linear workflows never hop threads.
+ * </p>
+ *
+ * <p>
+ * If a node fails, no further nodes are dispatched, in-flight nodes are allowed
+ * to finish, and the first failure is rethrown to the caller.
+ * </p>
+ */
+final class ExecutionScheduler {
+
+    /**
+     * Runs a single node on behalf of the scheduler.
+     */
+    @FunctionalInterface
+    interface NodeRunner {
+        /**
+         * Executes a node.
+         *
+         * @param node  the node to execute
+         * @param input the input delivered by upstream nodes
+         * @return the node output, or null if the node was skipped and its
+         *         downstream paths should be treated as not taken
+         */
+        Map<String, Object> run(Node node, Map<String, Object> input);
+    }
+
+    private static final String BRANCH_KEY = "branch";
+    private static final String STOP_EXECUTION_KEY = "_stopExecution";
+
+    private final ExecutionPlan plan;
+    private final Executor executor;
+    private final int maxParallel;
+    private final NodeRunner runner;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param plan        the compiled workflow plan
+     * @param executor    executor that runs dispatched nodes
+     * @param maxParallel maximum number of nodes in flight for one run
+     * @param runner      callback that executes a single node
+     */
+    ExecutionScheduler(ExecutionPlan plan, Executor executor, int maxParallel, NodeRunner runner) {
+        this.plan = plan;
+        this.executor = executor;
+        this.maxParallel = Math.max(1, maxParallel);
+        this.runner = runner;
+    }
+
+    /**
+     * Checks whether a connection is followed for a node output, based on the
+     * {@code branch} key that routing nodes (if, switch, try/catch) emit.
+     *
+     * @param connection the outgoing connection
+     * @param output     the source node output
+     * @return true if the connection carries data for this output
+     */
+    static boolean follows(Connection connection, Map<String, Object> output) {
+        Object branch = output.get(BRANCH_KEY);
+        if (branch == null) {
+            return true;
+        }
+        String sourceOut = connection.sourceOutput();
+        return sourceOut == null || sourceOut.equals("main") || sourceOut.equals(branch.toString());
+    }
+
+    /**
+     * Checks whether a node output asks the engine not to continue downstream.
+     *
+     * @param output the node output
+     * @return true if downstream paths must not be taken
+     */
+    static boolean stopsExecution(Map<String, Object> output) {
+        return Boolean.TRUE.equals(output.get(STOP_EXECUTION_KEY));
+    }
+
+    /**
+     * Runs the region reachable from the given entry nodes. Entries are
+     * dispatched immediately with {@code input}; everything else is released by
+     * dependency counting.
+     *
+     * @param entries the entry node ordinals
+     * @param input   the input for the entry nodes
+     * @return the outputs of the nodes that ran
+     */
+    Result run(int[] entries, Map<String, Object> input) {
+        return new Run(plan.region(entries)).execute(entries, input);
+    }
+
+    /**
+     * Outputs of one scheduler run.
+     */
+    static final class Result {
+        private final Map<String, Object>[] outputs;
+        private final int lastCompleted;
+
+        private Result(Map<String, Object>[] outputs, int lastCompleted) {
+            this.outputs = outputs;
+            this.lastCompleted = lastCompleted;
+        }
+
+        /**
+         * Gets the output of a node.
+         *
+         * @param ordinal the node ordinal
+         * @return the output, or null if the node did not run in this region
+         */
+        Map<String, Object> output(int ordinal) {
+            return outputs[ordinal];
+        }
+
+        /**
+         * Gets the output of the node that finished last.
+         *
+         * @return the output, or null if no node produced output
+         */
+        Map<String, Object> lastOutput() {
+            return lastCompleted >= 0 ? outputs[lastCompleted] : null;
+        }
+    }
+
+    private record Task(int ordinal, Map<String, Object> input) {
+    }
+
+    private record Completion(int ordinal, Map<String, Object> output, Throwable error) {
+    }
+
+    /**
+     * Mutable state of a single run. Only touched by the coordinator thread.
+     */
+    private final class Run {
+        private static final byte PENDING = 0;
+        private static final byte DISPATCHED = 1;
+        private static final byte SKIPPED = 2;
+
+        private final ExecutionPlan.Region region;
+        private final int[] remaining;
+        private final byte[] state;
+        private final List<Map<String, Object>>[] arrivals;
+        private final Map<String, Object>[] outputs;
+        private final Deque<Task> ready = new ArrayDeque<>();
+        private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+        private int inFlight;
+        private int lastCompleted = -1;
+        private Throwable failure;
+
+        @SuppressWarnings("unchecked")
+        Run(ExecutionPlan.Region region) {
+            int n = plan.size();
+            this.region = region;
+            this.remaining = region.newDependencyCounters();
+            this.state = new byte[n];
+            this.arrivals = new List[n];
+            this.outputs = new Map[n];
+        }
+
+        Result execute(int[] entries, Map<String, Object> input) {
+            for (int entry : entries) {
+                if (state[entry] == PENDING) {
+                    state[entry] = DISPATCHED;
+                    ready.add(new Task(entry, input));
+                }
+            }
+
+            while (!ready.isEmpty() || inFlight > 0) {
+                if (failure == null && inFlight == 0 && ready.size() == 1) {
+                    Task task = ready.poll();
+                    complete(task.ordinal(), runner.run(plan.node(task.ordinal()), task.input()));
+                    continue;
+                }
+                while (failure == null && !ready.isEmpty() && inFlight < maxParallel) {
+                    dispatch(ready.poll());
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+                Completion completion = takeCompletion();
+                inFlight--;
+                if (completion.error() != null) {
+                    if (failure == null) {
+                        failure = completion.error();
+                    }
+                } else if (failure == null) {
+                    complete(completion.ordinal(), completion.output());
+                }
+            }
+
+            if (failure != null) {
+                throw asUnchecked(failure);
+            }
+            return new Result(outputs, lastCompleted);
+        }
+
+        private void dispatch(Task task) {
+            inFlight++;
+            executor.execute(() -> {
+                Completion completion;
+                try {
+                    completion = new Completion(task.ordinal(),
+                            runner.run(plan.node(task.ordinal()), task.input()), null);
+                } catch (Throwable t) {
+                    completion = new Completion(task.ordinal(), null, t);
+                }
+                completions.add(completion);
+            });
+        }
+
+        private Completion takeCompletion() {
+            try {
+                return completions.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NodeExecutionException("Execution interrupted", e);
+            }
+        }
+
+        /**
+         * Records a finished (or skipped, when {@code output} is null) node and
+         * resolves its outgoing scheduling edges.
+         */
+        private void complete(int ordinal, Map<String, Object> output) {
+            outputs[ordinal] = output;
+            if (output != null) {
+                lastCompleted = ordinal;
+            } else {
+                state[ordinal] = SKIPPED;
+            }
+
+            boolean deadEnd = output == null || stopsExecution(output);
+            for (int edge : plan.outgoingEdges(ordinal)) {
+                if (!plan.isSchedulingEdge(edge)) {
+                    continue;
+                }
+                int target = plan.edgeTarget(edge);
+                if (!region.contains(target)) {
+                    continue;
+                }
+                boolean taken = !deadEnd && follows(plan.connection(edge), output);
+                resolve(target, taken ? output : null);
+            }
+        }
+
+        private void resolve(int target, Map<String, Object> delivered) {
+            if (delivered != null && state[target] == PENDING) {
+                if (plan.waitsForAny(target)) {
+                    state[target] = DISPATCHED;
+                    ready.add(new Task(target, joinInputs(target, List.of(delivered))));
+                } else {
+                    if (arrivals[target] == null) {
+                        arrivals[target] = new ArrayList<>(2);
+                    }
+                    arrivals[target].add(delivered);
+                }
+            }
+
+            if (--remaining[target] == 0 && state[target] == PENDING) {
+                List<Map<String, Object>> delivery = arrivals[target];
+                arrivals[target] = null;
+                if (delivery == null) {
+                    // Every incoming path was dead: skip the node and its
+                    // downstream paths
+                    complete(target, null);
+                } else {
+                    state[target] = DISPATCHED;
+                    ready.add(new Task(target, joinInputs(target, delivery)));
+                }
+            }
+        }
+
+        private Map<String, Object> joinInputs(int ordinal, List<Map<String, Object>> delivery) {
+            if (plan.incomingCount(ordinal) > 1) {
+                return new JoinedInput(delivery);
+            }
+            return delivery.get(0);
+        }
+
+        private RuntimeException asUnchecked(Throwable t) {
+            if (t instanceof RuntimeException runtimeException) {
+                return runtimeException;
+            }
+            if (t instanceof Error error) {
+                throw error;
+            }
+            return new NodeExecutionException("Node execution failed", t);
+        }
+    }
+}
@@ -1,25 +1,45 @@
 package ai.nervemind.app.service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import ai.nervemind.app.database.model.ExecutionEntity;
+import ai.nervemind.app.database.model.NodeExecutionEntity;
 import ai.nervemind.app.database.repository.ExecutionRepository;
+import ai.nervemind.app.database.repository.NodeExecutionRepository;
 import ai.nervemind.common.domain.Connection;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.dto.ExecutionDTO;
@@ -60,7 +80,9 @@ import ai.nervemind.common.service.SettingsServiceInterface;
  * <h2>Execution Flow</h2>
  * <ol>
  * <li>Resolution of Trigger Nodes (start points).</li>
- * <li>Breadth-First Search (BFS) or topological traversal of the graph.</li>
+ * <li>Dependency-counting traversal of the compiled {@link ExecutionPlan}: each
+ * node is dispatched once, after all of its predecessors have finished
+ * (see {@link ExecutionScheduler}).</li>
  * <li>Delegation of specific tasks to the appropriate
  * {@link NodeExecutor}.</li>
  * <li>Parameter interpolation and variable resolution.</li>
@@ -73,9 +95,14 @@ import ai.nervemind.common.service.SettingsServiceInterface;
 @Transactional
 public class ExecutionService implements ExecutionServiceInterface {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionService.class);
+
     private static final String EXECUTION_CANCELLED_MESSAGE = "Execution cancelled by user";
+    private static final int DEFAULT_LOOP_BATCH_SIZE = 10;
 
     private final ExecutionRepository executionRepository;
+    private final NodeExecutionRepository nodeExecutionRepository;
+    private final ExecutionJournal executionJournal;
     private final WorkflowService workflowService;
     private final CredentialService credentialService;
     private final NodeExecutorRegistry nodeExecutorRegistry;
@@ -88,27 +115,39 @@ public class ExecutionService implements ExecutionServiceInterface {
     // Track running executions for cancellation support
     private final ConcurrentHashMap<Long, AtomicBoolean> runningExecutions = new ConcurrentHashMap<>();
 
+    // Compiled execution plans, keyed by workflow id (one entry per workflow,
+    // replaced when the workflow version changes)
+    private final ConcurrentHashMap<Long, ExecutionPlan> executionPlans = new ConcurrentHashMap<>();
+
     // Execution configuration (read from settings)
     private final int defaultTimeout;
     private final int maxParallelNodes;
     private final int retryAttempts;
     private final long retryDelay;
 
+    // Bounds concurrent asynchronous runs (globally and per workflow)
+    private final ExecutionAdmission admission;
+
     /**
      * Creates a new execution service.
      * 
-     * @param executionRepository  the execution repository
-     * @param workflowService      the workflow service
-     * @param credentialService    the credential service
-     * @param nodeExecutorRegistry the node executor registry
-     * @param objectMapper         the object mapper
-     * @param executionLogger      the execution logger
-     * @param settingsService      the settings service
-     * @param devModeService       the dev mode service
-     * @param logHandlers          the log handlers
+     * @param executionRepository     the execution repository
+     * @param nodeExecutionRepository the node execution repository
+     * @param executionJournal        the write-behind journal for execution
+     *                                updates
+     * @param workflowService         the workflow service
+     * @param credentialService       the credential service
+     * @param nodeExecutorRegistry    the node executor registry
+     * @param objectMapper            the object mapper
+     * @param executionLogger         the execution logger
+     * @param settingsService         the settings service
+     * @param devModeService          the dev mode service
+     * @param logHandlers             the log handlers
      */
     public ExecutionService(
             ExecutionRepository executionRepository,
+            NodeExecutionRepository nodeExecutionRepository,
+            ExecutionJournal executionJournal,
             WorkflowService workflowService,
             CredentialService credentialService,
             NodeExecutorRegistry nodeExecutorRegistry,
@@ -118,6 +157,8 @@ public class ExecutionService implements ExecutionServiceInterface {
             DevModeServiceInterface devModeService,
             java.util.List<ExecutionLogHandler> logHandlers) {
         this.executionRepository = executionRepository;
+        this.nodeExecutionRepository = nodeExecutionRepository;
+        this.executionJournal = executionJournal;
         this.workflowService = workflowService;
         this.credentialService = credentialService;
         this.nodeExecutorRegistry = nodeExecutorRegistry;
@@ -132,6 +173,22 @@ public class ExecutionService implements ExecutionServiceInterface {
         this.maxParallelNodes = settingsService.getInt(SettingsDefaults.EXECUTION_MAX_PARALLEL, 10);
         this.retryAttempts = settingsService.getInt(SettingsDefaults.EXECUTION_RETRY_ATTEMPTS, 3);
         this.retryDelay = settingsService.getLong(SettingsDefaults.EXECUTION_RETRY_DELAY, 1000L);
+        this.admission = new ExecutionAdmission(executorService,
+                settingsService.getInt(SettingsDefaults.EXECUTION_MAX_CONCURRENT_RUNS, 8),
+                settingsService.getInt(SettingsDefaults.EXECUTION_MAX_RUNS_PER_WORKFLOW, 2),
+                settingsService.getInt(SettingsDefaults.EXECUTION_QUEUE_CAPACITY, 100));
+
+        this.executionLogger.configureStorage(
+                settingsService.getInt(SettingsDefaults.EXECUTION_LOG_MAX_ENTRIES,
+                        ExecutionLogger.DEFAULT_MAX_ENTRIES_PER_EXECUTION),
+                settingsService.getBoolean(SettingsDefaults.EXECUTION_LOG_SPILL_TO_DISK, true));
+        this.executionLogger.configureCapture(
+                ExecutionLogger.parseCaptureMode(
+                        settingsService.getValue(SettingsDefaults.EXECUTION_LOG_CAPTURE, "full")),
+                settingsService.getInt(SettingsDefaults.EXECUTION_LOG_CAPTURE_MAX_SIZE,
+                        ExecutionLogger.DEFAULT_CAPTURE_MAX_SIZE),
+                settingsService.getInt(SettingsDefaults.EXECUTION_LOG_CAPTURE_SAMPLE_RATE,
+                        ExecutionLogger.DEFAULT_CAPTURE_SAMPLE_RATE));
 
         // Register all log handlers (ConsoleLogHandler, UILogHandler, etc.)
         for (ExecutionLogHandler handler : logHandlers) {
@@ -203,6 +260,7 @@ public class ExecutionService implements ExecutionServiceInterface {
     @Override
     public List<ExecutionDTO> findAll() {
         return executionRepository.findAll().stream()
+                .map(this::withPendingUpdates)
                 .map(this::toDTO)
                 .toList();
     }
@@ -210,12 +268,51 @@ public class ExecutionService implements ExecutionServiceInterface {
     @Override
     public Optional<ExecutionDTO> findById(Long id) {
         return executionRepository.findById(id)
-                .map(this::toDTO);
+                .map(this::withPendingUpdates)
+                .map(this::toDetailedDTO);
+    }
+
+    /**
+     * Find a page of node executions of an execution, in the order they ran.
+     *
+     * @param executionId the execution ID
+     * @param nodeId      only return runs of this node, or null for all nodes
+     * @param page        zero-based page index
+     * @param size        page size
+     * @return the node executions on the requested page
+     */
+    @Transactional(readOnly = true)
+    public List<ExecutionDTO.NodeExecutionDTO> findNodeExecutions(Long executionId, String nodeId, int page,
+            int size) {
+        // Read the journal before the table: a row flushed in between then
+        // shows up twice (and is dropped below) instead of not at all
+        List<NodeExecutionRecord> unwritten = executionJournal.pendingNodes(executionId).stream()
+                .filter(n -> nodeId == null || nodeId.equals(n.nodeId()))
+                .toList();
+        PageRequest pageRequest = PageRequest.of(page, size);
+        Page<NodeExecutionEntity> rows = nodeId == null
+                ? nodeExecutionRepository.findByExecutionIdOrderByIdAsc(executionId, pageRequest)
+                : nodeExecutionRepository.findByExecutionIdAndNodeIdOrderByIdAsc(executionId, nodeId, pageRequest);
+
+        List<ExecutionDTO.NodeExecutionDTO> nodes = new ArrayList<>(
+                rows.getContent().stream().map(this::toNodeDTO).toList());
+        if (!rows.hasNext()) {
+            // Unwritten runs come after every stored one
+            unwritten = withoutWritten(unwritten, rows.getContent());
+            long offset = (long) page * size - rows.getTotalElements();
+            int from = (int) Math.max(0, offset);
+            int to = (int) Math.min(unwritten.size(), Math.max(0, offset + size));
+            for (int i = from; i < to; i++) {
+                nodes.add(toNodeDTO(unwritten.get(i)));
+            }
+        }
+        return nodes;
     }
 
     @Override
     public List<ExecutionDTO> findByWorkflowId(Long workflowId) {
         return executionRepository.findByWorkflowIdOrderByStartedAtDesc(workflowId).stream()
+                .map(this::withPendingUpdates)
                 .map(this::toDTO)
                 .toList();
     }
@@ -223,34 +320,113 @@ public class ExecutionService implements ExecutionServiceInterface {
     @Override
     public List<ExecutionDTO> findRunningExecutions() {
         return executionRepository.findRunningExecutions().stream()
+                .map(this::withPendingUpdates)
+                .filter(e -> e.getStatus() == ExecutionStatus.RUNNING || e.getStatus() == ExecutionStatus.WAITING)
                 .map(this::toDTO)
                 .toList();
     }
 
     @Override
     public void deleteAll() {
+        executionJournal.flush();
         executionRepository.deleteAll();
     }
 
     @Override
     public List<ExecutionDTO> findByTimeRange(Instant start, Instant end) {
         return executionRepository.findByTimeRange(start, end).stream()
+                .map(this::withPendingUpdates)
                 .map(this::toDTO)
                 .toList();
     }
 
+    /**
+     * Replaces a loaded execution with its journaled state if that has not
+     * been written yet.
+     */
+    private ExecutionEntity withPendingUpdates(ExecutionEntity entity) {
+        return executionJournal.pending(entity.getId()).orElse(entity);
+    }
+
+    /**
+     * Loads all node executions of an execution, including runs the journal
+     * has not written yet.
+     */
+    private List<ExecutionDTO.NodeExecutionDTO> loadNodeExecutions(Long executionId) {
+        List<NodeExecutionRecord> unwritten = executionJournal.pendingNodes(executionId);
+        List<NodeExecutionEntity> written = nodeExecutionRepository.findByExecutionIdOrderByIdAsc(executionId);
+        List<ExecutionDTO.NodeExecutionDTO> nodes = new ArrayList<>(written.size() + unwritten.size());
+        written.forEach(node -> nodes.add(toNodeDTO(node)));
+        withoutWritten(unwritten, written).forEach(node -> nodes.add(toNodeDTO(node)));
+        return nodes;
+    }
+
+    /**
+     * Drops the runs that were written while the table was being read; a run
+     * is identified by its sequence within the execution.
+     */
+    private static List<NodeExecutionRecord> withoutWritten(List<NodeExecutionRecord> unwritten,
+            List<NodeExecutionEntity> written) {
+        if (unwritten.isEmpty() || written.isEmpty()) {
+            return unwritten;
+        }
+        Set<Long> stored = HashSet.newHashSet(written.size());
+        for (NodeExecutionEntity node : written) {
+            if (node.getRunSequence() != null) {
+                stored.add(node.getRunSequence());
+            }
+        }
+        return unwritten.stream().filter(n -> !stored.contains(n.sequence())).toList();
+    }
+
     /**
      * Execute a workflow asynchronously.
+     *
+     * <p>
+     * The run goes through the admission queue and starts once the global and
+     * per-workflow concurrency limits allow it. If the queue is full, the
+     * returned future fails with
+     * {@link ai.nervemind.common.exception.ExecutionRejectedException}.
+     * </p>
      */
     @Override
     public CompletableFuture<ExecutionDTO> executeAsync(Long workflowId, Map<String, Object> input) {
-        return CompletableFuture.supplyAsync(() -> execute(workflowId, input), executorService);
+        return executeAsync(workflowId, input, ExecutionAdmission.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Execute a workflow asynchronously with an admission priority.
+     *
+     * @param workflowId the workflow ID to execute
+     * @param input      the input data for the workflow
+     * @param priority   queue priority, higher values start first
+     * @return a future that completes with the execution result
+     */
+    public CompletableFuture<ExecutionDTO> executeAsync(Long workflowId, Map<String, Object> input, int priority) {
+        return admission.submit(workflowId, priority, () -> execute(workflowId, input));
+    }
+
+    /**
+     * Gets the current state of the execution admission queue.
+     *
+     * @return running and queued run counts, wait times and rejections
+     */
+    public ExecutionAdmission.Stats getAdmissionStats() {
+        return admission.stats();
     }
 
     /**
      * Execute a workflow synchronously.
+     *
+     * <p>
+     * Runs outside of a transaction: the execution row is inserted and
+     * committed up front, and later updates are written through the
+     * {@link ExecutionJournal}, so no database transaction is held open while
+     * the workflow runs.
+     * </p>
      */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ExecutionDTO execute(Long workflowId, Map<String, Object> input) {
         WorkflowDTO workflow = workflowService.findById(workflowId)
                 .orElseThrow(() -> new IllegalArgumentException("Workflow not found: " + workflowId));
@@ -276,33 +452,34 @@ public class ExecutionService implements ExecutionServiceInterface {
         // Start structured logging
         executionLogger.startExecution(executionIdStr, workflowId.toString(), workflow.name());
 
+        ExecutionContext context = null;
         try {
             // Build execution context
-            ExecutionContext context = new ExecutionContext(
+            context = new ExecutionContext(
                     execution.getId(),
                     workflow,
+                    getExecutionPlan(workflow),
                     input,
                     credentialService,
                     executionLogger,
                     cancelFlag);
 
             // Execute workflow
-            Map<String, Object> output = executeWorkflow(workflow, context);
+            Map<String, Object> output = executeWorkflow(context.getExecutionPlan(), context);
 
             // Check if cancelled during execution
             if (cancelFlag.get()) {
                 execution.setStatus(ExecutionStatus.CANCELLED);
                 execution.setFinishedAt(Instant.now());
                 execution.setErrorMessage(EXECUTION_CANCELLED_MESSAGE);
-                executionRepository.save(execution);
+                executionJournal.record(execution);
                 executionLogger.endExecution(executionIdStr, false, null);
             } else {
                 // Update execution as success
                 execution.setStatus(ExecutionStatus.SUCCESS);
                 execution.setFinishedAt(Instant.now());
                 execution.setOutputDataJson(serializeData(output));
-                execution.setExecutionLog(serializeData(context.getNodeExecutions()));
-                executionRepository.save(execution);
+                executionJournal.record(execution);
                 executionLogger.endExecution(executionIdStr, true, output);
             }
 
@@ -312,7 +489,7 @@ public class ExecutionService implements ExecutionServiceInterface {
                 execution.setStatus(ExecutionStatus.CANCELLED);
                 execution.setFinishedAt(Instant.now());
                 execution.setErrorMessage(EXECUTION_CANCELLED_MESSAGE);
-                executionRepository.save(execution);
+                executionJournal.record(execution);
             } else {
                 // Log the error
                 executionLogger.error(executionIdStr, "workflow", e);
@@ -321,7 +498,7 @@ public class ExecutionService implements ExecutionServiceInterface {
                 execution.setStatus(ExecutionStatus.FAILED);
                 execution.setFinishedAt(Instant.now());
                 execution.setErrorMessage(e.getMessage());
-                executionRepository.save(execution);
+                executionJournal.record(execution);
             }
 
             // End structured logging (failure)
@@ -329,9 +506,15 @@ public class ExecutionService implements ExecutionServiceInterface {
         } finally {
             // Clean up the running execution tracking
             runningExecutions.remove(execution.getId());
+            if (context != null) {
+                context.deleteTempFiles();
+            }
         }
 
-        return toDTO(execution);
+        List<ExecutionDTO.NodeExecutionDTO> nodeExecutions = context != null
+                ? context.getNodeExecutions().stream().map(this::toNodeDTO).toList()
+                : List.of();
+        return toDTO(execution, nodeExecutions);
     }
 
     /**
@@ -362,7 +545,10 @@ public class ExecutionService implements ExecutionServiceInterface {
         }
 
         ExecutionEntity execution = executionOpt.get();
-        if (execution.getStatus() == ExecutionStatus.RUNNING) {
+        ExecutionStatus currentStatus = executionJournal.pending(executionId)
+                .map(ExecutionEntity::getStatus)
+                .orElse(execution.getStatus());
+        if (currentStatus == ExecutionStatus.RUNNING) {
             execution.setStatus(ExecutionStatus.CANCELLED);
             execution.setFinishedAt(Instant.now());
             execution.setErrorMessage(EXECUTION_CANCELLED_MESSAGE);
@@ -393,25 +579,50 @@ public class ExecutionService implements ExecutionServiceInterface {
         return cancelled;
     }
 
-    private Map<String, Object> executeWorkflow(WorkflowDTO workflow, ExecutionContext context) {
+    /**
+     * Returns the compiled execution plan for a workflow, compiling it on first
+     * use and whenever the workflow version changes.
+     *
+     * @param workflow the workflow to plan
+     * @return the cached or freshly compiled plan
+     */
+    ExecutionPlan getExecutionPlan(WorkflowDTO workflow) {
+        if (workflow.id() == null) {
+            return ExecutionPlan.compile(workflow);
+        }
+        return executionPlans.compute(workflow.id(),
+                (id, cached) -> cached != null && cached.isCompiledFrom(workflow)
+                        ? cached
+                        : ExecutionPlan.compile(workflow));
+    }
+
+    private Map<String, Object> executeWorkflow(ExecutionPlan plan, ExecutionContext context) {
         // Find trigger nodes (entry points)
-        List<Node> triggerNodes = workflow.getTriggerNodes();
-        if (triggerNodes.isEmpty()) {
+        int[] triggerNodes = plan.triggers();
+        if (triggerNodes.length == 0) {
             throw new IllegalStateException("Workflow has no trigger nodes");
         }
 
-        // Execute starting from trigger nodes
-        Map<String, Object> lastOutput = new HashMap<>();
-        for (Node trigger : triggerNodes) {
-            lastOutput = executeNode(trigger, workflow, context, context.getInput());
-        }
+        // Execute the graph starting from trigger nodes
+        ExecutionScheduler.Result result = newScheduler(plan, context).run(triggerNodes, context.getInput());
 
-        return lastOutput;
+        Map<String, Object> lastOutput = result.output(triggerNodes[triggerNodes.length - 1]);
+        return lastOutput != null ? lastOutput : context.getInput();
     }
 
+    private ExecutionScheduler newScheduler(ExecutionPlan plan, ExecutionContext context) {
+        return new ExecutionScheduler(plan, executorService, maxParallelNodes,
+                (node, input) -> executeNode(node, plan, context, input));
+    }
+
+    /**
+     * Executes a single node for the scheduler.
+     *
+     * @return the node output, or null if the node was skipped
+     */
     private Map<String, Object> executeNode(
             Node node,
-            WorkflowDTO workflow,
+            ExecutionPlan plan,
             ExecutionContext context,
             Map<String, Object> input) {
 
@@ -424,11 +635,12 @@ public class ExecutionService implements ExecutionServiceInterface {
 
         if (node.disabled()) {
             executionLogger.nodeSkip(executionIdStr, node.id(), "Node is disabled");
-            return input;
+            return null;
         }
 
-        Instant startTime = Instant.now();
-        Map<String, Object> output = executeNodeWithLogging(node, context, input, startTime, executionIdStr);
+        // Both ends of a node run are read from the same monotonic clock
+        long startedAtNanos = NodeExecutionRecord.nowEpochNanos();
+        Map<String, Object> output = executeNodeWithLogging(node, context, input, startedAtNanos, executionIdStr);
 
         // Check for cancellation after executing
         if (context.isCancelled()) {
@@ -436,7 +648,7 @@ public class ExecutionService implements ExecutionServiceInterface {
         }
 
         // Check if this execution branch should stop (e.g., non-primary merge thread)
-        if (Boolean.TRUE.equals(output.get("_stopExecution"))) {
+        if (ExecutionScheduler.stopsExecution(output)) {
             return output;
         }
 
@@ -453,8 +665,9 @@ public class ExecutionService implements ExecutionServiceInterface {
             }
         }
 
-        List<Connection> outgoing = getFilteredOutgoingConnections(workflow, node, output);
-        executeConnectedNodes(outgoing, workflow, context, output);
+        // Loop bodies and retry paths run as nested regions before the
+        // scheduler releases this node's downstream nodes
+        executeNestedRegions(plan.ordinalOf(node.id()), plan, context, output);
 
         return output;
     }
@@ -463,7 +676,7 @@ public class ExecutionService implements ExecutionServiceInterface {
             Node node,
             ExecutionContext context,
             Map<String, Object> input,
-            Instant startTime,
+            long startedAtNanos,
             String executionIdStr) {
 
         executionLogger.nodeStart(executionIdStr, node.id(), node.type(), node.name());
@@ -473,14 +686,14 @@ public class ExecutionService implements ExecutionServiceInterface {
             NodeExecutor executor = nodeExecutorRegistry.getExecutor(node.type());
             Map<String, Object> output = executor.execute(node, input, context);
 
-            long durationMs = java.time.Duration.between(startTime, Instant.now()).toMillis();
+            long durationMs = elapsedMillis(startedAtNanos);
             executionLogger.nodeOutput(executionIdStr, node.id(), node.name(), output);
-            context.recordNodeExecution(node.id(), ExecutionStatus.SUCCESS, startTime, output, null);
+            recordNodeExecution(node, context, ExecutionStatus.SUCCESS, startedAtNanos, output, null);
             executionLogger.nodeEnd(executionIdStr, node.id(), node.type(), durationMs, true);
 
             return output;
         } catch (Exception e) {
-            handleNodeExecutionError(node, context, input, startTime, executionIdStr, e);
+            handleNodeExecutionError(node, context, input, startedAtNanos, executionIdStr, e);
             throw new NodeExecutionException("Node execution failed: " + node.name(), node.id(), node.type(), e);
         }
     }
@@ -489,76 +702,101 @@ public class ExecutionService implements ExecutionServiceInterface {
             Node node,
             ExecutionContext context,
             Map<String, Object> input,
-            Instant startTime,
+            long startedAtNanos,
             String executionIdStr,
             Exception e) {
 
-        long durationMs = java.time.Duration.between(startTime, Instant.now()).toMillis();
-        context.recordNodeExecution(node.id(), ExecutionStatus.FAILED, startTime, null, e.getMessage());
+        long durationMs = elapsedMillis(startedAtNanos);
+        recordNodeExecution(node, context, ExecutionStatus.FAILED, startedAtNanos, null, e.getMessage());
         executionLogger.nodeEnd(executionIdStr, node.id(), node.type(), durationMs, false);
         executionLogger.errorWithContext(executionIdStr, node.id(), node.name(), input, e);
     }
 
-    private List<Connection> getFilteredOutgoingConnections(
-            WorkflowDTO workflow,
+    /**
+     * Records a finished node run on the context and queues its
+     * {@code node_executions} row.
+     */
+    private void recordNodeExecution(
             Node node,
-            Map<String, Object> output) {
-
-        List<Connection> outgoing = workflow.getOutgoingConnections(node.id());
-        String branch = output.get("branch") != null ? output.get("branch").toString() : null;
-
-        if (branch == null) {
-            return outgoing;
+            ExecutionContext context,
+            ExecutionStatus status,
+            long startedAtNanos,
+            Map<String, Object> output,
+            String error) {
+
+        NodeExecutionRecord nodeExecution = context.recordNodeExecution(node, status, startedAtNanos, output,
+                error);
+        if (context.getExecutionId() != null) {
+            executionJournal.recordNode(context.getExecutionId(), nodeExecution);
         }
-
-        return outgoing.stream()
-                .filter(conn -> isConnectionForBranch(conn, branch))
-                .toList();
     }
 
-    private boolean isConnectionForBranch(Connection conn, String branch) {
-        String sourceOut = conn.sourceOutput();
-        return sourceOut == null || sourceOut.equals("main") || sourceOut.equals(branch);
+    private static long elapsedMillis(long startedAtNanos) {
+        return (NodeExecutionRecord.nowEpochNanos() - startedAtNanos) / 1_000_000L;
     }
 
-    private void executeConnectedNodes(
-            List<Connection> outgoing,
-            WorkflowDTO workflow,
+    private void executeNestedRegions(
+            int ordinal,
+            ExecutionPlan plan,
             ExecutionContext context,
             Map<String, Object> output) {
 
-        // Separate loop connections from non-loop connections
-        List<Connection> loopConnections = outgoing.stream()
-                .filter(conn -> "loop".equals(conn.sourceOutput()))
-                .toList();
-        List<Connection> nonLoopConnections = outgoing.stream()
-                .filter(conn -> !"loop".equals(conn.sourceOutput()))
-                .toList();
+        List<Integer> loopTargets = new ArrayList<>();
+        List<Integer> reentryTargets = new ArrayList<>();
+        for (int edge : plan.outgoingEdges(ordinal)) {
+            Connection connection = plan.connection(edge);
+            if (!ExecutionScheduler.follows(connection, output)) {
+                continue;
+            }
+            if (plan.edgeTarget(edge) == ExecutionPlan.UNRESOLVED) {
+                throw new IllegalStateException("Target node not found: " + connection.targetNodeId());
+            }
+            if (plan.isLoopEdge(edge)) {
+                loopTargets.add(plan.edgeTarget(edge));
+            } else if (plan.isBackEdge(edge)) {
+                reentryTargets.add(plan.edgeTarget(edge));
+            }
+        }
 
         // Execute loop connections - iterate over results and execute for each item
-        if (!loopConnections.isEmpty()) {
-            executeLoopConnections(loopConnections, workflow, context, output);
+        if (!loopTargets.isEmpty()) {
+            executeLoopConnections(plan.node(ordinal), toArray(loopTargets), plan, context, output);
         }
 
-        // Execute non-loop connections normally
-        if (!nonLoopConnections.isEmpty()) {
-            if (nonLoopConnections.size() > 1) {
-                executeNodesInParallel(nonLoopConnections, workflow, context, output);
-            } else {
-                executeNodesSequentially(nonLoopConnections, workflow, context, output);
-            }
+        // Back edges (e.g. retry paths) re-enter the graph at their target
+        for (int target : reentryTargets) {
+            newScheduler(plan, context).run(new int[] { target }, output);
         }
     }
 
+    /**
+     * Runs the loop body once per item of a loop node's results. Iterations run
+     * one after another unless the loop node sets {@code parallel}, in which case
+     * up to {@code batchSize} iterations run at the same time. The last output of
+     * each iteration is added to the loop output as {@code itemResults}, in item
+     * order, so nodes on the loop's {@code done} path see the body's results.
+     * Streamed results are read one item at a time instead; see
+     * {@link #executeStreamedIterations}.
+     */
     @SuppressWarnings("unchecked")
     private void executeLoopConnections(
-            List<Connection> loopConnections,
-            WorkflowDTO workflow,
+            Node loopNode,
+            int[] loopTargets,
+            ExecutionPlan plan,
             ExecutionContext context,
             Map<String, Object> output) {
 
+        Map<String, Object> params = loopNode.parameters();
+        boolean parallel = Boolean.TRUE.equals(params.get("parallel"));
+        int batchSize = params.get("batchSize") instanceof Number n ? n.intValue() : DEFAULT_LOOP_BATCH_SIZE;
+
         // Get the results array from the loop executor output
         Object resultsObj = output.get("results");
+        if (resultsObj instanceof StreamedItems items) {
+            executeStreamedIterations(newScheduler(plan, context), loopTargets, items, output,
+                    parallel ? Math.max(1, batchSize) : 1, context);
+            return;
+        }
         if (!(resultsObj instanceof List<?>)) {
             return; // No results to iterate over
         }
@@ -568,84 +806,198 @@ public class ExecutionService implements ExecutionServiceInterface {
             return; // Empty results
         }
 
-        // For each item in results, execute all loop-connected nodes
-        for (Map<String, Object> itemResult : results) {
-            // Build input for this iteration - spread item properties into input
-            Map<String, Object> iterationInput = new HashMap<>(output);
+        ExecutionScheduler scheduler = newScheduler(plan, context);
+
+        List<Map<String, Object>> itemResults;
+        if (parallel && batchSize > 1 && results.size() > 1) {
+            itemResults = executeIterationsInParallel(scheduler, loopTargets, results, output, batchSize, context);
+        } else {
+            itemResults = new ArrayList<>(results.size());
+            for (Map<String, Object> itemResult : results) {
+                Map<String, Object> iterationOutput = scheduler
+                        .run(loopTargets, buildIterationInput(output, itemResult))
+                        .lastOutput();
+                itemResults.add(iterationOutput != null ? iterationOutput : Map.of());
+            }
+        }
+        output.put("itemResults", itemResults);
+    }
 
-            // Add item and index directly to input
-            iterationInput.put("item", itemResult.get("item"));
-            iterationInput.put("index", itemResult.get("index"));
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> executeIterationsInParallel(
+            ExecutionScheduler scheduler,
+            int[] loopTargets,
+            List<Map<String, Object>> results,
+            Map<String, Object> output,
+            int batchSize,
+            ExecutionContext context) {
+
+        int total = results.size();
+        Map<String, Object>[] iterationOutputs = new Map[total];
+        List<Future<?>> futures = new ArrayList<>(total);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore permits = new Semaphore(batchSize);
 
-            // Also spread the item's properties directly so {{ propertyName }} works
-            Object item = itemResult.get("item");
-            if (item instanceof Map<?, ?> itemMap) {
-                for (Map.Entry<?, ?> entry : itemMap.entrySet()) {
-                    iterationInput.put(entry.getKey().toString(), entry.getValue());
+        try {
+            // Sliding window: a new iteration starts as soon as one finishes
+            for (int i = 0; i < total; i++) {
+                permits.acquire();
+                if (failure.get() != null || context.isCancelled()) {
+                    break;
                 }
+                int index = i;
+                Map<String, Object> iterationInput = buildIterationInput(output, results.get(index));
+                futures.add(executorService.submit(() -> {
+                    try {
+                        iterationOutputs[index] = scheduler.run(loopTargets, iterationInput).lastOutput();
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                }));
             }
-
-            // Execute all loop-connected nodes for this item
-            for (Connection connection : loopConnections) {
-                Node targetNode = getTargetNode(workflow, connection);
-                executeNode(targetNode, workflow, context, iterationInput);
+            for (Future<?> future : futures) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new NodeExecutionException("Parallel loop execution interrupted", e);
+        } catch (ExecutionException e) {
+            throw new NodeExecutionException("Parallel loop execution failed", e.getCause());
         }
-    }
 
-    private void executeNodesInParallel(
-            List<Connection> outgoing,
-            WorkflowDTO workflow,
-            ExecutionContext context,
-            Map<String, Object> output) {
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (context.isCancelled()) {
+            throw new NodeExecutionException(EXECUTION_CANCELLED_MESSAGE);
+        }
 
-        try (var executor = java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor()) {
-            List<java.util.concurrent.Future<Map<String, Object>>> futures = outgoing.stream()
-                    .map(connection -> executor.submit(() -> {
-                        Node targetNode = getTargetNode(workflow, connection);
-                        return executeNode(targetNode, workflow, context, output);
-                    }))
-                    .toList();
+        List<Map<String, Object>> itemResults = new ArrayList<>(total);
+        for (Map<String, Object> iterationOutput : iterationOutputs) {
+            itemResults.add(iterationOutput != null ? iterationOutput : Map.of());
+        }
+        return itemResults;
+    }
 
-            waitForAllFutures(futures);
+    /**
+     * Runs the loop body for items read from a stream, reading the next item
+     * only when an iteration can start. At most {@code parallelism} items are
+     * held at a time, so the body's outputs are not collected as
+     * {@code itemResults}; {@code count} is set to the number of items read.
+     * The stream is closed when the loop ends, fails or is cancelled.
+     */
+    private void executeStreamedIterations(
+            ExecutionScheduler scheduler,
+            int[] loopTargets,
+            StreamedItems items,
+            Map<String, Object> output,
+            int parallelism,
+            ExecutionContext context) {
+
+        Deque<Future<?>> futures = new ArrayDeque<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore permits = new Semaphore(parallelism);
+        int count = 0;
+
+        try (items) {
+            while (true) {
+                permits.acquire();
+                if (failure.get() != null || context.isCancelled()) {
+                    permits.release();
+                    break;
+                }
+                Object item = items.next();
+                if (item == null) {
+                    permits.release();
+                    break;
+                }
+                Map<String, Object> iterationInput = buildIterationInput(output, Map.of("item", item, "index", count));
+                count++;
+                if (parallelism == 1) {
+                    try {
+                        scheduler.run(loopTargets, iterationInput);
+                    } finally {
+                        permits.release();
+                    }
+                    continue;
+                }
+                futures.removeIf(Future::isDone);
+                futures.add(executorService.submit(() -> {
+                    try {
+                        scheduler.run(loopTargets, iterationInput);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            // Wait for the iterations still in flight
+            permits.acquire(parallelism);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new NodeExecutionException("Parallel execution interrupted", e);
-        } catch (java.util.concurrent.ExecutionException e) {
-            throw new NodeExecutionException("Parallel execution failed", e.getCause());
+            futures.forEach(future -> future.cancel(true));
+            throw new NodeExecutionException("Streamed loop execution interrupted", e);
+        } catch (IOException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new NodeExecutionException("Failed to read loop items: " + e.getMessage(), e);
         }
-    }
 
-    private void executeNodesSequentially(
-            List<Connection> outgoing,
-            WorkflowDTO workflow,
-            ExecutionContext context,
-            Map<String, Object> output) {
-
-        for (Connection connection : outgoing) {
-            Node targetNode = getTargetNode(workflow, connection);
-            executeNode(targetNode, workflow, context, output);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (context.isCancelled()) {
+            throw new NodeExecutionException(EXECUTION_CANCELLED_MESSAGE);
         }
+        output.put("count", count);
     }
 
-    private Node getTargetNode(WorkflowDTO workflow, Connection connection) {
-        Node targetNode = workflow.findNode(connection.targetNodeId());
-        if (targetNode == null) {
-            throw new IllegalStateException("Target node not found: " + connection.targetNodeId());
+    private static Map<String, Object> buildIterationInput(Map<String, Object> output,
+            Map<String, Object> itemResult) {
+        // Build input for this iteration - spread item properties into input
+        Map<String, Object> iterationInput = new HashMap<>(output);
+
+        // Add item and index directly to input
+        iterationInput.put("item", itemResult.get("item"));
+        iterationInput.put("index", itemResult.get("index"));
+
+        // Also spread the item's properties directly so {{ propertyName }} works
+        Object item = itemResult.get("item");
+        if (item instanceof Map<?, ?> itemMap) {
+            for (Map.Entry<?, ?> entry : itemMap.entrySet()) {
+                iterationInput.put(entry.getKey().toString(), entry.getValue());
+            }
         }
-        return targetNode;
+        return iterationInput;
     }
 
-    private void waitForAllFutures(List<java.util.concurrent.Future<Map<String, Object>>> futures)
-            throws InterruptedException, java.util.concurrent.ExecutionException {
-        for (var future : futures) {
-            future.get();
-        }
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
     }
 
+    /**
+     * Converts an execution without its node executions, for listings.
+     */
     private ExecutionDTO toDTO(ExecutionEntity entity) {
-        List<ExecutionDTO.NodeExecutionDTO> nodeExecutions = parseNodeExecutions(entity.getExecutionLog());
+        return toDTO(entity, List.of());
+    }
+
+    /**
+     * Converts an execution together with its node executions.
+     */
+    private ExecutionDTO toDetailedDTO(ExecutionEntity entity) {
+        // Executions recorded before node_executions was populated keep their
+        // node history in the execution log
+        List<ExecutionDTO.NodeExecutionDTO> nodeExecutions = entity.getExecutionLog() != null
+                ? parseNodeExecutions(entity.getExecutionLog())
+                : loadNodeExecutions(entity.getId());
+        return toDTO(entity, nodeExecutions);
+    }
 
+    private ExecutionDTO toDTO(ExecutionEntity entity, List<ExecutionDTO.NodeExecutionDTO> nodeExecutions) {
         Long durationMs = null;
         if (entity.getStartedAt() != null && entity.getFinishedAt() != null) {
             durationMs = java.time.Duration.between(entity.getStartedAt(), entity.getFinishedAt()).toMillis();
@@ -666,6 +1018,39 @@ public class ExecutionService implements ExecutionServiceInterface {
                 nodeExecutions);
     }
 
+    private ExecutionDTO.NodeExecutionDTO toNodeDTO(NodeExecutionEntity entity) {
+        Long durationMs = null;
+        if (entity.getStartedAt() != null && entity.getFinishedAt() != null) {
+            durationMs = java.time.Duration.between(entity.getStartedAt(), entity.getFinishedAt()).toMillis();
+        }
+
+        return new ExecutionDTO.NodeExecutionDTO(
+                entity.getNodeId(),
+                null, // nodeName - not stored per run
+                entity.getNodeType(),
+                entity.getStatus(),
+                entity.getStartedAt(),
+                entity.getFinishedAt(),
+                durationMs,
+                parseData(entity.getInputDataJson()),
+                parseData(entity.getOutputDataJson()),
+                entity.getErrorMessage());
+    }
+
+    private ExecutionDTO.NodeExecutionDTO toNodeDTO(NodeExecutionRecord nodeExecution) {
+        return new ExecutionDTO.NodeExecutionDTO(
+                nodeExecution.nodeId(),
+                null, // nodeName - not stored per run
+                nodeExecution.nodeType(),
+                nodeExecution.status(),
+                nodeExecution.startedAt(),
+                nodeExecution.finishedAt(),
+                nodeExecution.durationMs(),
+                Map.of(),
+                nodeExecution.output() != null ? nodeExecution.output() : Map.of(),
+                nodeExecution.error());
+    }
+
     private String serializeData(Object data) {
         if (data == null)
             return null;
@@ -681,7 +1066,8 @@ public class ExecutionService implements ExecutionServiceInterface {
         if (json == null || json.isBlank())
             return Map.of();
         try {
-            return objectMapper.readValue(json, Map.class);
+            // Old rows may have been compacted by the retention job
+            return objectMapper.readValue(StoredJson.expand(json), Map.class);
         } catch (JsonProcessingException e) {
             throw new DataParsingException("Failed to parse data", "execution", e);
         }
@@ -691,7 +1077,7 @@ public class ExecutionService implements ExecutionServiceInterface {
         if (json == null || json.isBlank())
             return List.of();
         try {
-            return objectMapper.readValue(json,
+            return objectMapper.readValue(StoredJson.expand(json),
                     objectMapper.getTypeFactory().constructCollectionType(List.class,
                             ExecutionDTO.NodeExecutionDTO.class));
         } catch (JsonProcessingException _) {
@@ -705,34 +1091,58 @@ public class ExecutionService implements ExecutionServiceInterface {
     public static class ExecutionContext {
         private final Long executionId;
         private final WorkflowDTO workflow;
+        private volatile ExecutionPlan executionPlan;
         private final Map<String, Object> input;
         private final CredentialService credentialService;
         private final ExecutionLogger executionLogger;
         private final AtomicBoolean cancelFlag;
-        private final List<Map<String, Object>> nodeExecutions = new ArrayList<>();
+        // Appended to concurrently by parallel branches and loop iterations
+        private final ConcurrentLinkedQueue<NodeExecutionRecord> nodeExecutions = new ConcurrentLinkedQueue<>();
+        private final AtomicLong runSequence = new AtomicLong();
+        private final ConcurrentLinkedQueue<Path> tempFiles = new ConcurrentLinkedQueue<>();
 
         /**
-         * Creates a new execution context.
+         * Creates a new execution context with a precompiled execution plan.
          * 
          * @param executionId       the execution ID
          * @param workflow          the workflow DTO
+         * @param executionPlan     the compiled plan for the workflow
          * @param input             the input data
          * @param credentialService the credential service
          * @param executionLogger   the execution logger
          * @param cancelFlag        the cancel flag
          */
-        public ExecutionContext(Long executionId, WorkflowDTO workflow,
+        public ExecutionContext(Long executionId, WorkflowDTO workflow, ExecutionPlan executionPlan,
                 Map<String, Object> input, CredentialService credentialService,
                 ExecutionLogger executionLogger,
                 AtomicBoolean cancelFlag) {
             this.executionId = executionId;
             this.workflow = workflow;
+            this.executionPlan = executionPlan;
             this.input = input;
             this.credentialService = credentialService;
             this.executionLogger = executionLogger;
             this.cancelFlag = cancelFlag;
         }
 
+        /**
+         * Creates a new execution context. The execution plan is compiled lazily
+         * on first use.
+         * 
+         * @param executionId       the execution ID
+         * @param workflow          the workflow DTO
+         * @param input             the input data
+         * @param credentialService the credential service
+         * @param executionLogger   the execution logger
+         * @param cancelFlag        the cancel flag
+         */
+        public ExecutionContext(Long executionId, WorkflowDTO workflow,
+                Map<String, Object> input, CredentialService credentialService,
+                ExecutionLogger executionLogger,
+                AtomicBoolean cancelFlag) {
+            this(executionId, workflow, null, input, credentialService, executionLogger, cancelFlag);
+        }
+
         /**
          * Constructor without cancel flag (for testing/backwards compatibility).
          * 
@@ -766,6 +1176,20 @@ public class ExecutionService implements ExecutionServiceInterface {
             return workflow;
         }
 
+        /**
+         * Gets the compiled execution plan for the workflow.
+         * 
+         * @return the execution plan, or null if the context has no workflow
+         */
+        public ExecutionPlan getExecutionPlan() {
+            ExecutionPlan plan = executionPlan;
+            if (plan == null && workflow != null) {
+                plan = ExecutionPlan.compile(workflow);
+                executionPlan = plan;
+            }
+            return plan;
+        }
+
         /**
          * Gets the input data.
          * 
@@ -818,32 +1242,69 @@ public class ExecutionService implements ExecutionServiceInterface {
         }
 
         /**
-         * Records a node execution.
+         * Records a finished node execution. Safe to call from concurrently
+         * running nodes; the record keeps a copy of the output.
          * 
-         * @param nodeId    the node ID
-         * @param status    the execution status
-         * @param startTime the start time
-         * @param output    the output data
-         * @param error     the error message
+         * @param node           the node
+         * @param status         the execution status
+         * @param startedAtNanos the start time from
+         *                       {@link NodeExecutionRecord#nowEpochNanos()},
+         *                       the clock the finish time is read from
+         * @param output         the output data
+         * @param error          the error message
+         * @return the recorded node execution
          */
-        public void recordNodeExecution(String nodeId, ExecutionStatus status,
-                Instant startTime, Map<String, Object> output, String error) {
-            nodeExecutions.add(Map.of(
-                    "nodeId", nodeId,
-                    "status", status.name(),
-                    "startedAt", startTime.toString(),
-                    "finishedAt", Instant.now().toString(),
-                    "output", output != null ? output : Map.of(),
-                    "error", error != null ? error : ""));
+        public NodeExecutionRecord recordNodeExecution(Node node, ExecutionStatus status,
+                long startedAtNanos, Map<String, Object> output, String error) {
+            NodeExecutionRecord nodeExecution = new NodeExecutionRecord(
+                    runSequence.incrementAndGet(),
+                    node.id(),
+                    node.type(),
+                    status,
+                    startedAtNanos,
+                    NodeExecutionRecord.nowEpochNanos(),
+                    output,
+                    error);
+            nodeExecutions.add(nodeExecution);
+            return nodeExecution;
         }
 
         /**
          * Gets the recorded node executions.
          * 
-         * @return list of node execution records
+         * @return snapshot of the node execution records, in recording order
          */
-        public List<Map<String, Object>> getNodeExecutions() {
-            return nodeExecutions;
+        public List<NodeExecutionRecord> getNodeExecutions() {
+            return List.copyOf(nodeExecutions);
+        }
+
+        /**
+         * Creates an empty temporary file that is deleted when the execution
+         * ends.
+         *
+         * @param prefix the file name prefix
+         * @param suffix the file name suffix
+         * @return the new file
+         * @throws IOException if the file cannot be created
+         */
+        public Path createTempFile(String prefix, String suffix) throws IOException {
+            Path file = Files.createTempFile(prefix, suffix);
+            tempFiles.add(file);
+            return file;
+        }
+
+        /**
+         * Deletes the temporary files created for this execution.
+         */
+        void deleteTempFiles() {
+            Path file;
+            while ((file = tempFiles.poll()) != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete temporary file {}: {}", file, e.getMessage());
+                }
+            }
         }
     }
 }
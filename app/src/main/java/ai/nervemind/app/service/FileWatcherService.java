@@ -248,7 +248,12 @@ public class FileWatcherService {
                     "fileName", filePath.getFileName().toString(),
                     "directory", filePath.getParent().toString());
 
-            executionService.execute(context.workflowId(), triggerData);
+            executionService.executeAsync(context.workflowId(), triggerData)
+                    .whenComplete((_, e) -> {
+                        if (e != null) {
+                            log.error("Workflow '{}' failed for file event", context.workflowName(), e);
+                        }
+                    });
         } catch (Exception e) {
             log.error("Failed to trigger workflow '{}' for file event", context.workflowName(), e);
         }
@@ -0,0 +1,488 @@
+package ai.nervemind.app.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Cache of GET responses for HTTP Request nodes.
+ *
+ * <p>
+ * Workflows that poll the same endpoint on a schedule mostly get back what
+ * they got last time. With caching turned on for a node, a response that is
+ * still fresh is served without touching the network, and a stale one is
+ * revalidated with {@code If-None-Match} / {@code If-Modified-Since} so an
+ * unchanged resource costs a {@code 304} instead of a full download.
+ * </p>
+ *
+ * <h2>Freshness</h2>
+ * <p>
+ * Freshness follows the response's {@code Cache-Control} ({@code max-age},
+ * {@code no-cache}, {@code no-store}) and {@code Expires} headers. A node
+ * can override it with its own TTL; {@code no-store} is always honoured.
+ * Only {@code 200} responses are stored, and only when they are fresh for
+ * some time or carry an {@code ETag} or {@code Last-Modified} to revalidate
+ * with. Requests are keyed by URL and request headers, so nodes with
+ * different credentials never share an entry.
+ * </p>
+ *
+ * <h2>Storage</h2>
+ * <p>
+ * Recently used responses are kept in memory up to
+ * {@code http.cache.memorySize} bytes; every stored response is also
+ * written to {@code <storage.databasePath>/http-cache}, which is trimmed to
+ * {@code http.cache.diskSize} bytes by evicting the least recently used
+ * entries. A disk size of 0, or a directory that cannot be used, keeps the
+ * cache in memory only. Counters are available from {@link #stats()}.
+ * </p>
+ */
+@Service
+public class HttpResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    /** Default bytes of responses kept in memory. */
+    public static final long DEFAULT_MEMORY_SIZE = 32L * 1024 * 1024;
+
+    /** Default bytes of responses kept on disk. */
+    public static final long DEFAULT_DISK_SIZE = 256L * 1024 * 1024;
+
+    private static final int MAGIC = 0x4E4D4843;
+    /** Rough allowance for the key, status and headers of an entry. */
+    private static final int ENTRY_OVERHEAD = 512;
+
+    /**
+     * Where a response came from.
+     */
+    public enum Outcome {
+        /** Served from the cache without a request. */
+        HIT,
+        /** Confirmed unchanged by the server with a 304. */
+        REVALIDATED,
+        /** Fetched from the server. */
+        MISS,
+        /** Fetched without caching: the cache is off or the request is not a GET. */
+        BYPASS
+    }
+
+    /**
+     * A response read completely into memory.
+     *
+     * @param statusCode the status code
+     * @param headers    the response headers
+     * @param body       the body
+     * @param outcome    where the response came from
+     */
+    public record Response(int statusCode, HttpHeaders headers, byte[] body, Outcome outcome) {
+    }
+
+    /**
+     * Cache counters.
+     *
+     * @param hits          responses served without a request
+     * @param revalidated   stale responses confirmed by a 304
+     * @param misses        responses fetched from the server
+     * @param evictions     entries dropped from memory or disk to make room
+     * @param memoryEntries responses currently held in memory
+     * @param memoryBytes   approximate bytes held in memory
+     * @param diskEntries   responses currently stored on disk
+     * @param diskBytes     bytes stored on disk
+     */
+    public record Stats(long hits, long revalidated, long misses, long evictions, int memoryEntries,
+            long memoryBytes, int diskEntries, long diskBytes) {
+    }
+
+    private record Entry(String key, int statusCode, Map<String, List<String>> headers, byte[] body,
+            long storedAt, long expiresAt) {
+
+        long size() {
+            return body.length + (long) ENTRY_OVERHEAD;
+        }
+
+        String header(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.getFirst();
+        }
+
+        Response toResponse(Outcome outcome) {
+            return new Response(statusCode, HttpHeaders.of(headers, (_, _) -> true), body, outcome);
+        }
+    }
+
+    private final Path directory;
+    private final long memorySize;
+    private final long diskSize;
+    private final boolean enabled;
+
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private DiskLruStore disk;
+    private boolean diskAvailable;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates the cache from settings.
+     *
+     * @param settingsService settings for location, sizes and enablement
+     */
+    public HttpResponseCache(SettingsServiceInterface settingsService) {
+        this(Path.of(settingsService.getValue(SettingsDefaults.STORAGE_DATABASE_PATH, "./data"), "http-cache"),
+                settingsService.getLong(SettingsDefaults.HTTP_CACHE_MEMORY_SIZE, DEFAULT_MEMORY_SIZE),
+                settingsService.getLong(SettingsDefaults.HTTP_CACHE_DISK_SIZE, DEFAULT_DISK_SIZE),
+                settingsService.getBoolean(SettingsDefaults.HTTP_CACHE_ENABLED, true));
+    }
+
+    HttpResponseCache(Path directory, long memorySize, long diskSize, boolean enabled) {
+        this.directory = directory;
+        this.memorySize = Math.max(memorySize, 0);
+        this.diskSize = Math.max(diskSize, 0);
+        this.enabled = enabled;
+        this.diskAvailable = enabled && this.diskSize > 0;
+    }
+
+    /**
+     * Checks whether the cache is turned on.
+     *
+     * @return true if responses are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sends a request through the cache and reads the whole body.
+     *
+     * @param httpClient  the client used on a miss or for revalidation
+     * @param request     the request; only GET requests are cached
+     * @param ttl         how long a stored response stays fresh, or null to
+     *                    follow the response headers
+     * @param maxBodySize the largest body read in bytes, 0 for no limit
+     * @return the response and where it came from
+     * @throws IOException          if the request fails or the body is too
+     *                              large
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Response send(HttpClient httpClient, HttpRequest request, Duration ttl, long maxBodySize)
+            throws IOException, InterruptedException {
+        if (!enabled || !"GET".equalsIgnoreCase(request.method())) {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            return new Response(response.statusCode(), response.headers(), read(response.body(), maxBodySize),
+                    Outcome.BYPASS);
+        }
+
+        String key = key(request);
+        Entry cached = lookup(key);
+        if (cached != null && System.currentTimeMillis() < cached.expiresAt()) {
+            hits.increment();
+            return cached.toResponse(Outcome.HIT);
+        }
+
+        HttpRequest outgoing = cached != null ? conditional(request, cached) : request;
+        HttpResponse<InputStream> response = httpClient.send(outgoing, HttpResponse.BodyHandlers.ofInputStream());
+        long now = System.currentTimeMillis();
+
+        if (cached != null && response.statusCode() == 304) {
+            response.body().close();
+            revalidated.increment();
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(cached.headers());
+            headers.putAll(response.headers().map());
+            long freshness = freshness(HttpHeaders.of(headers, (_, _) -> true), ttl, now);
+            Entry refreshed = new Entry(key, cached.statusCode(), headers, cached.body(), now,
+                    now + Math.max(freshness, 0));
+            store(refreshed);
+            return refreshed.toResponse(Outcome.REVALIDATED);
+        }
+
+        byte[] body = read(response.body(), maxBodySize);
+        misses.increment();
+        long freshness = response.statusCode() == 200 ? freshness(response.headers(), ttl, now) : -1;
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers().map());
+        Entry entry = new Entry(key, response.statusCode(), headers, body, now, now + Math.max(freshness, 0));
+        if (freshness > 0 || (freshness == 0 && hasValidator(entry))) {
+            store(entry);
+        } else if (cached != null) {
+            remove(key);
+        }
+        return new Response(response.statusCode(), response.headers(), body, Outcome.MISS);
+    }
+
+    /**
+     * Gets the cache counters.
+     *
+     * @return the current counters
+     */
+    public Stats stats() {
+        int memoryEntries;
+        long bytes;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+            bytes = memoryBytes;
+        }
+        DiskLruStore store = disk();
+        return new Stats(hits.sum(), revalidated.sum(), misses.sum(), evictions.sum(), memoryEntries, bytes,
+                store != null ? store.entries() : 0, store != null ? store.bytes() : 0);
+    }
+
+    /**
+     * Removes every cached response from memory and disk.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        DiskLruStore store = disk();
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    private Entry lookup(String key) {
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        DiskLruStore store = disk();
+        byte[] data = store != null ? store.read(key) : null;
+        Entry entry = data != null ? decode(key, data) : null;
+        if (entry != null) {
+            remember(entry);
+        }
+        return entry;
+    }
+
+    private void store(Entry entry) {
+        remember(entry);
+        DiskLruStore store = disk();
+        if (store != null) {
+            try {
+                store.write(entry.key(), encode(entry));
+            } catch (IOException e) {
+                log.warn("Failed to encode HTTP cache entry: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void remember(Entry entry) {
+        synchronized (memory) {
+            Entry previous = memory.remove(entry.key());
+            if (previous != null) {
+                memoryBytes -= previous.size();
+            }
+            if (entry.size() > memorySize) {
+                return;
+            }
+            memory.put(entry.key(), entry);
+            memoryBytes += entry.size();
+            Iterator<Entry> eldest = memory.values().iterator();
+            while (memoryBytes > memorySize && eldest.hasNext()) {
+                memoryBytes -= eldest.next().size();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (memory) {
+            Entry previous = memory.remove(key);
+            if (previous != null) {
+                memoryBytes -= previous.size();
+            }
+        }
+        DiskLruStore store = disk();
+        if (store != null) {
+            store.delete(key);
+        }
+    }
+
+    private synchronized DiskLruStore disk() {
+        if (disk == null && diskAvailable) {
+            try {
+                disk = new DiskLruStore(directory, diskSize, evictions);
+            } catch (IOException e) {
+                diskAvailable = false;
+                log.warn("HTTP cache directory {} is not usable, caching in memory only: {}",
+                        directory, e.getMessage());
+            }
+        }
+        return disk;
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.body().length + ENTRY_OVERHEAD);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeUTF(entry.key());
+            out.writeInt(entry.statusCode());
+            out.writeLong(entry.storedAt());
+            out.writeLong(entry.expiresAt());
+            out.writeInt(entry.headers().size());
+            for (Map.Entry<String, List<String>> header : entry.headers().entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(entry.body().length);
+            out.write(entry.body());
+        }
+        return bytes.toByteArray();
+    }
+
+    private Entry decode(String key, byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || !key.equals(in.readUTF())) {
+                throw new IOException("Not an HTTP cache entry");
+            }
+            int statusCode = in.readInt();
+            long storedAt = in.readLong();
+            long expiresAt = in.readLong();
+            int headerCount = in.readInt();
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; i < headerCount; i++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(in.readUTF());
+                }
+                headers.put(name, values);
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(key, statusCode, headers, body, storedAt, expiresAt);
+        } catch (IOException e) {
+            log.debug("Dropping unreadable HTTP cache entry {}: {}", key, e.getMessage());
+            disk().delete(key);
+            return null;
+        }
+    }
+
+    private static HttpRequest conditional(HttpRequest request, Entry cached) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (_, _) -> true);
+        String etag = cached.header("ETag");
+        if (etag != null) {
+            builder.setHeader("If-None-Match", etag);
+        }
+        String lastModified = cached.header("Last-Modified");
+        if (lastModified != null) {
+            builder.setHeader("If-Modified-Since", lastModified);
+        }
+        return builder.build();
+    }
+
+    private static boolean hasValidator(Entry entry) {
+        return entry.header("ETag") != null || entry.header("Last-Modified") != null;
+    }
+
+    /**
+     * Works out how long a response stays fresh.
+     *
+     * @return milliseconds of freshness, 0 to revalidate on every use, or -1
+     *         if the response must not be stored
+     */
+    private static long freshness(HttpHeaders headers, Duration ttl, long now) {
+        Map<String, String> directives = new TreeMap<>();
+        for (String value : headers.allValues("Cache-Control")) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().toLowerCase(Locale.ROOT).split("=", 2);
+                directives.put(parts[0], parts.length > 1 ? parts[1].replace("\"", "") : "");
+            }
+        }
+        if (directives.containsKey("no-store") || headers.allValues("Vary").contains("*")) {
+            return -1;
+        }
+        if (ttl != null) {
+            return ttl.toMillis();
+        }
+        if (directives.containsKey("no-cache")) {
+            return 0;
+        }
+        String maxAge = directives.get("max-age");
+        if (maxAge != null) {
+            try {
+                return Math.max(Long.parseLong(maxAge), 0) * 1000;
+            } catch (NumberFormatException _) {
+                return 0;
+            }
+        }
+        String expires = headers.firstValue("Expires").orElse(null);
+        if (expires != null) {
+            try {
+                long at = ZonedDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                        .toEpochMilli();
+                return Math.max(at - now, 0);
+            } catch (DateTimeParseException _) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static String key(HttpRequest request) {
+        StringBuilder key = new StringBuilder(request.method()).append(' ').append(request.uri());
+        Map<String, List<String>> headers = new TreeMap<>();
+        request.headers().map().forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), values));
+        headers.forEach((name, values) -> key.append('\n').append(name).append(':').append(values));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] read(InputStream body, long maxBodySize) throws IOException {
+        try (InputStream in = body) {
+            if (maxBodySize <= 0) {
+                return in.readAllBytes();
+            }
+            byte[] bytes = in.readNBytes((int) Math.min(maxBodySize + 1, Integer.MAX_VALUE - 8));
+            if (bytes.length > maxBodySize) {
+                throw new IOException("Response body exceeds maxResponseSize of " + maxBodySize
+                        + " bytes; use responseMode 'file' for large downloads");
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ai.nervemind.app.service;
+
+import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Input handed to a node that several upstream branches deliver data to.
+ *
+ * <p>
+ * The execution scheduler dispatches a fan-in node exactly once, after its
+ * predecessors have finished. The map itself holds all delivered outputs
+ * merged in arrival order (later branches override earlier keys), so ordinary
+ * executors can treat it like any other input. Join-aware executors such as
+ * the merge node can use {@link #branches()} to see each delivered output
+ * separately.
+ * </p>
+ */
+public final class JoinedInput extends LinkedHashMap<String, Object> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<Map<String, Object>> branches;
+
+    /**
+     * Creates a joined input from the outputs delivered by upstream branches.
+     *
+     * @param branches the delivered outputs, in arrival order
+     */
+    public JoinedInput(List<Map<String, Object>> branches) {
+        this.branches = List.copyOf(branches);
+        for (Map<String, Object> branch : this.branches) {
+            putAll(branch);
+        }
+    }
+
+    /**
+     * Gets the outputs delivered by each upstream branch.
+     *
+     * @return immutable list of branch outputs, in arrival order
+     */
+    public List<Map<String, Object>> branches() {
+        return branches;
+    }
+}
@@ -0,0 +1,367 @@
+package ai.nervemind.app.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Exact-match cache of LLM responses with request coalescing.
+ *
+ * <p>
+ * A response is keyed by everything that shapes it - provider, endpoint,
+ * model, messages, temperature, token limit and response format - hashed
+ * from a canonical JSON form, so the same prompt sent again from a retry, a
+ * loop or another workflow is answered without a provider call. API keys
+ * are not part of the key. Identical requests that arrive while one is
+ * already running wait for it instead of being sent again; when that request
+ * fails or its response is not cacheable, such as an answer cut short by a
+ * cancelled execution, each of them calls the provider itself.
+ * </p>
+ *
+ * <p>
+ * Entries live for {@code ai.responseCache.ttl} seconds unless the caller
+ * passes its own TTL. The most recently used
+ * {@value #DEFAULT_MEMORY_ENTRIES} responses are kept in memory, and all of
+ * them are written to {@code <storage.databasePath>/llm-cache}, trimmed to
+ * {@code ai.responseCache.diskSize} bytes in least recently used order.
+ * Callers decide when caching applies; the chat and classifier executors
+ * use it at temperature 0 or when a node turns it on. Counters are
+ * available from {@link #stats()}.
+ * </p>
+ */
+@Service
+public class LlmResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmResponseCache.class);
+
+    /** Number of responses kept in memory. */
+    public static final int DEFAULT_MEMORY_ENTRIES = 1_000;
+
+    /** Default seconds a response is reused. */
+    public static final long DEFAULT_TTL_SECONDS = 86_400;
+
+    /** Default bytes of responses kept on disk. */
+    public static final long DEFAULT_DISK_SIZE = 64L * 1024 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Where a response came from.
+     */
+    public enum Outcome {
+        /** Served from the cache. */
+        HIT,
+        /** Shared with an identical request that was already running. */
+        COALESCED,
+        /** Loaded from the provider. */
+        MISS
+    }
+
+    /**
+     * Loads a response from the provider.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Calls the provider.
+         *
+         * @return the response
+         * @throws Exception if the call fails
+         */
+        Map<String, Object> load() throws Exception;
+    }
+
+    /**
+     * A response and where it came from.
+     *
+     * @param response the response; a copy the caller may change
+     * @param outcome  where it came from
+     */
+    public record Result(Map<String, Object> response, Outcome outcome) {
+    }
+
+    /**
+     * Cache counters.
+     *
+     * @param hits          responses served from the cache
+     * @param coalesced     requests that waited for an identical one
+     * @param misses        responses loaded from a provider
+     * @param evictions     entries dropped from disk to make room
+     * @param memoryEntries responses currently held in memory
+     * @param diskEntries   responses currently stored on disk
+     * @param diskBytes     bytes stored on disk
+     */
+    public record Stats(long hits, long coalesced, long misses, long evictions, int memoryEntries,
+            int diskEntries, long diskBytes) {
+    }
+
+    private record Entry(Map<String, Object> response, long expiresAt) {
+    }
+
+    private final Path directory;
+    private final long defaultTtlMillis;
+    private final long diskSize;
+    private final boolean enabled;
+
+    private final Map<String, Entry> memory;
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private DiskLruStore disk;
+    private boolean diskAvailable;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates the cache from settings.
+     *
+     * @param settingsService settings for location, TTL, size and enablement
+     */
+    public LlmResponseCache(SettingsServiceInterface settingsService) {
+        this(Path.of(settingsService.getValue(SettingsDefaults.STORAGE_DATABASE_PATH, "./data"), "llm-cache"),
+                Duration.ofSeconds(settingsService.getLong(SettingsDefaults.AI_RESPONSE_CACHE_TTL,
+                        DEFAULT_TTL_SECONDS)),
+                settingsService.getLong(SettingsDefaults.AI_RESPONSE_CACHE_DISK_SIZE, DEFAULT_DISK_SIZE),
+                settingsService.getBoolean(SettingsDefaults.AI_RESPONSE_CACHE_ENABLED, true));
+    }
+
+    LlmResponseCache(Path directory, Duration defaultTtl, long diskSize, boolean enabled) {
+        this.directory = directory;
+        this.defaultTtlMillis = defaultTtl.isPositive() ? defaultTtl.toMillis() : DEFAULT_TTL_SECONDS * 1000;
+        this.diskSize = Math.max(diskSize, 0);
+        this.enabled = enabled;
+        this.diskAvailable = enabled && this.diskSize > 0;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > DEFAULT_MEMORY_ENTRIES;
+            }
+        };
+    }
+
+    /**
+     * Checks whether the cache is turned on.
+     *
+     * @return true if responses are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets a response from the cache, from an identical running request, or
+     * from the loader. A loaded response is cached unless it has
+     * {@code success=false} or finished as {@code cancelled}. Only cached
+     * responses are shared with coalesced requests; when the loader fails or
+     * its response is not cached, the coalesced requests call their own
+     * loaders.
+     *
+     * @param request everything that shapes the response; must be
+     *                serializable to JSON
+     * @param ttl     how long to reuse the response, or null for the default
+     * @param loader  calls the provider on a miss
+     * @return the response and where it came from
+     * @throws Exception if the loader fails
+     */
+    public Result getOrLoad(Map<String, Object> request, Duration ttl, Loader loader) throws Exception {
+        if (!enabled) {
+            misses.increment();
+            return new Result(loader.load(), Outcome.MISS);
+        }
+
+        String key = key(request);
+        Map<String, Object> cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return new Result(copy(cached), Outcome.HIT);
+        }
+
+        CompletableFuture<Map<String, Object>> own = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalesced.increment();
+            // Completed with null when the response is not meant to be shared
+            Map<String, Object> shared = running.get();
+            if (shared != null) {
+                return new Result(copy(shared), Outcome.COALESCED);
+            }
+            return new Result(load(key, ttl, loader), Outcome.MISS);
+        }
+
+        try {
+            // The request we were about to join may have stored its response just now
+            cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                own.complete(cached);
+                return new Result(copy(cached), Outcome.HIT);
+            }
+            Map<String, Object> response = load(key, ttl, loader);
+            own.complete(cacheable(response) ? response : null);
+            return new Result(response, Outcome.MISS);
+        } finally {
+            // Lets waiters make their own call if the load failed
+            own.complete(null);
+            inFlight.remove(key, own);
+        }
+    }
+
+    private Map<String, Object> load(String key, Duration ttl, Loader loader) throws Exception {
+        misses.increment();
+        Map<String, Object> response = loader.load();
+        if (cacheable(response)) {
+            store(key, response, ttl != null && ttl.isPositive() ? ttl.toMillis() : defaultTtlMillis);
+        }
+        return response;
+    }
+
+    /**
+     * Gets the cache counters.
+     *
+     * @return the current counters
+     */
+    public Stats stats() {
+        int memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        DiskLruStore store = disk();
+        return new Stats(hits.sum(), coalesced.sum(), misses.sum(), evictions.sum(), memoryEntries,
+                store != null ? store.entries() : 0, store != null ? store.bytes() : 0);
+    }
+
+    /**
+     * Removes every cached response from memory and disk.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        DiskLruStore store = disk();
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    private Map<String, Object> lookup(String key) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        DiskLruStore store = disk();
+        if (entry == null && store != null) {
+            entry = decode(key, store.read(key));
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= now) {
+            synchronized (memory) {
+                memory.remove(key);
+            }
+            if (store != null) {
+                store.delete(key);
+            }
+            return null;
+        }
+        return entry.response();
+    }
+
+    private void store(String key, Map<String, Object> response, long ttlMillis) {
+        Map<String, Object> stored = new HashMap<>(response);
+        // Timing of the original call says nothing about a cached answer
+        stored.remove("streaming");
+        Entry entry = new Entry(stored, System.currentTimeMillis() + ttlMillis);
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        DiskLruStore store = disk();
+        if (store != null) {
+            try {
+                store.write(key, MAPPER.writeValueAsBytes(Map.of("expiresAt", entry.expiresAt(),
+                        "response", stored)));
+            } catch (IOException e) {
+                log.warn("Failed to encode LLM cache entry: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Entry decode(String key, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> stored = MAPPER.readValue(data, MAP_TYPE);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> response = (Map<String, Object>) stored.get("response");
+            return new Entry(response, ((Number) stored.get("expiresAt")).longValue());
+        } catch (IOException | RuntimeException e) {
+            log.debug("Dropping unreadable LLM cache entry {}: {}", key, e.getMessage());
+            disk().delete(key);
+            return null;
+        }
+    }
+
+    private synchronized DiskLruStore disk() {
+        if (disk == null && diskAvailable) {
+            try {
+                disk = new DiskLruStore(directory, diskSize, evictions);
+            } catch (IOException e) {
+                diskAvailable = false;
+                log.warn("LLM cache directory {} is not usable, caching in memory only: {}",
+                        directory, e.getMessage());
+            }
+        }
+        return disk;
+    }
+
+    private static boolean cacheable(Map<String, Object> response) {
+        return response != null
+                && !Boolean.FALSE.equals(response.get("success"))
+                && !"cancelled".equals(response.get("finishReason"));
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> response) {
+        return new HashMap<>(response);
+    }
+
+    private static String key(Map<String, Object> request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(MAPPER.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Request cannot be used as a cache key: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ai.nervemind.app.service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ai.nervemind.common.enums.ExecutionStatus;
+
+/**
+ * A finished node run, as recorded during a workflow execution.
+ *
+ * <p>
+ * Timestamps are kept as nanoseconds since the epoch, so recording a run
+ * does not allocate an {@link Instant}. The output is kept as an unmodifiable
+ * copy of its top level, because the engine adds loop results to a node's
+ * output after the run is recorded while the journal may be serializing it;
+ * it is only serialized when the run is persisted.
+ * </p>
+ *
+ * @param sequence        the run's position in its execution, unique
+ *                        within it
+ * @param nodeId          the node ID
+ * @param nodeType        the node type
+ * @param status          the run status
+ * @param startedAtNanos  start time in nanoseconds since the epoch
+ * @param finishedAtNanos finish time in nanoseconds since the epoch
+ * @param output          the node output, or null if the run failed
+ * @param error           the error message, or null if the run succeeded
+ */
+public record NodeExecutionRecord(
+        long sequence,
+        String nodeId,
+        String nodeType,
+        ExecutionStatus status,
+        long startedAtNanos,
+        long finishedAtNanos,
+        Map<String, Object> output,
+        String error) {
+
+    /**
+     * Creates a record, copying the top level of the output.
+     */
+    public NodeExecutionRecord {
+        output = output != null ? Collections.unmodifiableMap(new LinkedHashMap<>(output)) : null;
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Wall clock anchor for the monotonic clock, so reading the current time
+    // does not allocate an Instant
+    private static final long EPOCH_OFFSET_NANOS = toEpochNanos(Instant.now()) - System.nanoTime();
+
+    /**
+     * Gets the current time in nanoseconds since the epoch. Read from the
+     * monotonic clock, so both ends of a run should come from here for its
+     * duration to be exact.
+     *
+     * @return the current epoch time in nanoseconds
+     */
+    public static long nowEpochNanos() {
+        return EPOCH_OFFSET_NANOS + System.nanoTime();
+    }
+
+    /**
+     * Converts an instant to nanoseconds since the epoch.
+     *
+     * @param instant the instant
+     * @return the epoch time in nanoseconds
+     */
+    public static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    /**
+     * Gets the start time.
+     *
+     * @return the start time
+     */
+    public Instant startedAt() {
+        return toInstant(startedAtNanos);
+    }
+
+    /**
+     * Gets the finish time.
+     *
+     * @return the finish time
+     */
+    public Instant finishedAt() {
+        return toInstant(finishedAtNanos);
+    }
+
+    /**
+     * Gets the run duration.
+     *
+     * @return the duration in milliseconds
+     */
+    public long durationMs() {
+        return (finishedAtNanos - startedAtNanos) / 1_000_000L;
+    }
+
+    private static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                Math.floorMod(epochNanos, NANOS_PER_SECOND));
+    }
+}
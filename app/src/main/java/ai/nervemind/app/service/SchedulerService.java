@@ -96,15 +96,19 @@ public class SchedulerService {
             final AtomicReference<Runnable> taskRef = new AtomicReference<>();
 
             Runnable task = () -> {
-                try {
-                    executionService.execute(workflow.id(), Map.of(
-                            "triggeredAt", Instant.now().toString(),
-                            "triggerType", "schedule",
-                            "cronExpression", workflow.cronExpression()));
-                } catch (Exception e) {
-                    // Log error but don't stop scheduling
-                    logger.error("Scheduled workflow execution failed: {} - {}", workflow.name(), e.getMessage(), e);
-                }
+                // Runs go through the admission queue so a burst of cron fires
+                // cannot exceed the execution concurrency limits
+                executionService.executeAsync(workflow.id(), Map.of(
+                        "triggeredAt", Instant.now().toString(),
+                        "triggerType", "schedule",
+                        "cronExpression", workflow.cronExpression()))
+                        .whenComplete((_, e) -> {
+                            if (e != null) {
+                                // Log error but don't stop scheduling
+                                logger.error("Scheduled workflow execution failed: {} - {}", workflow.name(),
+                                        e.getMessage(), e);
+                            }
+                        });
 
                 // Reschedule for next execution
                 scheduleNextExecution(workflow.id(), cron, taskRef.get());
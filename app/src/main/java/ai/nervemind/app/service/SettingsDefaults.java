@@ -65,16 +65,44 @@ public final class SettingsDefaults {
         public static final String EXECUTION_DEFAULT_TIMEOUT = "execution.defaultTimeout";
         /** Setting key for maximum parallel executions. */
         public static final String EXECUTION_MAX_PARALLEL = "execution.maxParallel";
+        /** Setting key for maximum concurrent workflow runs. */
+        public static final String EXECUTION_MAX_CONCURRENT_RUNS = "execution.maxConcurrentRuns";
+        /** Setting key for maximum concurrent runs of one workflow. */
+        public static final String EXECUTION_MAX_RUNS_PER_WORKFLOW = "execution.maxRunsPerWorkflow";
+        /** Setting key for execution queue capacity. */
+        public static final String EXECUTION_QUEUE_CAPACITY = "execution.queueCapacity";
+        /** Setting key for execution record durability. */
+        public static final String EXECUTION_PERSISTENCE_DURABILITY = "execution.persistence.durability";
+        /** Setting key for execution record write batch size. */
+        public static final String EXECUTION_PERSISTENCE_BATCH_SIZE = "execution.persistence.batchSize";
+        /** Setting key for execution record flush interval. */
+        public static final String EXECUTION_PERSISTENCE_FLUSH_INTERVAL = "execution.persistence.flushInterval";
         /** Setting key for retry attempts. */
         public static final String EXECUTION_RETRY_ATTEMPTS = "execution.retryAttempts";
         /** Setting key for retry delay. */
         public static final String EXECUTION_RETRY_DELAY = "execution.retryDelay";
         /** Setting key for execution log level. */
         public static final String EXECUTION_LOG_LEVEL = "execution.logLevel";
+        /** Setting key for execution log entries kept in memory per run. */
+        public static final String EXECUTION_LOG_MAX_ENTRIES = "execution.log.maxEntries";
+        /** Setting key for spilling older execution log entries to disk. */
+        public static final String EXECUTION_LOG_SPILL_TO_DISK = "execution.log.spillToDisk";
+        /** Setting key for how node input/output data is captured in the log. */
+        public static final String EXECUTION_LOG_CAPTURE = "execution.log.capture";
+        /** Setting key for the size limit of captured node data. */
+        public static final String EXECUTION_LOG_CAPTURE_MAX_SIZE = "execution.log.captureMaxSize";
+        /** Setting key for the node run sampling rate of sampled capture. */
+        public static final String EXECUTION_LOG_CAPTURE_SAMPLE_RATE = "execution.log.captureSampleRate";
         /** Setting key for execution history limit. */
         public static final String EXECUTION_HISTORY_LIMIT = "execution.historyLimit";
         /** Setting key for execution history retention. */
         public static final String EXECUTION_HISTORY_RETENTION = "execution.historyRetention";
+        /** Setting key for failed execution history retention. */
+        public static final String EXECUTION_HISTORY_FAILURE_RETENTION = "execution.historyFailureRetention";
+        /** Setting key for compressing the data of old executions. */
+        public static final String EXECUTION_HISTORY_COMPRESS_AFTER = "execution.historyCompressAfter";
+        /** Setting key for rows deleted or compacted per cleanup batch. */
+        public static final String EXECUTION_HISTORY_CLEANUP_BATCH_SIZE = "execution.historyCleanupBatchSize";
         /** Setting key for showing execution console. */
         public static final String EXECUTION_SHOW_CONSOLE = "execution.showConsole";
 
@@ -120,6 +148,28 @@ public final class SettingsDefaults {
         /** Setting key for Google Gemini default model. */
         public static final String AI_GOOGLE_DEFAULT_MODEL = "ai.google.defaultModel";
 
+        // AI Streaming Settings
+        /** Setting key for streaming LLM responses by default. */
+        public static final String AI_STREAMING = "ai.streaming";
+
+        // AI Classifier Settings
+        /** Setting key for classification batch requests running at once. */
+        public static final String AI_CLASSIFIER_CONCURRENCY = "ai.classifier.concurrency";
+
+        // AI Embedding Cache Settings
+        /** Setting key for enabling/disabling the embedding cache. */
+        public static final String AI_EMBEDDING_CACHE_ENABLED = "ai.embeddingCache.enabled";
+        /** Setting key for embeddings kept in memory by the embedding cache. */
+        public static final String AI_EMBEDDING_CACHE_MEMORY_ENTRIES = "ai.embeddingCache.memoryEntries";
+
+        // AI Response Cache Settings
+        /** Setting key for enabling/disabling the LLM response cache. */
+        public static final String AI_RESPONSE_CACHE_ENABLED = "ai.responseCache.enabled";
+        /** Setting key for seconds a cached LLM response is reused. */
+        public static final String AI_RESPONSE_CACHE_TTL = "ai.responseCache.ttl";
+        /** Setting key for bytes of LLM responses kept on disk. */
+        public static final String AI_RESPONSE_CACHE_DISK_SIZE = "ai.responseCache.diskSize";
+
         // HTTP/Network Settings
         /** Setting key for HTTP User-Agent header. */
         public static final String HTTP_USER_AGENT = "http.userAgent";
@@ -131,6 +181,20 @@ public final class SettingsDefaults {
         public static final String HTTP_FOLLOW_REDIRECTS = "http.followRedirects";
         /** Setting key for maximum number of redirects to follow. */
         public static final String HTTP_MAX_REDIRECTS = "http.maxRedirects";
+        /** Setting key for concurrent requests allowed per host. */
+        public static final String HTTP_MAX_CONNECTIONS_PER_HOST = "http.maxConnectionsPerHost";
+        /** Setting key for preferring HTTP/2 over HTTP/1.1. */
+        public static final String HTTP_PREFER_HTTP2 = "http.preferHttp2";
+        /** Setting key for idle connection keep-alive in seconds. */
+        public static final String HTTP_KEEP_ALIVE_TIMEOUT = "http.keepAliveTimeout";
+        /** Setting key for the largest response body held in memory, in bytes. */
+        public static final String HTTP_MAX_RESPONSE_SIZE = "http.maxResponseSize";
+        /** Setting key for enabling/disabling the HTTP response cache. */
+        public static final String HTTP_CACHE_ENABLED = "http.cache.enabled";
+        /** Setting key for bytes of responses kept in memory by the HTTP cache. */
+        public static final String HTTP_CACHE_MEMORY_SIZE = "http.cache.memorySize";
+        /** Setting key for bytes of responses kept on disk by the HTTP cache. */
+        public static final String HTTP_CACHE_DISK_SIZE = "http.cache.diskSize";
         /** Setting key for enabling/disabling HTTP proxy. */
         public static final String HTTP_PROXY_ENABLED = "http.proxy.enabled";
         /** Setting key for HTTP proxy host. */
@@ -155,6 +219,12 @@ public final class SettingsDefaults {
         public static final String STORAGE_BACKUP_RETENTION = "storage.backup.retention";
         /** Setting key for backup directory path. */
         public static final String STORAGE_BACKUP_PATH = "storage.backup.path";
+        /** Setting key for connections per database used by Database nodes. */
+        public static final String STORAGE_JDBC_POOL_SIZE = "storage.jdbc.poolSize";
+        /** Setting key for seconds an unused database connection is kept open. */
+        public static final String STORAGE_JDBC_IDLE_TIMEOUT = "storage.jdbc.idleTimeout";
+        /** Setting key for compiled queries cached per database connection. */
+        public static final String STORAGE_JDBC_STATEMENT_CACHE_SIZE = "storage.jdbc.statementCacheSize";
 
         // Webhook & Server Settings
         /** Setting key for server port number. */
@@ -290,6 +360,30 @@ public final class SettingsDefaults {
                 DEFAULTS.add(setting(EXECUTION_MAX_PARALLEL, "10", SettingCategory.EXECUTION, SettingType.INTEGER,
                                 "Max parallel nodes", "Maximum concurrent node executions", order++, false,
                                 "{\"min\":1,\"max\":100}"));
+                DEFAULTS.add(setting(EXECUTION_MAX_CONCURRENT_RUNS, "8", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Max concurrent runs",
+                                "Maximum workflow runs executing at once", order++, true,
+                                "{\"min\":1,\"max\":200}"));
+                DEFAULTS.add(setting(EXECUTION_MAX_RUNS_PER_WORKFLOW, "2", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Max runs per workflow",
+                                "Maximum runs of the same workflow executing at once", order++, true,
+                                "{\"min\":1,\"max\":50}"));
+                DEFAULTS.add(setting(EXECUTION_QUEUE_CAPACITY, "100", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Execution queue size",
+                                "Runs that may wait for a free slot before new runs are rejected", order++, true,
+                                "{\"min\":0,\"max\":10000}"));
+                DEFAULTS.add(setting(EXECUTION_PERSISTENCE_DURABILITY, "batch", SettingCategory.EXECUTION,
+                                SettingType.ENUM, "Execution record durability",
+                                "Commit execution updates in batches or immediately", order++, true,
+                                "{\"options\":[\"batch\",\"immediate\"]}"));
+                DEFAULTS.add(setting(EXECUTION_PERSISTENCE_BATCH_SIZE, "50", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Execution write batch size",
+                                "Execution updates written per database batch", order++, true,
+                                "{\"min\":1,\"max\":1000}"));
+                DEFAULTS.add(setting(EXECUTION_PERSISTENCE_FLUSH_INTERVAL, "500", SettingCategory.EXECUTION,
+                                SettingType.LONG, "Execution flush interval",
+                                "Maximum delay before execution updates are written (ms)", order++, true,
+                                "{\"min\":10,\"max\":60000}"));
                 DEFAULTS.add(setting(EXECUTION_RETRY_ATTEMPTS, "3", SettingCategory.EXECUTION, SettingType.INTEGER,
                                 "Retry attempts", "Default retry count for failed nodes", order++, false,
                                 "{\"min\":0,\"max\":10}"));
@@ -299,12 +393,43 @@ public final class SettingsDefaults {
                 DEFAULTS.add(setting(EXECUTION_LOG_LEVEL, "DEBUG", SettingCategory.EXECUTION, SettingType.ENUM,
                                 "Log level", "Minimum execution log level", order++, false,
                                 "{\"options\":[\"TRACE\",\"DEBUG\",\"INFO\",\"WARN\",\"ERROR\"]}"));
+                DEFAULTS.add(setting(EXECUTION_LOG_MAX_ENTRIES, "10000", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Log entries in memory",
+                                "Execution log entries kept in memory per run", order++, true,
+                                "{\"min\":256,\"max\":1000000}"));
+                DEFAULTS.add(setting(EXECUTION_LOG_SPILL_TO_DISK, "true", SettingCategory.EXECUTION,
+                                SettingType.BOOLEAN, "Spill logs to disk",
+                                "Write older log entries of long runs to a temporary file", order++, true,
+                                null));
+                DEFAULTS.add(setting(EXECUTION_LOG_CAPTURE, "full", SettingCategory.EXECUTION,
+                                SettingType.ENUM, "Node data capture",
+                                "How node input and output data is kept in the execution log", order++, true,
+                                "{\"options\":[\"none\",\"preview\",\"full\",\"sampled\"]}"));
+                DEFAULTS.add(setting(EXECUTION_LOG_CAPTURE_MAX_SIZE, "262144", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Node data capture limit",
+                                "Larger node data is only logged as a preview (characters)", order++, true,
+                                "{\"min\":1024,\"max\":67108864}"));
+                DEFAULTS.add(setting(EXECUTION_LOG_CAPTURE_SAMPLE_RATE, "10", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Node data sample rate",
+                                "With sampled capture, keep full data of one in this many node runs", order++,
+                                true, "{\"min\":1,\"max\":10000}"));
                 DEFAULTS.add(setting(EXECUTION_HISTORY_LIMIT, "100", SettingCategory.EXECUTION, SettingType.INTEGER,
                                 "History limit", "Max executions per workflow", order++, false,
                                 "{\"min\":10,\"max\":1000}"));
                 DEFAULTS.add(setting(EXECUTION_HISTORY_RETENTION, "30", SettingCategory.EXECUTION, SettingType.INTEGER,
                                 "History retention", "Days to keep execution history", order++, false,
                                 "{\"min\":1,\"max\":365}"));
+                DEFAULTS.add(setting(EXECUTION_HISTORY_FAILURE_RETENTION, "90", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Failed run retention", "Days to keep failed executions",
+                                order++, false, "{\"min\":1,\"max\":3650}"));
+                DEFAULTS.add(setting(EXECUTION_HISTORY_COMPRESS_AFTER, "7", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "Compress history after",
+                                "Days after which execution data is compressed (0 = never)", order++, false,
+                                "{\"min\":0,\"max\":365}"));
+                DEFAULTS.add(setting(EXECUTION_HISTORY_CLEANUP_BATCH_SIZE, "500", SettingCategory.EXECUTION,
+                                SettingType.INTEGER, "History cleanup batch size",
+                                "Executions deleted or compacted per transaction", order++, false,
+                                "{\"min\":10,\"max\":10000}"));
                 DEFAULTS.add(setting(EXECUTION_SHOW_CONSOLE, "false", SettingCategory.EXECUTION, SettingType.BOOLEAN,
                                 "Show console on run", "Auto-open console when running", order++, false, null));
 
@@ -358,6 +483,37 @@ public final class SettingsDefaults {
                 DEFAULTS.add(setting(AI_GOOGLE_DEFAULT_MODEL, "gemini-1.5-pro", SettingCategory.AI_PROVIDERS,
                                 SettingType.STRING,
                                 "Google Default Model", "Default Gemini model", order++, false, null));
+                // Streaming
+                DEFAULTS.add(setting(AI_STREAMING, "true", SettingCategory.AI_PROVIDERS, SettingType.BOOLEAN,
+                                "Stream responses",
+                                "Receive LLM responses token by token and show them while they are generated",
+                                order++, false, null));
+                DEFAULTS.add(setting(AI_CLASSIFIER_CONCURRENCY, "4", SettingCategory.AI_PROVIDERS,
+                                SettingType.INTEGER, "Classifier concurrency",
+                                "Batch classification requests sent at once", order++, true,
+                                "{\"min\":1,\"max\":32}"));
+                // Embedding cache
+                DEFAULTS.add(setting(AI_EMBEDDING_CACHE_ENABLED, "true", SettingCategory.AI_PROVIDERS,
+                                SettingType.BOOLEAN, "Cache embeddings",
+                                "Reuse embeddings of unchanged text instead of calling the provider again",
+                                order++, true, null));
+                DEFAULTS.add(setting(AI_EMBEDDING_CACHE_MEMORY_ENTRIES, "10000", SettingCategory.AI_PROVIDERS,
+                                SettingType.INTEGER, "Embeddings in memory",
+                                "Cached embeddings kept in memory in front of the disk cache", order++, true,
+                                "{\"min\":100,\"max\":1000000}"));
+                // LLM response cache
+                DEFAULTS.add(setting(AI_RESPONSE_CACHE_ENABLED, "true", SettingCategory.AI_PROVIDERS,
+                                SettingType.BOOLEAN, "Cache LLM responses",
+                                "Reuse answers to identical prompts at temperature 0 or with caching turned on",
+                                order++, true, null));
+                DEFAULTS.add(setting(AI_RESPONSE_CACHE_TTL, "86400", SettingCategory.AI_PROVIDERS,
+                                SettingType.INTEGER, "Response cache TTL",
+                                "Seconds a cached LLM response is reused", order++, true,
+                                "{\"min\":1,\"max\":31536000}"));
+                DEFAULTS.add(setting(AI_RESPONSE_CACHE_DISK_SIZE, "67108864", SettingCategory.AI_PROVIDERS,
+                                SettingType.LONG, "Response cache disk size",
+                                "Bytes of cached LLM responses kept on disk (0 = memory only)", order++, true,
+                                "{\"min\":0}"));
 
                 // --- HTTP/Network Settings ---
                 order = 0;
@@ -372,6 +528,31 @@ public final class SettingsDefaults {
                                 "Follow redirects", "Automatically follow redirects", order++, false, null));
                 DEFAULTS.add(setting(HTTP_MAX_REDIRECTS, "5", SettingCategory.HTTP_NETWORK, SettingType.INTEGER,
                                 "Max redirects", "Maximum redirect hops", order++, false, "{\"min\":1,\"max\":20}"));
+                DEFAULTS.add(setting(HTTP_MAX_CONNECTIONS_PER_HOST, "32", SettingCategory.HTTP_NETWORK,
+                                SettingType.INTEGER, "Connections per host",
+                                "Maximum concurrent requests to one host", order++, true,
+                                "{\"min\":1,\"max\":256}"));
+                DEFAULTS.add(setting(HTTP_PREFER_HTTP2, "true", SettingCategory.HTTP_NETWORK, SettingType.BOOLEAN,
+                                "Prefer HTTP/2", "Use HTTP/2 when the server supports it", order++, true, null));
+                DEFAULTS.add(setting(HTTP_KEEP_ALIVE_TIMEOUT, "120", SettingCategory.HTTP_NETWORK,
+                                SettingType.INTEGER, "Keep-alive timeout",
+                                "Seconds an idle connection is kept for reuse", order++, true,
+                                "{\"min\":1,\"max\":3600}"));
+                DEFAULTS.add(setting(HTTP_MAX_RESPONSE_SIZE, "104857600", SettingCategory.HTTP_NETWORK,
+                                SettingType.LONG, "Max response size",
+                                "Largest response body in bytes read into memory (0 = unlimited)", order++, true,
+                                "{\"min\":0}"));
+                DEFAULTS.add(setting(HTTP_CACHE_ENABLED, "true", SettingCategory.HTTP_NETWORK, SettingType.BOOLEAN,
+                                "Response cache",
+                                "Let HTTP Request nodes with caching turned on reuse GET responses", order++, true,
+                                null));
+                DEFAULTS.add(setting(HTTP_CACHE_MEMORY_SIZE, "33554432", SettingCategory.HTTP_NETWORK,
+                                SettingType.LONG, "Cache memory size",
+                                "Bytes of cached responses kept in memory", order++, true, "{\"min\":0}"));
+                DEFAULTS.add(setting(HTTP_CACHE_DISK_SIZE, "268435456", SettingCategory.HTTP_NETWORK,
+                                SettingType.LONG, "Cache disk size",
+                                "Bytes of cached responses kept on disk (0 = memory only)", order++, true,
+                                "{\"min\":0}"));
                 DEFAULTS.add(setting(HTTP_PROXY_ENABLED, "false", SettingCategory.HTTP_NETWORK, SettingType.BOOLEAN,
                                 "Use proxy", "Use proxy for HTTP requests", order++, false, null));
                 DEFAULTS.add(setting(HTTP_PROXY_HOST, "", SettingCategory.HTTP_NETWORK, SettingType.STRING,
@@ -403,6 +584,18 @@ public final class SettingsDefaults {
                 DEFAULTS.add(setting(STORAGE_BACKUP_PATH, "./backups", SettingCategory.DATABASE_STORAGE,
                                 SettingType.PATH,
                                 "Backup location", "Backup directory", order++, false, null));
+                DEFAULTS.add(setting(STORAGE_JDBC_POOL_SIZE, "4", SettingCategory.DATABASE_STORAGE,
+                                SettingType.INTEGER, "Database node connections",
+                                "Open connections per database used by Database nodes", order++, true,
+                                "{\"min\":1,\"max\":64}"));
+                DEFAULTS.add(setting(STORAGE_JDBC_IDLE_TIMEOUT, "300", SettingCategory.DATABASE_STORAGE,
+                                SettingType.INTEGER, "Database connection idle timeout",
+                                "Seconds an unused Database node connection is kept open", order++, true,
+                                "{\"min\":10,\"max\":86400}"));
+                DEFAULTS.add(setting(STORAGE_JDBC_STATEMENT_CACHE_SIZE, "64", SettingCategory.DATABASE_STORAGE,
+                                SettingType.INTEGER, "Database statement cache",
+                                "Compiled queries kept per Database node connection", order++, true,
+                                "{\"min\":0,\"max\":1024}"));
 
                 // --- Webhook & Server Settings ---
                 order = 0;
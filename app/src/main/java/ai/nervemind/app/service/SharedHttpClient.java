@@ -0,0 +1,543 @@
+package ai.nervemind.app.service;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * The HTTP client shared by all network executors.
+ *
+ * <p>
+ * A single {@link HttpClient} owns one connection pool, so connections and
+ * TLS sessions opened by one node are reused by every other node and by
+ * later workflow runs instead of being negotiated again. This class is that
+ * client: it delegates to one JDK client configured from the
+ * {@code http.*} settings and adds on top of it:
+ * </p>
+ * <ul>
+ * <li><strong>Per-host limits</strong> - at most
+ * {@code http.maxConnectionsPerHost} requests to the same scheme, host and
+ * port are in flight at once; further requests wait for a slot, for at most
+ * their request timeout, and fail with an {@link HttpTimeoutException} if
+ * none frees up in time. Time spent waiting is taken off the timeout the
+ * request is sent with. A request holds its slot until its response body
+ * has been read, has failed or was closed, so a streamed body counts against
+ * the limit for as long as it uses its connection.</li>
+ * <li><strong>HTTP/2</strong> - preferred when {@code http.preferHttp2} is
+ * set, with HTTP/1.1 as fallback for servers that do not offer it.</li>
+ * <li><strong>Keep-alive</strong> - idle connections are kept for
+ * {@code http.keepAliveTimeout} seconds.</li>
+ * <li><strong>Metrics</strong> - requests, slot waits and connection reuse
+ * per host, see {@link #stats()}.</li>
+ * </ul>
+ *
+ * <p>
+ * The JDK client does not expose its connections, so reuse is estimated: a
+ * request counts as reusing a connection when the host had an idle pooled
+ * connection (HTTP/1.1) or an open multiplexed one (HTTP/2) within the
+ * keep-alive window. The keep-alive timeout is a JDK-wide system property
+ * that is read once; it is only set here when it was not given on the
+ * command line. Connection and proxy settings are applied at startup.
+ * </p>
+ */
+@Service
+public class SharedHttpClient extends HttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedHttpClient.class);
+
+    static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private static final Executor SLOT_WAITER = task -> Thread.ofVirtual().start(task);
+
+    /** Shortest timeout a request is sent with after waiting for a slot. */
+    private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Request and connection counts of one host.
+     *
+     * @param host              scheme, host and port
+     * @param requests          requests sent
+     * @param reusedConnections requests that reused a pooled connection
+     * @param newConnections    requests that needed a new connection
+     * @param inFlight          requests currently holding a slot
+     * @param waits             requests that had to wait for a slot
+     * @param http2             whether the host answered with HTTP/2
+     */
+    public record HostStats(
+            String host,
+            long requests,
+            long reusedConnections,
+            long newConnections,
+            int inFlight,
+            long waits,
+            boolean http2) {
+    }
+
+    /**
+     * Snapshot of the client's usage.
+     *
+     * @param requests              requests sent
+     * @param reusedConnections     requests that reused a pooled connection
+     * @param newConnections        requests that needed a new connection
+     * @param waits                 requests that had to wait for a slot
+     * @param maxConnectionsPerHost per-host limit
+     * @param hosts                 counts per host, busiest first
+     */
+    public record Stats(
+            long requests,
+            long reusedConnections,
+            long newConnections,
+            long waits,
+            int maxConnectionsPerHost,
+            List<HostStats> hosts) {
+    }
+
+    /**
+     * Usage of one host. Counters are guarded by the instance lock; the
+     * semaphore is acquired outside of it.
+     */
+    private static final class Host {
+        private final String name;
+        private final Semaphore slots;
+        private long requests;
+        private long reused;
+        private long opened;
+        private long waits;
+        private int inFlight;
+        private int pooled;
+        private long lastActive;
+        private boolean http2;
+
+        Host(String name, int maxConnections) {
+            this.name = name;
+            this.slots = new Semaphore(maxConnections, true);
+        }
+
+        /**
+         * Takes a slot, waiting at most {@code timeoutNanos}, or without limit
+         * if it is negative.
+         */
+        void acquire(long timeoutNanos) throws InterruptedException, HttpTimeoutException {
+            if (slots.tryAcquire()) {
+                return;
+            }
+            synchronized (this) {
+                waits++;
+            }
+            if (timeoutNanos < 0) {
+                slots.acquire();
+            } else if (!slots.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new HttpTimeoutException("Timed out waiting for a connection slot to " + name);
+            }
+        }
+
+        synchronized void begin(long now, long keepAliveNanos) {
+            if (now - lastActive > keepAliveNanos) {
+                // Idle connections have been closed by now
+                pooled = 0;
+            }
+            if (pooled > 0 && (http2 || inFlight < pooled)) {
+                reused++;
+            } else {
+                opened++;
+                pooled = inFlight + 1;
+            }
+            requests++;
+            inFlight++;
+            lastActive = now;
+        }
+
+        synchronized void end(long now, HttpClient.Version version) {
+            inFlight--;
+            lastActive = now;
+            if (version == null) {
+                // A failed request may have lost its connection
+                pooled = Math.max(0, pooled - 1);
+            } else if (version == HttpClient.Version.HTTP_2) {
+                http2 = true;
+                pooled = 1;
+            }
+            slots.release();
+        }
+
+        synchronized HostStats stats() {
+            return new HostStats(name, requests, reused, opened, inFlight, waits, http2);
+        }
+    }
+
+    /**
+     * A request's hold on a host slot; released once, by whichever of the
+     * response body or a failed send finishes first.
+     */
+    private static final class Slot {
+        private final Host host;
+        private final AtomicBoolean held = new AtomicBoolean(true);
+
+        Slot(Host host) {
+            this.host = host;
+        }
+
+        void release(HttpClient.Version version) {
+            if (held.compareAndSet(true, false)) {
+                host.end(System.nanoTime(), version);
+            }
+        }
+    }
+
+    /**
+     * Passes a response body through and releases the request's slot when
+     * the body completes, fails or is cancelled, e.g. by closing the stream
+     * of {@link HttpResponse.BodyHandlers#ofInputStream()} or
+     * {@link HttpResponse.BodyHandlers#ofLines()}.
+     */
+    private static final class SlotReleasingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final Slot slot;
+        private final HttpClient.Version version;
+
+        SlotReleasingSubscriber(HttpResponse.BodySubscriber<T> delegate, Slot slot, HttpClient.Version version) {
+            this.delegate = delegate;
+            this.slot = slot;
+            this.version = version;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    // An HTTP/1.1 connection is closed when its body is abandoned
+                    slot.release(version == HttpClient.Version.HTTP_2 ? version : null);
+                    subscription.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            slot.release(null);
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            slot.release(version);
+            delegate.onComplete();
+        }
+    }
+
+    private final HttpClient delegate;
+    private final int maxConnectionsPerHost;
+    private final long keepAliveNanos;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the shared client from the HTTP settings.
+     *
+     * @param settingsService settings for timeouts, HTTP version, limits and
+     *                        proxy
+     */
+    public SharedHttpClient(SettingsServiceInterface settingsService) {
+        this(buildClient(settingsService),
+                settingsService.getInt(SettingsDefaults.HTTP_MAX_CONNECTIONS_PER_HOST, 32),
+                keepAliveSeconds(settingsService));
+    }
+
+    SharedHttpClient(HttpClient delegate, int maxConnectionsPerHost, int keepAliveSeconds) {
+        this.delegate = delegate;
+        this.maxConnectionsPerHost = maxConnectionsPerHost > 0 ? maxConnectionsPerHost : 32;
+        this.keepAliveNanos = Duration.ofSeconds(Math.max(1, keepAliveSeconds)).toNanos();
+    }
+
+    private static int keepAliveSeconds(SettingsServiceInterface settingsService) {
+        int seconds = settingsService.getInt(SettingsDefaults.HTTP_KEEP_ALIVE_TIMEOUT, 120);
+        return seconds > 0 ? seconds : 120;
+    }
+
+    private static HttpClient buildClient(SettingsServiceInterface settingsService) {
+        // Must be set before the JDK's connection pool is first used
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, String.valueOf(keepAliveSeconds(settingsService)));
+        }
+
+        long connectTimeoutMs = settingsService.getLong(SettingsDefaults.HTTP_CONNECT_TIMEOUT, 10000);
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs > 0 ? connectTimeoutMs : 10000))
+                .version(settingsService.getBoolean(SettingsDefaults.HTTP_PREFER_HTTP2, true)
+                        ? HttpClient.Version.HTTP_2
+                        : HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor());
+
+        if (settingsService.getBoolean(SettingsDefaults.HTTP_PROXY_ENABLED, false)) {
+            String proxyHost = settingsService.getValue(SettingsDefaults.HTTP_PROXY_HOST, "");
+            if (proxyHost != null && !proxyHost.isBlank()) {
+                int proxyPort = settingsService.getInt(SettingsDefaults.HTTP_PROXY_PORT, 8080);
+                builder.proxy(ProxySelector.of(InetSocketAddress.createUnresolved(proxyHost, proxyPort)));
+                if (settingsService.getBoolean(SettingsDefaults.HTTP_PROXY_AUTH, false)) {
+                    builder.authenticator(proxyAuthenticator(
+                            settingsService.getValue(SettingsDefaults.HTTP_PROXY_USERNAME, ""),
+                            settingsService.getValue(SettingsDefaults.HTTP_PROXY_PASSWORD, "")));
+                }
+                log.info("HTTP requests go through proxy {}:{}", proxyHost, proxyPort);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Authenticator proxyAuthenticator(String username, String password) {
+        PasswordAuthentication credentials = new PasswordAuthentication(
+                username != null ? username : "", password != null ? password.toCharArray() : new char[0]);
+        return new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return getRequestorType() == RequestorType.PROXY ? credentials : null;
+            }
+        };
+    }
+
+    /**
+     * Gets a snapshot of the client's usage.
+     *
+     * @return totals and per-host counts
+     */
+    public Stats stats() {
+        List<HostStats> perHost = hosts.values().stream()
+                .map(Host::stats)
+                .sorted(Comparator.comparingLong(HostStats::requests).reversed())
+                .toList();
+        long requests = 0;
+        long reused = 0;
+        long opened = 0;
+        long waits = 0;
+        for (HostStats host : perHost) {
+            requests += host.requests();
+            reused += host.reusedConnections();
+            opened += host.newConnections();
+            waits += host.waits();
+        }
+        return new Stats(requests, reused, opened, waits, maxConnectionsPerHost, perHost);
+    }
+
+    private Host host(URI uri) {
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "http";
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(scheme) ? 443 : 80);
+        String key = scheme + "://" + uri.getHost() + ":" + port;
+        return hosts.computeIfAbsent(key, k -> new Host(k, maxConnectionsPerHost));
+    }
+
+    /**
+     * Takes a slot of the request's host within the request's timeout and
+     * returns the request with the time spent waiting taken off its timeout.
+     */
+    private HttpRequest acquire(Host host, HttpRequest request) throws InterruptedException, HttpTimeoutException {
+        Duration timeout = request.timeout().orElse(null);
+        if (timeout == null) {
+            host.acquire(-1);
+            return request;
+        }
+        long started = System.nanoTime();
+        host.acquire(timeout.toNanos());
+        long waited = System.nanoTime() - started;
+        if (waited < MIN_TIMEOUT_NANOS) {
+            return request;
+        }
+        Duration remaining = Duration.ofNanos(Math.max(timeout.toNanos() - waited, MIN_TIMEOUT_NANOS));
+        return HttpRequest.newBuilder(request, (name, value) -> true).timeout(remaining).build();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        Host host = host(request.uri());
+        HttpRequest timed = acquire(host, request);
+        host.begin(System.nanoTime(), keepAliveNanos);
+        Slot slot = new Slot(host);
+        boolean sent = false;
+        try {
+            HttpResponse<T> response = delegate.send(timed, releasingSlot(responseBodyHandler, slot));
+            sent = true;
+            return response;
+        } finally {
+            if (!sent) {
+                slot.release(null);
+            }
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> responseBodyHandler,
+            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        Host host = host(request.uri());
+        // Wait for a slot on a virtual thread, not the caller's
+        return CompletableFuture.supplyAsync(() -> {
+            HttpRequest timed;
+            try {
+                timed = acquire(host, request);
+            } catch (HttpTimeoutException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a connection slot", e);
+            }
+            host.begin(System.nanoTime(), keepAliveNanos);
+            return timed;
+        }, SLOT_WAITER).thenCompose(timed -> {
+            Slot slot = new Slot(host);
+            try {
+                return delegate.sendAsync(timed, releasingSlot(responseBodyHandler, slot), pushPromiseHandler)
+                        .whenComplete((response, _) -> {
+                            if (response == null) {
+                                slot.release(null);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                slot.release(null);
+                throw e;
+            }
+        });
+    }
+
+    private static <T> HttpResponse.BodyHandler<T> releasingSlot(HttpResponse.BodyHandler<T> handler, Slot slot) {
+        return info -> new SlotReleasingSubscriber<>(handler.apply(info), slot, info.version());
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return delegate.newWebSocketBuilder();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(Duration duration) throws InterruptedException {
+        return delegate.awaitTermination(duration);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public void shutdownNow() {
+        delegate.shutdownNow();
+    }
+
+    /**
+     * Closes the underlying client and its connections. Called by Spring on
+     * shutdown.
+     */
+    @Override
+    public void close() {
+        delegate.close();
+        if (delegate.executor().orElse(null) instanceof ExecutorService executorService) {
+            executorService.close();
+        }
+    }
+}
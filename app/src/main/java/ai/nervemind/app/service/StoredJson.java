@@ -0,0 +1,79 @@
+package ai.nervemind.app.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding of JSON documents stored in text columns.
+ *
+ * <p>
+ * Old execution data may be compacted by
+ * {@link ExecutionRetentionService}: the JSON is gzipped and stored as
+ * Base64 behind a {@value #PREFIX} marker. A JSON document can never start
+ * with that marker, so plain and compressed values can share a column and
+ * readers call {@link #expand(String)} on everything they load.
+ * </p>
+ */
+final class StoredJson {
+
+    /** Marker of compressed values. */
+    static final String PREFIX = "gz:";
+
+    private StoredJson() {
+    }
+
+    /**
+     * Checks whether a stored value is compressed.
+     *
+     * @param stored the column value
+     * @return true if the value was produced by {@link #compress(String)}
+     */
+    static boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * Compresses a JSON document.
+     *
+     * @param json the JSON text
+     * @return the compressed value, or null if compressing would not make it
+     *         smaller
+     */
+    static String compress(String json) {
+        if (json == null || isCompressed(json)) {
+            return null;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String compressed = PREFIX + Base64.getEncoder().encodeToString(buffer.toByteArray());
+        return compressed.length() < json.length() ? compressed : null;
+    }
+
+    /**
+     * Restores the JSON text of a stored value.
+     *
+     * @param stored the column value, compressed or not
+     * @return the JSON text; plain values are returned as they are
+     */
+    static String expand(String stored) {
+        if (!isCompressed(stored)) {
+            return stored;
+        }
+        byte[] bytes = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ai.nervemind.app.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Items that are read while a loop runs over them, instead of being
+ * returned as a list.
+ *
+ * <p>
+ * Nodes put a {@code StreamedItems} into their output for sources too large
+ * to hold in memory, such as a CSV file read in row batches. A loop node
+ * passes it through as its {@code results}, and the engine reads one item
+ * per iteration and closes the source when the loop ends. Items can be read
+ * only once. An output that never reaches a loop is never closed, so
+ * implementations should not acquire resources before the first call to
+ * {@link #next()}. When node output is logged or stored, the items appear
+ * as their {@link #describe() description} and are not read.
+ * </p>
+ */
+public interface StreamedItems extends AutoCloseable {
+
+    /**
+     * Reads the next item.
+     *
+     * @return the item, or null after the last one
+     * @throws IOException if the source cannot be read
+     */
+    Object next() throws IOException;
+
+    /**
+     * Releases the source.
+     */
+    @Override
+    void close();
+
+    /**
+     * Describes the items without reading them.
+     *
+     * @return a short description for logs and stored output
+     */
+    @JsonValue
+    default Map<String, Object> describe() {
+        return Map.of("streaming", true);
+    }
+}
@@ -0,0 +1,550 @@
+package ai.nervemind.app.service;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Tabular data stored column by column.
+ *
+ * <p>
+ * Each column keeps its values in one primitive array ({@code int[]},
+ * {@code long[]}, {@code double[]}) or, for strings, as {@code int} codes
+ * into a dictionary of the distinct values. A million rows of a few columns
+ * take tens of megabytes instead of a hash map, boxed values and key
+ * strings per row.
+ * </p>
+ *
+ * <p>
+ * A table is also a read-only {@code List<Map<String, Object>>}: nodes that
+ * only know lists of row maps get a lightweight map view per row, created
+ * when the row is accessed. Nodes that know tables can work on the
+ * {@link #column(String) columns} directly and produce a subset or a new
+ * order of rows with {@link #select(int[])}, which shares the column data
+ * instead of copying it.
+ * </p>
+ */
+public final class Table extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    /**
+     * How the values of a column are stored.
+     */
+    public enum Type {
+        /** {@link Integer} values in an {@code int[]} */
+        INT,
+        /** {@link Long} values in a {@code long[]} */
+        LONG,
+        /** {@link Double} values in a {@code double[]} */
+        DOUBLE,
+        /** {@link Boolean} values in a bit set */
+        BOOLEAN,
+        /** {@link String} values as codes into a dictionary */
+        STRING,
+        /** Any other or mixed values, boxed */
+        OBJECT
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<String> columnNames;
+    private final Column[] columns;
+    private final Map<String, Integer> columnIndex;
+    /** Rows of the columns in this table, or null for all rows in order */
+    private final int[] selection;
+    private final int size;
+
+    private Table(List<String> columnNames, Column[] columns, Map<String, Integer> columnIndex,
+            int[] selection, int size) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.columnIndex = columnIndex;
+        this.selection = selection;
+        this.size = size;
+    }
+
+    /**
+     * Creates a builder for a table with the given columns.
+     *
+     * <p>
+     * If a name appears more than once, the table has one column with that
+     * name, at its first position, holding the values of its last position, as
+     * when the values are put into a map one by one.
+     * </p>
+     *
+     * @param columns the column names, in row order
+     * @return a new builder
+     */
+    public static Builder builder(List<String> columns) {
+        return new Builder(columns);
+    }
+
+    /**
+     * Returns the column names.
+     *
+     * @return the names, in order
+     */
+    public List<String> columns() {
+        return columnNames;
+    }
+
+    /**
+     * Returns a column, restricted to the rows of this table.
+     *
+     * @param name the column name
+     * @return the column, or null if the table has no such column
+     */
+    public Column column(String name) {
+        Integer position = columnIndex.get(name);
+        return position != null ? columns[position].select(selection, size) : null;
+    }
+
+    /**
+     * Returns a table with some of the rows of this one, in the given order.
+     * The column data is shared.
+     *
+     * @param rows the row indexes in this table; may repeat rows
+     * @return the selected rows
+     */
+    public Table select(int[] rows) {
+        int[] physical = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            int row = Objects.checkIndex(rows[i], size);
+            physical[i] = selection != null ? selection[row] : row;
+        }
+        return new Table(columnNames, columns, columnIndex, physical, physical.length);
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        return new Row(physicalRow(Objects.checkIndex(index, size)));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int physicalRow(int index) {
+        return selection != null ? selection[index] : index;
+    }
+
+    /**
+     * A row as a read-only map from column name to value.
+     */
+    private final class Row extends AbstractMap<String, Object> {
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer position = columnIndex.get(key);
+            return position != null ? columns[position].value(row) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < columns.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int position = next++;
+                            return new AbstractMap.SimpleImmutableEntry<>(columnNames.get(position),
+                                    columns[position].value(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * The values of one column. Rows are addressed by their index in the
+     * table the column was taken from.
+     */
+    public static final class Column {
+        private final String name;
+        private final Type type;
+        /** Rows with a non-null value */
+        private final BitSet present;
+        /** INT values, or STRING codes */
+        private final int[] ints;
+        private final long[] longs;
+        private final double[] doubles;
+        private final BitSet booleans;
+        private final String[] dictionary;
+        private final Object[] objects;
+        private final int[] selection;
+        private final int size;
+
+        private Column(String name, Type type, BitSet present, int[] ints, long[] longs, double[] doubles,
+                BitSet booleans, String[] dictionary, Object[] objects, int[] selection, int size) {
+            this.name = name;
+            this.type = type;
+            this.present = present;
+            this.ints = ints;
+            this.longs = longs;
+            this.doubles = doubles;
+            this.booleans = booleans;
+            this.dictionary = dictionary;
+            this.objects = objects;
+            this.selection = selection;
+            this.size = size;
+        }
+
+        private Column select(int[] rows, int count) {
+            if (rows == selection && count == size) {
+                return this;
+            }
+            return new Column(name, type, present, ints, longs, doubles, booleans, dictionary, objects, rows, count);
+        }
+
+        /**
+         * Returns the column name.
+         *
+         * @return the name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns how the values are stored.
+         *
+         * @return the storage type; null values are allowed in every type
+         */
+        public Type type() {
+            return type;
+        }
+
+        /**
+         * Returns the number of rows.
+         *
+         * @return the row count
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Checks for a null value.
+         *
+         * @param index the row index
+         * @return whether the value is null
+         */
+        public boolean isNull(int index) {
+            return !present.get(row(index));
+        }
+
+        /**
+         * Returns a value, boxed.
+         *
+         * @param index the row index
+         * @return the value, or null
+         */
+        public Object get(int index) {
+            return value(row(index));
+        }
+
+        /**
+         * Returns a numeric value without boxing.
+         *
+         * @param index the row index
+         * @return the value as a double; 0 for null values
+         * @throws IllegalStateException if the column is not INT, LONG or
+         *                               DOUBLE
+         */
+        public double getDouble(int index) {
+            int row = row(index);
+            return switch (type) {
+                case INT -> ints[row];
+                case LONG -> longs[row];
+                case DOUBLE -> doubles[row];
+                default -> throw new IllegalStateException("Column " + name + " is not numeric: " + type);
+            };
+        }
+
+        /**
+         * Returns the dictionary code of a string value.
+         *
+         * @param index the row index
+         * @return the position of the value in {@link #dictionary()}; 0 for
+         *         null values
+         * @throws IllegalStateException if the column is not STRING
+         */
+        public int code(int index) {
+            if (type != Type.STRING) {
+                throw new IllegalStateException("Column " + name + " is not a string column: " + type);
+            }
+            return ints[row(index)];
+        }
+
+        /**
+         * Returns the distinct values of a string column.
+         *
+         * @return the dictionary, indexed by {@link #code(int)}
+         * @throws IllegalStateException if the column is not STRING
+         */
+        public List<String> dictionary() {
+            if (type != Type.STRING) {
+                throw new IllegalStateException("Column " + name + " is not a string column: " + type);
+            }
+            return Arrays.asList(dictionary);
+        }
+
+        private int row(int index) {
+            Objects.checkIndex(index, size);
+            return selection != null ? selection[index] : index;
+        }
+
+        private Object value(int row) {
+            if (!present.get(row)) {
+                return null;
+            }
+            return switch (type) {
+                case INT -> ints[row];
+                case LONG -> longs[row];
+                case DOUBLE -> doubles[row];
+                case BOOLEAN -> booleans.get(row);
+                case STRING -> dictionary[ints[row]];
+                case OBJECT -> objects[row];
+            };
+        }
+    }
+
+    /**
+     * Builds a table row by row, choosing each column's storage from its
+     * values: the type of the first non-null value, or OBJECT once values of
+     * different types appear.
+     */
+    public static final class Builder {
+        private final List<String> columnNames;
+        private final Map<String, Integer> columnIndex;
+        /** Column of each value in a row, or -1 for values that are dropped */
+        private final int[] targets;
+        private final ColumnBuilder[] columns;
+        private int size;
+
+        private Builder(List<String> names) {
+            this.columnIndex = HashMap.newHashMap(names.size());
+            this.targets = new int[names.size()];
+            for (int i = 0; i < names.size(); i++) {
+                Integer position = columnIndex.putIfAbsent(names.get(i), columnIndex.size());
+                targets[i] = position != null ? position : columnIndex.size() - 1;
+            }
+            // Only the last value for a repeated name is kept
+            Set<Integer> seen = new HashSet<>();
+            for (int i = targets.length - 1; i >= 0; i--) {
+                if (!seen.add(targets[i])) {
+                    targets[i] = -1;
+                }
+            }
+            this.columnNames = names.stream().distinct().toList();
+            this.columns = new ColumnBuilder[columnNames.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new ColumnBuilder();
+            }
+        }
+
+        /**
+         * Adds a row. Missing trailing values are null; values beyond the
+         * last column are dropped.
+         *
+         * @param values the values, in the order of the builder's columns
+         * @return this builder
+         */
+        public Builder add(Object... values) {
+            int present = Math.min(values.length, targets.length);
+            for (int i = 0; i < present; i++) {
+                if (targets[i] >= 0) {
+                    columns[targets[i]].set(size, values[i]);
+                }
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Returns the number of rows added so far.
+         *
+         * @return the row count
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Creates the table. The builder must not be used afterwards.
+         *
+         * @return the table
+         */
+        public Table build() {
+            Column[] built = new Column[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                built[i] = columns[i].build(columnNames.get(i), size);
+            }
+            return new Table(columnNames, built, Map.copyOf(columnIndex), null, size);
+        }
+    }
+
+    private static final class ColumnBuilder {
+        private Type type;
+        private final BitSet present = new BitSet();
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private BitSet booleans;
+        private Object[] objects;
+        private Map<String, Integer> codes;
+        private List<String> dictionary;
+        private int capacity;
+
+        void set(int row, Object value) {
+            if (value == null) {
+                return;
+            }
+            Type valueType = typeOf(value);
+            if (type == null) {
+                start(valueType, row);
+            } else if (type != valueType && type != Type.OBJECT) {
+                toObjects(row);
+            }
+            ensureCapacity(row + 1);
+            switch (type) {
+                case INT -> ints[row] = (Integer) value;
+                case LONG -> longs[row] = (Long) value;
+                case DOUBLE -> doubles[row] = (Double) value;
+                case BOOLEAN -> booleans.set(row, (Boolean) value);
+                case STRING -> ints[row] = codes.computeIfAbsent((String) value, key -> {
+                    dictionary.add(key);
+                    return dictionary.size() - 1;
+                });
+                case OBJECT -> objects[row] = value;
+            }
+            present.set(row);
+        }
+
+        Column build(String name, int size) {
+            if (type == null) {
+                return new Column(name, Type.OBJECT, present, null, null, null, null, null, new Object[size], null,
+                        size);
+            }
+            return new Column(name, type, present,
+                    ints != null ? Arrays.copyOf(ints, size) : null,
+                    longs != null ? Arrays.copyOf(longs, size) : null,
+                    doubles != null ? Arrays.copyOf(doubles, size) : null,
+                    booleans,
+                    dictionary != null ? dictionary.toArray(String[]::new) : null,
+                    objects != null ? Arrays.copyOf(objects, size) : null,
+                    null, size);
+        }
+
+        private static Type typeOf(Object value) {
+            if (value instanceof Integer) {
+                return Type.INT;
+            } else if (value instanceof Long) {
+                return Type.LONG;
+            } else if (value instanceof Double) {
+                return Type.DOUBLE;
+            } else if (value instanceof Boolean) {
+                return Type.BOOLEAN;
+            } else if (value instanceof String) {
+                return Type.STRING;
+            }
+            return Type.OBJECT;
+        }
+
+        private void start(Type valueType, int row) {
+            type = valueType;
+            capacity = Math.max(INITIAL_CAPACITY, row + 1);
+            switch (type) {
+                case INT -> ints = new int[capacity];
+                case LONG -> longs = new long[capacity];
+                case DOUBLE -> doubles = new double[capacity];
+                case BOOLEAN -> booleans = new BitSet();
+                case STRING -> {
+                    ints = new int[capacity];
+                    codes = new HashMap<>();
+                    dictionary = new ArrayList<>();
+                }
+                case OBJECT -> objects = new Object[capacity];
+            }
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= capacity) {
+                return;
+            }
+            capacity = Math.max(required, capacity + (capacity >> 1));
+            switch (type) {
+                case INT, STRING -> ints = Arrays.copyOf(ints, capacity);
+                case LONG -> longs = Arrays.copyOf(longs, capacity);
+                case DOUBLE -> doubles = Arrays.copyOf(doubles, capacity);
+                case BOOLEAN -> {
+                    // BitSet grows by itself
+                }
+                case OBJECT -> objects = Arrays.copyOf(objects, capacity);
+            }
+        }
+
+        /**
+         * Switches to boxed storage when a value of another type arrives.
+         */
+        private void toObjects(int rows) {
+            Column current = build("", rows);
+            Object[] boxed = new Object[capacity];
+            for (int row = 0; row < rows; row++) {
+                boxed[row] = current.value(row);
+            }
+            type = Type.OBJECT;
+            objects = boxed;
+            ints = null;
+            longs = null;
+            doubles = null;
+            booleans = null;
+            codes = null;
+            dictionary = null;
+        }
+    }
+}
@@ -0,0 +1,665 @@
+package ai.nervemind.app.service;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory vector collection with top-K cosine similarity search.
+ *
+ * <p>
+ * Vectors are normalized on insert and stored row by row in one primitive
+ * {@code float[]}, so cosine similarity is a plain dot product over
+ * contiguous memory. Two search modes are available:
+ * </p>
+ * <ul>
+ * <li>{@link SearchMode#EXACT} - scans every vector, keeping the best K in a
+ * bounded heap. O(N&middot;d) with no boxing and no full sort. The dot
+ * product uses independent accumulators, which lets the JIT keep several
+ * multiply-adds in flight.</li>
+ * <li>{@link SearchMode#APPROXIMATE} - HNSW graph search. The graph is built
+ * on first use and extended incrementally for vectors added later, so the
+ * cost of indexing is only paid by collections that are searched this
+ * way.</li>
+ * </ul>
+ *
+ * <p>
+ * Deleted vectors are tombstoned and skipped; once they make up a quarter of
+ * the collection the storage is compacted and the graph rebuilt. The index
+ * is safe for concurrent use: searches share a read lock, changes take the
+ * write lock.
+ * </p>
+ */
+public final class VectorIndex {
+
+    /**
+     * How a search is performed.
+     */
+    public enum SearchMode {
+        /** Compare the query against every vector */
+        EXACT,
+        /** Walk the HNSW graph; faster on large collections, may miss matches */
+        APPROXIMATE
+    }
+
+    /**
+     * A search result.
+     *
+     * @param id      the vector ID
+     * @param score   cosine similarity to the query
+     * @param payload the payload stored with the vector
+     */
+    public record Hit(String id, double score, Map<String, Object> payload) {
+    }
+
+    /**
+     * Receives the entries of the index.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        /**
+         * Visits one entry.
+         *
+         * @param id      the vector ID
+         * @param vector  the normalized vector (a copy)
+         * @param payload the payload
+         */
+        void visit(String id, float[] vector, Map<String, Object> payload);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MIN_COMPACT_DELETED = 64;
+
+    private final int dimensions;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowById = new HashMap<>();
+
+    private float[] vectors;
+    // A null id marks a deleted row
+    private String[] ids;
+    private Object[] payloads;
+    private int rows;
+    private int deleted;
+    private Hnsw graph;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param dimensions the vector length
+     */
+    public VectorIndex(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Dimensions must be positive: " + dimensions);
+        }
+        this.dimensions = dimensions;
+        this.vectors = new float[INITIAL_CAPACITY * dimensions];
+        this.ids = new String[INITIAL_CAPACITY];
+        this.payloads = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Converts a vector of boxed numbers, as found in node data.
+     *
+     * @param values the vector
+     * @return the vector as floats
+     */
+    public static float[] toFloats(List<? extends Number> values) {
+        if (values instanceof FloatListView view) {
+            return view.values.clone();
+        }
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = values.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Wraps a vector for node data, the reverse of
+     * {@link #toFloats(List)}. Values are boxed only when read.
+     *
+     * @param vector the vector; not copied
+     * @return a read-only list view of the vector
+     */
+    public static List<Double> asList(float[] vector) {
+        return new FloatListView(vector);
+    }
+
+    /**
+     * Read-only list view of a {@code float[]}.
+     */
+    private static final class FloatListView extends AbstractList<Double> implements RandomAccess {
+        private final float[] values;
+
+        FloatListView(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Double get(int index) {
+            return (double) values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Gets the vector length.
+     *
+     * @return the dimensions
+     */
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Gets the number of vectors.
+     *
+     * @return the live vector count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts a vector or replaces the one with the same ID. Upserting the
+     * vector and payload an ID already has leaves the index untouched.
+     *
+     * @param id      the vector ID
+     * @param vector  the vector; copied and normalized
+     * @param payload data returned with search hits
+     * @return true if the index changed
+     */
+    public boolean upsert(String id, float[] vector, Map<String, Object> payload) {
+        checkDimensions(vector);
+        float[] unit = normalized(vector);
+        Map<String, Object> data = payload != null ? payload : Map.of();
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.get(id);
+            if (row != null && sameRow(row, unit, data)) {
+                return false;
+            }
+            if (row != null && graph == null) {
+                // No graph links to keep consistent, overwrite in place
+                writeRow(row, id, unit, data);
+                return true;
+            }
+            if (row != null) {
+                tombstone(row);
+            }
+            ensureCapacity(rows + 1);
+            writeRow(rows, id, unit, data);
+            rowById.put(id, rows);
+            rows++;
+            compactIfSparse();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a vector.
+     *
+     * @param id the vector ID
+     * @return true if the vector existed
+     */
+    public boolean delete(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.remove(id);
+            if (row == null) {
+                return false;
+            }
+            tombstone(row);
+            compactIfSparse();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the vectors most similar to a query.
+     *
+     * @param query the query vector
+     * @param k     the number of results
+     * @param mode  exact scan or approximate graph search
+     * @return up to {@code k} hits, most similar first
+     */
+    public List<Hit> search(float[] query, int k, SearchMode mode) {
+        checkDimensions(query);
+        if (k <= 0) {
+            return List.of();
+        }
+        float[] q = normalized(query);
+        if (mode == SearchMode.APPROXIMATE && graphStale()) {
+            lock.writeLock().lock();
+            try {
+                if (graph == null) {
+                    graph = new Hnsw();
+                }
+                graph.catchUp();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return mode == SearchMode.APPROXIMATE && graph != null ? graph.search(q, k) : scan(q, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean graphStale() {
+        lock.readLock().lock();
+        try {
+            return graph == null || graph.indexed < rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every live entry, in insertion order.
+     *
+     * @param visitor receives the entries
+     */
+    public void forEach(EntryVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rows; row++) {
+                if (ids[row] != null) {
+                    visitor.visit(ids[row], Arrays.copyOfRange(vectors, row * dimensions, (row + 1) * dimensions),
+                            payload(row));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> scan(float[] q, int k) {
+        // Bounded min-heap of the best k rows: the root is the worst kept
+        float[] heapScores = new float[k];
+        int[] heapRows = new int[k];
+        int size = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] == null) {
+                continue;
+            }
+            float score = dot(q, vectors, row * dimensions, dimensions);
+            if (size < k) {
+                heapScores[size] = score;
+                heapRows[size] = row;
+                siftUp(heapScores, heapRows, size++);
+            } else if (score > heapScores[0]) {
+                heapScores[0] = score;
+                heapRows[0] = row;
+                siftDown(heapScores, heapRows, size);
+            }
+        }
+
+        Hit[] hits = new Hit[size];
+        // Popping the min-heap yields the worst first; fill from the back
+        for (int i = size - 1; i >= 0; i--) {
+            hits[i] = hit(heapRows[0], heapScores[0]);
+            heapScores[0] = heapScores[i];
+            heapRows[0] = heapRows[i];
+            siftDown(heapScores, heapRows, i);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private static void siftUp(float[] scores, int[] rows, int index) {
+        int i = index;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                return;
+            }
+            swap(scores, rows, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(float[] scores, int[] rows, int size) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(scores, rows, smallest, i);
+            i = smallest;
+        }
+    }
+
+    private static void swap(float[] scores, int[] rows, int a, int b) {
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+    }
+
+    /**
+     * Dot product of {@code q} and the row of {@code data} at {@code offset}.
+     */
+    static float dot(float[] q, float[] data, int offset, int length) {
+        return dot(q, 0, data, offset, length);
+    }
+
+    /**
+     * Dot product of two vectors stored at offsets of their arrays. Four
+     * independent partial sums break the dependency chain of a single
+     * accumulator.
+     */
+    private static float dot(float[] a, int offsetA, float[] b, int offsetB, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[offsetA + i] * b[offsetB + i];
+            s1 += a[offsetA + i + 1] * b[offsetB + i + 1];
+            s2 += a[offsetA + i + 2] * b[offsetB + i + 2];
+            s3 += a[offsetA + i + 3] * b[offsetB + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[offsetA + i] * b[offsetB + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private Hit hit(int row, float score) {
+        return new Hit(ids[row], score, payload(row));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> payload(int row) {
+        return (Map<String, Object>) payloads[row];
+    }
+
+    private void checkDimensions(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Expected a vector of " + dimensions + " dimensions but got " + vector.length);
+        }
+    }
+
+    private float[] normalized(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector, 0, vector.length));
+        float[] result = vector.clone();
+        if (norm > 0) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] /= norm;
+            }
+        }
+        return result;
+    }
+
+    private boolean sameRow(int row, float[] unit, Map<String, Object> payload) {
+        int offset = row * dimensions;
+        return Arrays.equals(vectors, offset, offset + dimensions, unit, 0, dimensions)
+                && payload.equals(payloads[row]);
+    }
+
+    private void writeRow(int row, String id, float[] unit, Map<String, Object> payload) {
+        System.arraycopy(unit, 0, vectors, row * dimensions, dimensions);
+        ids[row] = id;
+        payloads[row] = payload;
+    }
+
+    private void tombstone(int row) {
+        ids[row] = null;
+        payloads[row] = null;
+        deleted++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        vectors = Arrays.copyOf(vectors, capacity * dimensions);
+        ids = Arrays.copyOf(ids, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+    }
+
+    private void compactIfSparse() {
+        if (deleted < MIN_COMPACT_DELETED || deleted * 4 < rows) {
+            return;
+        }
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] == null) {
+                continue;
+            }
+            if (live != row) {
+                System.arraycopy(vectors, row * dimensions, vectors, live * dimensions, dimensions);
+                ids[live] = ids[row];
+                payloads[live] = payloads[row];
+            }
+            rowById.put(ids[live], live);
+            live++;
+        }
+        Arrays.fill(ids, live, rows, null);
+        Arrays.fill(payloads, live, rows, null);
+        rows = live;
+        deleted = 0;
+        // Row numbers changed; rebuilt on the next approximate search
+        graph = null;
+    }
+
+    private record Scored(int node, float score) {
+    }
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed();
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score);
+
+    /**
+     * Hierarchical navigable small world graph over the rows of the index.
+     * Nodes are row numbers; {@code links[node][level]} holds the neighbor
+     * count followed by the neighbors.
+     */
+    private final class Hnsw {
+        private static final int M = 16;
+        private static final int M0 = 2 * M;
+        private static final int EF_CONSTRUCTION = 100;
+        private static final int EF_SEARCH = 128;
+
+        private final double levelFactor = 1 / Math.log(M);
+        // Fixed seed, so the same data always builds the same graph
+        private final SplittableRandom random = new SplittableRandom(42);
+        private int[][][] links = new int[ids.length][][];
+        private int entry = -1;
+        private int maxLevel = -1;
+        private int indexed;
+
+        void catchUp() {
+            if (links.length < rows) {
+                links = Arrays.copyOf(links, ids.length);
+            }
+            for (; indexed < rows; indexed++) {
+                if (ids[indexed] != null) {
+                    insert(indexed);
+                }
+            }
+        }
+
+        List<Hit> search(float[] q, int k) {
+            if (entry < 0) {
+                return List.of();
+            }
+            int current = entry;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedy(q, current, level);
+            }
+            List<Hit> hits = new ArrayList<>(k);
+            for (Scored candidate : searchLayer(q, current, Math.max(EF_SEARCH, k), 0)) {
+                if (ids[candidate.node()] != null) {
+                    hits.add(hit(candidate.node(), candidate.score()));
+                    if (hits.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return hits;
+        }
+
+        private void insert(int node) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[(l == 0 ? M0 : M) + 1];
+            }
+            if (entry < 0) {
+                entry = node;
+                maxLevel = level;
+                return;
+            }
+
+            float[] q = Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+            int current = entry;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedy(q, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Scored> candidates = searchLayer(q, current, EF_CONSTRUCTION, l);
+                int max = l == 0 ? M0 : M;
+                int connected = 0;
+                for (Scored candidate : candidates) {
+                    if (connected == max) {
+                        break;
+                    }
+                    link(node, candidate.node(), l, candidate.score());
+                    link(candidate.node(), node, l, candidate.score());
+                    connected++;
+                }
+                current = candidates.get(0).node();
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entry = node;
+            }
+        }
+
+        /**
+         * Adds {@code to} to the neighbors of {@code from}; when the list is
+         * full, replaces the least similar neighbor if {@code to} is closer.
+         */
+        private void link(int from, int to, int level, float score) {
+            int[] neighbors = links[from][level];
+            int count = neighbors[0];
+            if (count < neighbors.length - 1) {
+                neighbors[count + 1] = to;
+                neighbors[0] = count + 1;
+                return;
+            }
+            int offset = from * dimensions;
+            int worst = -1;
+            float worstScore = score;
+            for (int i = 1; i <= count; i++) {
+                float s = dot(vectors, neighbors[i] * dimensions, vectors, offset, dimensions);
+                if (s < worstScore) {
+                    worstScore = s;
+                    worst = i;
+                }
+            }
+            if (worst > 0) {
+                neighbors[worst] = to;
+            }
+        }
+
+        private int greedy(float[] q, int start, int level) {
+            int current = start;
+            float best = score(q, current);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                int[] neighbors = links[current][level];
+                for (int i = 1; i <= neighbors[0]; i++) {
+                    float s = score(q, neighbors[i]);
+                    if (s > best) {
+                        best = s;
+                        current = neighbors[i];
+                        improved = true;
+                    }
+                }
+            }
+            return current;
+        }
+
+        private List<Scored> searchLayer(float[] q, int start, int ef, int level) {
+            BitSet visited = new BitSet(rows);
+            PriorityQueue<Scored> candidates = new PriorityQueue<>(BEST_FIRST);
+            PriorityQueue<Scored> results = new PriorityQueue<>(WORST_FIRST);
+            Scored first = new Scored(start, score(q, start));
+            visited.set(start);
+            candidates.add(first);
+            results.add(first);
+
+            while (!candidates.isEmpty()) {
+                Scored candidate = candidates.poll();
+                if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                    break;
+                }
+                int[] neighbors = links[candidate.node()][level];
+                for (int i = 1; i <= neighbors[0]; i++) {
+                    int neighbor = neighbors[i];
+                    if (visited.get(neighbor)) {
+                        continue;
+                    }
+                    visited.set(neighbor);
+                    float s = score(q, neighbor);
+                    if (results.size() < ef || s > results.peek().score()) {
+                        Scored scored = new Scored(neighbor, s);
+                        candidates.add(scored);
+                        results.add(scored);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+            List<Scored> sorted = new ArrayList<>(results);
+            sorted.sort(BEST_FIRST);
+            return sorted;
+        }
+
+        private float score(float[] q, int node) {
+            return dot(q, vectors, node * dimensions, dimensions);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ai.nervemind.app.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Named, persistent {@link VectorIndex} collections.
+ *
+ * <p>
+ * Collections live in memory once loaded and are written to
+ * {@code <storage.databasePath>/vectors/<name>.vec} when {@link #save(String)}
+ * is called, so a workflow can maintain a collection incrementally across
+ * runs. A file holds the dimensions followed by every entry's ID, payload
+ * (as JSON) and normalized float32 vector; it is replaced atomically, so a
+ * crash during a save leaves the previous version intact.
+ * </p>
+ */
+@Service
+public class VectorIndexService {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final int MAGIC = 0x4E4D5649; // "NMVI"
+    private static final int VERSION = 1;
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Map<String, VectorIndex> collections = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the service.
+     *
+     * @param settingsService settings for the storage location
+     * @param objectMapper    mapper used for payloads
+     */
+    public VectorIndexService(SettingsServiceInterface settingsService, ObjectMapper objectMapper) {
+        this(Path.of(settingsService.getValue(SettingsDefaults.STORAGE_DATABASE_PATH, "./data"), "vectors"),
+                objectMapper);
+    }
+
+    VectorIndexService(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Gets a collection, loading it from disk or creating it if needed.
+     *
+     * @param name       the collection name (letters, digits, '-' and '_')
+     * @param dimensions the vector length the caller works with
+     * @return the collection
+     * @throws IllegalArgumentException if the name is invalid or the
+     *                                  collection has other dimensions
+     */
+    public VectorIndex collection(String name, int dimensions) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid vector collection name: " + name);
+        }
+        VectorIndex index = collections.computeIfAbsent(name, n -> load(n, dimensions));
+        if (index.dimensions() != dimensions) {
+            throw new IllegalArgumentException("Vector collection '" + name + "' has " + index.dimensions()
+                    + " dimensions, not " + dimensions);
+        }
+        return index;
+    }
+
+    /**
+     * Writes a loaded collection to disk.
+     *
+     * @param name the collection name
+     */
+    public void save(String name) {
+        VectorIndex index = collections.get(name);
+        if (index == null) {
+            return;
+        }
+        Path file = file(name);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, name, ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(index.dimensions());
+                    IOException[] failure = new IOException[1];
+                    index.forEach((id, vector, payload) -> {
+                        if (failure[0] != null) {
+                            return;
+                        }
+                        try {
+                            writeEntry(out, id, vector, payload);
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    });
+                    if (failure[0] != null) {
+                        throw failure[0];
+                    }
+                    out.writeBoolean(false);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                // Do not leave a partial index behind
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save vector collection '" + name + "'", e);
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, String id, float[] vector, Map<String, Object> payload)
+            throws IOException {
+        // Each entry is flagged, so the count need not be known up front
+        out.writeBoolean(true);
+        out.writeUTF(id);
+        byte[] json = objectMapper.writeValueAsBytes(payload);
+        out.writeInt(json.length);
+        out.write(json);
+        for (float value : vector) {
+            out.writeFloat(value);
+        }
+    }
+
+    private VectorIndex load(String name, int dimensions) {
+        Path file = file(name);
+        if (!Files.exists(file)) {
+            return new VectorIndex(dimensions);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a vector collection file: " + file);
+            }
+            VectorIndex index = new VectorIndex(in.readInt());
+            while (in.readBoolean()) {
+                String id = in.readUTF();
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                float[] vector = new float[index.dimensions()];
+                for (int d = 0; d < vector.length; d++) {
+                    vector[d] = in.readFloat();
+                }
+                index.upsert(id, vector, objectMapper.readValue(json, PAYLOAD_TYPE));
+            }
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load vector collection '" + name + "'", e);
+        }
+    }
+
+    private Path file(String name) {
+        return directory.resolve(name + ".vec");
+    }
+}
@@ -0,0 +1,7 @@
+-- V004__Node_Execution_Sequence.sql
+-- Number node runs within their execution, so a run still queued for writing
+-- can be matched to its row once written
+
+ALTER TABLE node_executions ADD COLUMN IF NOT EXISTS run_sequence BIGINT;
+
+COMMENT ON COLUMN node_executions.run_sequence IS 'Position of the run in its execution, in recording order';
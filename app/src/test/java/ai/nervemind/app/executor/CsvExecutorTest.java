@@ -0,0 +1,179 @@
+package ai.nervemind.app.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ai.nervemind.app.service.ExecutionLogger;
+import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.exception.NodeExecutionException;
+
+/**
+ * Unit tests for CsvExecutor.
+ *
+ * <p>
+ * Tests RFC 4180 parsing, the row limit of a full read, and streaming reads
+ * in row batches.
+ * </p>
+ */
+@DisplayName("CsvExecutor")
+class CsvExecutorTest {
+
+    private CsvExecutor executor;
+    private ExecutionService.ExecutionContext context;
+
+    @BeforeEach
+    void setUp() {
+        executor = new CsvExecutor();
+        context = mock(ExecutionService.ExecutionContext.class);
+        when(context.getExecutionId()).thenReturn(1L);
+        when(context.getExecutionLogger()).thenReturn(mock(ExecutionLogger.class));
+    }
+
+    private static Node csvNode(Map<String, Object> params) {
+        return new Node("csv-1", "csv", "CSV", new Node.Position(0.0, 0.0), params, null, false, null);
+    }
+
+    private Map<String, Object> read(Map<String, Object> params) {
+        Map<String, Object> all = new HashMap<>(params);
+        all.put("operation", "READ");
+        return executor.execute(csvNode(all), Map.of(), context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> output) {
+        return (List<Map<String, Object>>) output.get("rows");
+    }
+
+    @Nested
+    @DisplayName("Parsing")
+    class Parsing {
+
+        @Test
+        @DisplayName("should read quoted fields with delimiters, quotes and line breaks")
+        void shouldReadQuotedFields() {
+            Map<String, Object> output = read(Map.of("content",
+                    "id,note\r\n1,\"a, b\"\r\n2,\"say \"\"hi\"\"\"\r\n3,\"two\nlines\"\r\n"));
+
+            assertThat(output).containsEntry("columns", List.of("id", "note")).containsEntry("rowCount", 3);
+            assertThat(rows(output)).extracting(row -> row.get("note"))
+                    .containsExactly("a, b", "say \"hi\"", "two\nlines");
+        }
+
+        @Test
+        @DisplayName("should skip a byte order mark and pad short rows")
+        void shouldSkipBomAndPadRows() {
+            Map<String, Object> output = read(Map.of("content", "\uFEFFa;b;c\n1;2\n\n4;5;6;7\n", "delimiter", ";"));
+
+            assertThat(output.get("columns")).isEqualTo(List.of("a", "b", "c"));
+            assertThat(rows(output)).containsExactly(
+                    Map.of("a", "1", "b", "2", "c", ""),
+                    Map.of("a", "4", "b", "5", "c", "6"));
+        }
+
+        @Test
+        @DisplayName("should name columns when there is no header")
+        void shouldNameColumnsWithoutHeader() {
+            Map<String, Object> output = read(Map.of("content", "x,y\n", "hasHeader", false));
+
+            assertThat(output.get("columns")).isEqualTo(List.of("col0", "col1"));
+            assertThat(rows(output)).containsExactly(Map.of("col0", "x", "col1", "y"));
+        }
+
+        @Test
+        @DisplayName("should reject an unterminated quoted field")
+        void shouldRejectUnterminatedQuote() {
+            assertThatThrownBy(() -> read(Map.of("content", "a,b\n1,\"open\n2,3\n")))
+                    .isInstanceOf(NodeExecutionException.class)
+                    .hasMessageContaining("line 2");
+        }
+    }
+
+    @Nested
+    @DisplayName("Row limit")
+    class RowLimit {
+
+        @Test
+        @DisplayName("should flag reads that stop at the row limit")
+        void shouldFlagTruncatedReads() {
+            StringBuilder csv = new StringBuilder("n\n");
+            for (int i = 0; i < 50_001; i++) {
+                csv.append(i).append('\n');
+            }
+
+            Map<String, Object> output = read(Map.of("content", csv.toString()));
+
+            assertThat(output).containsEntry("rowCount", 50_000).containsEntry("truncated", true);
+        }
+
+        @Test
+        @DisplayName("should not flag reads within the row limit")
+        void shouldNotFlagCompleteReads() {
+            assertThat(read(Map.of("content", "n\n1\n"))).containsEntry("truncated", false);
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming")
+    class Streaming {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("should read a file in row batches")
+        @SuppressWarnings("unchecked")
+        void shouldReadFileInBatches() throws IOException {
+            StringBuilder csv = new StringBuilder("id,name\n");
+            for (int i = 0; i < 2_500; i++) {
+                csv.append(i).append(",\"row ").append(i).append("\"\n");
+            }
+            Path file = tempDir.resolve("rows.csv");
+            Files.writeString(file, csv);
+
+            Map<String, Object> output = read(Map.of("filePath", file.toString(), "stream", true));
+
+            assertThat(output).containsEntry("columns", List.of("id", "name")).containsEntry("streaming", true);
+            assertThat(output).doesNotContainKey("rows");
+            try (CsvBatches batches = (CsvBatches) output.get("batches")) {
+                Map<String, Object> first = (Map<String, Object>) batches.next();
+                Map<String, Object> second = (Map<String, Object>) batches.next();
+                Map<String, Object> third = (Map<String, Object>) batches.next();
+
+                assertThat(first).containsEntry("batchIndex", 0).containsEntry("rowCount", 1_000);
+                assertThat(rows(second).getFirst()).containsEntry("id", "1000").containsEntry("name", "row 1000");
+                assertThat(third).containsEntry("rowOffset", 2_000L).containsEntry("rowCount", 500);
+                assertThat(batches.next()).isNull();
+            }
+        }
+
+        @Test
+        @DisplayName("should honour the batch size")
+        @SuppressWarnings("unchecked")
+        void shouldHonourBatchSize() throws IOException {
+            Map<String, Object> output = read(Map.of("content", "n\n1\n2\n3\n", "stream", true, "batchSize", 2));
+
+            try (CsvBatches batches = (CsvBatches) output.get("batches")) {
+                assertThat(batches.next()).isNotNull();
+                assertThat((Map<String, Object>) batches.next()).containsEntry("rowCount", 1);
+                assertThat(batches.next()).isNull();
+            }
+            assertThat(output).containsEntry("batchSize", 2);
+        }
+    }
+}
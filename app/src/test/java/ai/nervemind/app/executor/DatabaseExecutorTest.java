@@ -0,0 +1,280 @@
+package ai.nervemind.app.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import ai.nervemind.app.service.DatabaseConnectionPools;
+import ai.nervemind.app.service.ExecutionLogger;
+import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.StreamedItems;
+import ai.nervemind.app.service.Table;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.exception.NodeExecutionException;
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Unit tests for DatabaseExecutor.
+ *
+ * <p>
+ * Runs against an in-memory H2 database to test pooled connections,
+ * streaming query results and bulk writes.
+ * </p>
+ */
+@DisplayName("DatabaseExecutor")
+class DatabaseExecutorTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:database-executor-test";
+
+    private DatabaseConnectionPools pools;
+    private DatabaseExecutor executor;
+    private ExecutionService.ExecutionContext context;
+
+    @BeforeEach
+    void setUp() {
+        SettingsServiceInterface settings = mock(SettingsServiceInterface.class);
+        when(settings.getInt(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArgument(1));
+        pools = new DatabaseConnectionPools(settings);
+        executor = new DatabaseExecutor(pools);
+        context = mock(ExecutionService.ExecutionContext.class);
+        when(context.getExecutionId()).thenReturn(1L);
+        when(context.getExecutionLogger()).thenReturn(mock(ExecutionLogger.class));
+
+        run("DDL", "CREATE TABLE items (id INT PRIMARY KEY, name VARCHAR(20))", Map.of());
+        run("INSERT", "INSERT INTO items SELECT x, 'item-' || x FROM SYSTEM_RANGE(1, 25)", Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.close();
+    }
+
+    private Map<String, Object> run(String operation, String query, Map<String, Object> extra) {
+        return run(operation, query, extra, Map.of());
+    }
+
+    private Map<String, Object> run(String operation, String query, Map<String, Object> extra,
+            Map<String, Object> input) {
+        Map<String, Object> params = new HashMap<>(extra);
+        params.put("jdbcUrl", JDBC_URL);
+        params.put("operation", operation);
+        if (query != null) {
+            params.put("query", query);
+        }
+        Node node = new Node("db-1", "database", "Database", new Node.Position(0.0, 0.0), params, null, false,
+                null);
+        return executor.execute(node, input, context);
+    }
+
+    @Nested
+    @DisplayName("Pooling")
+    class Pooling {
+
+        @Test
+        @DisplayName("should keep using one pool across executions")
+        void shouldReusePool() {
+            Map<String, Object> output = run("SELECT", "SELECT name FROM items WHERE id = ?",
+                    Map.of("parameters", "3"));
+
+            assertThat(output).containsEntry("rowCount", 1).containsEntry("success", true);
+            assertThat(output.get("rows")).isInstanceOf(Table.class);
+            assertThat(pools.stats()).singleElement().satisfies(stats -> {
+                assertThat(stats.url()).isEqualTo(JDBC_URL);
+                assertThat(stats.active()).isZero();
+            });
+        }
+
+        @Test
+        @DisplayName("should cap the rows of a full read")
+        void shouldCapRows() {
+            Map<String, Object> output = run("SELECT", "SELECT * FROM items ORDER BY id", Map.of("maxRows", 10));
+
+            assertThat(output).containsEntry("rowCount", 10);
+        }
+
+        @Test
+        @DisplayName("should take the password from the node's credential")
+        void shouldUseCredentialPassword() {
+            run("DDL", "CREATE USER reader PASSWORD 'secret' ADMIN", Map.of());
+            when(context.getDecryptedCredential(7L)).thenReturn("secret");
+            Map<String, Object> params = new HashMap<>(Map.of(
+                    "jdbcUrl", JDBC_URL,
+                    "operation", "SELECT",
+                    "query", "SELECT name FROM items WHERE id = 1",
+                    "username", "reader",
+                    "password", "ignored"));
+            Node node = new Node("db-1", "database", "Database", new Node.Position(0.0, 0.0), params, 7L, false,
+                    null);
+
+            Map<String, Object> output = executor.execute(node, Map.of(), context);
+
+            assertThat(output).containsEntry("rowCount", 1).containsEntry("success", true);
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming")
+    class Streaming {
+
+        @Test
+        @DisplayName("should read all rows in batches")
+        @SuppressWarnings("unchecked")
+        void shouldReadBatches() throws IOException {
+            Map<String, Object> output = run("SELECT", "SELECT * FROM items ORDER BY id",
+                    Map.of("stream", true, "batchSize", 10, "fetchSize", 4));
+
+            List<Map<String, Object>> batches = new ArrayList<>();
+            try (StreamedItems items = (StreamedItems) output.get("batches")) {
+                Object batch;
+                while ((batch = items.next()) != null) {
+                    batches.add((Map<String, Object>) batch);
+                }
+            }
+
+            assertThat(batches).extracting(batch -> batch.get("rowCount")).containsExactly(10, 10, 5);
+            assertThat(batches).extracting(batch -> batch.get("rowOffset")).containsExactly(0L, 10L, 20L);
+            Table last = (Table) batches.getLast().get("rows");
+            assertThat(last.getLast()).containsEntry("ID", 25).containsEntry("NAME", "item-25");
+            assertThat(pools.stats()).singleElement().satisfies(stats -> assertThat(stats.active()).isZero());
+        }
+
+        @Test
+        @DisplayName("should return the connection when the loop stops early")
+        void shouldReturnConnectionOnClose() throws IOException {
+            Map<String, Object> output = run("SELECT", "SELECT * FROM items",
+                    Map.of("stream", true, "batchSize", 5));
+
+            StreamedItems items = (StreamedItems) output.get("batches");
+            assertThat(items.next()).isNotNull();
+            assertThat(pools.stats()).singleElement().satisfies(stats -> assertThat(stats.active()).isOne());
+            items.close();
+
+            assertThat(items.next()).isNull();
+            assertThat(pools.stats()).singleElement().satisfies(stats -> assertThat(stats.active()).isZero());
+        }
+
+        @Test
+        @DisplayName("should reject streaming for updates")
+        void shouldRejectStreamedUpdate() {
+            assertThatThrownBy(() -> run("DELETE", "DELETE FROM items", Map.of("stream", true)))
+                    .isInstanceOf(NodeExecutionException.class)
+                    .hasMessageContaining("only supported for SELECT");
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk writes")
+    class BulkWrites {
+
+        private List<Map<String, Object>> newRows(int from, int count) {
+            return IntStream.range(from, from + count)
+                    .mapToObj(id -> Map.<String, Object>of("id", id, "name", "new-" + id))
+                    .toList();
+        }
+
+        private Object count(String where) {
+            return ((Table) run("SELECT", "SELECT COUNT(*) AS n FROM items WHERE " + where, Map.of())
+                    .get("rows")).getFirst().get("N");
+        }
+
+        @Test
+        @DisplayName("should insert rows in batches")
+        void shouldInsertInBatches() {
+            Map<String, Object> output = run("BULK", null,
+                    Map.of("table", "items", "batchSize", 1000, "transactionSize", 2000),
+                    Map.of("rows", newRows(100, 2500)));
+
+            assertThat(output).containsEntry("rowsWritten", 2500L).containsEntry("rowCount", 2500L)
+                    .containsEntry("batches", 3).containsEntry("errors", List.of())
+                    .containsEntry("success", true);
+            assertThat(count("id >= 100")).isEqualTo(2500L);
+        }
+
+        @Test
+        @DisplayName("should insert the columns of a table")
+        void shouldInsertTable() {
+            Table rows = Table.builder(List.of("id", "name", "ignored"))
+                    .add(200, "first", true)
+                    .add(201, null, false)
+                    .build();
+
+            Map<String, Object> output = run("BULK", null, Map.of("table", "items", "columns", "id, name"),
+                    Map.of("rows", rows));
+
+            assertThat(output).containsEntry("rowsWritten", 2L);
+            assertThat(count("id = 201 AND name IS NULL")).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("should update existing rows when upserting")
+        void shouldUpsert() {
+            Map<String, Object> output = run("BULK", null,
+                    Map.of("table", "items", "upsert", true, "keyColumns", "id"),
+                    Map.of("rows", newRows(24, 4)));
+
+            assertThat(output).containsEntry("rowsWritten", 4L);
+            assertThat(count("name LIKE 'new-%'")).isEqualTo(4L);
+            assertThat(count("1 = 1")).isEqualTo(27L);
+        }
+
+        @Test
+        @DisplayName("should report failed batches and keep the others")
+        @SuppressWarnings("unchecked")
+        void shouldReportFailedBatches() {
+            List<Map<String, Object>> rows = new ArrayList<>(newRows(100, 2));
+            rows.addAll(newRows(5, 1));
+            rows.addAll(newRows(102, 3));
+
+            Map<String, Object> output = run("BULK", null,
+                    Map.of("table", "items", "batchSize", 2, "continueOnError", true),
+                    Map.of("rows", rows));
+
+            assertThat(output).containsEntry("rowsWritten", 4L).containsEntry("batches", 3)
+                    .containsEntry("success", false);
+            assertThat((List<Map<String, Object>>) output.get("errors")).singleElement()
+                    .satisfies(error -> assertThat(error).containsEntry("batchIndex", 1)
+                            .containsEntry("rowOffset", 2L).containsEntry("rowCount", 2));
+            assertThat(count("id >= 100")).isEqualTo(4L);
+            assertThat(count("id = 102")).isEqualTo(0L);
+        }
+
+        @Test
+        @DisplayName("should roll back the failed transaction and stop")
+        void shouldStopOnFailure() {
+            List<Map<String, Object>> rows = new ArrayList<>(newRows(100, 3));
+            rows.addAll(newRows(5, 1));
+
+            assertThatThrownBy(() -> run("BULK", null,
+                    Map.of("table", "items", "batchSize", 2, "transactionSize", 2),
+                    Map.of("rows", rows)))
+                    .isInstanceOf(NodeExecutionException.class)
+                    .hasMessageContaining("Batch 1 (rows 2-3) failed after 2 rows were committed");
+            assertThat(count("id >= 100")).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("should reject names that are not identifiers")
+        void shouldRejectInvalidNames() {
+            assertThatThrownBy(() -> run("BULK", null, Map.of("table", "items; DROP TABLE items"),
+                    Map.of("rows", newRows(100, 1))))
+                    .isInstanceOf(NodeExecutionException.class)
+                    .hasMessageContaining("Invalid table or column name");
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ai.nervemind.app.executor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.Table;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -284,4 +286,71 @@ class FilterExecutorTest {
                                         .containsKey("items");
                 }
         }
+
+        @Nested
+        @DisplayName("Tables")
+        class Tables {
+
+                private Table products() {
+                        return Table.builder(List.of("name", "status", "price"))
+                                        .add("Lamp", "active", 25)
+                                        .add("Desk", "inactive", 180)
+                                        .add("Chair", "active", 95)
+                                        .add("Rug", null, null)
+                                        .add("Shelf", "active", 140)
+                                        .build();
+                }
+
+                private List<?> filter(Object items, List<Map<String, Object>> conditions, String combineWith,
+                                boolean keepMatching) {
+                        Node node = createFilterNode("items", "filtered", conditions, combineWith, keepMatching);
+                        return (List<?>) filterExecutor.execute(node, Map.of("items", items), mockContext)
+                                        .get("filtered");
+                }
+
+                @Test
+                @DisplayName("Should filter table columns and return a table")
+                void shouldFilterTableColumns() {
+                        List<?> filtered = filter(products(), List.of(
+                                        condition("status", "equals", "active"),
+                                        condition("price", "gt", 50)), "and", true);
+
+                        assertThat(filtered).isInstanceOf(Table.class);
+                        assertThat(filtered).extracting(row -> ((Map<?, ?>) row).get("name"))
+                                        .containsExactly("Chair", "Shelf");
+                }
+
+                @Test
+                @DisplayName("Should match filtering the same rows as maps")
+                void shouldMatchRowFiltering() {
+                        Table table = products();
+                        List<Map<String, Object>> maps = table.stream().<Map<String, Object>>map(HashMap::new)
+                                        .toList();
+                        List<List<Map<String, Object>>> cases = List.of(
+                                        List.of(condition("price", "lte", "95")),
+                                        List.of(condition("name", "contains", "e"), condition("price", "gte", 140)),
+                                        List.of(condition("status", "isnull", null)),
+                                        List.of(condition("status", "in", Arrays.asList("inactive", "gone"))));
+
+                        for (List<Map<String, Object>> conditions : cases) {
+                                for (String combineWith : List.of("and", "or")) {
+                                        for (boolean keepMatching : List.of(true, false)) {
+                                                assertThat(filter(table, conditions, combineWith, keepMatching))
+                                                                .as("%s %s %s", conditions, combineWith, keepMatching)
+                                                                .isEqualTo(filter(maps, conditions, combineWith,
+                                                                                keepMatching));
+                                        }
+                                }
+                        }
+                }
+
+                @Test
+                @DisplayName("Should filter nested fields row by row")
+                void shouldFallBackForUnknownFields() {
+                        List<?> filtered = filter(products(), List.of(condition("details.color", "isnull", null)),
+                                        "and", true);
+
+                        assertThat(filtered).hasSize(5).isNotInstanceOf(Table.class);
+                }
+        }
 }
@@ -10,12 +10,19 @@ import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.put;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.AfterEach;
@@ -23,14 +30,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 
 import ai.nervemind.app.service.ExecutionLogger;
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.HttpResponseCache;
+import ai.nervemind.app.service.SettingsDefaults;
+import ai.nervemind.app.service.SharedHttpClient;
 import ai.nervemind.common.domain.Node;
 import ai.nervemind.common.dto.WorkflowDTO;
+import ai.nervemind.common.exception.NodeExecutionException;
 import ai.nervemind.common.service.SettingsServiceInterface;
 
 /**
@@ -59,7 +71,15 @@ class HttpRequestExecutorTest {
         SettingsServiceInterface mockSettings = mock(SettingsServiceInterface.class);
         when(mockSettings.getInt(anyString(), any(Integer.class))).thenAnswer(invocation -> invocation.getArgument(1));
 
-        httpRequestExecutor = new HttpRequestExecutor(mockSettings);
+        // Response cache with its defaults, kept in memory
+        SettingsServiceInterface cacheSettings = mock(SettingsServiceInterface.class);
+        when(cacheSettings.getValue(anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(cacheSettings.getLong(anyString(), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(cacheSettings.getLong(eq(SettingsDefaults.HTTP_CACHE_DISK_SIZE), anyLong())).thenReturn(0L);
+        when(cacheSettings.getBoolean(anyString(), anyBoolean())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        httpRequestExecutor = new HttpRequestExecutor(mockSettings, new SharedHttpClient(mockSettings),
+                new HttpResponseCache(cacheSettings));
 
         // Setup mock context
         mockContext = mock(ExecutionService.ExecutionContext.class);
@@ -104,6 +124,14 @@ class HttpRequestExecutorTest {
                 null);
     }
 
+    private Node createNode(String path, Map<String, Object> extra) {
+        Node node = createHttpNode(wireMockServer.baseUrl() + path, "GET");
+        Map<String, Object> params = new HashMap<>(node.parameters());
+        params.putAll(extra);
+        return new Node(node.id(), node.type(), node.name(), node.position(), params,
+                node.credentialId(), node.disabled(), node.notes());
+    }
+
     @Nested
     @DisplayName("GET Requests")
     class GetRequests {
@@ -367,4 +395,180 @@ class HttpRequestExecutorTest {
             wireMockServer.verify(getRequestedFor(urlEqualTo("/api/default")));
         }
     }
+
+    @Nested
+    @DisplayName("Response Modes")
+    class ResponseModes {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("Should stream file mode body to disk")
+        void shouldStreamToFile() throws Exception {
+            wireMockServer.stubFor(get(urlEqualTo("/download"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withBody("a,b\n1,2\n")));
+            Path target = tempDir.resolve("out/data.csv");
+
+            Map<String, Object> result = httpRequestExecutor.execute(
+                    createNode("/download", Map.of("responseMode", "file", "filePath", target.toString())),
+                    new HashMap<>(), mockContext);
+
+            assertThat(result).containsEntry("filePath", target.toString())
+                    .containsEntry("size", 8L)
+                    .doesNotContainKey("body");
+            assertThat(Files.readString(target)).isEqualTo("a,b\n1,2\n");
+        }
+
+        @Test
+        @DisplayName("Should use a temporary file of the execution when no path is given")
+        void shouldUseTemporaryFile() throws Exception {
+            wireMockServer.stubFor(get(urlEqualTo("/download"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withBody("payload")));
+            Path temporary = tempDir.resolve("download.tmp");
+            when(mockContext.createTempFile(anyString(), anyString())).thenReturn(temporary);
+
+            Map<String, Object> result = httpRequestExecutor.execute(
+                    createNode("/download", Map.of("responseMode", "file")), new HashMap<>(), mockContext);
+
+            assertThat(result).containsEntry("filePath", temporary.toString());
+            assertThat(Files.readString(temporary)).isEqualTo("payload");
+        }
+
+        @Test
+        @DisplayName("Should return raw bytes in bytes mode")
+        void shouldReturnBytes() {
+            byte[] payload = { 0, 1, 2, (byte) 0xFF };
+            wireMockServer.stubFor(get(urlEqualTo("/binary"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withBody(payload)));
+
+            Map<String, Object> result = httpRequestExecutor.execute(
+                    createNode("/binary", Map.of("responseMode", "bytes")), new HashMap<>(), mockContext);
+
+            assertThat((byte[]) result.get("body")).containsExactly(payload);
+            assertThat(result).containsEntry("size", 4L);
+        }
+
+        @Test
+        @DisplayName("Should parse JSON straight from the stream in json mode")
+        void shouldParseJson() {
+            wireMockServer.stubFor(get(urlEqualTo("/api/json"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withBody("{\"items\": [1, 2, 3]}")));
+
+            Map<String, Object> result = httpRequestExecutor.execute(
+                    createNode("/api/json", Map.of("responseMode", "json")), new HashMap<>(), mockContext);
+
+            assertThat(result).doesNotContainKey("body");
+            assertThat(result.get("json")).isEqualTo(Map.of("items", List.of(1, 2, 3)));
+        }
+
+        @Test
+        @DisplayName("Should give null JSON for an empty successful response in json mode")
+        void shouldAcceptEmptyJsonBody() {
+            wireMockServer.stubFor(get(urlEqualTo("/api/empty"))
+                    .willReturn(aResponse().withStatus(204)));
+            wireMockServer.stubFor(get(urlEqualTo("/api/blank"))
+                    .willReturn(aResponse().withStatus(200).withHeader("Content-Length", "0")));
+
+            Map<String, Object> noContent = httpRequestExecutor.execute(
+                    createNode("/api/empty", Map.of("responseMode", "json")), new HashMap<>(), mockContext);
+            Map<String, Object> blank = httpRequestExecutor.execute(
+                    createNode("/api/blank", Map.of("responseMode", "json")), new HashMap<>(), mockContext);
+
+            assertThat(noContent).containsEntry("statusCode", 204).containsEntry("success", true)
+                    .containsEntry("json", null).containsEntry("size", 0L);
+            assertThat(blank).containsEntry("success", true).containsEntry("json", null);
+        }
+
+        @Test
+        @DisplayName("Should fail when the body exceeds maxResponseSize")
+        void shouldEnforceMaxResponseSize() {
+            wireMockServer.stubFor(get(urlEqualTo("/large"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withBody("x".repeat(1024))));
+            Node node = createNode("/large", Map.of("maxResponseSize", 100));
+
+            assertThatThrownBy(() -> httpRequestExecutor.execute(node, new HashMap<>(), mockContext))
+                    .isInstanceOf(NodeExecutionException.class)
+                    .hasMessageContaining("maxResponseSize of 100 bytes");
+        }
+
+        @Test
+        @DisplayName("Should reject an unknown response mode")
+        void shouldRejectUnknownMode() {
+            Node node = createNode("/any", Map.of("responseMode", "xml"));
+
+            assertThatThrownBy(() -> httpRequestExecutor.execute(node, new HashMap<>(), mockContext))
+                    .isInstanceOf(NodeExecutionException.class)
+                    .hasMessageContaining("Unknown responseMode 'xml'");
+        }
+    }
+
+    @Nested
+    @DisplayName("Caching")
+    class Caching {
+
+        @Test
+        @DisplayName("Should serve repeated GETs from the cache when enabled")
+        void shouldServeFromCache() {
+            wireMockServer.stubFor(get(urlEqualTo("/api/config"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Cache-Control", "max-age=60")
+                            .withBody("{\"mode\": \"on\"}")));
+            Node node = createNode("/api/config", Map.of("cache", true));
+
+            Map<String, Object> first = httpRequestExecutor.execute(node, new HashMap<>(), mockContext);
+            Map<String, Object> second = httpRequestExecutor.execute(node, new HashMap<>(), mockContext);
+
+            assertThat(first).containsEntry("cache", "miss");
+            assertThat(second).containsEntry("cache", "hit")
+                    .containsEntry("statusCode", 200)
+                    .containsEntry("body", "{\"mode\": \"on\"}")
+                    .containsKey("json");
+            wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/config")));
+        }
+
+        @Test
+        @DisplayName("Should apply the node TTL when the server sends no caching headers")
+        void shouldApplyNodeTtl() {
+            wireMockServer.stubFor(get(urlEqualTo("/api/weather"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withBody("sunny")));
+            Node node = createNode("/api/weather", Map.of("cache", true, "cacheTtl", 60));
+
+            httpRequestExecutor.execute(node, new HashMap<>(), mockContext);
+            Map<String, Object> second = httpRequestExecutor.execute(node, new HashMap<>(), mockContext);
+
+            assertThat(second).containsEntry("cache", "hit");
+            wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/weather")));
+        }
+
+        @Test
+        @DisplayName("Should always send the request when caching is not turned on")
+        void shouldNotCacheByDefault() {
+            wireMockServer.stubFor(get(urlEqualTo("/api/config"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Cache-Control", "max-age=60")
+                            .withBody("OK")));
+            Node node = createHttpNode(wireMockServer.baseUrl() + "/api/config", "GET");
+
+            httpRequestExecutor.execute(node, new HashMap<>(), mockContext);
+            Map<String, Object> second = httpRequestExecutor.execute(node, new HashMap<>(), mockContext);
+
+            assertThat(second).doesNotContainKey("cache");
+            wireMockServer.verify(2, getRequestedFor(urlEqualTo("/api/config")));
+        }
+    }
 }
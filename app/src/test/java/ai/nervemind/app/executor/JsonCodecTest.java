@@ -0,0 +1,96 @@
+package ai.nervemind.app.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for JsonCodec.
+ */
+@DisplayName("JsonCodec")
+class JsonCodecTest {
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should write nested request bodies")
+    void shouldWriteRequestBodies() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", "gpt-4o");
+        body.put("messages", List.of(Map.of("role", "user", "content", "Say \"hi\"\n\tplease")));
+        body.put("temperature", 0.5);
+        body.put("max_tokens", 100);
+        body.put("stream", false);
+        body.put("stop", null);
+        body.put("vector", new float[] { 1.5f, -2 });
+
+        assertThat(JsonCodec.writeString(body)).isEqualTo("{\"model\":\"gpt-4o\","
+                + "\"messages\":[{\"role\":\"user\",\"content\":\"Say \\\"hi\\\"\\n\\tplease\"}],"
+                + "\"temperature\":0.5,\"max_tokens\":100,\"stream\":false,\"stop\":null,"
+                + "\"vector\":[1.5,-2.0]}");
+        assertThat(JsonCodec.readMap(JsonCodec.writeString(body))).containsEntry("max_tokens", 100);
+    }
+
+    @Test
+    @DisplayName("should read OpenAI embeddings and usage")
+    void shouldReadOpenAiEmbeddings() throws IOException {
+        JsonCodec.Embeddings embeddings = JsonCodec.readEmbeddings(stream("""
+                {"object": "list",
+                 "data": [
+                   {"object": "embedding", "index": 0, "embedding": [0.25, -1, 3.5e-2]},
+                   {"object": "embedding", "index": 1, "embedding": [1, 2, 3]}
+                 ],
+                 "model": "text-embedding-3-small",
+                 "usage": {"prompt_tokens": 8, "total_tokens": 8}}"""));
+
+        assertThat(embeddings.vectors()).containsExactly(new float[] { 0.25f, -1, 0.035f }, new float[] { 1, 2, 3 });
+        assertThat(embeddings.usage()).containsEntry("prompt_tokens", 8);
+    }
+
+    @Test
+    @DisplayName("should read batch and single Ollama embeddings")
+    void shouldReadOllamaEmbeddings() throws IOException {
+        JsonCodec.Embeddings batch = JsonCodec.readEmbeddings(stream("""
+                {"model": "nomic-embed-text", "embeddings": [[1, 2], [3, 4]], "total_duration": 12}"""));
+        JsonCodec.Embeddings single = JsonCodec.readEmbeddings(stream("{\"embedding\": [5, 6]}"));
+
+        assertThat(batch.vectors()).containsExactly(new float[] { 1, 2 }, new float[] { 3, 4 });
+        assertThat(batch.usage()).isNull();
+        assertThat(single.vectors()).containsExactly(new float[] { 5, 6 });
+    }
+
+    @Test
+    @DisplayName("should grow vectors longer than the initial capacity")
+    void shouldReadLongVectors() throws IOException {
+        StringBuilder json = new StringBuilder("{\"embedding\": [0");
+        for (int i = 1; i < 3072; i++) {
+            json.append(',').append(i);
+        }
+        json.append("]}");
+
+        float[] vector = JsonCodec.readEmbeddings(stream(json.toString())).vectors().getFirst();
+
+        assertThat(vector).hasSize(3072);
+        assertThat(vector[3071]).isEqualTo(3071f);
+    }
+
+    @Test
+    @DisplayName("should reject vectors with non-numeric values")
+    void shouldRejectInvalidVectors() {
+        assertThatThrownBy(() -> JsonCodec.readEmbeddings(stream("{\"embedding\": [1, \"two\"]}")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("non-numeric");
+    }
+}
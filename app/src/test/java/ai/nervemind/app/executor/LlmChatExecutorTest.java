@@ -0,0 +1,378 @@
+package ai.nervemind.app.executor;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.notContaining;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import ai.nervemind.app.service.ExecutionLogger;
+import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.LlmResponseCache;
+import ai.nervemind.app.service.SharedHttpClient;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Unit tests for LlmChatExecutor with mocked provider responses using
+ * WireMock.
+ */
+class LlmChatExecutorTest {
+
+    private WireMockServer wireMockServer;
+    private LlmChatExecutor llmChatExecutor;
+    private ExecutionService.ExecutionContext mockContext;
+    private ExecutionLogger mockLogger;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        wireMockServer.start();
+
+        SettingsServiceInterface mockSettings = mock(SettingsServiceInterface.class);
+        when(mockSettings.getInt(anyString(), any(Integer.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        when(mockSettings.getBoolean(anyString(), anyBoolean())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(mockSettings.getValue(anyString(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        // Unstubbed getLong() gives a disk size of 0, so the response cache stays in memory
+        llmChatExecutor = new LlmChatExecutor(mockSettings, new SharedHttpClient(mockSettings),
+                new LlmResponseCache(mockSettings));
+
+        mockContext = mock(ExecutionService.ExecutionContext.class);
+        mockLogger = mock(ExecutionLogger.class);
+        when(mockContext.getExecutionId()).thenReturn(1L);
+        when(mockContext.getExecutionLogger()).thenReturn(mockLogger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    private Node createLlmNode(String provider, boolean stream) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("provider", provider);
+        params.put("model", "test-model");
+        params.put("apiKey", "test-key");
+        params.put("baseUrl", wireMockServer.baseUrl());
+        params.put("prompt", "Say hello");
+        params.put("stream", stream);
+        params.put("timeout", 10);
+
+        return new Node(
+                "llm-1",
+                "llmChat",
+                "LLM Chat",
+                new Node.Position(100.0, 100.0),
+                params,
+                null,
+                false,
+                null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> streaming(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("streaming");
+    }
+
+    @Nested
+    @DisplayName("Streaming")
+    class Streaming {
+
+        @Test
+        @DisplayName("Should assemble OpenAI server-sent events")
+        void shouldStreamOpenAI() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                    .withRequestBody(containing("\"stream\":true"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "text/event-stream")
+                            .withBody("""
+                                    data: {"choices":[{"delta":{"role":"assistant"}}]}
+
+                                    data: {"choices":[{"delta":{"content":"Hel"}}]}
+
+                                    : keep-alive
+
+                                    data: {"choices":[{"delta":{"content":"lo!"},"finish_reason":"stop"}]}
+
+                                    data: {"choices":[],"usage":{"prompt_tokens":5,"completion_tokens":2,"total_tokens":7}}
+
+                                    data: [DONE]
+
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("openai", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("success", true)
+                    .containsEntry("response", "Hello!")
+                    .containsEntry("finishReason", "stop")
+                    .containsEntry("usage", Map.of("promptTokens", 5, "completionTokens", 2, "totalTokens", 7));
+            assertThat(streaming(result))
+                    .containsEntry("chunks", 2)
+                    .containsKeys("timeToFirstTokenMs", "tokensPerSecond", "durationMs");
+        }
+
+        @Test
+        @DisplayName("Should publish partial text as progress entries")
+        @SuppressWarnings("unchecked")
+        void shouldPublishProgress() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "application/x-ndjson")
+                            .withBody("""
+                                    {"message":{"role":"assistant","content":"Hi"},"done":false}
+                                    {"message":{"role":"assistant","content":" there"},"done":false}
+                                    {"message":{"role":"assistant","content":""},"done":true,"done_reason":"stop","prompt_eval_count":4,"eval_count":2}
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("ollama", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("response", "Hi there")
+                    .containsEntry("finishReason", "stop")
+                    .containsEntry("usage", Map.of("promptTokens", 4, "completionTokens", 2, "totalTokens", 6));
+
+            ArgumentCaptor<Map<String, Object>> details = ArgumentCaptor.forClass(Map.class);
+            verify(mockLogger, atLeastOnce()).nodeProgress(eq("1"), eq("llm-1"), anyString(), details.capture());
+            List<Map<String, Object>> entries = details.getAllValues();
+            assertThat(entries.getFirst()).containsEntry("text", "Hi").containsKey("timeToFirstTokenMs");
+            assertThat(entries.getLast()).containsEntry("done", true).containsEntry("length", 8);
+            // The rest arrives within the progress interval and goes out with the final entry
+            assertThat(entries.stream().map(entry -> entry.get("text"))).containsExactly("Hi", " there");
+            verify(mockLogger).performance(eq("1"), eq("llm.timeToFirstToken"), anyLong(), eq("ms"));
+        }
+
+        @Test
+        @DisplayName("Should assemble Anthropic events")
+        void shouldStreamAnthropic() {
+            wireMockServer.stubFor(post(urlEqualTo("/messages"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "text/event-stream")
+                            .withBody("""
+                                    event: message_start
+                                    data: {"type":"message_start","message":{"usage":{"input_tokens":10,"output_tokens":1}}}
+
+                                    event: content_block_delta
+                                    data: {"type":"content_block_delta","index":0,"delta":{"type":"text_delta","text":"Hello"}}
+
+                                    event: ping
+                                    data: {"type":"ping"}
+
+                                    event: message_delta
+                                    data: {"type":"message_delta","delta":{"stop_reason":"end_turn"},"usage":{"output_tokens":3}}
+
+                                    event: message_stop
+                                    data: {"type":"message_stop"}
+
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("anthropic", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("response", "Hello")
+                    .containsEntry("finishReason", "end_turn")
+                    .containsEntry("usage", Map.of("promptTokens", 10, "completionTokens", 3, "totalTokens", 13));
+        }
+
+        @Test
+        @DisplayName("Should use the streaming Gemini endpoint")
+        void shouldStreamGemini() {
+            wireMockServer.stubFor(post(urlPathEqualTo("/models/test-model:streamGenerateContent"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "text/event-stream")
+                            .withBody("""
+                                    data: {"candidates":[{"content":{"parts":[{"text":"Hel"}]}}]}
+
+                                    data: {"candidates":[{"content":{"parts":[{"text":"lo"}]},"finishReason":"STOP"}],"usageMetadata":{"promptTokenCount":3,"candidatesTokenCount":2}}
+
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("google", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("response", "Hello")
+                    .containsEntry("finishReason", "stop");
+        }
+
+        @Test
+        @DisplayName("Should fall back to the regular parser for a JSON response")
+        void shouldFallBackForJsonResponse() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "application/json")
+                            .withBody("""
+                                    {"choices":[{"message":{"content":"Hello!"},"finish_reason":"stop"}]}
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("openai", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("success", true)
+                    .containsEntry("response", "Hello!")
+                    .doesNotContainKey("streaming");
+        }
+
+        @Test
+        @DisplayName("Should fail on an error event")
+        void shouldFailOnErrorEvent() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "text/event-stream")
+                            .withBody("""
+                                    data: {"choices":[{"delta":{"content":"Hel"}}]}
+
+                                    data: {"error":{"message":"overloaded"}}
+
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("openai", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("success", false)
+                    .containsEntry("error", "OpenAI API error: overloaded");
+        }
+
+        @Test
+        @DisplayName("Should stop reading when the execution is cancelled")
+        void shouldStopWhenCancelled() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "text/event-stream")
+                            .withBody("""
+                                    data: {"choices":[{"delta":{"content":"Hel"}}]}
+
+                                    """)));
+            when(mockContext.isCancelled()).thenReturn(true);
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("openai", true), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("response", "")
+                    .containsEntry("finishReason", "cancelled");
+        }
+    }
+
+    @Nested
+    @DisplayName("Non-streaming")
+    class NonStreaming {
+
+        @Test
+        @DisplayName("Should not request a stream when disabled")
+        void shouldNotStreamWhenDisabled() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "application/json")
+                            .withBody("""
+                                    {"choices":[{"message":{"content":"Hello!"},"finish_reason":"stop"}],
+                                     "usage":{"prompt_tokens":5,"completion_tokens":2,"total_tokens":7}}
+                                    """)));
+
+            Map<String, Object> result = llmChatExecutor.execute(createLlmNode("openai", false), Map.of(),
+                    mockContext);
+
+            assertThat(result)
+                    .containsEntry("response", "Hello!")
+                    .doesNotContainKey("streaming");
+            wireMockServer.verify(postRequestedFor(urlEqualTo("/chat/completions"))
+                    .withRequestBody(notContaining("\"stream\"")));
+            verify(mockLogger, never()).nodeProgress(anyString(), anyString(), anyString(),
+                    anyMap());
+        }
+    }
+
+    @Nested
+    @DisplayName("Caching")
+    class Caching {
+
+        private Node createNode(double temperature) {
+            Node node = createLlmNode("openai", false);
+            Map<String, Object> params = new HashMap<>(node.parameters());
+            params.put("temperature", temperature);
+            return new Node(node.id(), node.type(), node.name(), node.position(), params,
+                    node.credentialId(), node.disabled(), node.notes());
+        }
+
+        private void stubCompletion() {
+            wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "application/json")
+                            .withBody("""
+                                    {"choices":[{"message":{"content":"Hello!"},"finish_reason":"stop"}],
+                                     "usage":{"prompt_tokens":5,"completion_tokens":2,"total_tokens":7}}
+                                    """)));
+        }
+
+        @Test
+        @DisplayName("Should answer a repeated request at temperature 0 from the cache")
+        void shouldCacheDeterministicRequests() {
+            stubCompletion();
+
+            Map<String, Object> first = llmChatExecutor.execute(createNode(0.0), Map.of(), mockContext);
+            Map<String, Object> second = llmChatExecutor.execute(createNode(0.0), Map.of(), mockContext);
+
+            assertThat(first).containsEntry("cache", "miss");
+            assertThat(second)
+                    .containsEntry("cache", "hit")
+                    .containsEntry("response", "Hello!")
+                    .containsEntry("success", true);
+            wireMockServer.verify(1, postRequestedFor(urlEqualTo("/chat/completions")));
+        }
+
+        @Test
+        @DisplayName("Should call the provider every time when sampling")
+        void shouldNotCacheSampledRequests() {
+            stubCompletion();
+
+            llmChatExecutor.execute(createNode(0.7), Map.of(), mockContext);
+            Map<String, Object> second = llmChatExecutor.execute(createNode(0.7), Map.of(), mockContext);
+
+            assertThat(second).doesNotContainKey("cache");
+            wireMockServer.verify(2, postRequestedFor(urlEqualTo("/chat/completions")));
+        }
+    }
+}
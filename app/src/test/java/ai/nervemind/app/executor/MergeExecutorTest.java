@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Test;
 
 import ai.nervemind.app.service.ExecutionLogger;
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.JoinedInput;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -451,6 +452,42 @@ class MergeExecutorTest {
         }
     }
 
+    @Nested
+    @DisplayName("Scheduler Joins")
+    class SchedulerJoins {
+
+        private final JoinedInput joined = new JoinedInput(List.of(
+                Map.of("item", "first", "shared", 1),
+                Map.of("item", "second", "other", 2)));
+
+        @Test
+        @DisplayName("should append joined branches without waiting")
+        void shouldAppendJoinedBranches() {
+            Node node = createMergeNode("append", 2);
+
+            Map<String, Object> result = mergeExecutor.execute(node, joined, createContext(System.nanoTime()));
+
+            assertThat(result).containsEntry("_mergeMode", "append").containsEntry("_inputsReceived", 2);
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> merged = (List<Map<String, Object>>) result.get("merged");
+            assertThat(merged).containsExactlyElementsOf(joined.branches());
+        }
+
+        @Test
+        @DisplayName("should pass through merged branches with later branches winning")
+        void shouldPassThroughJoinedBranches() {
+            Node node = createExclusiveMergeNode("passThrough", 2);
+
+            Map<String, Object> result = mergeExecutor.execute(node, joined, createContext(System.nanoTime()));
+
+            assertThat(result)
+                    .containsEntry("item", "second")
+                    .containsEntry("shared", 1)
+                    .containsEntry("other", 2)
+                    .containsEntry("_exclusive", true);
+        }
+    }
+
     @Nested
     @DisplayName("Default Configuration")
     class DefaultConfiguration {
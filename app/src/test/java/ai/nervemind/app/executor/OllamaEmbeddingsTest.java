@@ -0,0 +1,105 @@
+package ai.nervemind.app.executor;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+
+/**
+ * Unit tests for OllamaEmbeddings against a mocked Ollama server.
+ */
+@DisplayName("OllamaEmbeddings")
+class OllamaEmbeddingsTest {
+
+    private WireMockServer server;
+    private OllamaEmbeddings embeddings;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        server.start();
+        embeddings = new OllamaEmbeddings(HttpClient.newHttpClient());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private String baseUrl(String path) {
+        // The legacy endpoint flag is remembered per base URL
+        return server.baseUrl() + path;
+    }
+
+    private static List<String> texts(int count) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            texts.add("text-" + i);
+        }
+        return texts;
+    }
+
+    @Test
+    @DisplayName("should embed a batch with a single request to /embed")
+    void shouldUseBatchEndpoint() throws Exception {
+        server.stubFor(post(urlEqualTo("/batch/embed")).willReturn(aResponse().withStatus(200)
+                .withBody("{\"embeddings\":[[1.0],[2.0],[3.0]]}")));
+
+        List<float[]> result = embeddings.embed(baseUrl("/batch"), "nomic-embed-text", texts(3), 10);
+
+        assertThat(result).containsExactly(new float[] { 1 }, new float[] { 2 }, new float[] { 3 });
+        server.verify(1, postRequestedFor(urlEqualTo("/batch/embed")));
+    }
+
+    @Test
+    @DisplayName("should fall back to one request per text and keep the input order")
+    void shouldFallBackToLegacyEndpoint() throws Exception {
+        server.stubFor(post(urlEqualTo("/legacy/embed"))
+                .willReturn(aResponse().withStatus(404).withBody("404 page not found")));
+        for (int i = 0; i < 10; i++) {
+            server.stubFor(post(urlEqualTo("/legacy/embeddings"))
+                    .withRequestBody(containing("\"text-" + i + "\""))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"embedding\":[" + i + ".0]}")
+                            .withFixedDelay(10 * (10 - i))));
+        }
+
+        List<float[]> result = embeddings.embed(baseUrl("/legacy"), "nomic-embed-text", texts(10), 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(result.get(i)).containsExactly(i);
+        }
+        server.verify(10, postRequestedFor(urlEqualTo("/legacy/embeddings")));
+    }
+
+    @Test
+    @DisplayName("should retry a batch that failed with a server error")
+    void shouldRetryServerErrors() throws Exception {
+        server.stubFor(post(urlEqualTo("/retry/embed")).inScenario("retry")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(503))
+                .willSetStateTo("recovered"));
+        server.stubFor(post(urlEqualTo("/retry/embed")).inScenario("retry")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withStatus(200).withBody("{\"embeddings\":[[4.0]]}")));
+
+        List<float[]> result = embeddings.embed(baseUrl("/retry"), "nomic-embed-text", texts(1), 10);
+
+        assertThat(result).containsExactly(new float[] { 4 });
+        server.verify(2, postRequestedFor(urlEqualTo("/retry/embed")));
+    }
+}
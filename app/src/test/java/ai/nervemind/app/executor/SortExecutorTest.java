@@ -3,6 +3,7 @@ package ai.nervemind.app.executor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.Table;
 import ai.nervemind.common.domain.Node;
 
 /**
@@ -309,4 +311,108 @@ class SortExecutorTest {
             assertThat(result).containsEntry("metadata", "preserved");
         }
     }
+
+    @Nested
+    @DisplayName("Tables")
+    class Tables {
+
+        private Table people() {
+            return Table.builder(List.of("name", "age", "joined"))
+                    .add("carol", 41, "2021-03-01")
+                    .add("Alice", 29, null)
+                    .add("bob", null, "2019-11-20")
+                    .add("alice", 35, "2020-06-15")
+                    .build();
+        }
+
+        private List<?> sort(Object items, String sortBy, String direction, String sortType) {
+            Node node = createSortNode("items", "sorted", sortBy, direction, sortType);
+            return (List<?>) sortExecutor.execute(node, Map.of("items", items), mockContext).get("sorted");
+        }
+
+        @Test
+        @DisplayName("Should sort a table by a column and return a table")
+        void shouldSortTableByColumn() {
+            List<?> sorted = sort(people(), "age", "desc", null);
+
+            assertThat(sorted).isInstanceOf(Table.class);
+            assertThat(sorted).extracting(row -> ((Map<?, ?>) row).get("name"))
+                    .containsExactly("bob", "carol", "alice", "Alice");
+        }
+
+        @Test
+        @DisplayName("Should match sorting the same rows as maps")
+        void shouldMatchRowSorting() {
+            Table table = people();
+            List<Map<String, Object>> maps = table.stream().<Map<String, Object>>map(HashMap::new).toList();
+
+            for (String sortBy : List.of("name", "age", "joined")) {
+                for (String direction : List.of("asc", "desc")) {
+                    for (String sortType : Arrays.asList(null, "string", "number", "date")) {
+                        assertThat(sort(table, sortBy, direction, sortType))
+                                .as("%s %s %s", sortBy, direction, sortType)
+                                .isEqualTo(sort(maps, sortBy, direction, sortType));
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Sort Keys and Limits")
+    class SortKeysAndLimits {
+
+        private final List<Map<String, Object>> orders = List.of(
+                Map.of("id", 1, "region", "west", "total", 20),
+                Map.of("id", 2, "region", "East", "total", 50),
+                Map.of("id", 3, "region", "west", "total", 70),
+                Map.of("id", 4, "region", "east", "total", 50),
+                Map.of("id", 5, "region", "north", "total", 10));
+
+        private List<?> sort(Map<String, Object> params) {
+            Map<String, Object> all = new HashMap<>(params);
+            all.put("inputField", "orders");
+            Node node = new Node("sort-1", "sort", "Sort Items", new Node.Position(100.0, 100.0), all, null,
+                    false, null);
+            return (List<?>) sortExecutor.execute(node, Map.of("orders", orders), mockContext).get("sorted");
+        }
+
+        @Test
+        @DisplayName("Should sort by several keys")
+        void shouldSortBySeveralKeys() {
+            List<?> sorted = sort(Map.of("sortKeys", List.of(
+                    Map.of("field", "region"),
+                    Map.of("field", "total", "direction", "desc"))));
+
+            assertThat(sorted).extracting(order -> ((Map<?, ?>) order).get("id"))
+                    .containsExactly(2, 4, 5, 3, 1);
+        }
+
+        @Test
+        @DisplayName("Should keep the input order of equal items")
+        void shouldBeStable() {
+            List<?> sorted = sort(Map.of("sortBy", "total", "direction", "desc"));
+
+            assertThat(sorted).extracting(order -> ((Map<?, ?>) order).get("id"))
+                    .containsExactly(3, 2, 4, 1, 5);
+        }
+
+        @Test
+        @DisplayName("Should keep only the first items with a limit")
+        void shouldLimitResult() {
+            List<?> sorted = sort(Map.of("sortBy", "total", "limit", 2));
+
+            assertThat(sorted).extracting(order -> ((Map<?, ?>) order).get("id")).containsExactly(5, 1);
+        }
+
+        @Test
+        @DisplayName("Should sort mixed numbers and text as strings")
+        void shouldSortMixedValuesAsStrings() {
+            Node node = createSortNode("items", "sorted", null, "asc", null);
+            List<?> sorted = (List<?>) sortExecutor
+                    .execute(node, Map.of("items", List.of(10, "b", 9, "A")), mockContext).get("sorted");
+
+            assertThat(sorted).containsExactly(10, 9, "A", "b");
+        }
+    }
 }
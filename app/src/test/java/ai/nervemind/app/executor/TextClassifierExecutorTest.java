@@ -0,0 +1,207 @@
+package ai.nervemind.app.executor;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import ai.nervemind.app.service.ExecutionService;
+import ai.nervemind.app.service.LlmResponseCache;
+import ai.nervemind.app.service.SharedHttpClient;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Unit tests for TextClassifierExecutor with mocked provider responses using
+ * WireMock.
+ */
+class TextClassifierExecutorTest {
+
+    private static final String BATCH_PROMPT = "Classify each of the following texts";
+    private static final String SINGLE_PROMPT = "Classify the following text:";
+
+    private WireMockServer wireMockServer;
+    private TextClassifierExecutor classifier;
+    private ExecutionService.ExecutionContext mockContext;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        wireMockServer.start();
+
+        SettingsServiceInterface mockSettings = mock(SettingsServiceInterface.class);
+        when(mockSettings.getInt(anyString(), any(Integer.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        when(mockSettings.getBoolean(anyString(), anyBoolean())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(mockSettings.getValue(anyString(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        classifier = new TextClassifierExecutor(mockSettings, new SharedHttpClient(mockSettings),
+                new LlmResponseCache(mockSettings));
+        mockContext = mock(ExecutionService.ExecutionContext.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    private Node createNode(Map<String, Object> extra) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("provider", "openai");
+        params.put("model", "test-model");
+        params.put("apiKey", "test-key");
+        params.put("baseUrl", wireMockServer.baseUrl());
+        params.put("categories", List.of("billing", "bug", "other"));
+        params.put("timeout", 10);
+        params.putAll(extra);
+
+        return new Node(
+                "classifier-1",
+                "textClassifier",
+                "Text Classifier",
+                new Node.Position(100.0, 100.0),
+                params,
+                null,
+                false,
+                null);
+    }
+
+    /**
+     * Stubs an OpenAI completion for requests whose body contains a marker.
+     */
+    private void stubCompletion(String marker, String content) {
+        String escaped = content.replace("\\", "\\\\").replace("\"", "\\\"");
+        wireMockServer.stubFor(post(urlEqualTo("/chat/completions"))
+                .withRequestBody(containing(marker))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"choices\":[{\"message\":{\"content\":\"" + escaped + "\"}}],"
+                                + "\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":5}}")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> results(Map<String, Object> output) {
+        return (List<Map<String, Object>>) output.get("results");
+    }
+
+    @Nested
+    @DisplayName("Single Text")
+    class SingleText {
+
+        @Test
+        @DisplayName("Should classify one text per request")
+        void shouldClassifyText() {
+            stubCompletion(SINGLE_PROMPT, "{\"category\": \"billing\", \"confidence\": 0.9}");
+
+            Map<String, Object> output = classifier.execute(createNode(Map.of("text", "I was charged twice")),
+                    Map.of(), mockContext);
+
+            assertThat(output)
+                    .containsEntry("success", true)
+                    .containsEntry("category", "billing")
+                    .containsEntry("confidence", 0.9)
+                    .containsEntry("inputText", "I was charged twice");
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Mode")
+    class BatchMode {
+
+        @Test
+        @DisplayName("Should classify several texts with one request")
+        void shouldClassifyBatch() {
+            stubCompletion(BATCH_PROMPT, """
+                    {"results": [
+                      {"index": 2, "category": "other", "confidence": 0.6},
+                      {"index": 0, "category": "billing", "confidence": 0.9},
+                      {"index": 1, "category": "bug", "confidence": 0.8}
+                    ]}""");
+
+            Map<String, Object> output = classifier.execute(createNode(Map.of(
+                    "texts", List.of("Charged twice", "App crashes", "Hello"))), Map.of(), mockContext);
+
+            assertThat(output)
+                    .containsEntry("success", true)
+                    .containsEntry("count", 3)
+                    .containsEntry("failedCount", 0L)
+                    .containsEntry("batches", 1)
+                    .containsEntry("retried", 0);
+            assertThat(results(output))
+                    .extracting(result -> result.get("category"))
+                    .containsExactly("billing", "bug", "other");
+            assertThat(results(output).get(1)).containsEntry("confidence", 0.8).containsEntry("index", 1);
+            wireMockServer.verify(1, postRequestedFor(urlEqualTo("/chat/completions"))
+                    .withRequestBody(matchingJsonPath("$.max_tokens", equalTo("1024"))));
+        }
+
+        @Test
+        @DisplayName("Should classify texts missing from the batch answer one by one")
+        void shouldRetryMissingItems() {
+            stubCompletion(BATCH_PROMPT, """
+                    {"results": [
+                      {"index": 0, "category": "billing", "confidence": 0.9},
+                      {"index": 1, "confidence": 0.4},
+                      {"index": 7, "category": "bug"}
+                    ]}""");
+            stubCompletion(SINGLE_PROMPT, "{\"category\": \"bug\", \"confidence\": 0.7}");
+
+            Map<String, Object> output = classifier.execute(createNode(Map.of(
+                    "texts", List.of("Charged twice", "App crashes"))), Map.of(), mockContext);
+
+            assertThat(output)
+                    .containsEntry("success", true)
+                    .containsEntry("batches", 2)
+                    .containsEntry("retried", 1)
+                    .containsEntry("usage", Map.of("prompt_tokens", 20L, "completion_tokens", 10L));
+            assertThat(results(output))
+                    .extracting(result -> result.get("category"))
+                    .containsExactly("billing", "bug");
+            assertThat(results(output).get(1)).containsEntry("confidence", 0.7);
+        }
+
+        @Test
+        @DisplayName("Should read the texts from a list in the input")
+        void shouldResolveTextsFromInput() {
+            stubCompletion(BATCH_PROMPT, """
+                    {"results": [
+                      {"index": 0, "category": "billing"},
+                      {"index": 1, "category": "bug"}
+                    ]}""");
+            stubCompletion(SINGLE_PROMPT, "{\"category\": \"other\"}");
+
+            Map<String, Object> output = classifier.execute(
+                    createNode(Map.of("texts", "${tickets}", "batchSize", 2, "concurrency", 2)),
+                    Map.of("tickets", List.of("Charged twice", "App crashes", "Hello", "")), mockContext);
+
+            assertThat(results(output)).hasSize(4);
+            assertThat(results(output).get(2)).containsEntry("category", "other");
+            assertThat(results(output).get(3))
+                    .containsEntry("success", false)
+                    .containsEntry("error", "Text is required for classification");
+            assertThat(output).containsEntry("failedCount", 1L).containsEntry("success", false);
+        }
+    }
+}
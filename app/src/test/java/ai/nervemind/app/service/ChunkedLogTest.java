@@ -0,0 +1,85 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ChunkedLog.
+ */
+@DisplayName("ChunkedLog")
+class ChunkedLogTest {
+
+    private static final int CHUNK = ChunkedLog.CHUNK_SIZE;
+
+    private static void append(ChunkedLog<Integer> log, int from, int to) {
+        for (int i = from; i < to; i++) {
+            log.add(i);
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class Snapshots {
+
+        @Test
+        @DisplayName("should return entries in order across chunk boundaries")
+        void shouldKeepOrder() {
+            ChunkedLog<Integer> log = new ChunkedLog<>(10 * CHUNK, null);
+            append(log, 0, 3 * CHUNK + 7);
+
+            assertThat(log.snapshot())
+                    .containsExactlyElementsOf(IntStream.range(0, 3 * CHUNK + 7).boxed().toList());
+            assertThat(log.size()).isEqualTo(3 * CHUNK + 7);
+        }
+
+        @Test
+        @DisplayName("should not change after more entries are appended")
+        void shouldBeStable() {
+            ChunkedLog<Integer> log = new ChunkedLog<>(10 * CHUNK, null);
+            append(log, 0, 10);
+            List<Integer> snapshot = log.snapshot();
+
+            append(log, 10, 2 * CHUNK);
+
+            assertThat(snapshot).hasSize(10).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction")
+    class Eviction {
+
+        @Test
+        @DisplayName("should keep memory bounded and hand out the oldest chunks in order")
+        void shouldEvictOldestChunks() {
+            List<Integer> evicted = new ArrayList<>();
+            ChunkedLog<Integer> log = new ChunkedLog<>(2 * CHUNK, evicted::addAll);
+
+            append(log, 0, 5 * CHUNK + 1);
+
+            assertThat(log.size()).isLessThanOrEqualTo(2 * CHUNK);
+            assertThat(log.evictedCount()).isEqualTo(evicted.size());
+            List<Integer> all = new ArrayList<>(evicted);
+            all.addAll(log.snapshot());
+            assertThat(all).containsExactlyElementsOf(IntStream.rangeClosed(0, 5 * CHUNK).boxed().toList());
+        }
+
+        @Test
+        @DisplayName("should drop evicted entries when there is no callback")
+        void shouldDropWithoutCallback() {
+            ChunkedLog<Integer> log = new ChunkedLog<>(CHUNK, null);
+
+            append(log, 0, 3 * CHUNK);
+
+            assertThat(log.size()).isLessThanOrEqualTo(CHUNK);
+            assertThat(log.evictedCount()).isEqualTo(3L * CHUNK - log.size());
+        }
+    }
+}
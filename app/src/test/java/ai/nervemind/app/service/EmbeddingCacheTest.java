@@ -0,0 +1,80 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for EmbeddingCache.
+ */
+@DisplayName("EmbeddingCache")
+class EmbeddingCacheTest {
+
+    private static final String NAMESPACE = EmbeddingCache.namespace("ollama", "nomic-embed-text", null);
+
+    @TempDir
+    Path directory;
+
+    private final List<String> embedded = new ArrayList<>();
+
+    private List<float[]> fakeEmbed(List<String> texts) {
+        embedded.addAll(texts);
+        List<float[]> result = new ArrayList<>();
+        for (String text : texts) {
+            result.add(new float[] { text.length(), 0.5f, -1.0f });
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("should embed each distinct text only once")
+    void shouldEmbedOnce() throws Exception {
+        EmbeddingCache cache = new EmbeddingCache(directory, 100, true);
+
+        List<float[]> first = cache.embedAll(NAMESPACE, List.of("a", "bb", "a"), this::fakeEmbed);
+        List<float[]> second = cache.embedAll(NAMESPACE, List.of("bb", "a"), this::fakeEmbed);
+
+        assertThat(embedded).containsExactly("a", "bb");
+        assertThat(first).containsExactly(new float[] { 1, 0.5f, -1 }, new float[] { 2, 0.5f, -1 },
+                new float[] { 1, 0.5f, -1 });
+        assertThat(second).containsExactly(first.get(1), first.get(0));
+        assertThat(cache.stats().misses()).isEqualTo(2);
+        assertThat(cache.stats().memoryHits()).isEqualTo(2);
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("should reuse embeddings stored on disk by an earlier instance")
+    void shouldPersistAcrossInstances() throws Exception {
+        EmbeddingCache writer = new EmbeddingCache(directory, 100, true);
+        writer.embedAll(NAMESPACE, List.of("persisted"), this::fakeEmbed);
+        writer.close();
+
+        EmbeddingCache reader = new EmbeddingCache(directory, 100, true);
+        List<float[]> result = reader.embedAll(NAMESPACE, List.of("persisted"), this::fakeEmbed);
+
+        assertThat(embedded).containsExactly("persisted");
+        assertThat(result).containsExactly(new float[] { 9, 0.5f, -1 });
+        assertThat(reader.stats().diskHits()).isEqualTo(1);
+        reader.close();
+    }
+
+    @Test
+    @DisplayName("should keep models apart")
+    void shouldSeparateNamespaces() throws Exception {
+        EmbeddingCache cache = new EmbeddingCache(directory, 100, true);
+
+        cache.embedAll(NAMESPACE, List.of("text"), this::fakeEmbed);
+        cache.embedAll(EmbeddingCache.namespace("openai", "text-embedding-3-small", 256), List.of("text"),
+                this::fakeEmbed);
+
+        assertThat(embedded).containsExactly("text", "text");
+        cache.close();
+    }
+}
@@ -0,0 +1,164 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import ai.nervemind.common.exception.ExecutionRejectedException;
+
+/**
+ * Unit tests for ExecutionAdmission.
+ *
+ * <p>
+ * Tests admission control including:
+ * <ul>
+ * <li>Global and per-workflow concurrency limits</li>
+ * <li>Priority ordering of queued runs</li>
+ * <li>Rejection when the queue is full</li>
+ * <li>Queue statistics</li>
+ * </ul>
+ */
+@DisplayName("ExecutionAdmission")
+class ExecutionAdmissionTest {
+
+    private ExecutorService executor;
+    private CountDownLatch gate;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        gate = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        executor.shutdownNow();
+    }
+
+    private String blockUntilReleased(String name) {
+        try {
+            gate.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return name;
+    }
+
+    @Nested
+    @DisplayName("Concurrency Limits")
+    class ConcurrencyLimits {
+
+        @Test
+        @DisplayName("should queue runs beyond the global limit")
+        void shouldQueueBeyondGlobalLimit() throws Exception {
+            ExecutionAdmission admission = new ExecutionAdmission(executor, 2, 10, 10);
+
+            admission.submit(1L, 0, () -> blockUntilReleased("a"));
+            admission.submit(2L, 0, () -> blockUntilReleased("b"));
+            CompletableFuture<String> third = admission.submit(3L, 0, () -> "c");
+
+            assertThat(admission.stats().running()).isEqualTo(2);
+            assertThat(admission.stats().queued()).isEqualTo(1);
+            assertThat(third).isNotDone();
+
+            gate.countDown();
+            assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("c");
+        }
+
+        @Test
+        @DisplayName("should start other workflows while one workflow is at its limit")
+        void shouldNotBlockOtherWorkflows() throws Exception {
+            ExecutionAdmission admission = new ExecutionAdmission(executor, 4, 1, 10);
+
+            admission.submit(1L, 0, () -> blockUntilReleased("first"));
+            CompletableFuture<String> sameWorkflow = admission.submit(1L, 0, () -> "second");
+            CompletableFuture<String> otherWorkflow = admission.submit(2L, 0, () -> "other");
+
+            assertThat(otherWorkflow.get(5, TimeUnit.SECONDS)).isEqualTo("other");
+            assertThat(sameWorkflow).isNotDone();
+
+            gate.countDown();
+            assertThat(sameWorkflow.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+        }
+    }
+
+    @Nested
+    @DisplayName("Queue Ordering")
+    class QueueOrdering {
+
+        @Test
+        @DisplayName("should start higher priority runs first, then in arrival order")
+        void shouldOrderByPriority() throws Exception {
+            ExecutionAdmission admission = new ExecutionAdmission(executor, 1, 10, 10);
+            List<String> started = new CopyOnWriteArrayList<>();
+
+            CompletableFuture<String> blocker = admission.submit(1L, 0, () -> blockUntilReleased("blocker"));
+            CompletableFuture<String> low = admission.submit(2L, 0, () -> markStarted(started, "low"));
+            CompletableFuture<String> lowLater = admission.submit(3L, 0, () -> markStarted(started, "low-later"));
+            CompletableFuture<String> high = admission.submit(4L, 5, () -> markStarted(started, "high"));
+
+            gate.countDown();
+            CompletableFuture.allOf(blocker, low, lowLater, high).get(5, TimeUnit.SECONDS);
+
+            assertThat(started).containsExactly("high", "low", "low-later");
+        }
+
+        private String markStarted(List<String> started, String name) {
+            started.add(name);
+            return name;
+        }
+    }
+
+    @Nested
+    @DisplayName("Backpressure")
+    class Backpressure {
+
+        @Test
+        @DisplayName("should reject runs when the queue is full")
+        void shouldRejectWhenFull() {
+            ExecutionAdmission admission = new ExecutionAdmission(executor, 1, 1, 1);
+
+            admission.submit(1L, 0, () -> blockUntilReleased("running"));
+            admission.submit(1L, 0, () -> "queued");
+            CompletableFuture<String> rejected = admission.submit(1L, 0, () -> "rejected");
+
+            assertThatThrownBy(rejected::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(ExecutionRejectedException.class);
+            assertThat(admission.stats().rejected()).isEqualTo(1);
+            assertThat(admission.stats().queued()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should count admitted runs and release slots on failure")
+        void shouldReleaseSlotOnFailure() throws Exception {
+            ExecutionAdmission admission = new ExecutionAdmission(executor, 1, 1, 10);
+
+            CompletableFuture<String> failing = admission.submit(1L, 0, () -> {
+                throw new IllegalStateException("boom");
+            });
+            CompletableFuture<String> next = admission.submit(1L, 0, () -> "next");
+
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("next");
+            assertThat(admission.stats().admitted()).isEqualTo(2);
+            assertThat(admission.stats().running()).isZero();
+        }
+    }
+}
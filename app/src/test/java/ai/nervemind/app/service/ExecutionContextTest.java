@@ -0,0 +1,94 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.enums.ExecutionStatus;
+
+/**
+ * Unit tests for node execution recording in ExecutionService.ExecutionContext.
+ */
+@DisplayName("ExecutionContext Node Recording")
+class ExecutionContextTest {
+
+    private static ExecutionService.ExecutionContext newContext() {
+        return new ExecutionService.ExecutionContext(1L, null, Map.of(), null, new ExecutionLogger());
+    }
+
+    private static Node node(String id) {
+        return new Node(id, "code", id, null, Map.of(), null, false, null);
+    }
+
+    @Test
+    @DisplayName("should keep every record and number them uniquely when nodes finish concurrently")
+    void shouldNotLoseConcurrentRecords() throws Exception {
+        ExecutionService.ExecutionContext context = newContext();
+        int threads = 16;
+        int perThread = 500;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Node node = node("node-" + t);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        context.recordNodeExecution(node, ExecutionStatus.SUCCESS,
+                                NodeExecutionRecord.nowEpochNanos(), Map.of(), null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(context.getNodeExecutions()).hasSize(threads * perThread);
+        assertThat(context.getNodeExecutions().stream().mapToLong(NodeExecutionRecord::sequence).distinct().count())
+                .isEqualTo(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("should keep a copy of the output and record timestamps")
+    void shouldRecordTypedEntry() {
+        ExecutionService.ExecutionContext context = newContext();
+        Map<String, Object> output = new HashMap<>(Map.of("value", 1));
+        long start = NodeExecutionRecord.nowEpochNanos() - 50_000_000L;
+
+        NodeExecutionRecord recorded = context.recordNodeExecution(
+                node("a"), ExecutionStatus.SUCCESS, start, output, null);
+
+        output.put("itemResults", List.of());
+
+        assertThat(recorded.output()).isEqualTo(Map.of("value", 1));
+        assertThat(recorded.nodeType()).isEqualTo("code");
+        assertThat(recorded.startedAtNanos()).isEqualTo(start);
+        assertThat(recorded.finishedAtNanos()).isGreaterThanOrEqualTo(start);
+        assertThat(recorded.durationMs()).isGreaterThanOrEqualTo(50);
+        assertThat(context.getNodeExecutions()).containsExactly(recorded);
+    }
+
+    @Test
+    @DisplayName("should delete the execution's temporary files")
+    void shouldDeleteTempFiles() throws Exception {
+        ExecutionService.ExecutionContext context = newContext();
+        Path first = context.createTempFile("context-test-", ".tmp");
+        Path second = context.createTempFile("context-test-", ".tmp");
+
+        context.deleteTempFiles();
+
+        assertThat(first).doesNotExist();
+        assertThat(second).doesNotExist();
+    }
+}
@@ -0,0 +1,371 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.nervemind.app.database.model.ExecutionEntity;
+import ai.nervemind.common.enums.ExecutionStatus;
+import ai.nervemind.common.enums.TriggerType;
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Unit tests for ExecutionJournal.
+ *
+ * <p>
+ * Tests write-behind persistence including:
+ * <ul>
+ * <li>Coalescing of updates per execution</li>
+ * <li>Batched writes and batch size limits</li>
+ * <li>Pending state overlay until flushed</li>
+ * <li>Batched inserts of node execution rows</li>
+ * <li>Dropping node rows the database rejects, and shedding the backlog</li>
+ * <li>Immediate durability mode</li>
+ * </ul>
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionJournal")
+class ExecutionJournalTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SettingsServiceInterface settingsService;
+
+    private ExecutionJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    private ExecutionJournal createJournal(String durability, int batchSize) {
+        lenient().when(settingsService.getValue(SettingsDefaults.EXECUTION_PERSISTENCE_DURABILITY, "batch"))
+                .thenReturn(durability);
+        lenient().when(settingsService.getInt(SettingsDefaults.EXECUTION_PERSISTENCE_BATCH_SIZE, 50))
+                .thenReturn(batchSize);
+        // Long interval so the background flusher never interferes
+        lenient().when(settingsService.getLong(SettingsDefaults.EXECUTION_PERSISTENCE_FLUSH_INTERVAL, 500L))
+                .thenReturn(60_000L);
+        journal = new ExecutionJournal(jdbcTemplate, transactionManager, new ObjectMapper(), settingsService);
+        return journal;
+    }
+
+    private static ExecutionEntity execution(long id, ExecutionStatus status) {
+        ExecutionEntity entity = new ExecutionEntity(1L, TriggerType.MANUAL);
+        entity.setId(id);
+        entity.setStatus(status);
+        entity.setStartedAt(Instant.now());
+        return entity;
+    }
+
+    private static NodeExecutionRecord nodeRun(String nodeId, Map<String, Object> output) {
+        long now = NodeExecutionRecord.nowEpochNanos();
+        return new NodeExecutionRecord(1, nodeId, "code", ExecutionStatus.SUCCESS, now, now, output, null);
+    }
+
+    private static NodeExecutionRecord nodeRun(String nodeId) {
+        return nodeRun(nodeId, Map.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> capturedBatches(int expectedCalls) {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(expectedCalls)).batchUpdate(anyString(), captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Nested
+    @DisplayName("Batch Durability")
+    class BatchDurability {
+
+        @Test
+        @DisplayName("should coalesce updates of the same execution")
+        void shouldCoalesceUpdates() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            ExecutionEntity execution = execution(7L, ExecutionStatus.RUNNING);
+
+            journal.record(execution);
+            execution.setStatus(ExecutionStatus.SUCCESS);
+            execution.setFinishedAt(Instant.now());
+            journal.record(execution);
+            journal.flush();
+
+            List<Object[]> rows = capturedBatches(1).get(0);
+            assertThat(rows).hasSize(1);
+            assertThat(rows.get(0)[0]).isEqualTo("SUCCESS");
+            assertThat(rows.get(0)[5]).isEqualTo(7L);
+        }
+
+        @Test
+        @DisplayName("should keep pending state visible until flushed")
+        void shouldExposePendingState() {
+            ExecutionJournal journal = createJournal("batch", 50);
+
+            journal.record(execution(3L, ExecutionStatus.FAILED));
+
+            assertThat(journal.pending(3L)).get()
+                    .extracting(ExecutionEntity::getStatus)
+                    .isEqualTo(ExecutionStatus.FAILED);
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+            journal.flush();
+
+            assertThat(journal.pending(3L)).isEmpty();
+            assertThat(journal.pendingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should copy the entity so later changes are not written early")
+        void shouldSnapshotEntity() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            ExecutionEntity execution = execution(5L, ExecutionStatus.RUNNING);
+
+            journal.record(execution);
+            execution.setStatus(ExecutionStatus.SUCCESS);
+
+            assertThat(journal.pending(5L)).get()
+                    .extracting(ExecutionEntity::getStatus)
+                    .isEqualTo(ExecutionStatus.RUNNING);
+        }
+
+        @Test
+        @DisplayName("should split a flush into batches of the configured size")
+        void shouldSplitIntoBatches() {
+            ExecutionJournal journal = createJournal("batch", 2);
+            for (long id = 1; id <= 5; id++) {
+                journal.record(execution(id, ExecutionStatus.SUCCESS));
+            }
+            journal.flush();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate, atLeast(3)).batchUpdate(anyString(), captor.capture());
+            assertThat(captor.getAllValues()).allSatisfy(rows -> assertThat(rows).hasSizeLessThanOrEqualTo(2));
+            assertThat(captor.getAllValues().stream().mapToInt(List::size).sum()).isEqualTo(5);
+            assertThat(journal.pendingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should keep updates pending when a batch fails")
+        void shouldRetainFailedBatch() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new IllegalStateException("database unavailable"));
+
+            journal.record(execution(9L, ExecutionStatus.SUCCESS));
+
+            assertThatThrownBy(journal::flush).isInstanceOf(IllegalStateException.class);
+            assertThat(journal.pending(9L)).isPresent();
+        }
+    }
+
+    @Nested
+    @DisplayName("Node Executions")
+    class NodeExecutions {
+
+        @Test
+        @DisplayName("should insert queued node runs in batches, in order")
+        void shouldInsertNodeRunsInBatches() {
+            ExecutionJournal journal = createJournal("batch", 2);
+            journal.recordNode(1L, nodeRun("a"));
+            journal.recordNode(1L, nodeRun("b"));
+            journal.recordNode(1L, nodeRun("c"));
+            journal.flush();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO node_executions"), captor.capture());
+            assertThat(captor.getAllValues().stream().flatMap(List::stream).map(row -> row[1]))
+                    .containsExactly("a", "b", "c");
+            assertThat(journal.pendingNodeCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should expose unwritten node runs per execution")
+        void shouldExposePendingNodeRuns() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            journal.recordNode(1L, nodeRun("a"));
+            journal.recordNode(2L, nodeRun("b"));
+            journal.recordNode(1L, nodeRun("c"));
+
+            assertThat(journal.pendingNodes(1L))
+                    .extracting(NodeExecutionRecord::nodeId)
+                    .containsExactly("a", "c");
+            assertThat(journal.pendingNodeCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should serialize node outputs only when writing")
+        void shouldSerializeOutputOnWrite() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            Map<String, Object> output = Map.of("answer", 42);
+            journal.recordNode(1L, nodeRun("a", output));
+
+            assertThat(journal.pendingNodes(1L).get(0).output()).isEqualTo(output);
+
+            journal.flush();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO node_executions"), captor.capture());
+            assertThat(captor.getValue().get(0)[7]).isEqualTo("{\"answer\":42}");
+            assertThat(captor.getValue().get(0)[9]).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("should not write output keys added after the run was recorded")
+        void shouldWriteRecordedOutput() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            Map<String, Object> output = new HashMap<>(Map.of("answer", 42));
+            journal.recordNode(1L, nodeRun("a", output));
+            output.put("itemResults", List.of());
+
+            journal.flush();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO node_executions"), captor.capture());
+            assertThat(captor.getValue().get(0)[7]).isEqualTo("{\"answer\":42}");
+        }
+
+        @Test
+        @DisplayName("should keep node runs queued when the insert fails")
+        void shouldRetainFailedNodeBatch() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new IllegalStateException("database unavailable"));
+
+            journal.recordNode(4L, nodeRun("a"));
+
+            assertThatThrownBy(journal::flush).isInstanceOf(IllegalStateException.class);
+            assertThat(journal.pendingNodes(4L)).hasSize(1);
+            assertThat(journal.pendingNodeCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should drop only the rows the database rejects")
+        @SuppressWarnings("unchecked")
+        void shouldDropRejectedRows() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+                List<Object[]> rows = invocation.getArgument(1);
+                if (rows.stream().anyMatch(row -> "bad".equals(row[1]))) {
+                    throw new DataIntegrityViolationException("execution was deleted");
+                }
+                return new int[rows.size()];
+            });
+
+            journal.recordNode(1L, nodeRun("a"));
+            journal.recordNode(1L, nodeRun("bad"));
+            journal.recordNode(1L, nodeRun("c"));
+            journal.flush();
+
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate, times(4)).batchUpdate(anyString(), captor.capture());
+            assertThat(captor.getAllValues().subList(1, 4)).extracting(rows -> rows.get(0)[1])
+                    .containsExactly("a", "bad", "c");
+            assertThat(journal.pendingNodeCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should truncate node ids to the column size")
+        void shouldTruncateNodeIds() {
+            ExecutionJournal journal = createJournal("batch", 50);
+            journal.recordNode(1L, nodeRun("n".repeat(150)));
+            journal.flush();
+
+            List<Object[]> rows = capturedBatches(1).get(0);
+            assertThat((String) rows.get(0)[1]).hasSize(100);
+        }
+
+        @Test
+        @DisplayName("should shed the oldest runs instead of failing when the backlog is full")
+        void shouldShedWhenDatabaseUnavailable() {
+            ExecutionJournal journal = createJournal("batch", 2);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new IllegalStateException("database unavailable"));
+
+            for (int i = 0; i < 25; i++) {
+                journal.recordNode(1L, nodeRun("n" + i));
+            }
+
+            assertThat(journal.pendingNodeCount()).isLessThan(20);
+            assertThat(journal.pendingNodes(1L).getLast().nodeId()).isEqualTo("n24");
+        }
+    }
+
+    @Nested
+    @DisplayName("Immediate Durability")
+    class ImmediateDurability {
+
+        @Test
+        @DisplayName("should write every update before returning")
+        void shouldWriteThrough() {
+            ExecutionJournal journal = createJournal("immediate", 50);
+
+            journal.record(execution(1L, ExecutionStatus.SUCCESS));
+
+            verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+            assertThat(journal.pending(1L)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should fail the caller when the write fails")
+        void shouldPropagateWriteFailure() {
+            ExecutionJournal journal = createJournal("immediate", 50);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new IllegalStateException("database unavailable"));
+
+            assertThatThrownBy(() -> journal.record(execution(2L, ExecutionStatus.SUCCESS)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("database unavailable");
+            assertThatThrownBy(() -> journal.recordNode(2L, nodeRun("n1")))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(journal.pending(2L)).isPresent();
+            assertThat(journal.pendingNodeCount()).isOne();
+        }
+
+        @Test
+        @DisplayName("should reject executions without an id")
+        void shouldRejectUnsavedExecution() {
+            ExecutionJournal journal = createJournal("immediate", 50);
+
+            assertThatThrownBy(() -> journal.record(new ExecutionEntity(1L, TriggerType.MANUAL)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.nervemind.app.service.ExecutionLogger.CaptureMode;
+import ai.nervemind.app.service.ExecutionLogger.LogEntry;
+
+/**
+ * Unit tests for ExecutionLogger log storage and node data capture.
+ */
+@DisplayName("ExecutionLogger Storage")
+class ExecutionLoggerTest {
+
+    private final ExecutionLogger logger = new ExecutionLogger();
+
+    @AfterEach
+    void tearDown() {
+        logger.clearAll();
+    }
+
+    private void logNodes(String executionId, int count) {
+        for (int i = 0; i < count; i++) {
+            logger.nodeEnd(executionId, "node-" + i, "code", 1, true);
+        }
+    }
+
+    @Test
+    @DisplayName("should cap entries in memory and keep counting in the summary")
+    void shouldCapEntriesInMemory() {
+        logger.configureStorage(ChunkedLog.CHUNK_SIZE, false);
+        logger.startExecution("1", "10", "Long run");
+
+        logNodes("1", 2_000);
+
+        assertThat(logger.getLogEntries("1")).hasSizeLessThanOrEqualTo(ChunkedLog.CHUNK_SIZE);
+        assertThat(logger.getSummary("1").nodeCount()).isEqualTo(2_000);
+        assertThat(logger.getSummary("1").totalEntries()).isEqualTo(2_001);
+        assertThat(logger.getEvictedEntryCount("1")).isPositive();
+    }
+
+    @Test
+    @DisplayName("should export spilled entries together with the ones in memory")
+    void shouldExportSpilledEntries() throws Exception {
+        logger.configureStorage(ChunkedLog.CHUNK_SIZE, true);
+        logger.startExecution("2", "10", "Long run");
+
+        logNodes("2", 1_000);
+
+        JsonNode export = new ObjectMapper().readTree(logger.exportToJson("2"));
+        assertThat(export.get("entries")).hasSize(1_001);
+        assertThat(export.get("entries").get(0).get("category").asText()).isEqualTo("EXECUTION_START");
+    }
+
+    private Map<String, Object> lastContext(String executionId) {
+        List<LogEntry> entries = logger.getLogEntries(executionId);
+        return entries.get(entries.size() - 1).context();
+    }
+
+    @Test
+    @DisplayName("should keep small node output and render previews on read")
+    void shouldCaptureSmallOutput() {
+        logger.startExecution("3", "10", "Capture");
+        Map<String, Object> output = new HashMap<>(Map.of("text", "x".repeat(500), "count", 3));
+
+        logger.nodeOutput("3", "a", "Node A", output);
+
+        Map<String, Object> context = lastContext("3");
+        assertThat(context.get("outputKeys")).asList().containsExactlyInAnyOrder("text", "count");
+        assertThat(context.get("outputDataFull")).isEqualTo(output);
+        assertThat(((Map<?, ?>) context.get("outputPreview")).get("text").toString()).hasSizeLessThan(500);
+    }
+
+    @Test
+    @DisplayName("should not see keys added to node output after it was logged")
+    void shouldSnapshotOutput() {
+        logger.startExecution("3", "10", "Capture");
+        Map<String, Object> output = new HashMap<>(Map.of("count", 3));
+
+        logger.nodeOutput("3", "a", "Node A", output);
+        output.put("itemResults", List.of(Map.of("value", 1)));
+
+        Map<String, Object> context = lastContext("3");
+        assertThat((Map<?, ?>) context.get("outputDataFull")).containsOnlyKeys("count");
+        assertThat((Map<?, ?>) context.get("outputPreview")).containsOnlyKeys("count");
+    }
+
+    @Test
+    @DisplayName("should keep only a preview of output above the capture limit")
+    void shouldOmitLargeOutput() {
+        logger.configureCapture(CaptureMode.FULL, 1024, 1);
+        logger.startExecution("4", "10", "Capture");
+
+        logger.nodeOutput("4", "a", "Node A", Map.of("body", "x".repeat(10_000)));
+
+        Map<String, Object> context = lastContext("4");
+        assertThat(context).doesNotContainKey("outputDataFull").containsEntry("outputDataOmitted", true);
+        assertThat(((Map<?, ?>) context.get("outputPreview")).get("body").toString()).hasSizeLessThan(200);
+    }
+
+    @Test
+    @DisplayName("should log only keys and sizes when capture is off")
+    void shouldCaptureNothing() {
+        logger.configureCapture(CaptureMode.NONE, 1024, 1);
+        logger.startExecution("5", "10", "Capture");
+
+        logger.nodeInput("5", "a", "Node A", Map.of("value", 1));
+
+        assertThat(lastContext("5")).containsEntry("inputSize", 1)
+                .doesNotContainKeys("inputPreview", "inputDataFull");
+    }
+
+    @Test
+    @DisplayName("should capture full data for one in every N node runs when sampling")
+    void shouldSampleNodeRuns() {
+        logger.configureCapture(CaptureMode.SAMPLED, 1024, 3);
+        logger.startExecution("6", "10", "Capture");
+
+        int captured = 0;
+        for (int i = 0; i < 9; i++) {
+            logger.nodeStart("6", "node-" + i, "code", "Node");
+            logger.nodeOutput("6", "node-" + i, "Node", Map.of("value", i));
+            if (lastContext("6").containsKey("outputDataFull")) {
+                captured++;
+            }
+        }
+
+        assertThat(captured).isEqualTo(3);
+    }
+}
@@ -0,0 +1,168 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import ai.nervemind.common.domain.Connection;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.dto.WorkflowDTO;
+import ai.nervemind.common.enums.TriggerType;
+
+/**
+ * Unit tests for ExecutionPlan.
+ *
+ * <p>
+ * Tests graph compilation including:
+ * <ul>
+ * <li>Node ordinal index and adjacency</li>
+ * <li>Trigger detection</li>
+ * <li>Topological ordering and back-edge detection</li>
+ * </ul>
+ */
+@DisplayName("ExecutionPlan")
+class ExecutionPlanTest {
+
+    private static Node node(String id) {
+        return new Node(id, "set", id, null, Map.of(), null, false, null);
+    }
+
+    private static WorkflowDTO workflow(Long id, int version, List<Node> nodes, List<Connection> connections) {
+        return new WorkflowDTO(id, "Test", null, nodes, connections, Map.of(), false,
+                TriggerType.MANUAL, null, Instant.now(), Instant.now(), null, version);
+    }
+
+    /** trigger -> a, trigger -> b, a -> join, b -> join. */
+    private static WorkflowDTO diamond() {
+        return workflow(1L, 1,
+                List.of(node("join"), node("a"), node("trigger"), node("b")),
+                List.of(
+                        Connection.simple("c1", "trigger", "a"),
+                        Connection.simple("c2", "trigger", "b"),
+                        Connection.simple("c3", "a", "join"),
+                        Connection.simple("c4", "b", "join")));
+    }
+
+    @Nested
+    @DisplayName("Compilation")
+    class Compilation {
+
+        @Test
+        @DisplayName("should index nodes by declaration order")
+        void shouldIndexNodes() {
+            ExecutionPlan plan = ExecutionPlan.compile(diamond());
+
+            assertThat(plan.size()).isEqualTo(4);
+            assertThat(plan.ordinalOf("trigger")).isEqualTo(2);
+            assertThat(plan.node(2).id()).isEqualTo("trigger");
+            assertThat(plan.findNode("a").id()).isEqualTo("a");
+            assertThat(plan.ordinalOf("missing")).isEqualTo(ExecutionPlan.UNRESOLVED);
+            assertThat(plan.findNode("missing")).isNull();
+        }
+
+        @Test
+        @DisplayName("should build outgoing and incoming adjacency")
+        void shouldBuildAdjacency() {
+            ExecutionPlan plan = ExecutionPlan.compile(diamond());
+            int trigger = plan.ordinalOf("trigger");
+            int join = plan.ordinalOf("join");
+
+            assertThat(plan.outgoingEdges(trigger)).extracting(edge -> plan.connection(edge).id())
+                    .containsExactly("c1", "c2");
+            assertThat(plan.successors(trigger))
+                    .containsExactly(plan.ordinalOf("a"), plan.ordinalOf("b"));
+            assertThat(plan.predecessors(join))
+                    .containsExactly(plan.ordinalOf("a"), plan.ordinalOf("b"));
+            assertThat(plan.incomingCount(join)).isEqualTo(2);
+            assertThat(plan.outgoingEdges(join)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should detect trigger nodes")
+        void shouldDetectTriggers() {
+            ExecutionPlan plan = ExecutionPlan.compile(diamond());
+
+            assertThat(plan.triggers()).containsExactly(plan.ordinalOf("trigger"));
+        }
+
+        @Test
+        @DisplayName("should keep connections to unknown nodes as outgoing edges")
+        void shouldKeepDanglingConnections() {
+            WorkflowDTO workflow = workflow(1L, 1, List.of(node("a")),
+                    List.of(Connection.simple("c1", "a", "ghost")));
+
+            ExecutionPlan plan = ExecutionPlan.compile(workflow);
+
+            int[] edges = plan.outgoingEdges(0);
+            assertThat(edges).hasSize(1);
+            assertThat(plan.edgeTarget(edges[0])).isEqualTo(ExecutionPlan.UNRESOLVED);
+            assertThat(plan.isSchedulingEdge(edges[0])).isFalse();
+            assertThat(plan.successors(0)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Topological Order")
+    class TopologicalOrder {
+
+        @Test
+        @DisplayName("should order every node after its predecessors")
+        void shouldOrderDiamond() {
+            ExecutionPlan plan = ExecutionPlan.compile(diamond());
+            int[] order = plan.topologicalOrder();
+
+            assertThat(plan.isAcyclic()).isTrue();
+            assertThat(order).hasSize(4);
+            assertThat(order[0]).isEqualTo(plan.ordinalOf("trigger"));
+            assertThat(order[3]).isEqualTo(plan.ordinalOf("join"));
+        }
+
+        @Test
+        @DisplayName("should mark the edge closing a cycle as a back edge")
+        void shouldDetectCycles() {
+            WorkflowDTO workflow = workflow(1L, 1,
+                    List.of(node("start"), node("x"), node("y")),
+                    List.of(
+                            Connection.simple("c1", "start", "x"),
+                            Connection.simple("c2", "x", "y"),
+                            Connection.simple("c3", "y", "x")));
+
+            ExecutionPlan plan = ExecutionPlan.compile(workflow);
+
+            assertThat(plan.isAcyclic()).isFalse();
+            assertThat(plan.isBackEdge(2)).isTrue();
+            assertThat(plan.isSchedulingEdge(2)).isFalse();
+            assertThat(plan.topologicalOrder()).containsExactly(
+                    plan.ordinalOf("start"), plan.ordinalOf("x"), plan.ordinalOf("y"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Revision Matching")
+    class RevisionMatching {
+
+        @Test
+        @DisplayName("should match the same workflow id and version only")
+        void shouldMatchRevision() {
+            ExecutionPlan plan = ExecutionPlan.compile(workflow(7L, 3, List.of(node("a")), List.of()));
+
+            assertThat(plan.isCompiledFrom(workflow(7L, 3, List.of(), List.of()))).isTrue();
+            assertThat(plan.isCompiledFrom(workflow(7L, 4, List.of(), List.of()))).isFalse();
+            assertThat(plan.isCompiledFrom(workflow(8L, 3, List.of(), List.of()))).isFalse();
+        }
+
+        @Test
+        @DisplayName("should never match unsaved workflows")
+        void shouldNotMatchUnsaved() {
+            WorkflowDTO unsaved = workflow(null, 1, List.of(node("a")), List.of());
+
+            assertThat(ExecutionPlan.compile(unsaved).isCompiledFrom(unsaved)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Unit tests for ExecutionRetentionService.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionRetentionService")
+class ExecutionRetentionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ExecutionJournal executionJournal;
+
+    @Mock
+    private SettingsServiceInterface settingsService;
+
+    private ExecutionRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(settingsService.getInt(SettingsDefaults.EXECUTION_HISTORY_CLEANUP_BATCH_SIZE, 500))
+                .thenReturn(500);
+        service = new ExecutionRetentionService(jdbcTemplate, transactionManager, executionJournal,
+                settingsService);
+    }
+
+    @Test
+    @DisplayName("should flush the journal and then delete expired executions")
+    void shouldDeleteExpiredAfterFlush() {
+        when(jdbcTemplate.queryForList(contains("status = ?"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(1L, 2L));
+
+        ExecutionRetentionService.Result result = service.run();
+
+        // Successful, cancelled and failed runs are each queried once
+        assertThat(result.deleted()).isEqualTo(6);
+        InOrder order = inOrder(executionJournal, jdbcTemplate);
+        order.verify(executionJournal).flush();
+        order.verify(jdbcTemplate).batchUpdate(eq("DELETE FROM executions WHERE id = ?"), anyList());
+    }
+
+    @Test
+    @DisplayName("should not write anything when nothing has expired")
+    void shouldDoNothingWhenClean() {
+        ExecutionRetentionService.Result result = service.run();
+
+        assertThat(result).isEqualTo(new ExecutionRetentionService.Result(0, 0));
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+        verify(jdbcTemplate, never()).execute("CHECKPOINT");
+    }
+
+    @Test
+    @DisplayName("should compress the node log of old executions")
+    @SuppressWarnings("unchecked")
+    void shouldCompactExecutionLog() throws Exception {
+        when(settingsService.getInt(SettingsDefaults.EXECUTION_HISTORY_COMPRESS_AFTER, 7)).thenReturn(7);
+        String nodeLog = "[" + "{\"nodeId\":\"a\",\"status\":\"SUCCESS\"},".repeat(100) + "{}]";
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong(1)).thenReturn(7L);
+        when(row.getString(4)).thenReturn(nodeLog);
+        when(jdbcTemplate.query(contains("FROM executions"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> List.of(((RowMapper<?>) invocation.getArgument(1)).mapRow(row, 0)));
+
+        ExecutionRetentionService.Result result = service.run();
+
+        assertThat(result.compacted()).isEqualTo(1);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(
+                eq("UPDATE executions SET input_data_json = ?, output_data_json = ?, execution_log = ? WHERE id = ?"),
+                captor.capture());
+        Object[] update = captor.getValue().getFirst();
+        assertThat(update[0]).isNull();
+        assertThat(StoredJson.expand((String) update[2])).isEqualTo(nodeLog);
+        assertThat(update[3]).isEqualTo(7L);
+    }
+}
@@ -0,0 +1,199 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import ai.nervemind.common.domain.Connection;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.dto.WorkflowDTO;
+import ai.nervemind.common.enums.TriggerType;
+
+/**
+ * Unit tests for ExecutionScheduler.
+ *
+ * <p>
+ * Tests dependency-counting traversal including:
+ * <ul>
+ * <li>Exactly-once dispatch of fan-in nodes</li>
+ * <li>Dead-path elimination for branches that were not taken</li>
+ * <li>Joined input delivery</li>
+ * <li>Failure propagation</li>
+ * </ul>
+ */
+@DisplayName("ExecutionScheduler")
+class ExecutionSchedulerTest {
+
+    private ExecutorService executor;
+    private Map<String, AtomicInteger> runs;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        runs = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Node node(String id, String type) {
+        return new Node(id, type, id, null, Map.of(), null, false, null);
+    }
+
+    private static ExecutionPlan plan(List<Node> nodes, List<Connection> connections) {
+        return ExecutionPlan.compile(new WorkflowDTO(1L, "Test", null, nodes, connections, Map.of(), false,
+                TriggerType.MANUAL, null, Instant.now(), Instant.now(), null, 1));
+    }
+
+    private ExecutionScheduler scheduler(ExecutionPlan plan, ExecutionScheduler.NodeRunner runner) {
+        return new ExecutionScheduler(plan, executor, 4, (node, input) -> {
+            runs.computeIfAbsent(node.id(), _ -> new AtomicInteger()).incrementAndGet();
+            return runner.run(node, input);
+        });
+    }
+
+    private int runCount(String nodeId) {
+        AtomicInteger count = runs.get(nodeId);
+        return count == null ? 0 : count.get();
+    }
+
+    @Nested
+    @DisplayName("Fan-in")
+    class FanIn {
+
+        /** trigger -> a, trigger -> b, a -> join, b -> join. */
+        private ExecutionPlan diamond() {
+            return plan(
+                    List.of(node("trigger", "manualTrigger"), node("a", "set"), node("b", "set"),
+                            node("join", "set")),
+                    List.of(
+                            Connection.simple("c1", "trigger", "a"),
+                            Connection.simple("c2", "trigger", "b"),
+                            Connection.simple("c3", "a", "join"),
+                            Connection.simple("c4", "b", "join")));
+        }
+
+        @Test
+        @DisplayName("should run a join node once after all predecessors")
+        void shouldRunJoinOnce() {
+            ExecutionPlan plan = diamond();
+
+            ExecutionScheduler.Result result = scheduler(plan, (node, _) -> Map.of(node.id(), true))
+                    .run(plan.triggers(), Map.of());
+
+            assertThat(runCount("join")).isEqualTo(1);
+            assertThat(runCount("a")).isEqualTo(1);
+            assertThat(runCount("b")).isEqualTo(1);
+            assertThat(result.lastOutput()).containsEntry("join", true);
+        }
+
+        @Test
+        @DisplayName("should deliver every branch output as joined input")
+        void shouldDeliverJoinedInput() {
+            ExecutionPlan plan = diamond();
+            Map<String, Map<String, Object>> inputs = new ConcurrentHashMap<>();
+
+            scheduler(plan, (node, input) -> {
+                inputs.put(node.id(), input);
+                return Map.of(node.id(), true);
+            }).run(plan.triggers(), Map.of());
+
+            assertThat(inputs.get("join")).isInstanceOf(JoinedInput.class)
+                    .containsEntry("a", true)
+                    .containsEntry("b", true);
+            assertThat(((JoinedInput) inputs.get("join")).branches()).hasSize(2);
+            assertThat(inputs.get("a")).isNotInstanceOf(JoinedInput.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Dead Paths")
+    class DeadPaths {
+
+        /** trigger -> if, if(true) -> yes, if(false) -> no, yes -> end, no -> end. */
+        private ExecutionPlan branching() {
+            return plan(
+                    List.of(node("trigger", "manualTrigger"), node("if", "if"), node("yes", "set"),
+                            node("no", "set"), node("end", "set")),
+                    List.of(
+                            Connection.simple("c1", "trigger", "if"),
+                            new Connection("c2", "if", "true", "yes", "main"),
+                            new Connection("c3", "if", "false", "no", "main"),
+                            Connection.simple("c4", "yes", "end"),
+                            Connection.simple("c5", "no", "end")));
+        }
+
+        @Test
+        @DisplayName("should skip the branch not taken and still run the rejoin")
+        void shouldSkipUntakenBranch() {
+            ExecutionPlan plan = branching();
+
+            scheduler(plan, (node, _) -> node.id().equals("if")
+                    ? Map.of("branch", "true")
+                    : Map.of(node.id(), true))
+                    .run(plan.triggers(), Map.of());
+
+            assertThat(runCount("yes")).isEqualTo(1);
+            assertThat(runCount("no")).isZero();
+            assertThat(runCount("end")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should skip downstream nodes when execution is stopped")
+        void shouldSkipAfterStop() {
+            ExecutionPlan plan = branching();
+
+            ExecutionScheduler.Result result = scheduler(plan, (node, _) -> node.id().equals("if")
+                    ? Map.of("_stopExecution", true)
+                    : Map.of(node.id(), true))
+                    .run(plan.triggers(), Map.of());
+
+            assertThat(runCount("yes")).isZero();
+            assertThat(runCount("no")).isZero();
+            assertThat(runCount("end")).isZero();
+            assertThat(result.output(plan.ordinalOf("end"))).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures")
+    class Failures {
+
+        @Test
+        @DisplayName("should rethrow the first failure and not dispatch further nodes")
+        void shouldRethrowFailure() {
+            ExecutionPlan plan = plan(
+                    List.of(node("trigger", "manualTrigger"), node("boom", "set"), node("after", "set")),
+                    List.of(
+                            Connection.simple("c1", "trigger", "boom"),
+                            Connection.simple("c2", "boom", "after")));
+
+            ExecutionScheduler scheduler = scheduler(plan, (node, _) -> {
+                if (node.id().equals("boom")) {
+                    throw new IllegalStateException("boom");
+                }
+                return Map.of();
+            });
+
+            assertThatThrownBy(() -> scheduler.run(plan.triggers(), Map.of()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("boom");
+            assertThat(runCount("after")).isZero();
+        }
+    }
+}
@@ -31,6 +31,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import ai.nervemind.app.database.model.ExecutionEntity;
 import ai.nervemind.app.database.repository.ExecutionRepository;
+import ai.nervemind.app.database.repository.NodeExecutionRepository;
 import ai.nervemind.common.enums.ExecutionStatus;
 import ai.nervemind.common.enums.TriggerType;
 import ai.nervemind.common.service.DevModeServiceInterface;
@@ -55,6 +56,12 @@ class ExecutionServiceCancellationTest {
     @Mock
     private ExecutionRepository executionRepository;
 
+    @Mock
+    private NodeExecutionRepository nodeExecutionRepository;
+
+    @Mock
+    private ExecutionJournal executionJournal;
+
     @Mock
     private WorkflowService workflowService;
 
@@ -93,6 +100,8 @@ class ExecutionServiceCancellationTest {
 
         executionService = new ExecutionService(
                 executionRepository,
+                nodeExecutionRepository,
+                executionJournal,
                 workflowService,
                 credentialService,
                 nodeExecutorRegistry,
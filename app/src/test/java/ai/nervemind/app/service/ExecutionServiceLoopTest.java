@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026 NerveMind
+ * Licensed under the MIT License
+ */
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.nervemind.app.database.model.ExecutionEntity;
+import ai.nervemind.app.database.repository.ExecutionRepository;
+import ai.nervemind.app.database.repository.NodeExecutionRepository;
+import ai.nervemind.app.executor.LoopExecutor;
+import ai.nervemind.common.domain.Connection;
+import ai.nervemind.common.domain.Node;
+import ai.nervemind.common.dto.ExecutionDTO;
+import ai.nervemind.common.dto.WorkflowDTO;
+import ai.nervemind.common.enums.ExecutionStatus;
+import ai.nervemind.common.enums.TriggerType;
+import ai.nervemind.common.service.DevModeServiceInterface;
+import ai.nervemind.common.service.SettingsServiceInterface;
+
+/**
+ * Unit tests for loop body execution in ExecutionService.
+ *
+ * <p>
+ * Runs a trigger → loop → probe workflow and checks that:
+ * <ul>
+ * <li>Parallel loops run iterations concurrently, capped by batchSize</li>
+ * <li>Sequential loops run one iteration at a time</li>
+ * <li>Per-item body results reach the loop's done path in item order</li>
+ * <li>Streamed items are read one at a time and closed afterwards</li>
+ * </ul>
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionService Loop Tests")
+class ExecutionServiceLoopTest {
+
+    private static final int ITEM_COUNT = 20;
+
+    @Mock
+    private ExecutionRepository executionRepository;
+
+    @Mock
+    private NodeExecutionRepository nodeExecutionRepository;
+
+    @Mock
+    private ExecutionJournal executionJournal;
+
+    @Mock
+    private WorkflowService workflowService;
+
+    @Mock
+    private CredentialService credentialService;
+
+    @Mock
+    private NodeExecutorRegistry nodeExecutorRegistry;
+
+    @Mock
+    private SettingsServiceInterface settingsService;
+
+    @Mock
+    private DevModeServiceInterface devModeService;
+
+    private ExecutionService executionService;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicReference<Map<String, Object>> collected = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(settingsService.getInt(any(String.class), any(Integer.class)))
+                .thenAnswer(inv -> inv.getArgument(1));
+        lenient().when(settingsService.getLong(any(String.class), any(Long.class)))
+                .thenAnswer(inv -> inv.getArgument(1));
+        lenient().when(settingsService.getValue(any(String.class), any(String.class)))
+                .thenAnswer(inv -> inv.getArgument(1));
+        lenient().when(settingsService.getBoolean(any(String.class), any(Boolean.class)))
+                .thenAnswer(inv -> inv.getArgument(1));
+
+        when(executionRepository.save(any(ExecutionEntity.class))).thenAnswer(inv -> {
+            ExecutionEntity entity = inv.getArgument(0);
+            if (entity.getId() == null) {
+                entity.setId(1L);
+            }
+            return entity;
+        });
+
+        Map<String, NodeExecutor> executors = new HashMap<>();
+        executors.put("manualTrigger", executor("manualTrigger", (_, input) -> input));
+        executors.put("loop", new LoopExecutor());
+        executors.put("probe", executor("probe", (_, input) -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            int item = (Integer) input.get("item");
+            return Map.of("square", item * item);
+        }));
+        executors.put("collect", executor("collect", (_, input) -> {
+            collected.set(input);
+            return input;
+        }));
+        lenient().when(nodeExecutorRegistry.getExecutor(any(String.class)))
+                .thenAnswer(inv -> executors.get(inv.<String>getArgument(0)));
+
+        executionService = new ExecutionService(
+                executionRepository,
+                nodeExecutionRepository,
+                executionJournal,
+                workflowService,
+                credentialService,
+                nodeExecutorRegistry,
+                new ObjectMapper(),
+                new ExecutionLogger(),
+                settingsService,
+                devModeService,
+                Collections.emptyList());
+    }
+
+    private static NodeExecutor executor(String type,
+            BiFunction<Node, Map<String, Object>, Map<String, Object>> body) {
+        return new NodeExecutor() {
+            @Override
+            public Map<String, Object> execute(Node node, Map<String, Object> input,
+                    ExecutionService.ExecutionContext context) {
+                return body.apply(node, input);
+            }
+
+            @Override
+            public String getNodeType() {
+                return type;
+            }
+        };
+    }
+
+    private ExecutionDTO runLoop(boolean parallel, int batchSize) {
+        return runLoop(parallel, batchSize, IntStream.range(0, ITEM_COUNT).boxed().toList());
+    }
+
+    private ExecutionDTO runLoop(boolean parallel, int batchSize, Object items) {
+        List<Node> nodes = List.of(
+                new Node("trigger", "manualTrigger", "Trigger", null, Map.of(), null, false, null),
+                new Node("loop", "loop", "Loop", null,
+                        Map.of("items", "items", "parallel", parallel, "batchSize", batchSize), null, false, null),
+                new Node("probe", "probe", "Probe", null, Map.of(), null, false, null),
+                new Node("collect", "collect", "Collect", null, Map.of(), null, false, null));
+        List<Connection> connections = List.of(
+                Connection.simple("c1", "trigger", "loop"),
+                new Connection("c2", "loop", "loop", "probe", "main"),
+                new Connection("c3", "loop", "done", "collect", "main"));
+        WorkflowDTO workflow = new WorkflowDTO(1L, "Loop", null, nodes, connections, Map.of(), false,
+                TriggerType.MANUAL, null, Instant.now(), Instant.now(), null, 1);
+        when(workflowService.findById(1L)).thenReturn(Optional.of(workflow));
+
+        return executionService.execute(1L, Map.of("items", items));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> collectedSquares() {
+        List<Map<String, Object>> itemResults = (List<Map<String, Object>>) collected.get().get("itemResults");
+        return itemResults.stream().map(result -> result.get("square")).toList();
+    }
+
+    private static List<Object> expectedSquares() {
+        return IntStream.range(0, ITEM_COUNT).<Object>mapToObj(i -> i * i).toList();
+    }
+
+    @Test
+    @DisplayName("runs parallel iterations concurrently up to batchSize")
+    void runsParallelIterationsUpToBatchSize() {
+        ExecutionDTO result = runLoop(true, 4);
+
+        assertThat(result.status()).isEqualTo(ExecutionStatus.SUCCESS);
+        assertThat(maxActive.get()).isBetween(2, 4);
+        assertThat(collectedSquares()).containsExactlyElementsOf(expectedSquares());
+    }
+
+    @Test
+    @DisplayName("runs sequential iterations one at a time")
+    void runsSequentialIterationsOneAtATime() {
+        ExecutionDTO result = runLoop(false, 4);
+
+        assertThat(result.status()).isEqualTo(ExecutionStatus.SUCCESS);
+        assertThat(maxActive.get()).isEqualTo(1);
+        assertThat(collectedSquares()).containsExactlyElementsOf(expectedSquares());
+    }
+
+    @Test
+    @DisplayName("reads streamed items while iterating and closes the stream")
+    void readsStreamedItemsWhileIterating() {
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        StreamedItems items = new StreamedItems() {
+            @Override
+            public Object next() {
+                return read.get() < ITEM_COUNT ? read.getAndIncrement() : null;
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+
+        ExecutionDTO result = runLoop(true, 4, items);
+
+        assertThat(result.status()).isEqualTo(ExecutionStatus.SUCCESS);
+        assertThat(maxActive.get()).isBetween(2, 4);
+        assertThat(read.get()).isEqualTo(ITEM_COUNT);
+        assertThat(closed.get()).isEqualTo(1);
+        assertThat(collected.get()).containsEntry("count", ITEM_COUNT).doesNotContainKey("itemResults");
+    }
+}
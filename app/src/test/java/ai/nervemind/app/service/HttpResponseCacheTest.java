@@ -0,0 +1,171 @@
+package ai.nervemind.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+/**
+ * Unit tests for HttpResponseCache.
+ */
+@DisplayName("HttpResponseCache")
+class HttpResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private WireMockServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create(server.baseUrl() + path)).GET().build();
+    }
+
+    private static String text(HttpResponseCache.Response response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should serve a fresh response without a request")
+    void shouldServeFreshResponse() throws Exception {
+        server.stubFor(get(urlEqualTo("/config")).willReturn(aResponse()
+                .withHeader("Cache-Control", "max-age=60")
+                .withBody("v1")));
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 1024 * 1024, true);
+
+        HttpResponseCache.Response first = cache.send(client, request("/config"), null, 0);
+        HttpResponseCache.Response second = cache.send(client, request("/config"), null, 0);
+
+        assertThat(first.outcome()).isEqualTo(HttpResponseCache.Outcome.MISS);
+        assertThat(second.outcome()).isEqualTo(HttpResponseCache.Outcome.HIT);
+        assertThat(text(second)).isEqualTo("v1");
+        server.verify(1, getRequestedFor(urlEqualTo("/config")));
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should revalidate a stale response with its ETag")
+    void shouldRevalidateWithEtag() throws Exception {
+        server.stubFor(get(urlEqualTo("/status")).withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withHeader("Cache-Control", "no-cache")
+                        .withHeader("ETag", "\"abc\"")
+                        .withBody("up")));
+        server.stubFor(get(urlEqualTo("/status")).withHeader("If-None-Match", equalTo("\"abc\""))
+                .willReturn(aResponse().withStatus(304)));
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 1024 * 1024, true);
+
+        cache.send(client, request("/status"), null, 0);
+        HttpResponseCache.Response second = cache.send(client, request("/status"), null, 0);
+
+        assertThat(second.outcome()).isEqualTo(HttpResponseCache.Outcome.REVALIDATED);
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(text(second)).isEqualTo("up");
+        assertThat(cache.stats().revalidated()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should let a TTL override the response headers but not no-store")
+    void shouldApplyTtlOverride() throws Exception {
+        server.stubFor(get(urlEqualTo("/weather")).willReturn(aResponse().withBody("sunny")));
+        server.stubFor(get(urlEqualTo("/secret")).willReturn(aResponse()
+                .withHeader("Cache-Control", "no-store")
+                .withBody("token")));
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 1024 * 1024, true);
+        Duration ttl = Duration.ofMinutes(5);
+
+        cache.send(client, request("/weather"), ttl, 0);
+        cache.send(client, request("/secret"), ttl, 0);
+
+        assertThat(cache.send(client, request("/weather"), ttl, 0).outcome())
+                .isEqualTo(HttpResponseCache.Outcome.HIT);
+        assertThat(cache.send(client, request("/secret"), ttl, 0).outcome())
+                .isEqualTo(HttpResponseCache.Outcome.MISS);
+    }
+
+    @Test
+    @DisplayName("should keep responses on disk across instances")
+    void shouldPersistToDisk() throws Exception {
+        server.stubFor(get(urlEqualTo("/config")).willReturn(aResponse()
+                .withHeader("Cache-Control", "max-age=60")
+                .withBody("v1")));
+
+        new HttpResponseCache(directory, 1024 * 1024, 1024 * 1024, true).send(client, request("/config"), null, 0);
+        HttpResponseCache reopened = new HttpResponseCache(directory, 1024 * 1024, 1024 * 1024, true);
+        HttpResponseCache.Response response = reopened.send(client, request("/config"), null, 0);
+
+        assertThat(response.outcome()).isEqualTo(HttpResponseCache.Outcome.HIT);
+        assertThat(text(response)).isEqualTo("v1");
+        assertThat(response.headers().firstValue("Cache-Control")).hasValue("max-age=60");
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used responses beyond the size limit")
+    void shouldEvictBySize() throws Exception {
+        String body = "x".repeat(1000);
+        for (String path : new String[] { "/a", "/b", "/c" }) {
+            server.stubFor(get(urlEqualTo(path)).willReturn(aResponse()
+                    .withHeader("Cache-Control", "max-age=60")
+                    .withBody(body)));
+        }
+        // Room for two entries in memory, disk turned off
+        HttpResponseCache cache = new HttpResponseCache(directory, 3500, 0, true);
+
+        cache.send(client, request("/a"), null, 0);
+        cache.send(client, request("/b"), null, 0);
+        cache.send(client, request("/a"), null, 0);
+        cache.send(client, request("/c"), null, 0);
+
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().memoryEntries()).isEqualTo(2);
+        assertThat(cache.send(client, request("/a"), null, 0).outcome()).isEqualTo(HttpResponseCache.Outcome.HIT);
+        assertThat(cache.send(client, request("/b"), null, 0).outcome()).isEqualTo(HttpResponseCache.Outcome.MISS);
+    }
+
+    @Test
+    @DisplayName("should not cache when turned off")
+    void shouldBypassWhenDisabled() throws Exception {
+        server.stubFor(get(urlEqualTo("/config")).willReturn(aResponse()
+                .withHeader("Cache-Control", "max-age=60")
+                .withBody("v1")));
+        HttpResponseCache cache = new HttpResponseCache(directory, 1024 * 1024, 1024 * 1024, false);
+
+        cache.send(client, request("/config"), null, 0);
+        HttpResponseCache.Response second = cache.send(client, request("/config"), null, 0);
+
+        assertThat(second.outcome()).isEqualTo(HttpResponseCache.Outcome.BYPASS);
+        server.verify(2, getRequestedFor(urlEqualTo("/config")));
+    }
+}
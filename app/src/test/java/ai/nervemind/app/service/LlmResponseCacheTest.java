@@ -0,0 +1,165 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for LlmResponseCache.
+ */
+@DisplayName("LlmResponseCache")
+class LlmResponseCacheTest {
+
+    private static final Map<String, Object> REQUEST = Map.of(
+            "provider", "openai",
+            "model", "gpt-4o-mini",
+            "messages", List.of(Map.of("role", "user", "content", "Classify: refund please")),
+            "temperature", 0.0);
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private Map<String, Object> answer() {
+        calls.incrementAndGet();
+        return Map.of("response", "billing", "finishReason", "stop");
+    }
+
+    private LlmResponseCache cache() {
+        return new LlmResponseCache(directory, Duration.ofHours(1), 1024 * 1024, true);
+    }
+
+    @Test
+    @DisplayName("should answer an identical request from the cache")
+    void shouldCacheIdenticalRequests() throws Exception {
+        LlmResponseCache cache = cache();
+
+        LlmResponseCache.Result first = cache.getOrLoad(REQUEST, null, this::answer);
+        LlmResponseCache.Result second = cache.getOrLoad(Map.copyOf(REQUEST), null, this::answer);
+        LlmResponseCache.Result other = cache.getOrLoad(Map.of("provider", "openai", "temperature", 0.5), null,
+                this::answer);
+
+        assertThat(first.outcome()).isEqualTo(LlmResponseCache.Outcome.MISS);
+        assertThat(second.outcome()).isEqualTo(LlmResponseCache.Outcome.HIT);
+        assertThat(second.response()).containsEntry("response", "billing");
+        assertThat(other.outcome()).isEqualTo(LlmResponseCache.Outcome.MISS);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should send concurrent identical requests once")
+    void shouldCoalesceConcurrentRequests() throws Exception {
+        LlmResponseCache cache = cache();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            Future<LlmResponseCache.Result> leader = executor.submit(() -> cache.getOrLoad(REQUEST, null, () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return answer();
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            List<Future<LlmResponseCache.Result>> followers = List.of(
+                    executor.submit(() -> cache.getOrLoad(REQUEST, null, this::answer)),
+                    executor.submit(() -> cache.getOrLoad(REQUEST, null, this::answer)));
+            // Give the followers time to join the running request
+            while (cache.stats().coalesced() < 2) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(leader.get().outcome()).isEqualTo(LlmResponseCache.Outcome.MISS);
+            for (Future<LlmResponseCache.Result> follower : followers) {
+                assertThat(follower.get().outcome()).isEqualTo(LlmResponseCache.Outcome.COALESCED);
+                assertThat(follower.get().response()).containsEntry("response", "billing");
+            }
+        }
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should not share a cancelled response with waiting requests")
+    void shouldNotShareUncacheableResponses() throws Exception {
+        LlmResponseCache cache = cache();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            Future<LlmResponseCache.Result> leader = executor.submit(() -> cache.getOrLoad(REQUEST, null, () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return Map.of("response", "bil", "finishReason", "cancelled");
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<LlmResponseCache.Result> follower = executor.submit(
+                    () -> cache.getOrLoad(REQUEST, null, this::answer));
+            while (cache.stats().coalesced() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(leader.get().response()).containsEntry("finishReason", "cancelled");
+            assertThat(follower.get().outcome()).isEqualTo(LlmResponseCache.Outcome.MISS);
+            assertThat(follower.get().response()).containsEntry("response", "billing");
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(cache.getOrLoad(REQUEST, null, this::answer).outcome())
+                .isEqualTo(LlmResponseCache.Outcome.HIT);
+    }
+
+    @Test
+    @DisplayName("should not cache failures")
+    void shouldNotCacheFailures() throws Exception {
+        LlmResponseCache cache = cache();
+
+        assertThatThrownBy(() -> cache.getOrLoad(REQUEST, null, () -> {
+            throw new IOException("rate limited");
+        })).isInstanceOf(IOException.class).hasMessage("rate limited");
+        LlmResponseCache.Result retry = cache.getOrLoad(REQUEST, null, this::answer);
+
+        assertThat(retry.outcome()).isEqualTo(LlmResponseCache.Outcome.MISS);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should keep responses on disk across instances")
+    void shouldPersistToDisk() throws Exception {
+        cache().getOrLoad(REQUEST, null, this::answer);
+
+        LlmResponseCache.Result reopened = cache().getOrLoad(REQUEST, null, this::answer);
+
+        assertThat(reopened.outcome()).isEqualTo(LlmResponseCache.Outcome.HIT);
+        assertThat(reopened.response()).containsEntry("finishReason", "stop");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should load again once the TTL has passed")
+    void shouldExpireEntries() throws Exception {
+        LlmResponseCache cache = cache();
+
+        cache.getOrLoad(REQUEST, Duration.ofMillis(1), this::answer);
+        Thread.sleep(10);
+        LlmResponseCache.Result expired = cache.getOrLoad(REQUEST, null, this::answer);
+
+        assertThat(expired.outcome()).isEqualTo(LlmResponseCache.Outcome.MISS);
+        assertThat(calls).hasValue(2);
+    }
+}
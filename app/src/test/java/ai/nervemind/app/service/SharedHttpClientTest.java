@@ -0,0 +1,156 @@
+package ai.nervemind.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+@DisplayName("SharedHttpClient")
+class SharedHttpClientTest {
+
+    private WireMockServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        server.start();
+        server.stubFor(get(urlEqualTo("/fast")).willReturn(aResponse().withStatus(200).withBody("ok")));
+        server.stubFor(get(urlEqualTo("/slow"))
+                .willReturn(aResponse().withStatus(200).withBody("ok").withFixedDelay(200)));
+        server.stubFor(get(urlEqualTo("/large"))
+                .willReturn(aResponse().withStatus(200).withBody(new byte[4 * 1024 * 1024])));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private static SharedHttpClient client(int maxConnectionsPerHost) {
+        HttpClient delegate = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        return new SharedHttpClient(delegate, maxConnectionsPerHost, 60);
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create(server.baseUrl() + path)).GET().build();
+    }
+
+    @Test
+    @DisplayName("should count sequential requests to one host as reusing its connection")
+    void shouldCountReuse() throws Exception {
+        try (SharedHttpClient client = client(8)) {
+            for (int i = 0; i < 5; i++) {
+                HttpResponse<String> response = client.send(request("/fast"), HttpResponse.BodyHandlers.ofString());
+                assertThat(response.body()).isEqualTo("ok");
+            }
+
+            SharedHttpClient.Stats stats = client.stats();
+            assertThat(stats.requests()).isEqualTo(5);
+            assertThat(stats.newConnections()).isEqualTo(1);
+            assertThat(stats.reusedConnections()).isEqualTo(4);
+            assertThat(stats.hosts()).singleElement()
+                    .satisfies(host -> {
+                        assertThat(host.host()).isEqualTo("http://localhost:" + server.port());
+                        assertThat(host.inFlight()).isZero();
+                    });
+        }
+    }
+
+    @Test
+    @DisplayName("should make requests wait when a host is at its limit")
+    void shouldLimitRequestsPerHost() throws Exception {
+        try (SharedHttpClient client = client(1);
+                ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            List<Future<HttpResponse<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(
+                        () -> client.send(request("/slow"), HttpResponse.BodyHandlers.ofString())));
+            }
+            for (Future<HttpResponse<String>> future : futures) {
+                assertThat(future.get().statusCode()).isEqualTo(200);
+            }
+
+            SharedHttpClient.Stats stats = client.stats();
+            assertThat(stats.requests()).isEqualTo(3);
+            assertThat(stats.waits()).isEqualTo(2);
+            // One slot means the requests took turns on one connection
+            assertThat(stats.newConnections()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("should apply the limit to asynchronous requests")
+    void shouldLimitAsyncRequests() throws Exception {
+        try (SharedHttpClient client = client(1)) {
+            var first = client.sendAsync(request("/slow"), HttpResponse.BodyHandlers.ofString());
+            var second = client.sendAsync(request("/slow"), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(first.get().body()).isEqualTo("ok");
+            assertThat(second.get().body()).isEqualTo("ok");
+            assertThat(client.stats().waits()).isEqualTo(1);
+            assertThat(client.stats().hosts().getFirst().inFlight()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("should fail requests that get no slot within their timeout")
+    void shouldTimeOutWaitingForSlot() throws Exception {
+        try (SharedHttpClient client = client(1)) {
+            var first = client.sendAsync(request("/slow"), HttpResponse.BodyHandlers.ofString());
+            while (client.stats().hosts().isEmpty() || client.stats().hosts().getFirst().inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            HttpRequest impatient = HttpRequest.newBuilder(URI.create(server.baseUrl() + "/fast"))
+                    .timeout(Duration.ofMillis(50))
+                    .GET()
+                    .build();
+
+            assertThatThrownBy(() -> client.send(impatient, HttpResponse.BodyHandlers.ofString()))
+                    .isInstanceOf(HttpTimeoutException.class);
+            assertThatThrownBy(() -> client.sendAsync(impatient, HttpResponse.BodyHandlers.ofString()).get())
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(HttpTimeoutException.class);
+            assertThat(first.get().body()).isEqualTo("ok");
+            assertThat(client.stats().requests()).isEqualTo(1);
+            assertThat(client.stats().hosts().getFirst().inFlight()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("should hold the slot until a streamed body is closed")
+    void shouldHoldSlotWhileStreaming() throws Exception {
+        try (SharedHttpClient client = client(1)) {
+            HttpResponse<InputStream> response = client.send(request("/large"),
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            assertThat(client.stats().hosts().getFirst().inFlight()).isOne();
+
+            response.body().close();
+
+            assertThat(client.stats().hosts().getFirst().inFlight()).isZero();
+        }
+    }
+}
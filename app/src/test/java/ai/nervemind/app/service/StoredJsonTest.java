@@ -0,0 +1,33 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for StoredJson.
+ */
+@DisplayName("StoredJson")
+class StoredJsonTest {
+
+    @Test
+    @DisplayName("should round-trip compressed JSON")
+    void shouldRoundTrip() {
+        String json = "{\"items\":[" + "{\"name\":\"value\"},".repeat(200) + "{}]}";
+
+        String compressed = StoredJson.compress(json);
+
+        assertThat(compressed).startsWith(StoredJson.PREFIX).hasSizeLessThan(json.length());
+        assertThat(StoredJson.expand(compressed)).isEqualTo(json);
+    }
+
+    @Test
+    @DisplayName("should leave plain values and values that do not shrink alone")
+    void shouldPassThroughPlainValues() {
+        assertThat(StoredJson.expand("{\"a\":1}")).isEqualTo("{\"a\":1}");
+        assertThat(StoredJson.expand(null)).isNull();
+        assertThat(StoredJson.compress("{\"a\":1}")).isNull();
+        assertThat(StoredJson.compress(StoredJson.PREFIX + "abc")).isNull();
+    }
+}
@@ -0,0 +1,109 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for Table.
+ */
+@DisplayName("Table")
+class TableTest {
+
+    private static Table sample() {
+        return Table.builder(List.of("id", "name", "score"))
+                .add(1, "ada", 9.5)
+                .add(2, "bob", null)
+                .add(3, "ada", 7.0)
+                .build();
+    }
+
+    @Test
+    @DisplayName("should store columns by value type")
+    void shouldStoreColumnsByType() {
+        Table table = sample();
+
+        assertThat(table.column("id").type()).isEqualTo(Table.Type.INT);
+        assertThat(table.column("name").type()).isEqualTo(Table.Type.STRING);
+        assertThat(table.column("name").dictionary()).containsExactly("ada", "bob");
+        assertThat(table.column("score").type()).isEqualTo(Table.Type.DOUBLE);
+        assertThat(table.column("score").isNull(1)).isTrue();
+        assertThat(table.column("missing")).isNull();
+    }
+
+    @Test
+    @DisplayName("should fall back to boxed values for mixed types")
+    void shouldBoxMixedTypes() {
+        Table table = Table.builder(List.of("value"))
+                .add(1)
+                .add("two")
+                .add(new BigDecimal("3.5"))
+                .add((Object) null)
+                .build();
+
+        assertThat(table.column("value").type()).isEqualTo(Table.Type.OBJECT);
+        assertThat(table).extracting(row -> row.get("value"))
+                .containsExactly(1, "two", new BigDecimal("3.5"), null);
+    }
+
+    @Test
+    @DisplayName("should read as a list of row maps")
+    void shouldReadAsRowMaps() {
+        Map<String, Object> second = new HashMap<>();
+        second.put("id", 2);
+        second.put("name", "bob");
+        second.put("score", null);
+
+        assertThat(sample()).hasSize(3).element(1).isEqualTo(second);
+        assertThat(sample().getFirst().keySet()).containsExactly("id", "name", "score");
+    }
+
+    @Test
+    @DisplayName("should keep the last value of a repeated column")
+    void shouldKeepLastRepeatedColumn() {
+        Table table = Table.builder(List.of("a", "b", "a")).add("first", "b", "last").add("x").build();
+
+        assertThat(table.columns()).containsExactly("a", "b");
+        assertThat(table.get(0)).containsEntry("a", "last");
+        assertThat(table.get(1)).containsEntry("a", null).containsEntry("b", null);
+    }
+
+    @Test
+    @DisplayName("should select rows without copying columns")
+    void shouldSelectRows() {
+        Table selected = sample().select(new int[] { 2, 0 });
+        Table reselected = selected.select(new int[] { 1 });
+
+        assertThat(selected).extracting(row -> row.get("id")).containsExactly(3, 1);
+        assertThat(selected.column("score").getDouble(0)).isEqualTo(7.0);
+        assertThat(reselected).extracting(row -> row.get("id")).containsExactly(1);
+        assertThatThrownBy(() -> selected.select(new int[] { 2 })).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    @DisplayName("should be read-only")
+    void shouldBeReadOnly() {
+        Table table = sample();
+
+        assertThatThrownBy(() -> table.get(0).put("id", 5)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> table.add(Map.of())).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("should serialize as a JSON array of objects")
+    void shouldSerializeAsJson() throws JsonProcessingException {
+        String json = new ObjectMapper().writeValueAsString(Map.of("rows", sample().select(new int[] { 1 })));
+
+        assertThat(json).isEqualTo("{\"rows\":[{\"id\":2,\"name\":\"bob\",\"score\":null}]}");
+    }
+}
@@ -0,0 +1,166 @@
+package ai.nervemind.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for VectorIndex and VectorIndexService.
+ */
+@DisplayName("VectorIndex")
+class VectorIndexTest {
+
+    private static float[] vector(float... values) {
+        return values;
+    }
+
+    private static VectorIndex randomIndex(int size, int dimensions, Random random) {
+        VectorIndex index = new VectorIndex(dimensions);
+        for (int i = 0; i < size; i++) {
+            index.upsert("doc-" + i, randomVector(dimensions, random), Map.of("n", i));
+        }
+        return index;
+    }
+
+    private static float[] randomVector(int dimensions, Random random) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    @Nested
+    @DisplayName("Exact search")
+    class ExactSearch {
+
+        @Test
+        @DisplayName("should return the most similar vectors first")
+        void shouldRankByCosineSimilarity() {
+            VectorIndex index = new VectorIndex(2);
+            index.upsert("east", vector(1, 0), Map.of());
+            index.upsert("north", vector(0, 5), Map.of());
+            index.upsert("north-east", vector(3, 3), Map.of());
+
+            List<VectorIndex.Hit> hits = index.search(vector(1, 0.1f), 2, VectorIndex.SearchMode.EXACT);
+
+            assertThat(hits).extracting(VectorIndex.Hit::id).containsExactly("east", "north-east");
+            assertThat(hits.get(0).score()).isCloseTo(0.995, Offset.offset(0.001));
+        }
+
+        @Test
+        @DisplayName("should skip deleted vectors and replace upserted ones")
+        void shouldApplyDeletesAndUpserts() {
+            VectorIndex index = new VectorIndex(2);
+            index.upsert("a", vector(1, 0), Map.of("v", 1));
+            index.upsert("b", vector(0, 1), Map.of());
+            index.upsert("a", vector(0, 1), Map.of("v", 2));
+            index.delete("b");
+
+            List<VectorIndex.Hit> hits = index.search(vector(0, 1), 5, VectorIndex.SearchMode.EXACT);
+
+            assertThat(hits).singleElement().satisfies(hit -> {
+                assertThat(hit.id()).isEqualTo("a");
+                assertThat(hit.payload()).containsEntry("v", 2);
+            });
+        }
+
+        @Test
+        @DisplayName("should leave the index untouched when nothing changed")
+        void shouldSkipUnchangedUpserts() {
+            VectorIndex index = new VectorIndex(2);
+
+            assertThat(index.upsert("a", vector(3, 4), Map.of("v", 1))).isTrue();
+            assertThat(index.upsert("a", vector(3, 4), Map.of("v", 1))).isFalse();
+            assertThat(index.upsert("a", vector(3, 4), Map.of("v", 2))).isTrue();
+            assertThat(index.upsert("a", vector(4, 3), Map.of("v", 2))).isTrue();
+            assertThat(index.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should reject vectors of the wrong length")
+        void shouldRejectWrongDimensions() {
+            VectorIndex index = new VectorIndex(3);
+
+            assertThatThrownBy(() -> index.upsert("a", vector(1, 2), Map.of()))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Approximate search")
+    class ApproximateSearch {
+
+        @Test
+        @DisplayName("should find most of the exact top-K")
+        void shouldHaveHighRecall() {
+            Random random = new Random(7);
+            VectorIndex index = randomIndex(2_000, 16, random);
+            for (int i = 0; i < 2_000; i += 5) {
+                index.delete("doc-" + i);
+            }
+
+            int found = 0;
+            for (int q = 0; q < 20; q++) {
+                float[] query = randomVector(16, random);
+                Set<String> exact = new HashSet<>();
+                index.search(query, 10, VectorIndex.SearchMode.EXACT).forEach(hit -> exact.add(hit.id()));
+                for (VectorIndex.Hit hit : index.search(query, 10, VectorIndex.SearchMode.APPROXIMATE)) {
+                    if (exact.contains(hit.id())) {
+                        found++;
+                    }
+                }
+            }
+
+            assertThat(found).isGreaterThan(180);
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class Persistence {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        @DisplayName("should reload a saved collection")
+        void shouldRoundTrip() {
+            VectorIndexService writer = new VectorIndexService(directory, new ObjectMapper());
+            VectorIndex index = writer.collection("kb", 2);
+            index.upsert("a", vector(1, 0), Map.of("content", "alpha"));
+            index.upsert("b", vector(0, 1), Map.of("content", "beta"));
+            writer.save("kb");
+
+            VectorIndex reloaded = new VectorIndexService(directory, new ObjectMapper()).collection("kb", 2);
+
+            assertThat(reloaded.size()).isEqualTo(2);
+            assertThat(reloaded.search(vector(0, 1), 1, VectorIndex.SearchMode.EXACT))
+                    .singleElement().satisfies(hit -> assertThat(hit.payload()).containsEntry("content", "beta"));
+        }
+
+        @Test
+        @DisplayName("should reject invalid names and mismatched dimensions")
+        void shouldValidate() {
+            VectorIndexService service = new VectorIndexService(directory, new ObjectMapper());
+            service.collection("kb", 2);
+
+            assertThatThrownBy(() -> service.collection("../etc", 2)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> service.collection("kb", 3)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
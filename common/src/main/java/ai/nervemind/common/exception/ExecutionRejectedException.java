@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2026 NerveMind
+ * Licensed under the MIT License
+ */
+package ai.nervemind.common.exception;
+
+/**
+ * Exception thrown when a workflow execution cannot be admitted because the
+ * execution queue is full. Callers should retry later.
+ */
+public class ExecutionRejectedException extends NerveMindException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The workflow whose execution was rejected. */
+    private final Long workflowId;
+
+    /**
+     * Create a new ExecutionRejectedException.
+     *
+     * @param message    the exception message
+     * @param workflowId the workflow whose execution was rejected
+     */
+    public ExecutionRejectedException(String message, Long workflowId) {
+        super(message);
+        this.workflowId = workflowId;
+    }
+
+    /**
+     * Get the workflow whose execution was rejected.
+     *
+     * @return the workflow ID
+     */
+    public Long getWorkflowId() {
+        return workflowId;
+    }
+}
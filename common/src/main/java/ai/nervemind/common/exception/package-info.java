@@ -22,6 +22,8 @@
  * serialization/parsing failures</li>
  * <li>{@link ai.nervemind.common.exception.UiInitializationException} - UI
  * component initialization failures</li>
+ * <li>{@link ai.nervemind.common.exception.ExecutionRejectedException} -
+ * Workflow runs rejected by a full execution queue</li>
  * </ul>
  *
  * <p>
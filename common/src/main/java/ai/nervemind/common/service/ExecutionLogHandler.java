@@ -23,6 +23,8 @@ import java.util.Map;
  *       │
  *       ├── NODE_START ──&gt; NODE_INPUT ──&gt; NODE_OUTPUT ──&gt; NODE_END
  *       │       │
+ *       │       ├── NODE_PROGRESS (while long-running nodes work)
+ *       │       │
  *       │       └── (or NODE_SKIP if disabled)
  *       │
  *       ├── DATA_FLOW (between nodes)
@@ -92,6 +94,8 @@ public interface ExecutionLogHandler {
         NODE_INPUT,
         /** Logs node output data. */
         NODE_OUTPUT,
+        /** Incremental progress of a running node, e.g. streamed text. */
+        NODE_PROGRESS,
         /** Data flow between nodes. */
         DATA_FLOW,
         /** Variable operations. */
@@ -63,14 +63,15 @@ import ai.nervemind.common.dto.ExecutionDTO;
 public interface ExecutionServiceInterface {
 
     /**
-     * Find all executions.
+     * Find all executions. Node-level details are not loaded; use
+     * {@link #findById(Long)} for those.
      * 
      * @return list of all executions
      */
     List<ExecutionDTO> findAll();
 
     /**
-     * Find an execution by ID.
+     * Find an execution by ID, including its node executions.
      * 
      * @param id the execution ID
      * @return optional containing the execution if found
@@ -78,7 +79,7 @@ public interface ExecutionServiceInterface {
     Optional<ExecutionDTO> findById(Long id);
 
     /**
-     * Find executions by workflow ID.
+     * Find executions by workflow ID. Node-level details are not loaded.
      * 
      * @param workflowId the workflow ID
      * @return list of executions for the workflow
@@ -558,7 +558,9 @@ public class MainViewController implements Initializable {
         executionsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             viewModel.setSelectedExecution(newVal);
             if (newVal != null) {
-                showExecutionDetails(detailsPanel, newVal);
+                // The list only carries summaries; load node details for the
+                // selected execution
+                showExecutionDetails(detailsPanel, executionService.findById(newVal.id()).orElse(newVal));
                 detailsPanel.setVisible(true);
                 detailsPanel.setManaged(true);
             } else {